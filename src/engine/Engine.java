@@ -3,6 +3,7 @@ package engine;
 import java.io.File;
 import java.util.Calendar;
 import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
@@ -11,9 +12,13 @@ import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 import engine.client.Client;
+import engine.client.graphics.DisplayList;
 import engine.config.Configuration;
 import engine.launcher.LaunchConfig;
+import engine.level.Entity;
 import engine.networknio.ConnectionNIO;
+import engine.networknio.ConnectionNIO.SlowConsumerPolicy;
+import engine.networknio.packet.PacketEntityPositions;
 import engine.physics.Physics;
 import engine.server.Server;
 
@@ -24,7 +29,8 @@ import engine.server.Server;
  * <p>
  * To use the {@code Engine} class, first {@link #createEngine(LaunchConfig) create} the instance. This will
  * do all the initialization tasks that are required. After that, call its {@link #startClient(Client)} or
- * {@link #startServer(Server)} methods with a game instance in order to run it
+ * {@link #startServer(Server)} methods with a game instance in order to run it. To host many small games in
+ * one process, {@link #startRooms(RoomManager)} can be called instead of {@link #startServer(Server)}.
  * <p>
  * In order to run {@code Server} and {@code Client}, the {@code Engine} creates separate {@code Thread}s for
  * each, which then run independently of each other. As a result, in order to resolve concurrency issues, the
@@ -37,7 +43,12 @@ import engine.server.Server;
  * (obviously) which depends on {@link #DEFAULT_VSYNC} ({@value #DEFAULT_VSYNC}) as well as
  * {@link #DEFAULT_FRAME_RATE} which is {@value #DEFAULT_FRAME_RATE} frames/second. If {@code VSYNC} is
  * activated, then the {@code Client} will try to render at (as smooth as possible)
- * {@value #DEFAULT_FRAME_RATE} frames/second, otherwise it will render whenever it can.
+ * {@value #DEFAULT_FRAME_RATE} frames/second, otherwise it will render whenever it can. Rendering happens on
+ * a thread of its own, which replays the {@code DisplayList} that the {@code Client} records after every tick,
+ * so slow frames never hold up ticking.
+ * <p>
+ * Ticks (and frames, with {@code VSYNC}) are kept on time by a {@link TickScheduler}, which also records how
+ * late they run. The statistics are logged once a second at {@code FINE}.
  * <p>
  * Also features some utility! For a single {@code Random} instance, there exists {@link #rand}, and for
  * {@code File} usage there is {@link #getFilePath()} to get to the directory where files should be stored.
@@ -65,9 +76,36 @@ public class Engine {
 	 */
 	public static Handler allHandler;
 	
-	private static final Formatter engineFormatter = new EngineLogFormatter();
+	/**
+	 * Whether the {@code Engine} is running as a dedicated server without any display, in which case nothing
+	 * from {@code java.awt} or {@code javax.swing} should ever be loaded
+	 * 
+	 * @see engine.launcher.LaunchWrapper#launchHeadless(int, int)
+	 */
+	public static boolean headless = false;
+	
+	/**
+	 * Whether {@link #setUpLogging()} has been called
+	 */
+	private static boolean loggingSetUp = false;
 	
-	static {
+	/**
+	 * Sets up the {@code Handler}s of {@link #ENGINE_LOGGER}, if they have not been set up already. This is done
+	 * by {@link #createEngine(LaunchConfig)}, not when the {@code Engine} class is first loaded.
+	 * <p>
+	 * Unless the {@code Engine} is {@link #headless}, records are written to rotating files in the "logs"
+	 * directory. Headless servers skip the files, and leave their records to the console.
+	 */
+	public static synchronized void setUpLogging() {
+		if (loggingSetUp) {
+			return;
+		}
+		loggingSetUp = true;
+		ENGINE_LOGGER.setFilter(null);
+		ENGINE_LOGGER.setLevel(Level.ALL);
+		if (headless) {
+			return;
+		}
 		File logDirectory = new File("logs");
 		try {
 			if (!logDirectory.exists()) {
@@ -76,14 +114,14 @@ public class Engine {
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		ENGINE_LOGGER.setFilter(null);
-		ENGINE_LOGGER.setLevel(Level.ALL);
 		try {
 			cfgHandler = new FileHandler("logs/infolog%u.%g.txt", 262144, 4);
 			allHandler = new FileHandler("logs/alllog%u.%g.txt", 262144, 4);
 		} catch (Exception e) {
 			e.printStackTrace();
+			return;
 		}
+		Formatter engineFormatter = new EngineLogFormatter();
 		cfgHandler.setLevel(Level.CONFIG);
 		cfgHandler.setFilter(null);
 		allHandler.setLevel(Level.ALL);
@@ -149,6 +187,11 @@ public class Engine {
 	 */
 	private boolean vSync;
 	
+	/**
+	 * The most ticks that are run in a row to catch up, when ticks take too long
+	 */
+	private int maxCatchUp;
+	
 	/**
 	 * The sole instance of the {@code Engine}
 	 * <p>
@@ -165,6 +208,8 @@ public class Engine {
 	
 	private ServerThread sThread;
 	
+	private RoomThread rThread;
+	
 	/**
 	 * The server thread
 	 */
@@ -175,6 +220,16 @@ public class Engine {
 	 */
 	private Thread clientThread;
 	
+	/**
+	 * The thread that ticks the rooms of the {@code RoomManager}
+	 */
+	private Thread roomThread;
+	
+	/**
+	 * The {@code RoomManager} instance
+	 */
+	private RoomManager rooms;
+	
 	/**
 	 * A {@code Thread} that the {@code Engine} uses to control gameplay
 	 * 
@@ -184,15 +239,69 @@ public class Engine {
 		
 		
 		/**
-		 * Whether the {@code Engine} should be running
+		 * Whether the {@code Engine} should be running. Volatile, since {@link #stop()} is called from other
+		 * threads.
 		 */
-		protected boolean running = true;
+		protected volatile boolean running = true;
 		
 		/**
 		 * The game time, in ticks, that has passed since this thread has launched
 		 */
 		public long gameTime = 0;
 		
+		/**
+		 * The {@code TickScheduler} that keeps the tick rate, and records how late the ticks run
+		 */
+		public TickScheduler scheduler;
+		
+		/**
+		 * The last time that {@link #report(String, TickScheduler)} logged, in {@link System#nanoTime()}
+		 */
+		private long lastReport = System.nanoTime();
+		
+		/**
+		 * The number of skipped ticks at the last report
+		 */
+		private long lastSkipped;
+		
+		/**
+		 * Logs the statistics of the given {@code TickScheduler} once a second, with a warning if any ticks
+		 * were skipped since the last time
+		 * 
+		 * @param name
+		 *            What to call the thread in the log
+		 * @param scheduler
+		 *            The {@code TickScheduler}
+		 */
+		protected void report(String name, TickScheduler scheduler) {
+			long now = System.nanoTime();
+			if (now - this.lastReport < 1000000000) {
+				return;
+			}
+			this.lastReport = now;
+			ENGINE_LOGGER.log(Level.FINE, name + ":\t" + scheduler);
+			if (scheduler.getSkipped() > this.lastSkipped) {
+				ENGINE_LOGGER.log(Level.WARNING, name + ":\tCan't keep up! Skipped "
+						+ (scheduler.getSkipped() - this.lastSkipped) + " ticks");
+				this.lastSkipped = scheduler.getSkipped();
+			}
+		}
+		
+		/**
+		 * Waits for the next ticks of {@link #scheduler}. If the thread is interrupted, it stops instead.
+		 * 
+		 * @return The number of ticks to run, which is 0 if the thread was interrupted
+		 */
+		protected int awaitTicks() {
+			try {
+				return this.scheduler.awaitTicks();
+			} catch (InterruptedException e) {
+				ENGINE_LOGGER.log(Level.INFO, Thread.currentThread().getName() + " was interrupted, stopping");
+				this.stop();
+				return 0;
+			}
+		}
+		
 		public abstract void tick();
 		
 		public abstract void init();
@@ -212,58 +321,35 @@ public class Engine {
 		
 		private Client c;
 		
+		/**
+		 * The {@code RenderThread} that draws the {@code DisplayList}s recorded after every tick
+		 */
+		public RenderThread renderer;
+		
 		public ClientThread(Client c) {
 			this.c = c;
+			this.renderer = new RenderThread(c);
 		}
 		
 		@Override
 		public void run() {
-			long lastTime = System.nanoTime();
-			double uTick = 0;
-			double uFrame = 0;
-			double nsPerTick = 1000000000.0 / instance.tickRate;
-			double nsPerFrame = 1000000000.0 / instance.frameRate;
-			int frames = 0;
-			int ticks = 0;
-			long lastTimer1 = System.currentTimeMillis();
-			
 			this.init();
 			
+			this.scheduler = new TickScheduler(instance.tickRate, instance.maxCatchUp);
+			new Thread(this.renderer, "Engine Render Thread").start();
+			
 			while (this.running) {
-				long now = System.nanoTime();
-				uTick += (now - lastTime) / nsPerTick;
-				uFrame += (now - lastTime) / nsPerFrame;
-				lastTime = now;
-				boolean shouldRender = !instance.vSync;
-				while (uTick >= 1) {
-					ticks++;
+				int ticks = this.awaitTicks();
+				for (int i = 0; i < ticks; i++) {
 					this.tick();
-					uTick -= 1;
-				}
-				
-				while (uFrame >= 1) {
-					uFrame--;
-					shouldRender = true;
 				}
-				
-				try {
-					Thread.sleep(2);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-				
-				if (shouldRender) {
-					frames++;
-					this.render();
+				if (ticks > 0) {
+					this.renderer.publish(this.c.record());
 				}
 				
-				if (System.currentTimeMillis() - lastTimer1 > 1000) {
-					lastTimer1 += 1000;
-					ENGINE_LOGGER.log(Level.INFO, "CLIENT:\t" + ticks + " ticks, " + frames + " fps");
-					frames = 0;
-					ticks = 0;
-				}
+				this.report("CLIENT", this.scheduler);
 			}
+			this.renderer.stop();
 		}
 		
 		@Override
@@ -278,8 +364,138 @@ public class Engine {
 			this.c.init();
 		}
 		
-		public void render() {
-			this.c.render();
+		@Override
+		public void stop() {
+			super.stop();
+			this.renderer.stop();
+		}
+		
+	}
+	
+	/**
+	 * The {@code EngineThread} that renders the {@code Client}, separately from its ticking
+	 * <p>
+	 * It only ever replays the latest {@code DisplayList} that the {@code ClientThread} has
+	 * {@linkplain #publish(DisplayList) published}, so however long a frame takes, ticks stay on time. With
+	 * {@code vSync}, frames are kept to the frame rate by {@link #scheduler}. Otherwise a frame is also
+	 * rendered as soon as a new {@code DisplayList} is published, but the thread still parks in between
+	 * rather than redrawing the same one over and over.
+	 * 
+	 * @author Kevin
+	 */
+	protected static class RenderThread extends EngineThread {
+		
+		
+		private Client c;
+		
+		/**
+		 * The latest complete {@code DisplayList}
+		 */
+		private volatile DisplayList displayList = DisplayList.EMPTY;
+		
+		/**
+		 * The {@code DisplayList} that was drawn by the last frame
+		 */
+		private DisplayList rendered;
+		
+		/**
+		 * The time between ticks, in nanoseconds, for interpolating
+		 */
+		private long period;
+		
+		/**
+		 * The thread running this {@code RenderThread}, which is woken up when a {@code DisplayList} is
+		 * published
+		 */
+		private volatile Thread thread;
+		
+		public RenderThread(Client c) {
+			this.c = c;
+		}
+		
+		/**
+		 * Hands over a newly recorded {@code DisplayList}, which is drawn from the next frame on
+		 * 
+		 * @param list
+		 *            The {@code DisplayList}
+		 */
+		public void publish(DisplayList list) {
+			this.displayList = list;
+			this.wake();
+		}
+		
+		@Override
+		public void run() {
+			this.thread = Thread.currentThread();
+			this.init();
+			
+			// Frames that are missed are never worth catching up on
+			this.scheduler = new TickScheduler(instance.frameRate, 1);
+			
+			while (this.running) {
+				if (instance.vSync) {
+					int frames = this.awaitTicks();
+					if (frames == 0) {
+						continue;
+					}
+				} else {
+					this.awaitFrame();
+					if (!this.running) {
+						break;
+					}
+				}
+				this.report("RENDER", this.scheduler);
+				this.tick();
+			}
+		}
+		
+		/**
+		 * Parks until a new {@code DisplayList} is published, or the next frame is due
+		 */
+		private void awaitFrame() {
+			long deadline = this.scheduler.getNextTick();
+			while (this.running && this.displayList == this.rendered && deadline - System.nanoTime() > 0) {
+				LockSupport.parkNanos(this, deadline - System.nanoTime());
+				if (Thread.interrupted()) {
+					// Parking wouldn't wait anymore
+					ENGINE_LOGGER.log(Level.INFO, "Render thread was interrupted, stopping");
+					this.stop();
+				}
+			}
+			// Moves the deadline on, if it was reached
+			this.scheduler.pollTicks();
+		}
+		
+		/**
+		 * Wakes up the thread, if it is parked
+		 */
+		private void wake() {
+			Thread t = this.thread;
+			if (t != null) {
+				LockSupport.unpark(t);
+			}
+		}
+		
+		/**
+		 * Renders a frame
+		 */
+		@Override
+		public void tick() {
+			this.gameTime++;
+			DisplayList list = this.displayList;
+			this.rendered = list;
+			this.c.render(list, list.getAlpha(this.period));
+		}
+		
+		@Override
+		public void stop() {
+			super.stop();
+			this.wake();
+		}
+		
+		@Override
+		public void init() {
+			this.period = (long) (1000000000.0 / instance.tickRate);
 		}
 		
 	}
@@ -300,35 +516,17 @@ public class Engine {
 		
 		@Override
 		public void run() {
-			long lastTime = System.nanoTime();
-			double unprocessed = 0;
-			double nsPerTick = 1000000000.0 / instance.tickRate;
-			int ticks = 0;
-			long lastTimer1 = System.currentTimeMillis();
-			
 			this.init();
 			
+			this.scheduler = new TickScheduler(instance.tickRate, instance.maxCatchUp);
+			
 			while (this.running) {
-				long now = System.nanoTime();
-				unprocessed += (now - lastTime) / nsPerTick;
-				lastTime = now;
-				while (unprocessed >= 1) {
-					ticks++;
+				int ticks = this.awaitTicks();
+				for (int i = 0; i < ticks; i++) {
 					this.tick();
-					unprocessed -= 1;
-				}
-				
-				try {
-					Thread.sleep(2);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
 				}
 				
-				if (System.currentTimeMillis() - lastTimer1 > 1000) {
-					lastTimer1 += 1000;
-					ENGINE_LOGGER.log(Level.INFO, "SERVER:\t" + ticks + " ticks");
-					ticks = 0;
-				}
+				this.report("SERVER", this.scheduler);
 			}
 		}
 		
@@ -345,6 +543,51 @@ public class Engine {
 		
 	}
 	
+	/**
+	 * The {@code EngineThread} used to tick the rooms of a {@code RoomManager}
+	 * <p>
+	 * This thread only keeps time. The rooms themselves are ticked by the worker threads of the
+	 * {@code RoomManager}, each on its own clock.
+	 * 
+	 * @author Kevin
+	 */
+	protected static class RoomThread extends EngineThread {
+		
+		
+		private RoomManager rooms;
+		
+		public RoomThread(RoomManager rooms) {
+			this.rooms = rooms;
+		}
+		
+		@Override
+		public void run() {
+			this.init();
+			
+			this.scheduler = new TickScheduler(instance.tickRate, instance.maxCatchUp);
+			
+			while (this.running) {
+				int ticks = this.awaitTicks();
+				for (int i = 0; i < ticks; i++) {
+					this.tick();
+				}
+				
+				this.report("ROOMS", this.scheduler);
+			}
+		}
+		
+		@Override
+		public void tick() {
+			this.gameTime++;
+			this.rooms.tick();
+		}
+		
+		@Override
+		public void init() {
+		}
+		
+	}
+	
 	private Engine() {
 	}
 	
@@ -359,6 +602,7 @@ public class Engine {
 			ENGINE_LOGGER.warning("Why are you trying to create another instance of Engine?");
 			return;
 		}
+		setUpLogging();
 		instance = new Engine();
 		config.config = new Configuration(config);
 		config.addProperties();
@@ -366,15 +610,25 @@ public class Engine {
 		instance.tickRate = Integer.parseInt(config.config.tickRate.getValue());
 		instance.frameRate = Integer.parseInt(config.config.frameRate.getValue());
 		instance.vSync = Boolean.parseBoolean(config.config.vSync.getValue());
-		if (!Boolean.parseBoolean(config.config.cfgLog.getValue())) {
+		instance.maxCatchUp = Integer.parseInt(config.config.maxCatchUp.getValue());
+		if (cfgHandler != null && !Boolean.parseBoolean(config.config.cfgLog.getValue())) {
 			cfgHandler.close();
 		}
-		if (!Boolean.parseBoolean(config.config.allLog.getValue())) {
+		if (allHandler != null && !Boolean.parseBoolean(config.config.allLog.getValue())) {
 			allHandler.close();
 		}
 		ConnectionNIO.TCP_BUFFER_SIZE = Integer.parseInt(config.config.tcpBuff.getValue());
 		ConnectionNIO.UDP_BUFFER_SIZE = Integer.parseInt(config.config.udpBuff.getValue());
+		ConnectionNIO.MAX_FRAME_SIZE = Integer.parseInt(config.config.maxFrame.getValue());
+		ConnectionNIO.HIGH_WATERMARK = Integer.parseInt(config.config.highWater.getValue());
+		ConnectionNIO.LOW_WATERMARK = Integer.parseInt(config.config.lowWater.getValue());
+		ConnectionNIO.SLOW_CONSUMER_POLICY = SlowConsumerPolicy.valueOf(config.config.slowPolicy.getValue());
+		PacketEntityPositions.PRECISION = Integer.parseInt(config.config.posPrecision.getValue());
 		Physics.subticks = Integer.parseInt(config.config.physTicks.getValue());
+		Physics.cellSize = Double.parseDouble(config.config.physCellSize.getValue());
+		Physics.threads = Integer.parseInt(config.config.physThreads.getValue());
+		Physics.fixedPoint = Boolean.parseBoolean(config.config.physFixed.getValue());
+		Entity.SNAP_DISTANCE = Double.parseDouble(config.config.snapDist.getValue());
 		
 		config.processProperties();
 		
@@ -409,6 +663,18 @@ public class Engine {
 		instance.startServer();
 	}
 	
+	/**
+	 * Starts ticking the rooms of the given {@code RoomManager}
+	 * 
+	 * @param rooms
+	 *            The {@code RoomManager}
+	 */
+	public static void startRooms(RoomManager rooms) {
+		instance.filePath = "res/" + Game.getName(rooms.gameClass).toLowerCase() + "/";
+		instance.rooms = rooms;
+		instance.startRooms();
+	}
+	
 	/**
 	 * Gets the Filepath to the directory used
 	 * <p>
@@ -428,6 +694,20 @@ public class Engine {
 		return instance.client;
 	}
 	
+	/**
+	 * Checks whether there is a {@code Client} running, without loading the {@code Client} class, which a
+	 * {@link #headless} server must never do
+	 * 
+	 * @return Whether there is a {@code Client}
+	 */
+	public static boolean hasClient() {
+		return instance != null && instance.client != null;
+	}
+	
+	public static RoomManager getRooms() {
+		return instance.rooms;
+	}
+	
 	/**
 	 * Starts the {@code Engine}'s {@code ClientThread}
 	 */
@@ -448,6 +728,16 @@ public class Engine {
 		this.serverThread.start();
 	}
 	
+	/**
+	 * Starts the {@code Engine}'s {@code RoomThread}
+	 */
+	private void startRooms() {
+		this.rThread = new RoomThread(this.rooms);
+		this.roomThread = new Thread(this.rThread, "Engine Room Thread");
+		ENGINE_LOGGER.fine("Room Thread ID:\t" + this.roomThread.getId());
+		this.roomThread.start();
+	}
+	
 	/**
 	 * Stops the {@code ClientThread}
 	 */
@@ -462,6 +752,14 @@ public class Engine {
 		this.sThread.stop();
 	}
 	
+	/**
+	 * Stops the {@code RoomThread}, and closes every room
+	 */
+	public void stopRooms() {
+		this.rThread.stop();
+		this.rooms.shutdown();
+	}
+	
 	/**
 	 * Returns the tick rate of the Engine instance.
 	 * 
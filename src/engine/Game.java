@@ -53,6 +53,13 @@ public abstract class Game {
 	 */
 	public EventBus temporaryEvents = new EventBus("Game Temporary Events");
 	
+	/**
+	 * The {@code Server} hosting this game, or {@code null} on the {@code Client} side. Since there may be
+	 * several rooms in a single {@code Server} process, anything that ticks on the server side should look
+	 * its {@code Server} up through here.
+	 */
+	public Server server;
+	
 	/**
 	 * The current {@code Level} being played.
 	 */
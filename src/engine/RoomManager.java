@@ -0,0 +1,281 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+
+import engine.networknio.NIOReactor;
+import engine.server.Server;
+import engine.server.ServerNIOListener;
+
+/**
+ * Hosts many small {@code Game}s, or rooms, in a single server process
+ * <p>
+ * Every room is a {@code Server} with its own {@code Game}, {@code ConnectionList} and clock, but the rooms
+ * share everything that would otherwise cost a thread each: a single listener accepts connections on one
+ * port and hands them to a room through {@link #queueConnection(SocketChannel)}, a single
+ * {@code NIOReactor} reads from the connections of every room, and the rooms are ticked by a fixed pool of
+ * {@link #workers} threads. So the number of threads stays the same no matter how many rooms there are.
+ * <p>
+ * The state of a room is only ever changed by the worker ticking it. New rooms are initialized, and new
+ * connections accepted, at the start of the next tick of their room rather than on the listener thread.
+ * <p>
+ * Subclasses create the rooms in {@link #createRoom()}. Start the {@code RoomManager} with
+ * {@link Engine#startRooms(RoomManager)}, which ticks every room at the tick rate of the {@code Engine}.
+ * 
+ * @author Kevin
+ */
+public abstract class RoomManager {
+	
+	
+	/**
+	 * The default number of worker threads
+	 */
+	public static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * The {@code Game} class that is played in the rooms
+	 */
+	public final Class<? extends Game> gameClass;
+	
+	/**
+	 * The most {@code Client}s that are put in a single room
+	 */
+	public int roomCapacity;
+	
+	/**
+	 * The number of threads that tick the rooms
+	 */
+	public final int workers;
+	
+	/**
+	 * The rooms that are currently open
+	 */
+	private List<Server> rooms = new CopyOnWriteArrayList<Server>();
+	
+	/**
+	 * The rooms whose {@code Game} is initialized at the start of their next tick
+	 */
+	private Set<Server> uninitialized = Collections.newSetFromMap(new ConcurrentHashMap<Server, Boolean>());
+	
+	/**
+	 * The connection listener
+	 */
+	private ServerNIOListener listener;
+	
+	/**
+	 * The {@code NIOReactor} that accepts connections, and reads from the connections of every room
+	 */
+	private NIOReactor reactor;
+	
+	/**
+	 * The worker threads
+	 */
+	private ForkJoinPool pool;
+	
+	/**
+	 * Creates a new {@code RoomManager} that listens on the given port, with {@link #DEFAULT_WORKERS} workers
+	 * 
+	 * @param gameClass
+	 *            The {@code Game} class that is played in the rooms
+	 * @param port
+	 *            The port to listen on
+	 * @param roomCapacity
+	 *            The most {@code Client}s that are put in a single room
+	 */
+	public RoomManager(Class<? extends Game> gameClass, int port, int roomCapacity) {
+		this(gameClass, port, roomCapacity, DEFAULT_WORKERS);
+	}
+	
+	/**
+	 * Creates a new {@code RoomManager} that listens on the given port
+	 * 
+	 * @param gameClass
+	 *            The {@code Game} class that is played in the rooms
+	 * @param port
+	 *            The port to listen on
+	 * @param roomCapacity
+	 *            The most {@code Client}s that are put in a single room
+	 * @param workers
+	 *            The number of threads that tick the rooms
+	 */
+	public RoomManager(Class<? extends Game> gameClass, int port, int roomCapacity, int workers) {
+		this.gameClass = gameClass;
+		this.roomCapacity = roomCapacity;
+		this.workers = Math.max(1, workers);
+		this.pool = new ForkJoinPool(this.workers);
+		try {
+			this.reactor = new NIOReactor("Room Connection Reactor");
+			this.reactor.start();
+			this.listener = new ServerNIOListener(this, port, this.reactor);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Creates a new room. The {@code Server} should be created with
+	 * {@link Server#Server(Game, int, RoomManager)}, so that it doesn't start threads of its own.
+	 * 
+	 * @return The new room
+	 */
+	protected abstract Server createRoom();
+	
+	/**
+	 * Opens a new room and starts ticking it. Its {@code Game} is initialized on its first tick.
+	 * 
+	 * @return The new room
+	 */
+	public Server openRoom() {
+		Server room = this.createRoom();
+		this.uninitialized.add(room);
+		this.rooms.add(room);
+		Server.logger.fine("Opened room " + this.rooms.size());
+		return room;
+	}
+	
+	/**
+	 * Closes the given room, disconnecting everyone in it
+	 * 
+	 * @param room
+	 *            The room
+	 */
+	public void closeRoom(Server room) {
+		this.uninitialized.remove(room);
+		if (this.rooms.remove(room)) {
+			room.shutdown();
+		}
+	}
+	
+	/**
+	 * Picks the room for a {@code Client} that has just connected. By default, the first room that isn't full
+	 * and hasn't started yet, or a new room if there isn't one.
+	 * 
+	 * @return The room
+	 */
+	public synchronized Server assignRoom() {
+		for (Server room : this.rooms) {
+			if (!room.game.start && room.getConnectionCount() < this.roomCapacity) {
+				return room;
+			}
+		}
+		return this.openRoom();
+	}
+	
+	/**
+	 * Hands a {@code Client} that has just connected to the room picked by {@link #assignRoom()}, which
+	 * accepts it at the start of its next tick
+	 * 
+	 * @param s
+	 *            The {@code SocketChannel} of the {@code Client}
+	 */
+	public synchronized void queueConnection(SocketChannel s) {
+		this.assignRoom().queueConnection(s);
+	}
+	
+	/**
+	 * Gets the {@code NIOReactor} that the rooms should read their connections on
+	 * 
+	 * @return The {@code NIOReactor}
+	 */
+	public NIOReactor getReactor() {
+		return this.reactor;
+	}
+	
+	/**
+	 * Gets the rooms that are currently open
+	 * 
+	 * @return The rooms, which must not be changed
+	 */
+	public List<Server> getRooms() {
+		return this.rooms;
+	}
+	
+	/**
+	 * Ticks every room once, spread over the worker threads. A room that throws is closed, rather than
+	 * taking every other room down with it.
+	 */
+	public void tick() {
+		Server[] rooms = this.rooms.toArray(new Server[0]);
+		if (rooms.length > 0) {
+			int grain = Math.max(1, rooms.length / (this.workers * 4));
+			this.pool.invoke(new RoomTask(rooms, 0, rooms.length, grain));
+		}
+	}
+	
+	/**
+	 * Ticks a single room
+	 */
+	private void tickRoom(Server room) {
+		try {
+			if (this.uninitialized.remove(room)) {
+				room.game.init();
+			}
+			room.tick();
+		} catch (Exception e) {
+			Server.logger.log(Level.SEVERE, "Room crashed, closing it", e);
+			this.closeRoom(room);
+		}
+	}
+	
+	/**
+	 * Closes every room and stops listening
+	 */
+	public void shutdown() {
+		if (this.listener != null) {
+			this.listener.shutdown();
+		}
+		for (Server room : this.rooms) {
+			this.closeRoom(room);
+		}
+		this.reactor.shutdown();
+		this.pool.shutdown();
+	}
+	
+	/**
+	 * Splits the rooms into chunks until they are small enough to tick directly
+	 * 
+	 * @author Kevin
+	 */
+	private class RoomTask extends RecursiveAction {
+		
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		private final Server[] rooms;
+		
+		private final int lo, hi, grain;
+		
+		public RoomTask(Server[] rooms, int lo, int hi, int grain) {
+			this.rooms = rooms;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+		
+		@Override
+		protected void compute() {
+			if (this.hi - this.lo <= this.grain) {
+				for (int i = this.lo; i < this.hi; i++) {
+					RoomManager.this.tickRoom(this.rooms[i]);
+				}
+			} else {
+				int mid = (this.lo + this.hi) >>> 1;
+				invokeAll(new RoomTask(this.rooms, this.lo, mid, this.grain),
+						new RoomTask(this.rooms, mid, this.hi, this.grain));
+			}
+		}
+		
+	}
+	
+}
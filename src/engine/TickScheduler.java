@@ -0,0 +1,281 @@
+package engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps a fixed rate of ticks (or frames) for an {@code EngineThread}
+ * <p>
+ * Every tick has a deadline, one period after the last. {@link #sleepUntil(long)} parks the thread until
+ * shortly before the deadline, then spins for the last stretch, since parking on its own can oversleep by a
+ * good fraction of a millisecond. This wastes no CPU while idle, but still starts ticks within a few
+ * microseconds of when they are due.
+ * <p>
+ * If ticks take so long that the thread falls behind, it catches up by running several ticks in a row, but no
+ * more than {@link #maxCatchUp}. Anything beyond that is skipped, rather than letting the thread spiral into
+ * running an ever growing backlog.
+ * <p>
+ * How late every tick started is recorded in a histogram, along with the number of times the thread fell
+ * behind and the number of ticks that were skipped.
+ * 
+ * @author Kevin
+ */
+public class TickScheduler {
+	
+	
+	/**
+	 * The default for the most ticks that are run in a row to catch up
+	 * 
+	 * @see maxCatchUp
+	 */
+	public static final int DEFAULT_MAX_CATCH_UP = 5;
+	
+	/**
+	 * How long before a deadline to stop parking and start spinning, in nanoseconds
+	 */
+	public static final long SPIN_NANOS = 200000;
+	
+	/**
+	 * The number of buckets in the lateness histogram. Bucket 0 holds ticks that were less than 1 microsecond
+	 * late, bucket {@code i} holds ticks that were 2^(i-1) to 2^i microseconds late, and the last bucket holds
+	 * everything later.
+	 */
+	public static final int BUCKETS = 24;
+	
+	/**
+	 * The time between ticks, in nanoseconds
+	 */
+	public final long period;
+	
+	/**
+	 * The most ticks that are run in a row to catch up
+	 */
+	public int maxCatchUp;
+	
+	/**
+	 * The deadline of the next tick, in {@link System#nanoTime()}
+	 */
+	private long nextTick;
+	
+	/**
+	 * The number of ticks that were run
+	 */
+	private long ticks;
+	
+	/**
+	 * The number of times that the thread was a full period or more behind
+	 */
+	private long overruns;
+	
+	/**
+	 * The number of ticks that were skipped because of {@link #maxCatchUp}
+	 */
+	private long skipped;
+	
+	/**
+	 * The lateness histogram
+	 */
+	private final long[] lateness = new long[BUCKETS];
+	
+	/**
+	 * The latest that any tick has started, in nanoseconds
+	 */
+	private long maxLateness;
+	
+	/**
+	 * Creates a new {@code TickScheduler}
+	 * 
+	 * @param rate
+	 *            The number of ticks per second
+	 * @param maxCatchUp
+	 *            The most ticks that are run in a row to catch up
+	 */
+	public TickScheduler(double rate, int maxCatchUp) {
+		this.period = (long) (1000000000 / rate);
+		this.maxCatchUp = Math.max(1, maxCatchUp);
+		this.start();
+	}
+	
+	/**
+	 * Starts counting from now, so the first tick is due one period from now
+	 */
+	public void start() {
+		this.nextTick = System.nanoTime() + this.period;
+	}
+	
+	/**
+	 * Gets the deadline of the next tick
+	 * 
+	 * @return The deadline, in {@link System#nanoTime()}
+	 */
+	public long getNextTick() {
+		return this.nextTick;
+	}
+	
+	/**
+	 * Waits until the next tick is due, then works out how many ticks to run
+	 * 
+	 * @return The number of ticks to run, at least 1
+	 * @throws InterruptedException
+	 *             If the thread was interrupted while waiting
+	 */
+	public int awaitTicks() throws InterruptedException {
+		sleepUntil(this.nextTick);
+		return this.pollTicks();
+	}
+	
+	/**
+	 * Works out how many ticks to run right now, without waiting
+	 * 
+	 * @return The number of ticks to run, which may be 0
+	 */
+	public int pollTicks() {
+		long now = System.nanoTime();
+		long late = now - this.nextTick;
+		if (late < 0) {
+			return 0;
+		}
+		this.record(late);
+		long due = late / this.period + 1;
+		int run = (int) Math.min(due, this.maxCatchUp);
+		if (due > 1) {
+			this.overruns++;
+		}
+		// Skipped ticks are given up on, so the next deadline is always in the future
+		this.skipped += due - run;
+		this.nextTick += due * this.period;
+		this.ticks += run;
+		return run;
+	}
+	
+	/**
+	 * Gets the fraction of a period that has passed since the last tick was due
+	 * 
+	 * @return The fraction, in [0, 1]
+	 */
+	public double getAlpha() {
+		double alpha = 1 - (this.nextTick - System.nanoTime()) / (double) this.period;
+		return Math.max(0, Math.min(alpha, 1));
+	}
+	
+	/**
+	 * Parks the current thread until shortly before the given deadline, then spins until it is reached
+	 * <p>
+	 * Parking doesn't wait at all while the thread is interrupted, so rather than spinning until the deadline,
+	 * the interrupt is cleared and thrown.
+	 * 
+	 * @param deadline
+	 *            The deadline, in {@link System#nanoTime()}
+	 * @throws InterruptedException
+	 *             If the thread was interrupted while parked
+	 */
+	public static void sleepUntil(long deadline) throws InterruptedException {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+			LockSupport.parkNanos(remaining - SPIN_NANOS);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		while (deadline - System.nanoTime() > 0) {
+			// Spin
+		}
+	}
+	
+	private void record(long late) {
+		long micros = late / 1000;
+		int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+		this.lateness[Math.min(bucket, BUCKETS - 1)]++;
+		this.maxLateness = Math.max(this.maxLateness, late);
+	}
+	
+	/**
+	 * Gets the number of ticks that were run
+	 * 
+	 * @return The number of ticks
+	 */
+	public long getTicks() {
+		return this.ticks;
+	}
+	
+	/**
+	 * Gets the number of times that the thread was a full period or more behind, and had to run several ticks
+	 * in a row
+	 * 
+	 * @return The number of overruns
+	 */
+	public long getOverruns() {
+		return this.overruns;
+	}
+	
+	/**
+	 * Gets the number of ticks that were skipped because of {@link #maxCatchUp}
+	 * 
+	 * @return The number of skipped ticks
+	 */
+	public long getSkipped() {
+		return this.skipped;
+	}
+	
+	/**
+	 * Gets the latest that any tick has started
+	 * 
+	 * @return The lateness, in nanoseconds
+	 */
+	public long getMaxLateness() {
+		return this.maxLateness;
+	}
+	
+	/**
+	 * Gets a copy of the lateness histogram
+	 * 
+	 * @return The number of ticks in every bucket
+	 * @see #BUCKETS
+	 */
+	public long[] getLatenessHistogram() {
+		return this.lateness.clone();
+	}
+	
+	/**
+	 * Gets an upper bound on the given percentile of lateness, from the histogram
+	 * 
+	 * @param percentile
+	 *            The percentile, in [0, 100]
+	 * @return The upper bound of the bucket holding the percentile, in microseconds
+	 */
+	public long getLatenessPercentile(double percentile) {
+		long total = 0;
+		for (long count : this.lateness) {
+			total += count;
+		}
+		long target = (long) Math.ceil(total * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.lateness[i];
+			if (seen >= target) {
+				return 1L << i;
+			}
+		}
+		return 1L << (BUCKETS - 1);
+	}
+	
+	/**
+	 * Clears the counts and the lateness histogram
+	 */
+	public void resetStatistics() {
+		this.ticks = 0;
+		this.overruns = 0;
+		this.skipped = 0;
+		this.maxLateness = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			this.lateness[i] = 0;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return this.ticks + " ticks, " + this.overruns + " overruns, " + this.skipped + " skipped, lateness p50 < "
+				+ this.getLatenessPercentile(50) + "us, p99 < " + this.getLatenessPercentile(99) + "us, max "
+				+ this.maxLateness / 1000 + "us";
+	}
+	
+}
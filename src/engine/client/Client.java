@@ -25,6 +25,7 @@ import javax.swing.JFrame;
 import engine.Engine;
 import engine.Game;
 import engine.Player;
+import engine.client.graphics.DisplayList;
 import engine.client.graphics.FontWrapper;
 import engine.client.graphics.HUD;
 import engine.client.graphics.Screen;
@@ -348,16 +349,32 @@ public abstract class Client extends Canvas {
 	}
 	
 	/**
-	 * Renders a frame of the game or client
+	 * Renders a frame of the game or client, at the positions of the last tick
 	 */
 	public void render() {
-		BufferStrategy bs = this.getBufferStrategy();
-		if (bs == null) {
-			this.createBufferStrategy(2);
-			this.requestFocus();
-			return;
-		}
-		
+		this.render(1);
+	}
+	
+	/**
+	 * Records and renders a frame of the game or client, all on the current thread
+	 * 
+	 * @param alpha
+	 *            The fraction of a tick that has passed since the last tick, in [0, 1]
+	 * @see #record()
+	 * @see #render(DisplayList, double)
+	 */
+	public void render(double alpha) {
+		this.render(this.record(), alpha);
+	}
+	
+	/**
+	 * Records everything that there is to render of the game or client into a {@code DisplayList}. Called
+	 * on the thread that ticks, after every tick.
+	 * 
+	 * @return The {@code DisplayList}
+	 */
+	public DisplayList record() {
+		this.screen.alpha = 1;
 		if ((this.menu != null && this.menu.rendersGame()) || this.menu == null) {
 			this.game.level.render(this.screen);
 			this.renderGame(this.screen);
@@ -371,12 +388,34 @@ public abstract class Client extends Canvas {
 		if (!this.hasFocus()) {
 			this.renderFocusNagger();
 		}
+		return this.screen.finish();
+	}
+	
+	/**
+	 * Renders a frame by replaying the given {@code DisplayList}. Called on the render thread, which is the
+	 * only thread that should touch the {@code VolatileImage}.
+	 * <p>
+	 * {@code Entity} positions are blended between the last two ticks by the given fraction, so that movement
+	 * looks smooth even when rendering many times per tick.
+	 * 
+	 * @param list
+	 *            The {@code DisplayList} to replay
+	 * @param alpha
+	 *            The fraction of a tick that has passed since the last tick, in [0, 1]
+	 */
+	public void render(DisplayList list, double alpha) {
+		BufferStrategy bs = this.getBufferStrategy();
+		if (bs == null) {
+			this.createBufferStrategy(2);
+			this.requestFocus();
+			return;
+		}
 		
 		Graphics g = bs.getDrawGraphics();
 		g.fillRect(0, 0, this.getWidth(), this.getHeight());
 		
-		this.renderOffScreen();
-		this.renderOnScreen(g);
+		this.renderOffScreen(list, alpha);
+		this.renderOnScreen(g, list, alpha);
 		
 		g.dispose();
 		bs.show();
@@ -388,15 +427,20 @@ public abstract class Client extends Canvas {
 	
 	/**
 	 * Renders the image offscreen
+	 * 
+	 * @param list
+	 *            The {@code DisplayList} to replay
+	 * @param alpha
+	 *            The fraction of a tick that has passed since the last tick
 	 */
-	private void renderOffScreen() {
+	private void renderOffScreen(DisplayList list, double alpha) {
 		do {
 			if (this.vImg.validate(this.getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
 				// old vImg doesn't work with new GraphicsConfig; re-create it
 				this.recreateVImg();
 			}
 			Graphics2D g = this.vImg.createGraphics();
-			
+			list.replay(g, alpha);
 			g.dispose();
 		} while (this.vImg.contentsLost());
 	}
@@ -405,17 +449,21 @@ public abstract class Client extends Canvas {
 	 * Renders the image onscreen
 	 * 
 	 * @param graphics
+	 * @param list
+	 *            The {@code DisplayList}, in case the image has to be restored
+	 * @param alpha
+	 *            The fraction of a tick that has passed since the last tick
 	 */
-	private void renderOnScreen(Graphics graphics) {
+	private void renderOnScreen(Graphics graphics, DisplayList list, double alpha) {
 		do {
 			int returnCode = this.vImg.validate(this.getGraphicsConfiguration());
 			if (returnCode == VolatileImage.IMAGE_RESTORED) {
 				// Contents need to be restored
-				this.renderOffScreen();      // restore contents
+				this.renderOffScreen(list, alpha);      // restore contents
 			} else if (returnCode == VolatileImage.IMAGE_INCOMPATIBLE) {
 				// old vImg doesn't work with new GraphicsConfig; re-create it
 				this.recreateVImg();
-				this.renderOffScreen();
+				this.renderOffScreen(list, alpha);
 			}
 			double ww = this.WIDTH * this.SCALE;
 			double hh = this.HEIGHT * this.SCALE;
@@ -463,6 +511,10 @@ public abstract class Client extends Canvas {
 		
 		this.tickClient();
 		
+		if (this.game.level != null) {
+			this.game.level.snapshotPositions();
+		}
+		
 		if (this.connection != null) {
 			this.connection.sendPackets();
 		}
@@ -0,0 +1,295 @@
+package engine.client.graphics;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * An immutable list of drawing commands, which makes up one frame
+ * <p>
+ * At the end of every tick, the {@code Client} records a {@code DisplayList} through the {@code Screen} on
+ * the thread that runs the game. The render thread then replays the last complete {@code DisplayList} onto
+ * the {@code VolatileImage} as many times as it renders, without ever touching the game itself. This way, a
+ * slow frame never holds up ticking, input, or the network.
+ * <p>
+ * Every command that moves keeps both the position of the second-last tick and the last one, so that it can
+ * be drawn part of the way between the two, just like {@link engine.level.Entity#getSpritePosition(double)}.
+ * 
+ * @author Kevin
+ */
+public class DisplayList {
+	
+	
+	/**
+	 * A {@code DisplayList} with nothing in it
+	 */
+	public static final DisplayList EMPTY = new DisplayList(new Command[0]);
+	
+	/**
+	 * The commands, in the order that they are drawn
+	 */
+	private final Command[] commands;
+	
+	/**
+	 * When the {@code DisplayList} was recorded, in {@link System#nanoTime()}
+	 */
+	private final long recorded;
+	
+	/**
+	 * Creates a new {@code DisplayList} from the given commands
+	 * 
+	 * @param commands
+	 *            The commands, in the order that they are drawn
+	 */
+	public DisplayList(List<Command> commands) {
+		this(commands.toArray(new Command[commands.size()]));
+	}
+	
+	private DisplayList(Command[] commands) {
+		this.commands = commands;
+		this.recorded = System.nanoTime();
+	}
+	
+	/**
+	 * Draws every command onto the given {@code Graphics2D}
+	 * 
+	 * @param g
+	 *            The {@code Graphics2D} to draw on
+	 * @param alpha
+	 *            How far to go from the positions of the second-last tick to those of the last, in [0, 1]
+	 */
+	public void replay(Graphics2D g, double alpha) {
+		for (Command command : this.commands) {
+			command.draw(g, alpha);
+		}
+	}
+	
+	/**
+	 * Gets the fraction of a tick that has passed since this {@code DisplayList} was recorded
+	 * 
+	 * @param period
+	 *            The time between ticks, in nanoseconds
+	 * @return The fraction, in [0, 1]
+	 */
+	public double getAlpha(long period) {
+		double alpha = (System.nanoTime() - this.recorded) / (double) period;
+		return Math.max(0, Math.min(alpha, 1));
+	}
+	
+	/**
+	 * Gets the number of commands
+	 * 
+	 * @return The number of commands
+	 */
+	public int size() {
+		return this.commands.length;
+	}
+	
+	/**
+	 * Interpolates between two coordinates
+	 */
+	private static int lerp(double from, double to, double alpha) {
+		return (int) (from + (to - from) * alpha);
+	}
+	
+	/**
+	 * A single drawing command. Once created, a {@code Command} must never change.
+	 * 
+	 * @author Kevin
+	 */
+	public static abstract class Command {
+		
+		
+		/**
+		 * Draws the command
+		 * 
+		 * @param g
+		 *            The {@code Graphics2D} to draw on
+		 * @param alpha
+		 *            How far to go from the positions of the second-last tick to those of the last
+		 */
+		public abstract void draw(Graphics2D g, double alpha);
+		
+	}
+	
+	/**
+	 * Draws an image
+	 * 
+	 * @author Kevin
+	 */
+	public static class Image extends Command {
+		
+		
+		private final BufferedImage image;
+		
+		private final double fromX, fromY, toX, toY;
+		
+		/**
+		 * Creates a new {@code Image} command
+		 * 
+		 * @param image
+		 *            The image, which must not be changed afterwards
+		 * @param fromX
+		 *            The X of the upper-left corner at the second-last tick
+		 * @param fromY
+		 *            The Y of the upper-left corner at the second-last tick
+		 * @param toX
+		 *            The X of the upper-left corner at the last tick
+		 * @param toY
+		 *            The Y of the upper-left corner at the last tick
+		 */
+		public Image(BufferedImage image, double fromX, double fromY, double toX, double toY) {
+			this.image = image;
+			this.fromX = fromX;
+			this.fromY = fromY;
+			this.toX = toX;
+			this.toY = toY;
+		}
+		
+		@Override
+		public void draw(Graphics2D g, double alpha) {
+			g.drawImage(this.image, lerp(this.fromX, this.toX, alpha), lerp(this.fromY, this.toY, alpha), null);
+		}
+		
+	}
+	
+	/**
+	 * Draws a rectangle or an oval, either filled or outlined
+	 * 
+	 * @author Kevin
+	 */
+	public static class Shape extends Command {
+		
+		
+		/**
+		 * A filled rectangle
+		 */
+		public static final int FILL_RECT = 0;
+		
+		/**
+		 * The outline of a rectangle
+		 */
+		public static final int DRAW_RECT = 1;
+		
+		/**
+		 * A filled oval
+		 */
+		public static final int FILL_OVAL = 2;
+		
+		/**
+		 * The outline of an oval
+		 */
+		public static final int DRAW_OVAL = 3;
+		
+		private final int type;
+		
+		private final Color color;
+		
+		private final double fromX, fromY, toX, toY;
+		
+		private final int width, height;
+		
+		/**
+		 * Creates a new {@code Shape} command
+		 * 
+		 * @param type
+		 *            One of {@link #FILL_RECT}, {@link #DRAW_RECT}, {@link #FILL_OVAL}, or {@link #DRAW_OVAL}
+		 * @param color
+		 *            The RGB color code
+		 * @param fromX
+		 *            The X of the upper-left corner at the second-last tick
+		 * @param fromY
+		 *            The Y of the upper-left corner at the second-last tick
+		 * @param toX
+		 *            The X of the upper-left corner at the last tick
+		 * @param toY
+		 *            The Y of the upper-left corner at the last tick
+		 * @param width
+		 *            The width
+		 * @param height
+		 *            The height
+		 */
+		public Shape(int type, int color, double fromX, double fromY, double toX, double toY, int width,
+				int height) {
+			this.type = type;
+			this.color = new Color(color);
+			this.fromX = fromX;
+			this.fromY = fromY;
+			this.toX = toX;
+			this.toY = toY;
+			this.width = width;
+			this.height = height;
+		}
+		
+		@Override
+		public void draw(Graphics2D g, double alpha) {
+			int x = lerp(this.fromX, this.toX, alpha), y = lerp(this.fromY, this.toY, alpha);
+			g.setColor(this.color);
+			switch (this.type) {
+				case FILL_RECT:
+					g.fillRect(x, y, this.width, this.height);
+					break;
+				case DRAW_RECT:
+					g.drawRect(x, y, this.width, this.height);
+					break;
+				case FILL_OVAL:
+					g.fillOval(x, y, this.width, this.height);
+					break;
+				case DRAW_OVAL:
+					g.drawOval(x, y, this.width, this.height);
+					break;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Draws a line of text
+	 * 
+	 * @author Kevin
+	 */
+	public static class Text extends Command {
+		
+		
+		private final String text;
+		
+		private final Font font;
+		
+		private final Color color;
+		
+		private final int x, y;
+		
+		/**
+		 * Creates a new {@code Text} command
+		 * 
+		 * @param text
+		 *            The text
+		 * @param font
+		 *            The {@code Font}
+		 * @param color
+		 *            The RGB color code
+		 * @param x
+		 *            The X of the baseline
+		 * @param y
+		 *            The Y of the baseline
+		 */
+		public Text(String text, Font font, int color, int x, int y) {
+			this.text = text;
+			this.font = font;
+			this.color = new Color(color);
+			this.x = x;
+			this.y = y;
+		}
+		
+		@Override
+		public void draw(Graphics2D g, double alpha) {
+			g.setColor(this.color);
+			g.setFont(this.font);
+			g.drawString(this.text, this.x, this.y);
+		}
+		
+	}
+	
+}
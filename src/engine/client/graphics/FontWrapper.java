@@ -1,9 +1,6 @@
 package engine.client.graphics;
 
-import java.awt.BasicStroke;
-import java.awt.Color;
 import java.awt.Font;
-import java.awt.Graphics2D;
 
 /**
  * A wrapper class helps render text and other useful things
@@ -57,11 +54,7 @@ public class FontWrapper {
 	 *            The RGB color code of the color to render the message in
 	 */
 	public static void draw(String msg, Screen screen, Font f, int x, int y, int col) {
-		Graphics2D font = screen.client.vImg.createGraphics();
-		font.setColor(new Color(col));
-		font.setFont(current);
-		font.drawString(msg, x, y);
-		font.dispose();
+		screen.drawString(msg, current, x, y, col);
 	}
 	
 	/**
@@ -86,11 +79,7 @@ public class FontWrapper {
 	 */
 	public static void renderFrame(Screen screen, String title, int x, int y, int w, int h, int colFrame,
 			int colText) {
-		Graphics2D g = screen.client.vImg.createGraphics();
-		g.setColor(new Color(colFrame));
-		g.setStroke(new BasicStroke(1));
-		g.drawRect(x, y, w, h);
-		g.dispose();
+		screen.drawRect(x, y, w, h, colFrame);
 		draw(title, screen, x, y, colText);
 	}
 	
@@ -135,10 +124,6 @@ public class FontWrapper {
 	 * @return
 	 */
 	public static int getTextSize(Screen screen, String string) {
-		Graphics2D g = screen.client.vImg.createGraphics();
-		g.setFont(current);
-		int disp = g.getFontMetrics().stringWidth(string);
-		g.dispose();
-		return disp;
+		return screen.getTextWidth(string, current);
 	}
 }
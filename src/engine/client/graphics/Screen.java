@@ -1,14 +1,18 @@
 package engine.client.graphics;
 
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 import engine.client.Client;
 import engine.client.graphics.sprite.ISpriteProvider;
 import engine.client.graphics.sprite.Sprite;
 import engine.geom2d.Vector2;
+import engine.level.Entity;
 
 /**
  * Represents the {@code Screen} where all the drawing happens
@@ -16,6 +20,11 @@ import engine.geom2d.Vector2;
  * As of 22 June 2016, this is essentially just here for legacy support and static methods. It is basically
  * just a wrapper around a {@code VolatileImage} for performance.
  * <p>
+ * Nothing is drawn straight away. Every method that renders something adds a command to a
+ * {@link DisplayList}, which the {@code Client} {@linkplain #finish() finishes} at the end of every tick and
+ * hands to the render thread to draw. Everything that renders should therefore go through the
+ * {@code Screen}, rather than drawing on the {@code VolatileImage} itself.
+ * <p>
  * Contains many useful {@code static} methods that adjust images as necessary, as well as many, many methods
  * that will render something on the {@code Screen}.
  * <p>
@@ -49,6 +58,26 @@ public class Screen {
 	 */
 	public Client client;
 	
+	/**
+	 * The fraction of a tick that has passed since the last tick, for the frame being rendered. {@code Entity}
+	 * positions are blended between the last two ticks by this much.
+	 * <p>
+	 * Since {@code DisplayList}s are recorded once per tick, this is always 1 while recording. Use the
+	 * methods that take an {@code Entity} to have it interpolated when the {@code DisplayList} is replayed.
+	 */
+	public double alpha = 1;
+	
+	/**
+	 * The commands recorded since the last {@link #finish()}
+	 */
+	private List<DisplayList.Command> commands = new ArrayList<DisplayList.Command>();
+	
+	/**
+	 * Used to measure text, without touching the {@code VolatileImage}
+	 */
+	private static final Graphics2D METRICS = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)
+			.createGraphics();
+			
 	/**
 	 * Creates a new {@code Screen}
 	 * 
@@ -64,18 +93,39 @@ public class Screen {
 	}
 	
 	/**
-	 * Sets every pixel of the {@code BufferedImage} to the given color
+	 * Adds a command to the {@code DisplayList} being recorded
+	 * 
+	 * @param command
+	 *            The command
+	 */
+	public void record(DisplayList.Command command) {
+		this.commands.add(command);
+	}
+	
+	/**
+	 * Finishes the {@code DisplayList} being recorded, and starts a new one
+	 * 
+	 * @return The {@code DisplayList} with everything rendered since the last call
+	 */
+	public DisplayList finish() {
+		DisplayList list = new DisplayList(this.commands);
+		this.commands = new ArrayList<DisplayList.Command>(this.commands.size());
+		return list;
+	}
+	
+	/**
+	 * Sets every pixel of the {@code Screen} to the given color
 	 * 
 	 * @param color
 	 *            The ARGB color code to set every pixel to
 	 */
 	public void clear(int color) {
-		this.clearRegion(color, 0, 0, this.client.vImg.getWidth(), this.client.vImg.getHeight());
+		this.clearArea(color, 0, 0, this.width, this.height);
 	}
 	
 	/**
-	 * Sets every pixel in the area of the {@code BufferedImage} bounded by the upper-left coordinate (x, y)
-	 * and width and height w and h to the given color
+	 * Sets every pixel in the area of the {@code Screen} bounded by the upper-left coordinate (x, y) and
+	 * width and height w and h to the given color
 	 * 
 	 * @param color
 	 *            The ARGB color code to set the pixels to
@@ -89,12 +139,12 @@ public class Screen {
 	 *            The height of the region
 	 */
 	public void clearArea(int color, int x, int y, int w, int h) {
-		this.clearRegion(color, x, y, x + w, y + h);
+		this.fillRect(x, y, w, h, color);
 	}
 	
 	/**
-	 * Sets every pixel in the region of the {@code BufferedImage} bounded by (x1, y1) and (x2, y2) to the
-	 * given color
+	 * Sets every pixel in the region of the {@code Screen} bounded by (x1, y1) and (x2, y2) to the given
+	 * color
 	 * 
 	 * @param color
 	 *            The ARGB color code to set the pixels to
@@ -108,8 +158,7 @@ public class Screen {
 	 *            The Y Coordinate of the lower-right corner
 	 */
 	public void clearRegion(int color, int x1, int y1, int x2, int y2) {
-		Graphics2D g = this.client.vImg.createGraphics();
-		g.fillRect(x1, y1, x2 - x1 + 1, y2 - y1 + 1);
+		this.fillRect(x1, y1, x2 - x1 + 1, y2 - y1 + 1, color);
 	}
 	
 	/**
@@ -122,11 +171,194 @@ public class Screen {
 	 * This method simply exists to cut down on the amount of code
 	 * 
 	 * @return A {@code Graphics2D} instance created by the {@code Client}'s {@code VolatileImage}
+	 * @deprecated Drawing straight on the {@code VolatileImage} skips the {@code DisplayList}, so it races
+	 *             the render thread and is drawn over by the next frame. Use the drawing methods of the
+	 *             {@code Screen} instead.
 	 */
+	@Deprecated
 	public Graphics2D getGraphics() {
 		return this.client.vImg.createGraphics();
 	}
 	
+	/**
+	 * Fills a rectangle at the given absolute position on the {@code Screen}
+	 * 
+	 * @param x
+	 *            The X Coordinate of the upper-left corner
+	 * @param y
+	 *            The Y Coordinate of the upper-left corner
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void fillRect(int x, int y, int w, int h, int color) {
+		this.record(new DisplayList.Shape(DisplayList.Shape.FILL_RECT, color, x, y, x, y, w, h));
+	}
+	
+	/**
+	 * Draws the outline of a rectangle at the given absolute position on the {@code Screen}
+	 * 
+	 * @param x
+	 *            The X Coordinate of the upper-left corner
+	 * @param y
+	 *            The Y Coordinate of the upper-left corner
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void drawRect(int x, int y, int w, int h, int color) {
+		this.record(new DisplayList.Shape(DisplayList.Shape.DRAW_RECT, color, x, y, x, y, w, h));
+	}
+	
+	/**
+	 * Fills an oval at the given absolute position on the {@code Screen}
+	 * 
+	 * @param x
+	 *            The X Coordinate of the upper-left corner
+	 * @param y
+	 *            The Y Coordinate of the upper-left corner
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void fillOval(int x, int y, int w, int h, int color) {
+		this.record(new DisplayList.Shape(DisplayList.Shape.FILL_OVAL, color, x, y, x, y, w, h));
+	}
+	
+	/**
+	 * Draws the outline of an oval at the given absolute position on the {@code Screen}
+	 * 
+	 * @param x
+	 *            The X Coordinate of the upper-left corner
+	 * @param y
+	 *            The Y Coordinate of the upper-left corner
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void drawOval(int x, int y, int w, int h, int color) {
+		this.record(new DisplayList.Shape(DisplayList.Shape.DRAW_OVAL, color, x, y, x, y, w, h));
+	}
+	
+	/**
+	 * Fills a rectangle at the {@linkplain Entity#getSpritePosition(double) interpolated position} of the
+	 * given {@code Entity}, relative to the offset
+	 * 
+	 * @param e
+	 *            The {@code Entity}
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void fillRect(Entity e, int w, int h, int color) {
+		this.recordShape(DisplayList.Shape.FILL_RECT, e, w, h, color);
+	}
+	
+	/**
+	 * Draws the outline of a rectangle at the {@linkplain Entity#getSpritePosition(double) interpolated
+	 * position} of the given {@code Entity}, relative to the offset
+	 * 
+	 * @param e
+	 *            The {@code Entity}
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void drawRect(Entity e, int w, int h, int color) {
+		this.recordShape(DisplayList.Shape.DRAW_RECT, e, w, h, color);
+	}
+	
+	/**
+	 * Fills an oval at the {@linkplain Entity#getSpritePosition(double) interpolated position} of the given
+	 * {@code Entity}, relative to the offset
+	 * 
+	 * @param e
+	 *            The {@code Entity}
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void fillOval(Entity e, int w, int h, int color) {
+		this.recordShape(DisplayList.Shape.FILL_OVAL, e, w, h, color);
+	}
+	
+	/**
+	 * Draws the outline of an oval at the {@linkplain Entity#getSpritePosition(double) interpolated position}
+	 * of the given {@code Entity}, relative to the offset
+	 * 
+	 * @param e
+	 *            The {@code Entity}
+	 * @param w
+	 *            The width
+	 * @param h
+	 *            The height
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void drawOval(Entity e, int w, int h, int color) {
+		this.recordShape(DisplayList.Shape.DRAW_OVAL, e, w, h, color);
+	}
+	
+	private void recordShape(int type, Entity e, int w, int h, int color) {
+		Vector2 from = e.getSpritePosition(0).minus(this.offset);
+		Vector2 to = e.getSpritePosition(1).minus(this.offset);
+		this.record(new DisplayList.Shape(type, color, from.getX(), from.getY(), to.getX(), to.getY(), w, h));
+	}
+	
+	/**
+	 * Draws a line of text at the given absolute position on the {@code Screen}
+	 * 
+	 * @param msg
+	 *            The text
+	 * @param f
+	 *            The {@code Font}
+	 * @param x
+	 *            The X Coordinate of the left of the baseline
+	 * @param y
+	 *            The Y Coordinate of the baseline
+	 * @param color
+	 *            The RGB color code
+	 */
+	public void drawString(String msg, Font f, int x, int y, int color) {
+		this.record(new DisplayList.Text(msg, f, color, x, y));
+	}
+	
+	/**
+	 * Gets the width of the given text in pixels
+	 * 
+	 * @param msg
+	 *            The text
+	 * @param f
+	 *            The {@code Font}
+	 * @return The width in pixels
+	 */
+	public int getTextWidth(String msg, Font f) {
+		synchronized (METRICS) {
+			return METRICS.getFontMetrics(f).stringWidth(msg);
+		}
+	}
+	
 	/**
 	 * Renders the give {@code ISpriteProvider}
 	 * 
@@ -139,6 +371,9 @@ public class Screen {
 	
 	/**
 	 * Renders the give {@code ISpriteProvider}
+	 * <p>
+	 * {@code Entity}s are rendered at their {@linkplain Entity#getSpritePosition(double) interpolated
+	 * position}.
 	 * 
 	 * @param sp
 	 *            The {@code ISpriteProvider} to render
@@ -150,7 +385,15 @@ public class Screen {
 	 *            How many quadrants to rotate the image clockwise
 	 */
 	public void render(ISpriteProvider sp, boolean mirrorX, boolean mirrorY, int quads) {
-		this.render(sp.getSprite(), sp.getSpritePosition(), mirrorX, mirrorY, quads);
+		if (!(sp instanceof Entity)) {
+			this.render(sp.getSprite(), sp.getSpritePosition(), mirrorX, mirrorY, quads);
+			return;
+		}
+		Entity e = (Entity) sp;
+		Vector2 from = e.getSpritePosition(0).minus(this.offset);
+		Vector2 to = e.getSpritePosition(1).minus(this.offset);
+		this.record(new DisplayList.Image(sp.getSprite().getAdjustedImage(1, mirrorX, mirrorY, quads), from.getX(),
+				from.getY(), to.getX(), to.getY()));
 	}
 	
 	/**
@@ -210,11 +453,9 @@ public class Screen {
 	 *            How many quadrants to rotate the image clockwise
 	 */
 	public void renderAbsolute(Sprite src, Vector2 pos, boolean mirrorX, boolean mirrorY, int quads) {
-//		src = adjustImage(src, 1, mirrorX, mirrorY);
-		Graphics2D g = this.client.vImg.createGraphics();
-		g.drawImage(src.getAdjustedImage(1, mirrorX, mirrorY, quads), (int) pos.getX(), (int) pos.getY(),
-				null);
-		g.dispose();
+		// The adjusted image is cached by the Sprite, and replaced rather than changed, so it is safe to keep
+		this.record(new DisplayList.Image(src.getAdjustedImage(1, mirrorX, mirrorY, quads), pos.getX(), pos.getY(),
+				pos.getX(), pos.getY()));
 	}
 	
 	/**
@@ -0,0 +1,317 @@
+package engine.client.graphics.sprite;
+
+/**
+ * The shape of a {@code Sprite} for collision purposes, worked out once from its pixels
+ * <p>
+ * Every pixel that isn't fully blank is set in a bitmask, packed 64 pixels to a {@code long}, so checking a
+ * point is a single bit test and checking two {@code CollisionMask}s against each other compares 64 pixels
+ * at a time. The convex outline around the set pixels is kept as well, along with the furthest reach of the
+ * shape and the direction of its outline at a fixed number of angles around the center.
+ * <p>
+ * Those are worked out with {@code StrictMath}, so that the same {@code Sprite} gives the same
+ * {@code CollisionMask} on every JVM, as the {@linkplain engine.physics.Physics#fixedPoint fixed-point} mode
+ * needs.
+ * 
+ * @see Sprite#getCollisionMask()
+ * @author Kevin
+ */
+public class CollisionMask {
+	
+	
+	/**
+	 * The number of angles that the reach and outline direction are worked out at
+	 */
+	public static final int ANGLES = 360;
+	
+	/**
+	 * The size of the mask
+	 */
+	public final int width, height;
+	
+	/**
+	 * The number of {@code long}s in every row of the mask
+	 */
+	private final int words;
+	
+	/**
+	 * The packed bitmask, row by row. Pixel {@code x} of a row is bit {@code x & 63} of word {@code x >> 6}.
+	 */
+	private final long[] bits;
+	
+	/**
+	 * The center of the mask, which the angles are measured around
+	 */
+	public final double centerX, centerY;
+	
+	/**
+	 * The vertices of the convex outline around the set pixels, relative to the upper-left corner, in
+	 * clockwise order
+	 */
+	public final double[] hullX, hullY;
+	
+	/**
+	 * The distance from the center to the furthest set pixel, at every angle
+	 */
+	private final double[] extents;
+	
+	/**
+	 * The angle of the outward normal of the convex outline, at every angle
+	 */
+	private final double[] gradients;
+	
+	/**
+	 * The largest distance from the center to any set pixel
+	 */
+	public final double radius;
+	
+	/**
+	 * Creates a new {@code CollisionMask} from the given ARGB pixels
+	 * 
+	 * @param pixels
+	 *            The pixels, row by row
+	 * @param width
+	 *            The width of the image
+	 * @param height
+	 *            The height of the image
+	 */
+	public CollisionMask(int[] pixels, int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.words = (width + 63) >>> 6;
+		this.bits = new long[this.words * height];
+		this.centerX = width / 2;
+		this.centerY = height / 2;
+		// The corners of the leftmost and rightmost pixels in every row are enough to find the outline
+		double[] cornerX = new double[height * 4];
+		double[] cornerY = new double[height * 4];
+		int corners = 0;
+		double radius = 0;
+		for (int y = 0; y < height; y++) {
+			int left = -1, right = -1;
+			for (int x = 0; x < width; x++) {
+				if (pixels[y * width + x] != 0) {
+					this.bits[y * this.words + (x >>> 6)] |= 1L << (x & 63);
+					if (left == -1) {
+						left = x;
+					}
+					right = x;
+				}
+			}
+			if (left != -1) {
+				for (int i = 0; i < 4; i++) {
+					cornerX[corners] = i < 2 ? left : right + 1;
+					cornerY[corners] = y + (i & 1);
+					double dx = cornerX[corners] - this.centerX, dy = cornerY[corners] - this.centerY;
+					radius = Math.max(radius, Math.sqrt(dx * dx + dy * dy));
+					corners++;
+				}
+			}
+		}
+		this.radius = radius;
+		int hull = convexHull(cornerX, cornerY, corners);
+		this.hullX = new double[hull];
+		this.hullY = new double[hull];
+		System.arraycopy(cornerX, 0, this.hullX, 0, hull);
+		System.arraycopy(cornerY, 0, this.hullY, 0, hull);
+		this.extents = new double[ANGLES];
+		this.gradients = new double[ANGLES];
+		for (int a = 0; a < ANGLES; a++) {
+			double angle = 2 * Math.PI * a / ANGLES;
+			double cos = StrictMath.cos(angle), sin = StrictMath.sin(angle);
+			this.extents[a] = this.reach(cos, sin);
+			this.gradients[a] = this.outlineNormal(cos, sin, angle);
+		}
+	}
+	
+	/**
+	 * Finds the convex hull of the given points with a monotone chain, storing it at the start of the arrays
+	 * 
+	 * @return The number of points in the hull
+	 */
+	private static int convexHull(double[] xs, double[] ys, int n) {
+		if (n < 3) {
+			return n;
+		}
+		// Sort by X, then by Y. The rows already come in order of Y, so an insertion sort is cheap enough.
+		for (int i = 1; i < n; i++) {
+			double x = xs[i], y = ys[i];
+			int j = i - 1;
+			while (j >= 0 && (xs[j] > x || (xs[j] == x && ys[j] > y))) {
+				xs[j + 1] = xs[j];
+				ys[j + 1] = ys[j];
+				j--;
+			}
+			xs[j + 1] = x;
+			ys[j + 1] = y;
+		}
+		double[] hx = new double[2 * n], hy = new double[2 * n];
+		int k = 0;
+		for (int i = 0; i < n; i++) {
+			while (k >= 2 && cross(hx[k - 2], hy[k - 2], hx[k - 1], hy[k - 1], xs[i], ys[i]) <= 0) {
+				k--;
+			}
+			hx[k] = xs[i];
+			hy[k++] = ys[i];
+		}
+		for (int i = n - 2, lower = k + 1; i >= 0; i--) {
+			while (k >= lower && cross(hx[k - 2], hy[k - 2], hx[k - 1], hy[k - 1], xs[i], ys[i]) <= 0) {
+				k--;
+			}
+			hx[k] = xs[i];
+			hy[k++] = ys[i];
+		}
+		// The last point is the same as the first
+		k--;
+		System.arraycopy(hx, 0, xs, 0, k);
+		System.arraycopy(hy, 0, ys, 0, k);
+		return k;
+	}
+	
+	private static double cross(double ox, double oy, double ax, double ay, double bx, double by) {
+		return (ax - ox) * (by - oy) - (ay - oy) * (bx - ox);
+	}
+	
+	/**
+	 * Finds the distance from the center to the furthest set pixel in the given direction, a pixel at a time
+	 */
+	private double reach(double cos, double sin) {
+		for (double d = Math.ceil(this.radius); d >= 0; d--) {
+			if (this.contains(this.centerX + cos * d, this.centerY + sin * d)) {
+				return d;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Finds the angle of the outward normal of the edge of the convex outline in the given direction, or the
+	 * direction itself if there is no such edge
+	 */
+	private double outlineNormal(double cos, double sin, double angle) {
+		int n = this.hullX.length;
+		double nearest = Double.POSITIVE_INFINITY, normal = angle;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			double ex = this.hullX[j] - this.hullX[i], ey = this.hullY[j] - this.hullY[i];
+			double length = Math.sqrt(ex * ex + ey * ey);
+			// The hull is clockwise on screen, so the outward normal is to the left of every edge
+			double nx = ey / length, ny = -ex / length;
+			double facing = nx * cos + ny * sin;
+			if (facing > 0) {
+				double distance = (nx * (this.hullX[i] - this.centerX) + ny * (this.hullY[i] - this.centerY))
+						/ facing;
+				if (distance >= 0 && distance < nearest) {
+					nearest = distance;
+					normal = StrictMath.atan2(ny, nx);
+				}
+			}
+		}
+		return normal < 0 ? normal + 2 * Math.PI : normal;
+	}
+	
+	/**
+	 * Checks whether the pixel at the given coordinates is set
+	 * 
+	 * @param x
+	 *            The X, relative to the upper-left corner
+	 * @param y
+	 *            The Y, relative to the upper-left corner
+	 * @return Whether the pixel is set, or {@code false} if it is outside the mask
+	 */
+	public boolean contains(int x, int y) {
+		if (x < 0 || y < 0 || x >= this.width || y >= this.height) {
+			return false;
+		}
+		return (this.bits[y * this.words + (x >>> 6)] & (1L << (x & 63))) != 0;
+	}
+	
+	/**
+	 * Checks whether the pixel containing the given point is set
+	 * 
+	 * @param x
+	 *            The X, relative to the upper-left corner
+	 * @param y
+	 *            The Y, relative to the upper-left corner
+	 * @return Whether the pixel is set, or {@code false} if it is outside the mask
+	 */
+	public boolean contains(double x, double y) {
+		return x >= 0 && y >= 0 && this.contains((int) x, (int) y);
+	}
+	
+	/**
+	 * Gets the distance from the center to the furthest set pixel at the given angle
+	 * 
+	 * @param angle
+	 *            The angle in Radians, in the range [0, 2pi)
+	 * @return The distance
+	 */
+	public double getExtent(double angle) {
+		return this.extents[index(angle)];
+	}
+	
+	/**
+	 * Gets the angle of the outward normal of the convex outline at the given angle
+	 * 
+	 * @param angle
+	 *            The angle in Radians, in the range [0, 2pi)
+	 * @return The angle of the normal, in the range [0, 2pi)
+	 */
+	public double getGradient(double angle) {
+		return this.gradients[index(angle)];
+	}
+	
+	private static int index(double angle) {
+		return (int) Math.round(angle * ANGLES / (2 * Math.PI)) % ANGLES;
+	}
+	
+	/**
+	 * Checks whether any set pixel of this {@code CollisionMask} overlaps a set pixel of the other one
+	 * 
+	 * @param other
+	 *            The other {@code CollisionMask}
+	 * @param dx
+	 *            The X of the upper-left corner of the other {@code CollisionMask}, relative to this one
+	 * @param dy
+	 *            The Y of the upper-left corner of the other {@code CollisionMask}, relative to this one
+	 * @return Whether they overlap
+	 */
+	public boolean overlaps(CollisionMask other, int dx, int dy) {
+		int top = Math.max(0, dy), bottom = Math.min(this.height, dy + other.height);
+		int first = Math.max(0, dx) >>> 6;
+		int last = Math.min(this.words, ((Math.min(this.width, dx + other.width) + 63) >>> 6));
+		for (int y = top; y < bottom; y++) {
+			for (int w = first; w < last; w++) {
+				if ((this.bits[y * this.words + w] & other.window(y - dy, (w << 6) - dx)) != 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets the 64 pixels of the given row starting at the given X, packed into a {@code long}
+	 * 
+	 * @param row
+	 *            The row
+	 * @param start
+	 *            The X of the first pixel, which may be outside the mask
+	 * @return The pixels
+	 */
+	private long window(int row, int start) {
+		if (start >= this.width || start <= -64) {
+			return 0;
+		}
+		int base = row * this.words;
+		if (start < 0) {
+			return this.bits[base] << -start;
+		}
+		int w = start >>> 6, shift = start & 63;
+		long window = this.bits[base + w] >>> shift;
+		if (shift != 0 && w + 1 < this.words) {
+			window |= this.bits[base + w + 1] << (64 - shift);
+		}
+		return window;
+	}
+	
+}
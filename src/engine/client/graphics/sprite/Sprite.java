@@ -55,6 +55,11 @@ public class Sprite {
 	
 	protected int quads;
 	
+	/**
+	 * The cached {@code CollisionMask}, made the first time it is needed
+	 */
+	protected CollisionMask mask;
+	
 	/**
 	 * Creates a new {@code Sprite} from a given {@code BufferedImage}
 	 * <p>
@@ -111,6 +116,42 @@ public class Sprite {
 		return this.src;
 	}
 	
+	/**
+	 * Makes the {@code CollisionMask} of the {@code Sprite}, unless it has already been made. Called by
+	 * {@link engine.physics.entity.Hitbox.HitboxSprite HitboxSprite} when it is given the {@code Sprite}, so
+	 * that collision checks never have to make one.
+	 */
+	public void buildCollisionMasks() {
+		if (this.mask == null) {
+			this.mask = new CollisionMask(this.pixels, this.width, this.height);
+		}
+	}
+	
+	/**
+	 * Retrieves the {@code CollisionMask} of the {@code Sprite}, used by
+	 * {@link engine.physics.entity.Hitbox.HitboxSprite HitboxSprite}
+	 * <p>
+	 * The {@code CollisionMask} is {@linkplain #buildCollisionMasks() made} once and cached from then on.
+	 * 
+	 * @return The {@code CollisionMask} of the {@code Sprite}
+	 */
+	public CollisionMask getCollisionMask() {
+		this.buildCollisionMasks();
+		return this.mask;
+	}
+	
+	/**
+	 * Retrieves the {@code CollisionMask} of the {@code Sprite} as it is at the given game time. The same as
+	 * {@link #getCollisionMask()} unless the {@code Sprite} is animated.
+	 * 
+	 * @param gameTime
+	 *            The game time
+	 * @return The {@code CollisionMask} of the {@code Sprite}
+	 */
+	public CollisionMask getCollisionMask(long gameTime) {
+		return this.getCollisionMask();
+	}
+	
 	/**
 	 * Gets the size of this image as a {@code Vector2}
 	 * 
@@ -253,11 +294,18 @@ public class Sprite {
 	/**
 	 * Creates a new {@code Sprite} from the given file
 	 * 
+	 * <p>
+	 * A {@linkplain Engine#headless headless} server never draws anything, so it doesn't decode the image at
+	 * all, and always gets {@code null}.
+	 * 
 	 * @param image
 	 *            The {@code File} to read
-	 * @return A new {@code Sprite} instance if the file is found, {@code null} if not
+	 * @return A new {@code Sprite} instance if the file is found, {@code null} if not, or if headless
 	 */
 	public static Sprite of(File image) {
+		if (Engine.headless) {
+			return null;
+		}
 		try {
 			return new Sprite(ImageIO.read(image));
 		} catch (Exception e) {
@@ -26,6 +26,11 @@ public class SpriteAnimated extends Sprite {
 	 */
 	protected BufferedImage[] caches;
 	
+	/**
+	 * The {@code CollisionMask} of every image, made all at once by {@link #buildCollisionMasks()}
+	 */
+	protected CollisionMask[] masks;
+	
 	/**
 	 * How long, in game ticks, each image is shown
 	 */
@@ -68,6 +73,7 @@ public class SpriteAnimated extends Sprite {
 		this.pertotal = period * imgs.length;
 		this.imgs = new BufferedImage[imgs.length];
 		this.caches = new BufferedImage[imgs.length];
+		this.masks = new CollisionMask[imgs.length];
 		this.scales = new int[imgs.length];
 		this.flipXs = new boolean[imgs.length];
 		this.flipYs = new boolean[imgs.length];
@@ -93,6 +99,59 @@ public class SpriteAnimated extends Sprite {
 		return this.imgs[this.current];
 	}
 	
+	/**
+	 * Makes the {@code CollisionMask} of every image, unless they have already been made
+	 */
+	@Override
+	public void buildCollisionMasks() {
+		if (this.masks[this.masks.length - 1] != null) {
+			return;
+		}
+		CollisionMask[] masks = new CollisionMask[this.imgs.length];
+		for (int i = 0; i < this.imgs.length; i++) {
+			BufferedImage img = this.imgs[i];
+			int w = img.getWidth(), h = img.getHeight();
+			masks[i] = new CollisionMask(img.getRGB(0, 0, w, h, null, 0, w), w, h);
+		}
+		this.masks = masks;
+	}
+	
+	/**
+	 * Retrieves the {@code CollisionMask} of the image that was shown last
+	 */
+	@Override
+	public CollisionMask getCollisionMask() {
+		this.buildCollisionMasks();
+		return this.masks[this.current];
+	}
+	
+	/**
+	 * Retrieves the {@code CollisionMask} of the image shown at the given game time
+	 * <p>
+	 * Every image has its own {@code CollisionMask}, so switching images doesn't make a new one. The image
+	 * is worked out from the given time alone, so this can be called from any thread.
+	 */
+	@Override
+	public CollisionMask getCollisionMask(long gameTime) {
+		this.buildCollisionMasks();
+		return this.masks[this.frameAt(gameTime)];
+	}
+	
+	/**
+	 * Works out which image is shown at the given game time
+	 * 
+	 * @param gameTime
+	 *            The game time
+	 * @return The index of the image
+	 */
+	private int frameAt(long gameTime) {
+		long elapsed = (gameTime - this.offset) % this.pertotal;
+		if (elapsed < 0) {
+			elapsed += this.pertotal;
+		}
+		return (int) (elapsed / this.period);
+	}
+	
 	@Override
 	public BufferedImage getAdjustedImage(int scale, boolean flipX, boolean flipY, int quads) {
 		this.current = (int) (((Engine.getGameTimeClient() - this.offset) % this.pertotal) / this.period);
@@ -253,9 +253,13 @@ public class SpriteSheet {
 	 *            The width of an individual {@code Sprite} in pixels
 	 * @param sPixHeight
 	 *            The height of an individual {@code Sprite} in pixels
-	 * @return A new {@code SpriteSheet} instance if the file is found, {@code null} if not
+	 * @return A new {@code SpriteSheet} instance if the file is found, {@code null} if not, or if
+	 *         {@linkplain Engine#headless headless}
 	 */
 	public static SpriteSheet of(File image, int sPixWidth, int sPixHeight) {
+		if (Engine.headless) {
+			return null;
+		}
 		try {
 			return new SpriteSheet(ImageIO.read(image), sPixWidth, sPixHeight);
 		} catch (Exception e) {
@@ -14,8 +14,11 @@ import java.util.logging.Logger;
 
 import engine.Engine;
 import engine.Game;
+import engine.TickScheduler;
 import engine.launcher.LaunchConfig;
+import engine.level.Entity;
 import engine.networknio.ConnectionNIO;
+import engine.networknio.packet.PacketEntityPositions;
 import engine.physics.Physics;
 
 /**
@@ -44,11 +47,21 @@ public class Configuration {
 	public Property tickRate = new Property("TickRate", Engine.DEFAULT_TICK_RATE, Integer.class);
 	public Property frameRate = new Property("FrameRate", Engine.DEFAULT_FRAME_RATE, Integer.class);
 	public Property vSync = new Property("VSync", Engine.DEFAULT_VSYNC, Boolean.class);
+	public Property maxCatchUp = new Property("MaxCatchUpTicks", TickScheduler.DEFAULT_MAX_CATCH_UP, Integer.class);
 	public Property tcpBuff = new Property("TCPBufferSize", ConnectionNIO.DEFAULT_TCP_BUFFER_SIZE, Integer.class);
 	public Property udpBuff = new Property("UDPBufferSize", ConnectionNIO.DEFAULT_UDP_BUFFER_SIZE, Integer.class);
+	public Property maxFrame = new Property("MaxFrameSize", ConnectionNIO.DEFAULT_MAX_FRAME_SIZE, Integer.class);
+	public Property highWater = new Property("SendQueueHighWatermark", ConnectionNIO.DEFAULT_HIGH_WATERMARK, Integer.class);
+	public Property lowWater = new Property("SendQueueLowWatermark", ConnectionNIO.DEFAULT_LOW_WATERMARK, Integer.class);
+	public Property slowPolicy = new Property("SlowConsumerPolicy", ConnectionNIO.DEFAULT_SLOW_CONSUMER_POLICY);
+	public Property posPrecision = new Property("PositionPrecision", PacketEntityPositions.DEFAULT_PRECISION, Integer.class);
 	public Property cfgLog = new Property("LogConfig", Engine.DEFAULT_LOG_CONFIG, Boolean.class);
 	public Property allLog = new Property("LogAll", Engine.DEFAULT_LOG_ALL, Boolean.class);
 	public Property physTicks = new Property("PhysicsTicks", Physics.DEFAULT_SUBTICKS, Integer.class);
+	public Property physCellSize = new Property("PhysicsCellSize", Physics.DEFAULT_CELL_SIZE, Double.class);
+	public Property physThreads = new Property("PhysicsThreads", Physics.DEFAULT_THREADS, Integer.class);
+	public Property physFixed = new Property("PhysicsFixedPoint", Physics.DEFAULT_FIXED_POINT, Boolean.class);
+	public Property snapDist = new Property("SnapDistance", Entity.DEFAULT_SNAP_DISTANCE, Double.class);
 	//@formatter:on
 	
 	public Configuration(File file) {
@@ -56,10 +69,21 @@ public class Configuration {
 		addProperty(tickRate);
 		addProperty(frameRate);
 		addProperty(vSync);
+		addProperty(maxCatchUp);
 		addProperty(tcpBuff);
 		addProperty(udpBuff);
+		addProperty(maxFrame);
+		addProperty(highWater);
+		addProperty(lowWater);
+		addProperty(slowPolicy);
+		addProperty(posPrecision);
 		addProperty(cfgLog);
 		addProperty(allLog);
+		addProperty(physTicks);
+		addProperty(physCellSize);
+		addProperty(physThreads);
+		addProperty(physFixed);
+		addProperty(snapDist);
 	}
 	
 	public Configuration(LaunchConfig lcfg) {
@@ -7,6 +7,9 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A list of {@code IEventListener}s
+ * <p>
+ * Thread-safe, since the rooms of a {@code RoomManager} register to and post on the same static
+ * {@code EventBus}es from different threads.
  * 
  * @author Kevin
  */
@@ -53,8 +56,11 @@ public class ListenerList implements Serializable {
 	public void register(Class<? extends Event> eventClass, IEventListener listener) {
 		ListenerListImpl list = this.lists.get(eventClass);
 		if (list == null) {
-			list = new ListenerListImpl();
-			this.lists.put(eventClass, list);
+			// Another thread may register the same class of Event at the same time
+			ListenerListImpl old = this.lists.putIfAbsent(eventClass, list = new ListenerListImpl());
+			if (old != null) {
+				list = old;
+			}
 		}
 		list.register(listener);
 	}
@@ -68,11 +74,11 @@ public class ListenerList implements Serializable {
 	 *            The class of {@code Event}
 	 */
 	public void unregister(Object obj, Class<? extends Event> eventClass) {
-		IEventListener[] listeners = this.getListeners(eventClass);
-		if (listeners != null) {
-			for (IEventListener listener : listeners) {
+		ListenerListImpl list = this.lists.get(eventClass);
+		if (list != null) {
+			for (IEventListener listener : list.getListeners()) {
 				if (listener.getListeningObject() == obj) {
-					this.lists.get(eventClass).unregister(listener);
+					list.unregister(listener);
 				}
 			}
 		}
@@ -81,7 +87,7 @@ public class ListenerList implements Serializable {
 	/**
 	 * An implementation of a ListenerList for a specific class of {@code Event}
 	 * <p>
-	 * Basically just a wrapper around a List
+	 * Basically just a wrapper around a List, which is only accessed while holding its lock
 	 * 
 	 * @author Kevin
 	 */
@@ -102,7 +108,7 @@ public class ListenerList implements Serializable {
 		 * 
 		 * @return Every {@code IEventListener} of this instance
 		 */
-		public IEventListener[] getListeners() {
+		public synchronized IEventListener[] getListeners() {
 			return this.listeners.toArray(new IEventListener[this.listeners.size()]);
 		}
 		
@@ -112,7 +118,7 @@ public class ListenerList implements Serializable {
 		 * @param listener
 		 *            The instance to register
 		 */
-		public void register(IEventListener listener) {
+		public synchronized void register(IEventListener listener) {
 			this.listeners.add(listener);
 		}
 		
@@ -121,8 +127,8 @@ public class ListenerList implements Serializable {
 		 * 
 		 * @param listener
 		 */
-		public void unregister(IEventListener listener) {
-			listeners.remove(listener);
+		public synchronized void unregister(IEventListener listener) {
+			this.listeners.remove(listener);
 		}
 		
 	}
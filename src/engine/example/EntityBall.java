@@ -1,11 +1,9 @@
 package engine.example;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 
 import engine.Engine;
 import engine.client.graphics.Screen;
-import engine.geom2d.Vector2;
 import engine.physics.entity.EntityPhysics;
 import engine.physics.entity.Hitbox.HitboxCircle;
 import engine.physics.level.LevelPhysics;
@@ -38,11 +36,8 @@ public class EntityBall extends EntityPhysics {
 	
 	@Override
 	public void render(Screen s) {
-		Graphics2D g = s.getGraphics();
-		g.setColor(Color.WHITE);
-		g.drawOval((int) this.pos.getX(), (int) this.pos.getY(), 10, 10);
+		s.drawOval(this, 10, 10, Color.WHITE.getRGB());
 //		this.hitbox.renderHitbox(g, pos);
-		g.dispose();
 	}
 	
 	public void reset() {
@@ -58,7 +53,7 @@ public class EntityBall extends EntityPhysics {
 		} else {
 			y *= -(Engine.rand.nextDouble() + .5);
 		}
-		this.vel = Vector2.of(x, y);
+		this.setVel(x, y);
 	}
 	
 }
@@ -1,10 +1,8 @@
 package engine.example;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 
 import engine.client.graphics.Screen;
-import engine.geom2d.Vector2;
 import engine.physics.entity.EntityPhysics;
 import engine.physics.entity.Hitbox.HitboxRectangle;
 import engine.physics.level.LevelPhysics;
@@ -24,22 +22,19 @@ public class EntityPaddle extends EntityPhysics {
 	
 	@Override
 	public void render(Screen s) {
-		Graphics2D g = s.client.vImg.createGraphics();
-		g.setColor(Color.WHITE);
-		g.fillRect((int) this.pos.getX(), (int) this.pos.getY(), (int) ((HitboxRectangle) this.hitbox).sizeX,
-				(int) ((HitboxRectangle) this.hitbox).sizeY);
+		s.fillRect(this, (int) ((HitboxRectangle) this.hitbox).sizeX, (int) ((HitboxRectangle) this.hitbox).sizeY,
+				Color.WHITE.getRGB());
 //		this.hitbox.renderHitbox(g, this.pos);
-		g.dispose();
 //		System.out.println(this.hitbox.getFurthestAtAngle(0).plus(this.pos));
 	}
 	
 	@Override
 	public void tickEntity1() {
-		if (this.newp.getY() < 0) {
-			this.newp = Vector2.of(this.newp.getX(), 0);
+		if (this.getNewY() < 0) {
+			this.setNewp(this.getNewX(), 0);
 		}
-		if (this.newp.getY() > this.level.height - ((HitboxRectangle) this.hitbox).sizeY) {
-			this.newp = Vector2.of(this.newp.getX(), this.level.height - ((HitboxRectangle) this.hitbox).sizeY);
+		if (this.getNewY() > this.level.height - ((HitboxRectangle) this.hitbox).sizeY) {
+			this.setNewp(this.getNewX(), this.level.height - ((HitboxRectangle) this.hitbox).sizeY);
 		}
 	}
 	
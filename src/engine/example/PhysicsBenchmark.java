@@ -0,0 +1,163 @@
+package engine.example;
+
+import java.util.Random;
+
+import engine.Game;
+import engine.Player;
+import engine.client.Client;
+import engine.client.graphics.Screen;
+import engine.physics.Physics;
+import engine.physics.entity.EntityPhysics;
+import engine.physics.entity.Hitbox;
+import engine.physics.level.LevelPhysics;
+import engine.server.Server;
+
+/**
+ * Compares the throughput of the {@code Physics} engine in its normal {@code double} mode with its
+ * {@linkplain Physics#fixedPoint fixed-point mode}
+ * <p>
+ * The same randomly generated scene of bouncing circles and rectangles is ticked in both modes, and the time
+ * per tick is printed along with a hash of the final state. In fixed-point mode, the hash should be the same
+ * on every machine.
+ * <p>
+ * Arguments are the number of {@code EntityPhysics} and the number of ticks, 5000 and 500 by default.
+ * 
+ * @author Kevin
+ */
+public class PhysicsBenchmark {
+	
+	
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+		// Once each to warm up, then once each for real
+		for (int round = 0; round < 2; round++) {
+			for (boolean fixed : new boolean[] { false, true }) {
+				run(count, ticks, fixed, round == 1);
+			}
+		}
+	}
+	
+	/**
+	 * Runs the benchmark once
+	 * 
+	 * @param count
+	 *            The number of {@code EntityPhysics}
+	 * @param ticks
+	 *            The number of ticks
+	 * @param fixed
+	 *            Whether to run in fixed-point mode
+	 * @param print
+	 *            Whether to print the results
+	 */
+	public static void run(int count, int ticks, boolean fixed, boolean print) {
+		boolean wasFixed = Physics.fixedPoint;
+		Physics.fixedPoint = fixed;
+		try {
+			BenchmarkLevel level = new BenchmarkLevel(new BenchmarkGame());
+			Random random = new Random(count);
+			int side = (int) Math.sqrt(count * 400.0);
+			for (int i = 0; i < count; i++) {
+				Hitbox hitbox = random.nextBoolean() ? new Hitbox.HitboxCircle(2 + random.nextInt(4))
+						: new Hitbox.HitboxRectangle(4 + random.nextInt(6), 4 + random.nextInt(6));
+				EntityPhysics e = new BenchmarkEntity(level, random.nextInt(side), random.nextInt(side), hitbox);
+				e.setVel(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1);
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < ticks; i++) {
+				level.physics.tick();
+			}
+			long elapsed = System.nanoTime() - start;
+			if (print) {
+				long hash = 0;
+				for (EntityPhysics e : level.physics.entities) {
+					hash = hash * 31 + Double.hashCode(e.getPosX());
+					hash = hash * 31 + Double.hashCode(e.getPosY());
+				}
+				System.out.printf("%-6s %d entities, %.3f ms/tick, hash %016x%n", fixed ? "fixed" : "double", count,
+						elapsed / 1e6 / ticks, hash);
+			}
+		} finally {
+			Physics.fixedPoint = wasFixed;
+		}
+	}
+	
+	private static class BenchmarkGame extends Game {
+		
+		
+		@Override
+		public void tickClient(Client c) {
+		}
+		
+		@Override
+		protected void tickServer(Server s) {
+		}
+		
+		@Override
+		protected void init() {
+		}
+		
+		@Override
+		public void resetGame() {
+		}
+		
+		@Override
+		public Class<? extends Player> getPlayerClass() {
+			return null;
+		}
+		
+	}
+	
+	private static class BenchmarkLevel extends LevelPhysics {
+		
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		public BenchmarkLevel(Game game) {
+			super(game, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		}
+		
+		@Override
+		public void tickLevel() {
+		}
+		
+		@Override
+		public void render(Screen s) {
+		}
+		
+		@Override
+		public void reset() {
+		}
+		
+	}
+	
+	private static class BenchmarkEntity extends EntityPhysics {
+		
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		public BenchmarkEntity(LevelPhysics l, double x, double y, Hitbox hb) {
+			super(l, x, y, hb, 1, null);
+		}
+		
+		@Override
+		public void tickEntity1() {
+		}
+		
+		@Override
+		public void tickEntity2() {
+		}
+		
+		@Override
+		public void render(Screen s) {
+		}
+		
+	}
+	
+}
@@ -21,12 +21,8 @@ import engine.server.Server;
 public class Pong extends Game {
 	
 	
-	public static Pong cInst;
-	
 	public static Pong sInst;
 	
-	public static PongClient client;
-	
 	public static PongServer server;
 	
 	private byte prev1 = 0;
@@ -39,9 +35,8 @@ public class Pong extends Game {
 	private EventPlayerScore recent = null;
 	
 	public static void main(String[] args) {
-		cInst = new Pong();
-		client = new PongClient(cInst, 320, 180);
-		Engine.startClient(client);
+		// Starting the PongClient from here would load AWT on dedicated servers too, through Pong
+		PongLaunchConfig.main(args);
 	}
 	
 	static {
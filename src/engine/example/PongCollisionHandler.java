@@ -1,6 +1,5 @@
 package engine.example;
 
-import engine.geom2d.Vector2;
 import engine.physics.CollisionHandler;
 import engine.physics.entity.EntityPhysics;
 
@@ -15,10 +14,10 @@ public class PongCollisionHandler extends CollisionHandler {
 	@Override
 	public void handleCollision(EntityPhysics ent1, EntityPhysics ent2) {
 		if (ent1 instanceof EntityBall) {
-			ent1.vel = Vector2.of(ent1.vel.getX() * -1.05, ent1.vel.getY() * 1.05);
+			ent1.setVel(ent1.getVelX() * -1.05, ent1.getVelY() * 1.05);
 		}
 		if (ent2 instanceof EntityBall) {
-			ent2.vel = Vector2.of(ent2.vel.getX() * -1.05, ent2.vel.getY() * 1.05);
+			ent2.setVel(ent2.getVelX() * -1.05, ent2.getVelY() * 1.05);
 		}
 	}
 	
@@ -27,4 +26,9 @@ public class PongCollisionHandler extends CollisionHandler {
 		return Integer.MAX_VALUE;
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 }
@@ -6,7 +6,6 @@ import engine.Game;
 import engine.client.graphics.FontWrapper;
 import engine.client.graphics.Screen;
 import engine.event.SubscribeEvent;
-import engine.geom2d.Vector2;
 import engine.physics.entity.Hitbox.HitboxCircle;
 import engine.physics.level.LevelPhysics;
 
@@ -29,21 +28,21 @@ public class PongLevel extends LevelPhysics {
 		this.ball = new EntityBall(this);
 		this.paddles[0] = new EntityPaddle(this, 0);
 		this.paddles[1] = new EntityPaddle(this, 1);
-		this.physics.collisionHandlers.add(new PongCollisionHandler());
+		this.physics.addCollisionHandler(new PongCollisionHandler());
 	}
 	
 	@Override
 	public void tickLevel() {
 //		System.out.println("Position:\tServer:\t" + paddles[0].posX + ", " + paddles[0].posY);
-		if (this.ball.pos.getY() < 0
-				|| this.ball.pos.getY() + ((HitboxCircle) this.ball.hitbox).circleRadius > this.height) {
-			this.ball.vel = Vector2.of(this.ball.vel.getX(), this.ball.vel.getY() * -1);
+		if (this.ball.getPosY() < 0
+				|| this.ball.getPosY() + ((HitboxCircle) this.ball.hitbox).circleRadius > this.height) {
+			this.ball.setVel(this.ball.getVelX(), this.ball.getVelY() * -1);
 		}
-		if (this.ball.pos.getX() < 0) {
+		if (this.ball.getPosX() < 0) {
 			this.game.events.post(new EventPlayerScore(1, ++this.score[1]));
 			this.reset();
 		}
-		if (this.ball.pos.getX() + ((HitboxCircle) this.ball.hitbox).circleRadius > this.width) {
+		if (this.ball.getPosX() + ((HitboxCircle) this.ball.hitbox).circleRadius > this.width) {
 			this.game.events.post(new EventPlayerScore(0, ++this.score[0]));
 			this.reset();
 		}
@@ -64,7 +63,7 @@ public class PongLevel extends LevelPhysics {
 	
 	@Override
 	public void reset() {
-		this.ball.pos = Vector2.of(this.width / 2, this.height / 2);
+		this.ball.setPos(this.width / 2, this.height / 2);
 		this.ball.reset();
 	}
 	
@@ -76,7 +75,7 @@ public class PongLevel extends LevelPhysics {
 	@SubscribeEvent
 	public void playerInput(EventInput e) {
 //		System.out.println("Moving the paddle");
-		this.paddles[e.pnum].vel = Vector2.of(0, e.dir * 5);
+		this.paddles[e.pnum].setVel(0, e.dir * 5);
 	}
 	
 }
@@ -0,0 +1,350 @@
+package engine.geom2d;
+
+/**
+ * Q16.16 fixed-point math, stored in {@code long}s
+ * <p>
+ * A fixed-point number is a {@code long} holding the real value times {@link #ONE}, so it has 16 fractional
+ * bits. Everything here is done with integer arithmetic, and the trigonometric functions look up tables
+ * that are built once with {@code StrictMath} and rounded to fixed-point, so every result is exactly the same
+ * on any machine and any JVM. This is what the {@linkplain engine.physics.Physics#fixedPoint fixed-point
+ * mode} of the Physics engine is built on.
+ * <p>
+ * Since a fixed-point number with 16 fractional bits can always be stored in a {@code double} without any
+ * rounding, fixed-point values can be passed around as {@code double}s through {@link #toDouble(long)} and
+ * {@link #of(double)} without losing anything.
+ * <p>
+ * Values are kept in a {@code long} so that products of two values don't overflow, as long as both are below
+ * 2^15 or so in magnitude, which is a lot of pixels.
+ * 
+ * @author Kevin
+ */
+public class Fixed {
+	
+	
+	/**
+	 * The number of fractional bits
+	 */
+	public static final int FRACTION_BITS = 16;
+	
+	/**
+	 * 1 in fixed-point
+	 */
+	public static final long ONE = 1L << FRACTION_BITS;
+	
+	/**
+	 * 0.5 in fixed-point
+	 */
+	public static final long HALF = ONE >> 1;
+	
+	/**
+	 * Pi in fixed-point
+	 */
+	public static final long PI = of(StrictMath.PI);
+	
+	/**
+	 * Pi / 2 in fixed-point
+	 */
+	public static final long HALF_PI = of(StrictMath.PI / 2);
+	
+	/**
+	 * 2 * Pi in fixed-point
+	 */
+	public static final long TWO_PI = of(2 * StrictMath.PI);
+	
+	/**
+	 * The number of entries in a quarter turn of {@link #SINE}
+	 */
+	private static final int QUARTER = 1024;
+	
+	/**
+	 * The number of entries in {@link #ARCTANGENT}, from 0 to 1
+	 */
+	private static final int ARCTANGENT_STEPS = 1024;
+	
+	/**
+	 * The sine of every step of a quarter turn, including both ends, in fixed-point
+	 */
+	private static final long[] SINE = new long[QUARTER + 1];
+	
+	/**
+	 * The arctangent of every step from 0 to 1, including both ends, in fixed-point
+	 */
+	private static final long[] ARCTANGENT = new long[ARCTANGENT_STEPS + 1];
+	
+	static {
+		for (int i = 0; i <= QUARTER; i++) {
+			SINE[i] = of(StrictMath.sin(StrictMath.PI / 2 * i / QUARTER));
+		}
+		for (int i = 0; i <= ARCTANGENT_STEPS; i++) {
+			ARCTANGENT[i] = of(StrictMath.atan((double) i / ARCTANGENT_STEPS));
+		}
+	}
+	
+	private Fixed() {
+	}
+	
+	/**
+	 * Converts a {@code double} to the nearest fixed-point number
+	 * 
+	 * @param value
+	 *            The {@code double}
+	 * @return The fixed-point number
+	 */
+	public static long of(double value) {
+		return Math.round(value * ONE);
+	}
+	
+	/**
+	 * Converts an {@code int} to fixed-point
+	 * 
+	 * @param value
+	 *            The {@code int}
+	 * @return The fixed-point number
+	 */
+	public static long of(int value) {
+		return (long) value << FRACTION_BITS;
+	}
+	
+	/**
+	 * Converts a fixed-point number to a {@code double}, which is always exact
+	 * 
+	 * @param value
+	 *            The fixed-point number
+	 * @return The {@code double}
+	 */
+	public static double toDouble(long value) {
+		return (double) value / ONE;
+	}
+	
+	/**
+	 * Rounds a {@code double} to the nearest value that can be stored in fixed-point
+	 * 
+	 * @param value
+	 *            The {@code double}
+	 * @return The rounded {@code double}
+	 */
+	public static double quantize(double value) {
+		return toDouble(of(value));
+	}
+	
+	/**
+	 * Multiplies two fixed-point numbers, rounding to the nearest
+	 * 
+	 * @param a
+	 *            A fixed-point number
+	 * @param b
+	 *            Another fixed-point number
+	 * @return The product
+	 */
+	public static long mul(long a, long b) {
+		return (a * b + HALF) >> FRACTION_BITS;
+	}
+	
+	/**
+	 * Divides two fixed-point numbers, rounding towards zero
+	 * 
+	 * @param a
+	 *            The dividend
+	 * @param b
+	 *            The divisor
+	 * @return The quotient
+	 * @throws ArithmeticException
+	 *             If the divisor is zero
+	 */
+	public static long div(long a, long b) {
+		return (a << FRACTION_BITS) / b;
+	}
+	
+	/**
+	 * Finds the square root of a fixed-point number, rounding down
+	 * 
+	 * @param a
+	 *            The fixed-point number, which must not be negative
+	 * @return The square root
+	 */
+	public static long sqrt(long a) {
+		if (a <= 0) {
+			return 0;
+		}
+		// sqrt(a / ONE) * ONE = sqrt(a * ONE), found a bit at a time
+		long n = a << FRACTION_BITS;
+		long root = 0;
+		long bit = 1L << 62;
+		while (bit > n) {
+			bit >>>= 2;
+		}
+		while (bit != 0) {
+			if (n >= root + bit) {
+				n -= root + bit;
+				root = (root >>> 1) + bit;
+			} else {
+				root >>>= 1;
+			}
+			bit >>>= 2;
+		}
+		return root;
+	}
+	
+	/**
+	 * Finds the sine of a fixed-point angle
+	 * 
+	 * @param angle
+	 *            The angle in Radians
+	 * @return The sine
+	 */
+	public static long sin(long angle) {
+		angle %= TWO_PI;
+		if (angle < 0) {
+			angle += TWO_PI;
+		}
+		// The position in the table, in units of quarter turns / QUARTER, with 16 fractional bits
+		long position = (angle << (FRACTION_BITS + 12)) / TWO_PI;
+		int step = (int) (position >> FRACTION_BITS);
+		long fraction = position & (ONE - 1);
+		int quadrant = step / QUARTER;
+		step %= QUARTER;
+		long value;
+		if ((quadrant & 1) == 0) {
+			value = SINE[step] + mul(SINE[step + 1] - SINE[step], fraction);
+		} else {
+			value = SINE[QUARTER - step] + mul(SINE[QUARTER - step - 1] - SINE[QUARTER - step], fraction);
+		}
+		return quadrant < 2 ? value : -value;
+	}
+	
+	/**
+	 * Finds the cosine of a fixed-point angle
+	 * 
+	 * @param angle
+	 *            The angle in Radians
+	 * @return The cosine
+	 */
+	public static long cos(long angle) {
+		return sin(angle + HALF_PI);
+	}
+	
+	/**
+	 * Finds the tangent of a fixed-point angle
+	 * 
+	 * @param angle
+	 *            The angle in Radians
+	 * @return The tangent, or the largest {@code long} with the right sign where it is infinite
+	 */
+	public static long tan(long angle) {
+		long cos = cos(angle), sin = sin(angle);
+		if (cos == 0) {
+			return sin < 0 ? -Long.MAX_VALUE : Long.MAX_VALUE;
+		}
+		return div(sin, cos);
+	}
+	
+	/**
+	 * Finds the arctangent of a fixed-point number
+	 * 
+	 * @param a
+	 *            The fixed-point number
+	 * @return The angle in Radians, in the range [-pi/2, pi/2]
+	 */
+	public static long atan(long a) {
+		if (a < 0) {
+			return -atan(-a);
+		} else if (a > ONE) {
+			// atan(a) = pi/2 - atan(1/a)
+			return HALF_PI - atanUnit(div(ONE, a));
+		}
+		return atanUnit(a);
+	}
+	
+	/**
+	 * Looks up the arctangent of a fixed-point number in [0, 1]
+	 */
+	private static long atanUnit(long a) {
+		long position = a * ARCTANGENT_STEPS;
+		int step = (int) (position >> FRACTION_BITS);
+		if (step >= ARCTANGENT_STEPS) {
+			return ARCTANGENT[ARCTANGENT_STEPS];
+		}
+		long fraction = position & (ONE - 1);
+		return ARCTANGENT[step] + mul(ARCTANGENT[step + 1] - ARCTANGENT[step], fraction);
+	}
+	
+	/**
+	 * Finds the angle of the point (x, y) from the positive X axis, like {@link Math#atan2(double, double)}
+	 * 
+	 * @param y
+	 *            The fixed-point Y
+	 * @param x
+	 *            The fixed-point X
+	 * @return The angle in Radians, in the range [-pi, pi]
+	 */
+	public static long atan2(long y, long x) {
+		if (x == 0) {
+			return y > 0 ? HALF_PI : y < 0 ? -HALF_PI : 0;
+		}
+		long ax = Math.abs(x), ay = Math.abs(y);
+		// Keep the argument of the table lookup in [0, 1]
+		long angle = ay <= ax ? atanUnit(div(ay, ax)) : HALF_PI - atanUnit(div(ax, ay));
+		if (x < 0) {
+			angle = PI - angle;
+		}
+		return y < 0 ? -angle : angle;
+	}
+	
+	/**
+	 * Finds the sine of an angle, through fixed-point
+	 * 
+	 * @param angle
+	 *            The angle in Radians
+	 * @return The sine, which is a fixed-point value
+	 */
+	public static double sin(double angle) {
+		return toDouble(sin(of(angle)));
+	}
+	
+	/**
+	 * Finds the cosine of an angle, through fixed-point
+	 * 
+	 * @param angle
+	 *            The angle in Radians
+	 * @return The cosine, which is a fixed-point value
+	 */
+	public static double cos(double angle) {
+		return toDouble(cos(of(angle)));
+	}
+	
+	/**
+	 * Finds the tangent of an angle, through fixed-point
+	 * 
+	 * @param angle
+	 *            The angle in Radians
+	 * @return The tangent, which is a fixed-point value
+	 */
+	public static double tan(double angle) {
+		return toDouble(tan(of(angle)));
+	}
+	
+	/**
+	 * Finds the arctangent of a number, through fixed-point
+	 * 
+	 * @param a
+	 *            The number
+	 * @return The angle in Radians, which is a fixed-point value
+	 */
+	public static double atan(double a) {
+		return toDouble(atan(of(a)));
+	}
+	
+	/**
+	 * Finds the angle of the point (x, y) from the positive X axis, through fixed-point
+	 * 
+	 * @param y
+	 *            The Y
+	 * @param x
+	 *            The X
+	 * @return The angle in Radians, which is a fixed-point value
+	 */
+	public static double atan2(double y, double x) {
+		return toDouble(atan2(of(y), of(x)));
+	}
+	
+}
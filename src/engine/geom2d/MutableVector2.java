@@ -0,0 +1,273 @@
+package engine.geom2d;
+
+import java.io.Serializable;
+
+/**
+ * A mutable companion to {@code Vector2}, for code that runs often enough that creating a new
+ * {@code Vector2} for every operation adds up
+ * <p>
+ * Operations write their result into a destination {@code MutableVector2} instead of creating a new one, so
+ * a handful of {@code MutableVector2}s can be reused for an entire calculation. The destination may be one of
+ * the operands.
+ * <p>
+ * Only Cartesian values are stored. The magnitude is calculated on demand.
+ * 
+ * @see Vector2
+ * @author Kevin
+ */
+public class MutableVector2 implements Serializable {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The X element
+	 */
+	public double x;
+	
+	/**
+	 * The Y element
+	 */
+	public double y;
+	
+	/**
+	 * Creates a new zero {@code MutableVector2}
+	 */
+	public MutableVector2() {
+	}
+	
+	/**
+	 * Creates a new {@code MutableVector2} with the given Cartesian coordinates
+	 * 
+	 * @param x
+	 *            The X component
+	 * @param y
+	 *            The Y component
+	 */
+	public MutableVector2(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+	
+	/**
+	 * Sets the values of this {@code MutableVector2}
+	 * 
+	 * @param x
+	 *            The X component
+	 * @param y
+	 *            The Y component
+	 * @return {@code this}
+	 */
+	public MutableVector2 set(double x, double y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+	
+	/**
+	 * Copies the values of the given {@code Vector2} into this {@code MutableVector2}
+	 * 
+	 * @param source
+	 *            The {@code Vector2} to copy
+	 * @return {@code this}
+	 */
+	public MutableVector2 set(Vector2 source) {
+		return this.set(source.getX(), source.getY());
+	}
+	
+	/**
+	 * Copies the values of the given {@code MutableVector2} into this {@code MutableVector2}
+	 * 
+	 * @param source
+	 *            The {@code MutableVector2} to copy
+	 * @return {@code this}
+	 */
+	public MutableVector2 set(MutableVector2 source) {
+		return this.set(source.x, source.y);
+	}
+	
+	/**
+	 * Adds {@code addend} to {@code this}, storing the result in {@code dest}
+	 * <p>
+	 * This method is a convenience method and is functionally equivalent to calling
+	 * 
+	 * <pre>
+	 * MutableVector2.addInto(this, addend, dest);
+	 * </pre>
+	 * 
+	 * @param addend
+	 *            The addend
+	 * @param dest
+	 *            The {@code MutableVector2} to store the result in
+	 * @return {@code dest}
+	 */
+	public MutableVector2 addInto(MutableVector2 addend, MutableVector2 dest) {
+		return MutableVector2.addInto(this, addend, dest);
+	}
+	
+	/**
+	 * Subtracts {@code subtrahend} from {@code this}, storing the result in {@code dest}
+	 * <p>
+	 * This method is a convenience method and is functionally equivalent to calling
+	 * 
+	 * <pre>
+	 * MutableVector2.subtractInto(this, subtrahend, dest);
+	 * </pre>
+	 * 
+	 * @param subtrahend
+	 *            The subtrahend
+	 * @param dest
+	 *            The {@code MutableVector2} to store the result in
+	 * @return {@code dest}
+	 */
+	public MutableVector2 subtractInto(MutableVector2 subtrahend, MutableVector2 dest) {
+		return MutableVector2.subtractInto(this, subtrahend, dest);
+	}
+	
+	/**
+	 * Scales {@code this} by {@code factor}, storing the result in {@code dest}
+	 * <p>
+	 * This method is a convenience method and is functionally equivalent to calling
+	 * 
+	 * <pre>
+	 * MutableVector2.scaleInto(this, factor, dest);
+	 * </pre>
+	 * 
+	 * @param factor
+	 *            The factor to scale by
+	 * @param dest
+	 *            The {@code MutableVector2} to store the result in
+	 * @return {@code dest}
+	 */
+	public MutableVector2 scaleInto(double factor, MutableVector2 dest) {
+		return MutableVector2.scaleInto(this, factor, dest);
+	}
+	
+	/**
+	 * Computes the dot product of {@code this} and the vector with the given components
+	 * <p>
+	 * This method is a convenience method and is functionally equivalent to calling
+	 * 
+	 * <pre>
+	 * MutableVector2.dotXY(this.x, this.y, x, y);
+	 * </pre>
+	 * 
+	 * @param x
+	 *            The X component of the other vector
+	 * @param y
+	 *            The Y component of the other vector
+	 * @return The dot product
+	 */
+	public double dotXY(double x, double y) {
+		return MutableVector2.dotXY(this.x, this.y, x, y);
+	}
+	
+	/**
+	 * Computes the dot product of {@code this} and {@code multiplier}
+	 * 
+	 * @param multiplier
+	 *            The {@code MutableVector2} to multiply by
+	 * @return The dot product
+	 */
+	public double dot(MutableVector2 multiplier) {
+		return MutableVector2.dotXY(this.x, this.y, multiplier.x, multiplier.y);
+	}
+	
+	/**
+	 * Adds the two {@code MutableVector2}s, storing the result in {@code dest}
+	 * 
+	 * @param augend
+	 *            The augend
+	 * @param addend
+	 *            The addend
+	 * @param dest
+	 *            The {@code MutableVector2} to store the result in
+	 * @return {@code dest}
+	 */
+	public static MutableVector2 addInto(MutableVector2 augend, MutableVector2 addend, MutableVector2 dest) {
+		return dest.set(augend.x + addend.x, augend.y + addend.y);
+	}
+	
+	/**
+	 * Subtracts the subtrahend from the minuend, storing the result in {@code dest}
+	 * 
+	 * @param minuend
+	 *            The minuend
+	 * @param subtrahend
+	 *            The subtrahend
+	 * @param dest
+	 *            The {@code MutableVector2} to store the result in
+	 * @return {@code dest}
+	 */
+	public static MutableVector2 subtractInto(MutableVector2 minuend, MutableVector2 subtrahend,
+			MutableVector2 dest) {
+		return dest.set(minuend.x - subtrahend.x, minuend.y - subtrahend.y);
+	}
+	
+	/**
+	 * Scales the source by {@code factor}, storing the result in {@code dest}
+	 * 
+	 * @param source
+	 *            The source {@code MutableVector2}
+	 * @param factor
+	 *            The factor to scale by
+	 * @param dest
+	 *            The {@code MutableVector2} to store the result in
+	 * @return {@code dest}
+	 */
+	public static MutableVector2 scaleInto(MutableVector2 source, double factor, MutableVector2 dest) {
+		return dest.set(source.x * factor, source.y * factor);
+	}
+	
+	/**
+	 * Computes the dot product of the two vectors given by their components
+	 * 
+	 * @param x1
+	 *            The X component of the first vector
+	 * @param y1
+	 *            The Y component of the first vector
+	 * @param x2
+	 *            The X component of the second vector
+	 * @param y2
+	 *            The Y component of the second vector
+	 * @return The dot product
+	 */
+	public static double dotXY(double x1, double y1, double x2, double y2) {
+		return x1 * x2 + y1 * y2;
+	}
+	
+	/**
+	 * Calculates the magnitude of this {@code MutableVector2}
+	 * 
+	 * @return The magnitude
+	 */
+	public double getMagnitude() {
+		return Math.sqrt(this.x * this.x + this.y * this.y);
+	}
+	
+	/**
+	 * Creates an immutable {@code Vector2} with the current values of this {@code MutableVector2}
+	 * 
+	 * @return A new {@code Vector2}
+	 */
+	public Vector2 toVector2() {
+		return Vector2.of(this.x, this.y);
+	}
+	
+	public double getX() {
+		return this.x;
+	}
+	
+	public double getY() {
+		return this.y;
+	}
+	
+	@Override
+	public String toString() {
+		return "(" + this.x + ", " + this.y + ")";
+	}
+	
+}
@@ -14,7 +14,12 @@ import java.io.Serializable;
  * system, as well as some helpful methods to manipulate them.
  * <p>
  * All manipulation of {@code Vector2} results in a new {@code Vector2} instance being created. I'm still
- * unsure whether or not this design is the best, but I'm working on it.
+ * unsure whether or not this design is the best, but I'm working on it. Code that runs every tick should use
+ * {@link MutableVector2} instead.
+ * <p>
+ * The Polar values are only calculated the first time that they are needed, since most {@code Vector2}s are
+ * only ever read in Cartesian form. {@link #polar} is volatile and only set once they have been calculated, so
+ * a {@code Vector2} can still be shared between threads. At worst, several threads calculate the same values.
  * 
  * @author Kevin
  */
@@ -32,14 +37,20 @@ public class Vector2 implements Serializable {
 	public static final Vector2 ZERO = new Vector2();
 	
 	/**
-	 * The angle of the {@code Vector2}, between -pi and pi
+	 * The angle of the {@code Vector2}, between -pi and pi. Only valid if {@link #polar} is set.
 	 */
-	protected final double angle;
+	protected double angle;
 	
 	/**
-	 * The magnitude of the {@code Vector2}
+	 * The magnitude of the {@code Vector2}. Only valid if {@link #polar} is set.
 	 */
-	protected final double magnitude;
+	protected double magnitude;
+	
+	/**
+	 * Whether {@link #angle} and {@link #magnitude} have been calculated yet. Set after they are written, so
+	 * that any thread that sees it set also sees them.
+	 */
+	protected volatile boolean polar;
 	
 	/**
 	 * The X element
@@ -56,12 +67,14 @@ public class Vector2 implements Serializable {
 		this.y = 0;
 		this.magnitude = 0;
 		this.angle = 0;
+		this.polar = true;
 	}
 	
 	/**
 	 * A private constructor that creates a new {@code Vector2}
 	 * <p>
-	 * There are two ways that this constructor is used, for the sake of (slight) efficiency boosts
+	 * There are two ways that this constructor is used, for the sake of (slight) efficiency boosts. In
+	 * Cartesian mode, the Polar values are left to be calculated when they are first needed.
 	 * <p>
 	 * Of course, this is not publicly visible. Facade pattern, anyone?
 	 * 
@@ -76,11 +89,10 @@ public class Vector2 implements Serializable {
 		if (cart) {
 			this.x = a1;
 			this.y = a2;
-			this.magnitude = Math.sqrt(a1 * a1 + a2 * a2);
-			this.angle = Math.atan2(a2, a1);
 		} else {
 			this.angle = a1;
 			this.magnitude = a2;
+			this.polar = true;
 			this.x = Math.cos(a1) * a2;
 			this.y = Math.sin(a1) * a2;
 		}
@@ -280,7 +292,11 @@ public class Vector2 implements Serializable {
 	 * @return A unit {@code Vector2}
 	 */
 	public static Vector2 unit(Vector2 source) {
-		return ofPolar(source.angle, 1);
+		double magnitude = source.getMagnitude();
+		if (magnitude == 0) {
+			return ofPolar(source.getAngle(), 1);
+		}
+		return of(source.x / magnitude, source.y / magnitude);
 	}
 	
 	/**
@@ -309,7 +325,7 @@ public class Vector2 implements Serializable {
 	 * @return The angle between the two {@code Vector2}s
 	 */
 	public static double angleBetween(Vector2 vector1, Vector2 vector2) {
-		return Math.acos(Vector2.dot(vector1, vector2) / (vector1.magnitude * vector2.magnitude));
+		return Math.acos(Vector2.dot(vector1, vector2) / (vector1.getMagnitude() * vector2.getMagnitude()));
 	}
 	
 	/**
@@ -324,7 +340,7 @@ public class Vector2 implements Serializable {
 	 * @return The component of {@code of} on {@code on}
 	 */
 	public static double component(Vector2 of, Vector2 on) {
-		return Vector2.dot(of, on) / on.magnitude;
+		return Vector2.dot(of, on) / on.getMagnitude();
 	}
 	
 	/**
@@ -385,8 +401,9 @@ public class Vector2 implements Serializable {
 	 * @return The displacement between the two
 	 */
 	public static double displacement(Vector2 point1, Vector2 point2) {
-		Vector2 diff = point1.minus(point2);
-		return Math.sqrt(Math.pow(diff.x, 2) + Math.pow(diff.y, 2));
+		double dx = point1.x - point2.x;
+		double dy = point1.y - point2.y;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 	
 	/**
@@ -444,6 +461,7 @@ public class Vector2 implements Serializable {
 	 * @return
 	 */
 	public double getMagnitude() {
+		this.calculatePolar();
 		return this.magnitude;
 	}
 	
@@ -453,9 +471,21 @@ public class Vector2 implements Serializable {
 	 * @return
 	 */
 	public double getAngle() {
+		this.calculatePolar();
 		return this.angle;
 	}
 	
+	/**
+	 * Calculates the Polar values of this {@code Vector2}, if that hasn't been done yet
+	 */
+	private void calculatePolar() {
+		if (!this.polar) {
+			this.magnitude = Math.sqrt(this.x * this.x + this.y * this.y);
+			this.angle = Math.atan2(this.y, this.x);
+			this.polar = true;
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return this.getCartesian();
@@ -476,7 +506,7 @@ public class Vector2 implements Serializable {
 	 * @return
 	 */
 	public String getPolar() {
-		return "[" + this.magnitude + ", " + this.angle + "]";
+		return "[" + this.getMagnitude() + ", " + this.getAngle() + "]";
 	}
 	
 	/**
@@ -55,6 +55,9 @@ import engine.server.Server;
  * 	}
  * }
  * </pre>
+ * <p>
+ * Dedicated servers can be started without any display through {@link #main(String[])}, which never loads
+ * anything from {@code java.awt} or {@code javax.swing}.
  * 
  * @author Kevin
  */
@@ -85,6 +88,16 @@ public class LaunchWrapper {
 	 */
 	private static Game game;
 	
+	/**
+	 * The port that {@link #main(String[])} starts the server on, if none is given
+	 */
+	public static final int DEFAULT_PORT = 4444;
+	
+	/**
+	 * The minimum number of connections that {@link #main(String[])} starts the server with, if none is given
+	 */
+	public static final int DEFAULT_MIN_CONNECTS = 2;
+	
 	/**
 	 * Launches the Windowed version of the game
 	 * 
@@ -151,6 +164,54 @@ public class LaunchWrapper {
 		Engine.startServer(server);
 	}
 	
+	/**
+	 * Launches the dedicated server {@linkplain Engine#headless headless}, without any display
+	 * <p>
+	 * Must be called before {@link #initializeGame()} and {@link Engine#createEngine(LaunchConfig)}, so that
+	 * the {@code Game} doesn't decode any {@code Sprite}s and the {@code Engine} doesn't set up its log files.
+	 * Apart from that, this is the same as {@link #launchServer(int, int)}. Nothing here touches the
+	 * {@code Client} class of the {@code LaunchConfig}, which would load AWT.
+	 * 
+	 * @param port
+	 *            The port to start the server on
+	 * @param minConnects
+	 *            The minimum number of connections before the {@code Server} actually begins gameplay
+	 */
+	public static void launchHeadless(int port, int minConnects) {
+		System.setProperty("java.awt.headless", "true");
+		Engine.headless = true;
+		initializeGame();
+		Engine.createEngine(launchConfig);
+		launchServer(port, minConnects);
+	}
+	
+	/**
+	 * Starts a headless dedicated server
+	 * <p>
+	 * Arguments are the fully qualified name of the {@code LaunchConfig} class, then optionally the port
+	 * (default {@value #DEFAULT_PORT}) and the minimum number of connections (default
+	 * {@value #DEFAULT_MIN_CONNECTS}).
+	 * 
+	 * @param args
+	 *            The arguments
+	 * @see #launchHeadless(int, int)
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: LaunchWrapper <LaunchConfig class> [port] [minConnects]");
+			return;
+		}
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+		int minConnects = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MIN_CONNECTS;
+		try {
+			setLaunchConfig(Class.forName(args[0]).asSubclass(LaunchConfig.class).getConstructor().newInstance());
+		} catch (Exception e) {
+			e.printStackTrace();
+			return;
+		}
+		launchHeadless(port, minConnects);
+	}
+	
 	/**
 	 * Attempts to initialize the game
 	 */
@@ -24,15 +24,29 @@ public abstract class Entity implements ISpriteProvider, Rebuildable {
 	 */
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * The default distance, in pixels, past which a move between two snapshots is not interpolated
+	 */
+	public static final double DEFAULT_SNAP_DISTANCE = 128;
+	
+	/**
+	 * The distance, in pixels, that an {@code Entity} has to move between two
+	 * {@linkplain #snapshotPosition() snapshots} for rendering to jump straight to the new position instead
+	 * of sliding there, as defined in the config file. Catches teleports that arrive as plain position
+	 * updates, such as from the server.
+	 */
+	public static double SNAP_DISTANCE = DEFAULT_SNAP_DISTANCE;
+	
 	/**
 	 * The {@code Level}
 	 */
 	public Level level;
 	
 	/**
-	 * The upper-left Position of this {@code Entity}
+	 * The upper-left Position of this {@code Entity}. Should be accessed through {@link #getPos()}, since
+	 * subclasses may store it elsewhere.
 	 */
-	public Vector2 pos;
+	protected Vector2 pos;
 	
 	/**
 	 * The {@code Sprite}
@@ -50,6 +64,23 @@ public abstract class Entity implements ISpriteProvider, Rebuildable {
 	 */
 	public int id;
 	
+	/**
+	 * The position at the last two {@linkplain #snapshotPosition() snapshots}, which rendering interpolates
+	 * between
+	 */
+	protected transient double prevX, prevY, currX, currY;
+	
+	/**
+	 * Whether {@link #snapshotPosition()} has been called yet
+	 */
+	protected transient boolean snapshotted;
+	
+	/**
+	 * Whether the position has been set directly since the last snapshot, so that the next one should not be
+	 * interpolated from the one before
+	 */
+	protected transient boolean teleported;
+	
 	public Entity(Level l, double x, double y, Sprite sprite) {
 		this.level = l;
 		this.id = l.getNextAvailableID();
@@ -71,9 +102,89 @@ public abstract class Entity implements ISpriteProvider, Rebuildable {
 	
 	@Override
 	public Vector2 getSpritePosition() {
+		return this.getPos();
+	}
+	
+	/**
+	 * Gets the position to render the {@code Sprite} at, part of the way from the second-last
+	 * {@linkplain #snapshotPosition() snapshot} of the position to the last one
+	 * <p>
+	 * Rendering therefore runs one tick behind, but moves smoothly no matter how many frames are rendered
+	 * every tick.
+	 * 
+	 * @param alpha
+	 *            How far to go from the second-last snapshot to the last, in [0, 1]
+	 * @return The interpolated position
+	 */
+	public Vector2 getSpritePosition(double alpha) {
+		if (!this.snapshotted) {
+			return this.getSpritePosition();
+		}
+		return Vector2.of(this.prevX + (this.currX - this.prevX) * alpha,
+				this.prevY + (this.currY - this.prevY) * alpha);
+	}
+	
+	/**
+	 * Remembers the current position for interpolation. Called by the {@code Client} after every tick.
+	 * <p>
+	 * If the {@code Entity} was {@linkplain #setPos(Vector2) teleported}, or moved further than
+	 * {@link #SNAP_DISTANCE} since the last snapshot, both snapshots are set to the current position, so that
+	 * it isn't drawn sliding across the screen.
+	 */
+	public void snapshotPosition() {
+		double x = this.getPosX(), y = this.getPosY();
+		double dx = x - this.currX, dy = y - this.currY;
+		if (this.snapshotted && !this.teleported && dx * dx + dy * dy <= SNAP_DISTANCE * SNAP_DISTANCE) {
+			this.prevX = this.currX;
+			this.prevY = this.currY;
+		} else {
+			this.prevX = x;
+			this.prevY = y;
+			this.snapshotted = true;
+		}
+		this.currX = x;
+		this.currY = y;
+		this.teleported = false;
+	}
+	
+	/**
+	 * Gets the upper-left Position of this {@code Entity}
+	 * 
+	 * @return The position
+	 */
+	public Vector2 getPos() {
 		return this.pos;
 	}
 	
+	/**
+	 * Gets the X of the upper-left Position of this {@code Entity}
+	 * 
+	 * @return The X of the position
+	 */
+	public double getPosX() {
+		return this.getPos().getX();
+	}
+	
+	/**
+	 * Gets the Y of the upper-left Position of this {@code Entity}
+	 * 
+	 * @return The Y of the position
+	 */
+	public double getPosY() {
+		return this.getPos().getY();
+	}
+	
+	/**
+	 * Sets the upper-left Position of this {@code Entity}, as a teleport that is not interpolated
+	 * 
+	 * @param pos
+	 *            The new position
+	 */
+	public void setPos(Vector2 pos) {
+		this.pos = pos;
+		this.teleported = true;
+	}
+	
 	/**
 	 * Any actions that may want to be executed every tick, such as AI decisions
 	 */
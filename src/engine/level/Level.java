@@ -25,6 +25,16 @@ public abstract class Level implements Rebuildable {
 	 */
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * The width of a {@code Level} created without a {@code Client} to take the size of
+	 */
+	public static final int DEFAULT_WIDTH = 320;
+	
+	/**
+	 * The height of a {@code Level} created without a {@code Client} to take the size of
+	 */
+	public static final int DEFAULT_HEIGHT = 180;
+	
 	/**
 	 * The {@code Game} instance
 	 */
@@ -52,13 +62,15 @@ public abstract class Level implements Rebuildable {
 	
 	/**
 	 * Creates a new level from the given {@code Game} with width and height equal to that of the
-	 * {@code Client}
+	 * {@code Client}, or {@link #DEFAULT_WIDTH} x {@link #DEFAULT_HEIGHT} if there is no {@code Client}, as on
+	 * a dedicated server
 	 * 
 	 * @param game
 	 *            The {@code Game} instance
 	 */
 	public Level(Game game) {
-		this(game, Engine.getClient().WIDTH, Engine.getClient().HEIGHT);
+		this(game, Engine.hasClient() ? Engine.getClient().WIDTH : DEFAULT_WIDTH,
+				Engine.hasClient() ? Engine.getClient().HEIGHT : DEFAULT_HEIGHT);
 	}
 	
 	/**
@@ -133,6 +145,16 @@ public abstract class Level implements Rebuildable {
 		return e.id;
 	}
 	
+	/**
+	 * Takes a {@linkplain Entity#snapshotPosition() snapshot} of the position of every {@code Entity}, for
+	 * render interpolation
+	 */
+	public void snapshotPositions() {
+		for (int i = 0; i < this.entList.size(); i++) {
+			this.entList.get(i).snapshotPosition();
+		}
+	}
+	
 	/**
 	 * Removes this {@code Entity} from the {@code Level}
 	 * @param e
@@ -141,6 +163,13 @@ public abstract class Level implements Rebuildable {
 		this.entList.remove(e);
 	}
 	
+	/**
+	 * Releases anything that the {@code Level} has registered outside of its {@code Game}, once the
+	 * {@code Game} is done with. Called by {@link engine.server.Server#shutdown()}. Does nothing by default.
+	 */
+	public void shutdown() {
+	}
+	
 	/**
 	 * Retrieves the given {@code Entity} based on its ID
 	 * 
@@ -0,0 +1,175 @@
+package engine.networknio;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct {@code ByteBuffer}s, shared by every connection
+ * <p>
+ * Channels can only read into and write from direct buffers. Given a heap buffer, NIO copies it into a
+ * temporary direct one on every single call, so all of the buffers of the network are direct. Since direct
+ * buffers are slow to allocate and are only freed once the garbage collector gets around to it, they are
+ * kept around and reused instead.
+ * <p>
+ * Buffers come in size classes, each a power of two from {@link #MIN_SIZE} to {@link #MAX_SIZE}, and are
+ * handed out as {@link PooledBuffer}s, which go back to the pool once they are released. Anything larger
+ * than {@code MAX_SIZE} is allocated on its own, and left to the garbage collector afterwards. Every size
+ * class keeps no more than about {@link #RETAINED_BYTES} worth of free buffers, so a short burst of large
+ * buffers doesn't stay around forever.
+ * 
+ * @author Kevin
+ */
+public class BufferPool {
+	
+	
+	/**
+	 * The {@code BufferPool} of the network
+	 */
+	public static final BufferPool NETWORK = new BufferPool();
+	
+	/**
+	 * The size of the smallest size class, 1 KiB
+	 */
+	public static final int MIN_SIZE = 1 << 10;
+	
+	/**
+	 * The size of the largest size class, 32 MiB
+	 */
+	public static final int MAX_SIZE = 1 << 25;
+	
+	/**
+	 * The most bytes worth of free buffers that each size class keeps, though always at least 2 buffers
+	 */
+	public static final int RETAINED_BYTES = 4 * 1024 * 1024;
+	
+	/**
+	 * The free buffers of every size class, smallest first
+	 */
+	private final Queue<ByteBuffer>[] free;
+	
+	/**
+	 * The number of free buffers in every size class
+	 */
+	private final AtomicInteger[] freeCount;
+	
+	/**
+	 * The number of direct buffers that were allocated
+	 */
+	private final AtomicLong allocated = new AtomicLong();
+	
+	/**
+	 * The number of {@code PooledBuffer}s that were handed out
+	 */
+	private final AtomicLong acquired = new AtomicLong();
+	
+	/**
+	 * Creates a new, empty {@code BufferPool}
+	 */
+	@SuppressWarnings ({ "unchecked", "rawtypes" })
+	public BufferPool() {
+		int classes = Integer.numberOfTrailingZeros(MAX_SIZE) - Integer.numberOfTrailingZeros(MIN_SIZE) + 1;
+		this.free = new Queue[classes];
+		this.freeCount = new AtomicInteger[classes];
+		for (int i = 0; i < classes; i++) {
+			this.free[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+			this.freeCount[i] = new AtomicInteger();
+		}
+	}
+	
+	/**
+	 * Borrows a buffer of at least the given capacity, cleared and ready to be written to
+	 * 
+	 * @param capacity
+	 *            The least capacity
+	 * @return The {@code PooledBuffer}, which must be {@linkplain PooledBuffer#release() released} once it is
+	 *         no longer needed
+	 */
+	public PooledBuffer acquire(int capacity) {
+		this.acquired.incrementAndGet();
+		if (capacity > MAX_SIZE) {
+			this.allocated.incrementAndGet();
+			return new PooledBuffer(this, ByteBuffer.allocateDirect(capacity));
+		}
+		int sizeClass = sizeClass(capacity);
+		ByteBuffer buffer = this.free[sizeClass].poll();
+		if (buffer == null) {
+			this.allocated.incrementAndGet();
+			buffer = ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+		} else {
+			this.freeCount[sizeClass].decrementAndGet();
+			buffer.clear();
+		}
+		return new PooledBuffer(this, buffer);
+	}
+	
+	/**
+	 * Takes back a buffer whose {@code PooledBuffer} was released for the last time
+	 * 
+	 * @param buffer
+	 *            The buffer
+	 */
+	void recycle(ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		if (capacity > MAX_SIZE || Integer.bitCount(capacity) != 1) {
+			// Never came from a size class
+			return;
+		}
+		int sizeClass = sizeClass(capacity);
+		if (this.freeCount[sizeClass].incrementAndGet() > Math.max(2, RETAINED_BYTES / capacity)) {
+			this.freeCount[sizeClass].decrementAndGet();
+			return;
+		}
+		this.free[sizeClass].add(buffer);
+	}
+	
+	/**
+	 * Gets the size class that fits the given capacity
+	 */
+	private static int sizeClass(int capacity) {
+		if (capacity <= MIN_SIZE) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+	}
+	
+	/**
+	 * Gets the number of direct buffers that were allocated, which stops growing once the pool has warmed up
+	 * 
+	 * @return The number of direct buffers
+	 */
+	public long getAllocated() {
+		return this.allocated.get();
+	}
+	
+	/**
+	 * Gets the number of {@code PooledBuffer}s that were handed out
+	 * 
+	 * @return The number of {@code PooledBuffer}s
+	 */
+	public long getAcquired() {
+		return this.acquired.get();
+	}
+	
+	/**
+	 * Gets the number of bytes held in free buffers
+	 * 
+	 * @return The number of bytes
+	 */
+	public long getFreeBytes() {
+		long bytes = 0;
+		for (int i = 0; i < this.freeCount.length; i++) {
+			bytes += (long) this.freeCount[i].get() * (MIN_SIZE << i);
+		}
+		return bytes;
+	}
+	
+	@Override
+	public String toString() {
+		return this.allocated.get() + " allocated, " + this.acquired.get() + " acquired, " + this.getFreeBytes()
+				+ " bytes free";
+	}
+	
+}
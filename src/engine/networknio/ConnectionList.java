@@ -1,8 +1,10 @@
 package engine.networknio;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
 
 import engine.networknio.packet.PacketNIO;
 
@@ -18,12 +20,67 @@ public class ConnectionList {
 	 */
 	protected List<ConnectionNIO> connections = Collections.synchronizedList(new ArrayList<ConnectionNIO>());
 	
-	private Thread readThread;
+	/**
+	 * The {@code NIOReactor} that reads from the connections, if any
+	 */
+	private NIOReactor reactor;
+	
+	/**
+	 * Whether {@link #reactor} was started by, and belongs to, this {@code ConnectionList}
+	 */
+	private boolean ownsReactor;
 	
 	public ConnectionList() {
-		this.readThread = new ThreadConnectionListRead(this);
-		this.readThread.start();
-		ConnectionNIO.logger.fine("ConnectionList Read Thread ID:\t" + this.readThread.getId());
+		this(true);
+	}
+	
+	/**
+	 * Creates a new {@code ConnectionList}
+	 * 
+	 * @param read
+	 *            Whether to start an {@code NIOReactor} to read from the connections. If not, another thread has
+	 *            to do it.
+	 */
+	public ConnectionList(boolean read) {
+		if (read) {
+			try {
+				this.reactor = new NIOReactor("Server Connection Reactor");
+				this.reactor.start();
+				this.ownsReactor = true;
+				ConnectionNIO.logger.fine("ConnectionList Reactor Thread ID:\t" + this.reactor.getId());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Creates a new {@code ConnectionList} whose connections are read by the given {@code NIOReactor}, such as
+	 * the one shared by the rooms of a {@code RoomManager}
+	 * 
+	 * @param reactor
+	 *            The {@code NIOReactor}
+	 */
+	public ConnectionList(NIOReactor reactor) {
+		this.reactor = reactor;
+	}
+	
+	/**
+	 * Gets the {@code NIOReactor} that reads from the connections
+	 * 
+	 * @return The {@code NIOReactor}, or {@code null} if there is none
+	 */
+	public NIOReactor getReactor() {
+		return this.reactor;
+	}
+	
+	/**
+	 * Stops the {@code NIOReactor}, if this {@code ConnectionList} started it
+	 */
+	public void shutdown() {
+		if (this.ownsReactor) {
+			this.reactor.shutdown();
+		}
 	}
 	
 	/**
@@ -36,13 +93,16 @@ public class ConnectionList {
 	}
 	
 	/**
-	 * Adds the given {@code ConnectionNIO} to the list
+	 * Adds the given {@code ConnectionNIO} to the list, and registers it with the {@code NIOReactor}
 	 * 
 	 * @param connect
 	 *            The {@code ConnectionNIO}
 	 */
 	public void addToList(ConnectionNIO connect) {
 		this.connections.add(connect);
+		if (this.reactor != null) {
+			this.reactor.register(connect);
+		}
 	}
 	
 	/**
@@ -80,18 +140,22 @@ public class ConnectionList {
 	
 	/**
 	 * Sends the given {@code PacketNIO} to every player via TCP
+	 * <p>
+	 * The {@code PacketNIO} is only written once, and its bytes are shared by every connection. See
+	 * {@link EncodedPacket}.
 	 * 
 	 * @param p
 	 *            The {@code PacketNIO} to send
 	 */
 	public void sendTCPPacketAll(PacketNIO p) {
-		for (ConnectionNIO conn : this.connections) {
-			conn.addToTCPSendQueue(p);
-		}
+		this.sentTCPPacketAllExcept(p, -1);
 	}
 	
 	/**
 	 * Sends the given {@code PacketNIO} to every player except the one noted via TCP
+	 * <p>
+	 * The {@code PacketNIO} is only written once, and its bytes are shared by every connection. See
+	 * {@link EncodedPacket}.
 	 * 
 	 * @param p
 	 *            The {@code PacketNIO} to send
@@ -99,11 +163,18 @@ public class ConnectionList {
 	 *            The player number to NOT send the {@code PacketNIO} to
 	 */
 	public void sentTCPPacketAllExcept(PacketNIO p, int id) {
-		for (int i = 0; i < this.connections.size(); i++) {
-			if (i != id) {
-				this.connections.get(i).addToTCPSendQueue(p);
+		EncodedPacket encoded = this.encode(p);
+		if (encoded == null) {
+			return;
+		}
+		synchronized (this.connections) {
+			for (int i = 0; i < this.connections.size(); i++) {
+				if (i != id) {
+					this.connections.get(i).addToTCPSendQueue(encoded);
+				}
 			}
 		}
+		encoded.release();
 	}
 	
 	/**
@@ -132,18 +203,22 @@ public class ConnectionList {
 	
 	/**
 	 * Sends the given {@code PacketNIO} to every player via UDP
+	 * <p>
+	 * The {@code PacketNIO} is only written once, and its bytes are copied into the datagram of every
+	 * connection. See {@link EncodedPacket}.
 	 * 
 	 * @param p
 	 *            The {@code PacketNIO} to send
 	 */
 	public void sendUDPPacketAll(PacketNIO p) {
-		for (ConnectionNIO conn : this.connections) {
-			conn.addToUDPSendQueue(p);
-		}
+		this.sentUDPPacketAllExcept(p, -1);
 	}
 	
 	/**
 	 * Sends the given {@code PacketNIO} to every player except the one noted via UDP
+	 * <p>
+	 * The {@code PacketNIO} is only written once, and its bytes are copied into the datagram of every
+	 * connection. See {@link EncodedPacket}.
 	 * 
 	 * @param p
 	 *            The {@code PacketNIO} to send
@@ -151,11 +226,42 @@ public class ConnectionList {
 	 *            The player number to NOT send the {@code PacketNIO} to
 	 */
 	public void sentUDPPacketAllExcept(PacketNIO p, int id) {
-		for (int i = 0; i < this.connections.size(); i++) {
-			if (i != id) {
-				this.connections.get(i).addToUDPSendQueue(p);
+		EncodedPacket encoded = this.encode(p);
+		if (encoded == null) {
+			return;
+		}
+		synchronized (this.connections) {
+			for (int i = 0; i < this.connections.size(); i++) {
+				if (i != id) {
+					this.connections.get(i).addToUDPSendQueue(encoded);
+				}
 			}
 		}
+		encoded.release();
+	}
+	
+	/**
+	 * Writes out the given {@code PacketNIO} once for every connection, unless there are none
+	 * 
+	 * @param p
+	 *            The {@code PacketNIO}
+	 * @return The {@code EncodedPacket}, or {@code null} if there is no one to send it to, or it is too large
+	 *         or cannot be written
+	 */
+	private EncodedPacket encode(PacketNIO p) {
+		if (this.connections.isEmpty()) {
+			return null;
+		}
+		try {
+			return new EncodedPacket(p);
+		} catch (IOException e) {
+			ConnectionNIO.logger.warning(e.getMessage());
+			return null;
+		} catch (RuntimeException e) {
+			// Such as an unregistered PacketNIO, which shouldn't take the tick down with it
+			ConnectionNIO.logger.log(Level.WARNING, "Couldn't write " + p.getClass().getName(), e);
+			return null;
+		}
 	}
 	
 }
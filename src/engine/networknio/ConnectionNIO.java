@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.StandardSocketOptions;
-import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Collections;
@@ -21,7 +20,7 @@ import engine.networknio.packet.PacketNIO;
  * <p>
  * Used to send {@link engine.engine.networknio.packet.PacketNIO Packets} back and forth between the two sides
  * <p>
- * Packets are sent at the end of every tick, but have a separate thread to read them.
+ * Packets are sent at the end of every tick, but are read by an {@link NIOReactor} as soon as they arrive.
  * 
  * @author Kevin
  */
@@ -44,7 +43,13 @@ public class ConnectionNIO {
 	public static final int DEFAULT_UDP_BUFFER_SIZE = 1024;
 	
 	/**
-	 * The size of the TCP Buffer as defined in the config file
+	 * The default largest TCP frame, 16 MiB
+	 */
+	public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+	
+	/**
+	 * The size of the TCP Buffer as defined in the config file. The TCP Buffers start out at this size, but
+	 * grow as needed for larger {@code PacketNIO}s, up to {@link #MAX_FRAME_SIZE}.
 	 */
 	public static int TCP_BUFFER_SIZE;
 	
@@ -54,53 +59,77 @@ public class ConnectionNIO {
 	public static int UDP_BUFFER_SIZE;
 	
 	/**
-	 * The {@code Thread} that reads incoming {@code Packet} data
+	 * The largest TCP frame, that is a single {@code PacketNIO} with its ID, as defined in the config file.
+	 * A connection that receives a larger frame is assumed to be broken, and is closed.
 	 */
-	private Thread readThread;
+	public static int MAX_FRAME_SIZE = DEFAULT_MAX_FRAME_SIZE;
 	
 	/**
-	 * The Legacy IO feature kept around for convenience
+	 * The default high watermark of the TCP send queue, 4 MiB
 	 */
-	private Socket legacySocket;
+	public static final int DEFAULT_HIGH_WATERMARK = 4 * 1024 * 1024;
 	
 	/**
-	 * The Channel used for TCP IO
+	 * The default low watermark of the TCP send queue, 1 MiB
 	 */
-	private SocketChannel tcpChannel;
+	public static final int DEFAULT_LOW_WATERMARK = 1024 * 1024;
 	
 	/**
-	 * The Channel used for UDP IO
+	 * The default {@code SlowConsumerPolicy}
 	 */
-	private DatagramChannel udpChannel;
+	public static final SlowConsumerPolicy DEFAULT_SLOW_CONSUMER_POLICY =
+			SlowConsumerPolicy.DROP_THEN_DISCONNECT;
+			
+	/**
+	 * The number of bytes waiting in the TCP send queue at which a connection becomes congested, as defined
+	 * in the config file
+	 */
+	public static int HIGH_WATERMARK = DEFAULT_HIGH_WATERMARK;
+	
+	/**
+	 * The number of bytes waiting in the TCP send queue at which a congested connection stops being so, as
+	 * defined in the config file
+	 */
+	public static int LOW_WATERMARK = DEFAULT_LOW_WATERMARK;
+	
+	/**
+	 * The {@code SlowConsumerPolicy} that new connections start out with, as defined in the config file
+	 */
+	public static SlowConsumerPolicy SLOW_CONSUMER_POLICY = DEFAULT_SLOW_CONSUMER_POLICY;
 	
 	/**
-	 * The {@code ByteBuffer} that the TCP Channel sends
+	 * The {@code NIOReactor} of this connection alone, which reads incoming {@code Packet} data, if it was
+	 * created with {@code threads}. Otherwise, it is up to someone else to
+	 * {@linkplain NIOReactor#register(ConnectionNIO) register} it with theirs.
 	 */
-	private ByteBuffer tcpBuffer;
+	private NIOReactor reactor;
 	
 	/**
-	 * The {@code ByteBuffer that the UDP Channel sends}
+	 * The Legacy IO feature kept around for convenience
 	 */
-	private ByteBuffer udpBuffer;
+	private Socket legacySocket;
 	
 	/**
-	 * The {@code ByteBuffer} that TCP data is read into
+	 * The Channel used for TCP IO
 	 */
-	private ByteBuffer tcpIn;
+	private SocketChannel tcpChannel;
 	
 	/**
-	 * The {@code ByteBuffer} that UDP data is read into
+	 * The Channel used for UDP IO
 	 */
-	private ByteBuffer udpIn;
+	private DatagramChannel udpChannel;
 	
 	/**
 	 * The remote {@code SocketAddress}
 	 */
 	private SocketAddress remoteAddress;
 	
-	private boolean running = true;
+	/**
+	 * Whether the connection is running. Volatile, since the {@code NIOReactor} may shut it down.
+	 */
+	private volatile boolean running = true;
 	
-	private boolean terminating = false;
+	private volatile boolean terminating = false;
 	
 	public String sourceName;
 	
@@ -108,6 +137,21 @@ public class ConnectionNIO {
 	
 	public boolean threadsActive;
 	
+	/**
+	 * What to do while the other side isn't keeping up with what is sent
+	 */
+	private SlowConsumerPolicy slowConsumerPolicy = SLOW_CONSUMER_POLICY;
+	
+	/**
+	 * Whether the TCP send queue has passed the high watermark, and not yet gone back below the low one
+	 */
+	private boolean congested = false;
+	
+	/**
+	 * The number of UDP {@code PacketNIO}s dropped because the connection was congested
+	 */
+	private long dropped;
+	
 	/**
 	 * Packets read and awaiting processing
 	 */
@@ -116,7 +160,7 @@ public class ConnectionNIO {
 	/**
 	 * ChannelWrapper around the TCP Channel
 	 */
-	private ProtocolWrapper tcpWrapper;
+	private TCPChannelWrapper tcpWrapper;
 	
 	/**
 	 * ChannelWrapper around the UDP Channel
@@ -132,7 +176,7 @@ public class ConnectionNIO {
 	 * @param source
 	 *            The name for the source
 	 * @param threads
-	 *            Whether to start the reading thread
+	 *            Whether to start an {@code NIOReactor} of its own to read
 	 * @throws IOException
 	 *             If an I/O stream cannot be opened
 	 */
@@ -141,7 +185,7 @@ public class ConnectionNIO {
 	}
 	
 	/**
-	 * Creates a new {@code Connection} ready to send data. The reading thread is not started for this
+	 * Creates a new {@code Connection} ready to send data. No {@code NIOReactor} is started for this
 	 * instance. The sizes of the TCP and UDP Buffers are as defined by {@link #TCP_BUFFER_SIZE} and
 	 * {@link #UDP_BUFFER_SIZE}.
 	 * 
@@ -154,7 +198,7 @@ public class ConnectionNIO {
 	 * @param udpSize
 	 *            The size of the UDP Write buffer
 	 * @param threads
-	 *            Whether to start the reading thread
+	 *            Whether to start an {@code NIOReactor} of its own to read
 	 * @throws IOException
 	 *             If an I/O stream cannot be opened
 	 */
@@ -163,7 +207,7 @@ public class ConnectionNIO {
 	}
 	
 	/**
-	 * Creates a new {@code Connection} ready to send data. The reading thread is not started for this
+	 * Creates a new {@code Connection} ready to send data. No {@code NIOReactor} is started for this
 	 * instance.
 	 * 
 	 * @param s
@@ -193,7 +237,7 @@ public class ConnectionNIO {
 	 * @param udpSize
 	 *            The size of the UDP Write buffer
 	 * @param threads
-	 *            Whether to start the reading thread
+	 *            Whether to start an {@code NIOReactor} of its own to read
 	 * @throws IOException
 	 *             If an I/O stream cannot be opened
 	 */
@@ -205,6 +249,9 @@ public class ConnectionNIO {
 		
 		this.tcpChannel = s;
 		this.udpChannel = DatagramChannel.open();
+		// Every connection of a server binds its UDP channel to the same port, and is told apart by the remote
+		// address that it is connected to
+		this.udpChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
 		this.udpChannel.bind(this.legacySocket.getLocalSocketAddress());
 		this.udpChannel.connect(this.remoteAddress);
 		
@@ -213,21 +260,17 @@ public class ConnectionNIO {
 		this.tcpChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
 		this.udpChannel.configureBlocking(false);
 		
-		this.tcpBuffer = ByteBuffer.allocate(tcpSize);
-		this.udpBuffer = ByteBuffer.allocate(udpSize);
-		this.tcpIn = ByteBuffer.allocate(tcpSize);
-		this.udpIn = ByteBuffer.allocate(udpSize);
-		
-		this.tcpWrapper = new TCPChannelWrapper(this.tcpChannel, this.tcpIn, this.tcpBuffer, this);
-		this.udpWrapper = new UDPChannelWrapper(this.udpChannel, this.udpIn, this.udpBuffer, this);
+		this.tcpWrapper = new TCPChannelWrapper(this.tcpChannel, tcpSize, tcpSize, this);
+		this.udpWrapper = new UDPChannelWrapper(this.udpChannel, udpSize, udpSize, this);
 		
 		logger.info("Local Address:\t" + this.legacySocket.getLocalSocketAddress());
 		logger.info("Remote Address:\t" + this.remoteAddress);
 		
 		if (threads) {
-			this.readThread = new ThreadConnectionNIORead(this);
-			logger.fine("Packet Read Thread ID:\t" + this.readThread.getId());
-			this.readThread.start();
+			this.reactor = new NIOReactor(source + " Connection Reactor");
+			this.reactor.start();
+			logger.fine("Packet Reactor Thread ID:\t" + this.reactor.getId());
+			this.reactor.register(this);
 		}
 		
 		this.threadsActive = threads;
@@ -244,25 +287,49 @@ public class ConnectionNIO {
 	
 	/**
 	 * Sends all the {@code PacketNIO} data in the sending queue
+	 * <p>
+	 * This never blocks. Whatever the TCP socket won't take right away waits in the TCP send queue, and the
+	 * {@link SlowConsumerPolicy} decides what happens if it keeps growing.
 	 */
 	public void sendPackets() {
 		try {
 			// Send only if there is actually data contained
-			if (this.tcpBuffer.position() > 0) {
-				// End delimiter
-				this.tcpBuffer.putInt(Integer.MIN_VALUE);
-				this.tcpWrapper.sendData(this.remoteAddress);
+			synchronized (this.tcpWrapper.outputLock) {
+				if (!this.terminating && this.tcpWrapper.hasData()) {
+					this.tcpWrapper.sendData(this.remoteAddress);
+				}
 			}
-			if (this.udpBuffer.position() > 0) {
-				// End delimiter
-				this.udpBuffer.putInt(Integer.MIN_VALUE);
-				this.udpWrapper.sendData(this.remoteAddress);
+			this.checkCongestion();
+			synchronized (this.udpWrapper.outputLock) {
+				if (!this.terminating && this.udpWrapper.hasData()) {
+					this.udpWrapper.sendData(this.remoteAddress);
+				}
 			}
 		} catch (Exception e) {
 			// Swallow because it's gonna happen a lot
 		}
 	}
 	
+	/**
+	 * Checks the TCP send queue against the watermarks, and applies the {@code SlowConsumerPolicy}
+	 */
+	private void checkCongestion() {
+		long queued = this.tcpWrapper.getQueuedBytes();
+		if (!this.congested && queued >= HIGH_WATERMARK) {
+			this.congested = true;
+			logger.warning(this.sourceName + " is congested with " + queued + " bytes waiting to be sent");
+		} else if (this.congested && queued <= LOW_WATERMARK) {
+			this.congested = false;
+			logger.info(this.sourceName + " is no longer congested, " + this.dropped
+					+ " packets dropped so far");
+		}
+		if (this.congested && this.slowConsumerPolicy.disconnects(queued)) {
+			logger.warning("Disconnecting " + this.sourceName + ", which is too slow with " + queued
+					+ " bytes waiting to be sent");
+			this.networkShutdown();
+		}
+	}
+	
 	/**
 	 * Adds a {@code Packet} to the TCP send queue of the connection. The connection will then send the
 	 * contents of the packet at the end of the tick.
@@ -271,16 +338,18 @@ public class ConnectionNIO {
 	 *            The {@code Packet} to send in the future
 	 */
 	public void addToTCPSendQueue(PacketNIO p) {
-		if (!this.terminating) {
-			try {
-				this.tcpWrapper.writePacket(p);
-				if (!PacketNIO.idtoclass.containsKey(p.getID())) {
-					logger.warning("An unregistered type of PacketNIO was added to " + this.sourceName
-							+ "'s TCP send queue! ID is " + p.getID() + ", class is "
-							+ p.getClass().getName());
+		synchronized (this.tcpWrapper.outputLock) {
+			if (!this.terminating) {
+				try {
+					this.tcpWrapper.writePacket(p);
+					if (!PacketNIO.idtoclass.containsKey(p.getID())) {
+						logger.warning("An unregistered type of PacketNIO was added to " + this.sourceName
+								+ "'s TCP send queue! ID is " + p.getID() + ", class is "
+								+ p.getClass().getName());
+					}
+				} catch (Exception e) {
+					// Swallow the exception because it's gonna happen a lot
 				}
-			} catch (Exception e) {
-				// Swallow the exception because it's gonna happen a lot
 			}
 		}
 	}
@@ -288,21 +357,69 @@ public class ConnectionNIO {
 	/**
 	 * Adds a {@code Packet} to the UDP send queue of the connection. The connection will then send the
 	 * contents of the packet at the end of the tick.
+	 * <p>
+	 * While the connection is congested, the {@code SlowConsumerPolicy} may drop it instead.
 	 * 
 	 * @param p
 	 *            The {@code Packet} to send in the future
 	 */
 	public void addToUDPSendQueue(PacketNIO p) {
-		if (!this.terminating) {
-			try {
-				this.udpWrapper.writePacket(p);
-				if (!PacketNIO.idtoclass.containsKey(p.getID())) {
-					logger.warning("An unregistered type of PacketNIO was added to " + this.sourceName
-							+ "'s UDP send queue! ID is " + p.getID() + ", class is "
-							+ p.getClass().getName());
+		if (this.congested && this.slowConsumerPolicy.dropsUnreliable()) {
+			this.dropped++;
+			return;
+		}
+		synchronized (this.udpWrapper.outputLock) {
+			if (!this.terminating) {
+				try {
+					this.udpWrapper.writePacket(p);
+					if (!PacketNIO.idtoclass.containsKey(p.getID())) {
+						logger.warning("An unregistered type of PacketNIO was added to " + this.sourceName
+								+ "'s UDP send queue! ID is " + p.getID() + ", class is "
+								+ p.getClass().getName());
+					}
+				} catch (Exception e) {
+					// Swallow the exception because it's gonna happen a lot
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds an {@code EncodedPacket} to the TCP send queue of the connection. The connection will then send it
+	 * at the end of the tick, sharing its bytes with every other connection that it is sent to.
+	 * 
+	 * @param p
+	 *            The {@code EncodedPacket} to send in the future
+	 */
+	public void addToTCPSendQueue(EncodedPacket p) {
+		synchronized (this.tcpWrapper.outputLock) {
+			if (!this.terminating) {
+				this.tcpWrapper.writeEncoded(p);
+			}
+		}
+	}
+	
+	/**
+	 * Adds an {@code EncodedPacket} to the UDP send queue of the connection. The connection will then send it
+	 * at the end of the tick.
+	 * <p>
+	 * While the connection is congested, the {@code SlowConsumerPolicy} may drop it instead.
+	 * 
+	 * @param p
+	 *            The {@code EncodedPacket} to send in the future
+	 */
+	public void addToUDPSendQueue(EncodedPacket p) {
+		if (this.congested && this.slowConsumerPolicy.dropsUnreliable()) {
+			this.dropped++;
+			return;
+		}
+		synchronized (this.udpWrapper.outputLock) {
+			if (!this.terminating) {
+				try {
+					this.udpWrapper.writeEncoded(p);
+				} catch (Exception e) {
+					// Swallow the exception because it's gonna happen a lot
 				}
-			} catch (Exception e) {
-				// Swallow the exception because it's gonna happen a lot
 			}
 		}
 	}
@@ -322,14 +439,35 @@ public class ConnectionNIO {
 	}
 	
 	/**
-	 * Interrupts the reading <strike>and writing</strike> {@code Threads}
+	 * Stops the {@code NIOReactor} of this connection, if it has one of its own
 	 */
 	public void wakeThreads() {
-		if (this.readThread != null) {
-			this.readThread.interrupt();
+		if (this.reactor != null) {
+			this.reactor.shutdown();
 		}
 	}
 	
+	/**
+	 * Registers the TCP and UDP channels with the given {@code NIOReactor} for reading
+	 * 
+	 * @param reactor
+	 *            The {@code NIOReactor}
+	 */
+	void register(NIOReactor reactor) {
+		this.tcpWrapper.register(reactor);
+		this.udpWrapper.register(reactor);
+	}
+	
+	/**
+	 * Queues the given {@code PacketNIO}s for processing, once they have been read
+	 * 
+	 * @param packets
+	 *            The {@code PacketNIO}s
+	 */
+	void received(List<PacketNIO> packets) {
+		this.readPackets.addAll(packets);
+	}
+	
 	/**
 	 * Attempts to read a {@code PacketNIO} from each source. This method will return if a {@code PacketNIO}
 	 * was read successfully from either source, first reading from the TCP channel, then the UDP one.
@@ -338,20 +476,35 @@ public class ConnectionNIO {
 	 */
 	private boolean readPackets() {
 		try {
-			if (this.tcpWrapper.readData()) {
-				this.readPackets.addAll(this.tcpWrapper.readFully());
-				return true;
-			}
-			if (this.udpWrapper.readData()) {
-				this.readPackets.addAll(this.udpWrapper.readFully());
-				return true;
-			}
+			return this.readPackets(this.tcpWrapper) || this.readPackets(this.udpWrapper);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return false;
 	}
 	
+	/**
+	 * Attempts to read {@code PacketNIO}s from the given {@code ProtocolWrapper}
+	 * 
+	 * @param wrapper
+	 *            The {@code ProtocolWrapper}
+	 * @return Whether a {@code PacketNIO} was successfully read
+	 * @throws IOException
+	 *             If the data is malformed
+	 */
+	private boolean readPackets(ProtocolWrapper wrapper) throws IOException {
+		wrapper.inputLock.lock();
+		try {
+			if (wrapper.readData()) {
+				this.readPackets.addAll(wrapper.readFully());
+				return true;
+			}
+			return false;
+		} finally {
+			wrapper.endRead();
+		}
+	}
+	
 	/**
 	 * Terminates this {@code Connection} as well as all associated threads
 	 */
@@ -367,6 +520,11 @@ public class ConnectionNIO {
 				e.printStackTrace();
 			}
 			
+			// Nothing more will be sent or read, so give back every pooled buffer, including the shared frames of
+			// EncodedPackets that are still waiting to be sent
+			this.tcpWrapper.release();
+			this.udpWrapper.release();
+			
 			this.remoteAddress = null;
 			
 			this.wakeThreads();
@@ -422,6 +580,53 @@ public class ConnectionNIO {
 		this.ping = l;
 	}
 	
+	/**
+	 * Gets the {@code SlowConsumerPolicy} of this {@code ConnectionNIO}
+	 * 
+	 * @return The {@code SlowConsumerPolicy}
+	 */
+	public SlowConsumerPolicy getSlowConsumerPolicy() {
+		return this.slowConsumerPolicy;
+	}
+	
+	/**
+	 * Sets what to do while the other side isn't keeping up with what is sent
+	 * 
+	 * @param policy
+	 *            The {@code SlowConsumerPolicy}
+	 */
+	public void setSlowConsumerPolicy(SlowConsumerPolicy policy) {
+		this.slowConsumerPolicy = policy;
+	}
+	
+	/**
+	 * Gets the number of bytes that have been sent over TCP, but are still waiting for the socket to take them
+	 * 
+	 * @return The number of bytes
+	 */
+	public long getQueuedBytes() {
+		return this.tcpWrapper.getQueuedBytes();
+	}
+	
+	/**
+	 * Whether the TCP send queue has passed {@link #HIGH_WATERMARK}, and not yet gone back below
+	 * {@link #LOW_WATERMARK}
+	 * 
+	 * @return Whether the connection is congested
+	 */
+	public boolean isCongested() {
+		return this.congested;
+	}
+	
+	/**
+	 * Gets the number of UDP {@code PacketNIO}s that were dropped because the connection was congested
+	 * 
+	 * @return The number of dropped {@code PacketNIO}s
+	 */
+	public long getDroppedPackets() {
+		return this.dropped;
+	}
+	
 	/**
 	 * Disconnects the connection by stopping the threads and closing the channels
 	 * 
@@ -434,4 +639,69 @@ public class ConnectionNIO {
 		
 	}
 	
+	/**
+	 * What a {@code ConnectionNIO} does once the other side stops keeping up with what is sent to it, and its
+	 * TCP send queue passes {@link ConnectionNIO#HIGH_WATERMARK}
+	 * <p>
+	 * UDP {@code PacketNIO}s are unreliable to begin with, and usually superseded by the next tick, so they are
+	 * the first thing to go. A connection that still can't keep up is cut off, rather than letting its queue
+	 * grow without bound.
+	 * 
+	 * @author Kevin
+	 */
+	public static enum SlowConsumerPolicy {
+		/**
+		 * Keeps queueing everything, no matter how large the queue grows
+		 */
+		NONE (false, Long.MAX_VALUE),
+		/**
+		 * Drops UDP {@code PacketNIO}s until the queue is back below the low watermark
+		 */
+		DROP_UNRELIABLE (true, Long.MAX_VALUE),
+		/**
+		 * Drops UDP {@code PacketNIO}s until the queue is back below the low watermark, and disconnects if the
+		 * queue reaches twice the high watermark anyways
+		 */
+		DROP_THEN_DISCONNECT (true, 2),
+		/**
+		 * Disconnects as soon as the queue passes the high watermark
+		 */
+		DISCONNECT (false, 1);
+		
+		SlowConsumerPolicy(boolean drop, long disconnect) {
+			this.drop = drop;
+			this.disconnect = disconnect;
+		}
+		
+		/**
+		 * Whether UDP {@code PacketNIO}s are dropped while congested
+		 */
+		private final boolean drop;
+		
+		/**
+		 * The multiple of the high watermark at which to disconnect
+		 */
+		private final long disconnect;
+		
+		/**
+		 * Whether UDP {@code PacketNIO}s are dropped while congested
+		 * 
+		 * @return Whether to drop them
+		 */
+		public boolean dropsUnreliable() {
+			return this.drop;
+		}
+		
+		/**
+		 * Whether a congested connection with the given number of bytes in its TCP send queue is disconnected
+		 * 
+		 * @param queued
+		 *            The number of bytes in the queue
+		 * @return Whether to disconnect
+		 */
+		public boolean disconnects(long queued) {
+			return this.disconnect != Long.MAX_VALUE && queued >= this.disconnect * HIGH_WATERMARK;
+		}
+	}
+	
 }
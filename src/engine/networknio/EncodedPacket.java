@@ -0,0 +1,103 @@
+package engine.networknio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import engine.networknio.ProtocolWrapper.TCPChannelWrapper;
+import engine.networknio.packet.PacketNIO;
+
+/**
+ * A {@code PacketNIO} that has already been written out, so that it can be sent to any number of connections
+ * without writing it again for each one
+ * <p>
+ * The bytes are kept in a single {@link PooledBuffer} as a TCP frame. Every TCP connection that it is sent to
+ * gets a {@linkplain PooledBuffer#retainedDuplicate() duplicate} of that buffer in its send queue, so the
+ * bytes are never even copied. A UDP datagram holds several {@code PacketNIO}s though, so every UDP
+ * connection copies the bytes, minus the frame length, into its own datagram.
+ * <p>
+ * The bytes must never change once written, and the {@code EncodedPacket} must be {@linkplain #release()
+ * released} once it has been sent to everyone. The buffer only goes back to the pool once every connection
+ * has released its duplicate as well.
+ * 
+ * @author Kevin
+ */
+public class EncodedPacket {
+	
+	
+	/**
+	 * The TCP frame, ready to be read from
+	 */
+	private final PooledBuffer frame;
+	
+	/**
+	 * The ID and data, copied out of the frame the first time that the {@code PacketNIO} goes into a datagram
+	 */
+	private byte[] packet;
+	
+	/**
+	 * Writes out the given {@code PacketNIO}
+	 * 
+	 * @param p
+	 *            The {@code PacketNIO}
+	 * @throws IOException
+	 *             If it is larger than {@link ConnectionNIO#MAX_FRAME_SIZE}
+	 */
+	public EncodedPacket(PacketNIO p) throws IOException {
+		PooledBuffer buffer = BufferPool.NETWORK.acquire(ConnectionNIO.TCP_BUFFER_SIZE);
+		try {
+			this.frame = TCPChannelWrapper.writeFrame(buffer, p);
+		} catch (IOException e) {
+			buffer.release();
+			throw e;
+		} catch (RuntimeException e) {
+			buffer.release();
+			throw e;
+		}
+		this.frame.buffer().flip();
+	}
+	
+	/**
+	 * Gets the TCP frame. The {@code PooledBuffer} belongs to this {@code EncodedPacket}, so it must be
+	 * {@linkplain PooledBuffer#retainedDuplicate() duplicated} by anyone that holds on to it.
+	 * 
+	 * @return The TCP frame
+	 */
+	PooledBuffer frame() {
+		return this.frame;
+	}
+	
+	/**
+	 * Gets the {@code PacketNIO} as it goes into a UDP datagram, that is the ID followed by the data
+	 * <p>
+	 * The bytes are copied out of the direct buffer only once, since a small array is much quicker to copy
+	 * into every datagram than a fresh view of the direct buffer.
+	 * 
+	 * @return The bytes, which must not be changed
+	 */
+	byte[] packet() {
+		if (this.packet == null) {
+			ByteBuffer bytes = this.frame.buffer().duplicate();
+			bytes.position(TCPChannelWrapper.HEADER_SIZE);
+			this.packet = new byte[bytes.remaining()];
+			bytes.get(this.packet);
+		}
+		return this.packet;
+	}
+	
+	/**
+	 * Gets the size of the {@code PacketNIO}, that is its ID and data
+	 * 
+	 * @return The size, in bytes
+	 */
+	public int size() {
+		return this.frame.buffer().remaining() - TCPChannelWrapper.HEADER_SIZE;
+	}
+	
+	/**
+	 * Gives up the buffer, once the {@code EncodedPacket} has been sent to everyone
+	 */
+	public void release() {
+		this.frame.release();
+	}
+	
+}
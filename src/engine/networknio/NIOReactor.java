@@ -0,0 +1,227 @@
+package engine.networknio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+/**
+ * A thread that waits on a single {@code Selector} for any number of channels, and handles each channel only
+ * when it is ready
+ * <p>
+ * The TCP {@code SocketChannel}s and UDP {@code DatagramChannel}s of {@code ConnectionNIO}s, as well as the
+ * {@code ServerSocketChannel} that accepts them, are all registered with a reactor. The thread sleeps in
+ * {@link Selector#select()} until one of them has something to read or accept, so idle connections cost no
+ * CPU at all, and data is read as soon as it arrives rather than on the next poll.
+ * <p>
+ * Channels can be registered from any thread. Since a channel can't be registered with a {@code Selector}
+ * that is in the middle of selecting, registrations are queued and carried out by the reactor itself.
+ * <p>
+ * A channel whose {@code Handler} throws is closed, and the {@code Handler} is told about it through
+ * {@link Handler#failed(Exception)}, so that a {@code ConnectionNIO} doesn't live on with a closed channel.
+ * 
+ * @author Kevin
+ */
+public class NIOReactor extends Thread {
+	
+	
+	/**
+	 * The {@code Selector}
+	 */
+	private final Selector selector;
+	
+	/**
+	 * Registrations waiting to be carried out on the reactor thread
+	 */
+	private final Queue<Runnable> pending = new ConcurrentLinkedQueue<Runnable>();
+	
+	/**
+	 * Whether the reactor should keep running
+	 */
+	private volatile boolean running = true;
+	
+	/**
+	 * Creates a new {@code NIOReactor}, which still has to be started
+	 * 
+	 * @param name
+	 *            The name of the thread
+	 * @throws IOException
+	 *             If the {@code Selector} cannot be opened
+	 */
+	public NIOReactor(String name) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		this.setDaemon(true);
+	}
+	
+	/**
+	 * Registers the given channel, so that the given {@code Handler} is called whenever it is ready for any of
+	 * the given operations
+	 * 
+	 * @param channel
+	 *            The channel, which must be non-blocking
+	 * @param ops
+	 *            The operations, as in {@link SelectionKey}
+	 * @param handler
+	 *            The {@code Handler}
+	 */
+	public void register(final SelectableChannel channel, final int ops, final Handler handler) {
+		this.pending.add(new Runnable() {
+			
+			
+			@Override
+			public void run() {
+				try {
+					channel.register(NIOReactor.this.selector, ops, handler);
+				} catch (ClosedChannelException e) {
+					// Closed before it could be registered, so there is nothing to read anyways
+				}
+			}
+			
+		});
+		this.selector.wakeup();
+	}
+	
+	/**
+	 * Changes the operations that the given channel is registered for. Like registrations, the change is
+	 * carried out on the reactor thread, after any registration that came before it.
+	 * 
+	 * @param channel
+	 *            The channel, which must have been registered with this reactor
+	 * @param ops
+	 *            The operations, as in {@link SelectionKey}
+	 */
+	public void setInterest(final SelectableChannel channel, final int ops) {
+		this.pending.add(new Runnable() {
+			
+			
+			@Override
+			public void run() {
+				SelectionKey key = channel.keyFor(NIOReactor.this.selector);
+				if (key != null && key.isValid()) {
+					key.interestOps(ops);
+				}
+			}
+			
+		});
+		this.selector.wakeup();
+	}
+	
+	/**
+	 * Registers the TCP and UDP channels of the given {@code ConnectionNIO} for reading
+	 * 
+	 * @param c
+	 *            The {@code ConnectionNIO}
+	 */
+	public void register(ConnectionNIO c) {
+		c.register(this);
+	}
+	
+	@Override
+	public void run() {
+		while (this.running) {
+			try {
+				this.selector.select();
+			} catch (IOException e) {
+				e.printStackTrace();
+				break;
+			}
+			Runnable registration;
+			while ((registration = this.pending.poll()) != null) {
+				registration.run();
+			}
+			Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (!key.isValid()) {
+					continue;
+				}
+				Handler handler = (Handler) key.attachment();
+				try {
+					handler.ready(key);
+				} catch (Exception e) {
+					// One broken channel mustn't stop every other one from being read
+					ConnectionNIO.logger.log(Level.WARNING, this.getName() + " closing a channel after an error",
+							e);
+					key.cancel();
+					try {
+						key.channel().close();
+					} catch (IOException e1) {
+						e1.printStackTrace();
+					}
+					this.fail(handler, e);
+				}
+			}
+		}
+		try {
+			this.selector.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Tells the {@code Handler} of a channel that was closed after an error
+	 */
+	private void fail(Handler handler, Exception e) {
+		try {
+			handler.failed(e);
+		} catch (Exception e1) {
+			e1.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Stops the reactor. The channels that were registered are left open.
+	 */
+	public void shutdown() {
+		this.running = false;
+		this.selector.wakeup();
+	}
+	
+	/**
+	 * Gets the number of channels that are currently registered
+	 * 
+	 * @return The number of channels
+	 */
+	public int getChannelCount() {
+		return this.selector.keys().size();
+	}
+	
+	/**
+	 * Something that is called on the reactor thread when its channel is ready
+	 * 
+	 * @author Kevin
+	 */
+	public static interface Handler {
+		
+		
+		/**
+		 * Handles the channel, which is ready for one of the operations that it was registered for. This
+		 * should never block.
+		 * 
+		 * @param key
+		 *            The {@code SelectionKey} of the channel
+		 * @throws IOException
+		 *             If the channel failed, in which case it is closed
+		 */
+		public void ready(SelectionKey key) throws IOException;
+		
+		/**
+		 * Called on the reactor thread once the channel has been closed, because {@link #ready(SelectionKey)}
+		 * threw. Whatever owns the channel should shut down with it.
+		 * 
+		 * @param e
+		 *            The exception that was thrown
+		 */
+		public void failed(Exception e);
+		
+	}
+	
+}
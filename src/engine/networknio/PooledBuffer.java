@@ -0,0 +1,114 @@
+package engine.networknio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A direct {@code ByteBuffer} borrowed from a {@link BufferPool}, which goes back to the pool once it has been
+ * released by everyone that holds it
+ * <p>
+ * Every {@code PooledBuffer} starts out with a reference count of 1. A {@linkplain #retainedDuplicate()
+ * duplicate} shares the same memory and the same reference count, but has a position and limit of its own,
+ * so the same bytes can be written out to several channels at once without copying them. Each holder
+ * {@linkplain #release() releases} its own {@code PooledBuffer} once it is done with it, and must never touch
+ * it afterwards.
+ * 
+ * @author Kevin
+ */
+public class PooledBuffer {
+	
+	
+	/**
+	 * The {@code BufferPool} that the buffer came from
+	 */
+	private final BufferPool pool;
+	
+	/**
+	 * The buffer as it came from the {@code BufferPool}
+	 */
+	private final ByteBuffer root;
+	
+	/**
+	 * The buffer as seen by this holder
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * The number of holders that have yet to release the buffer, shared with every duplicate
+	 */
+	private final AtomicInteger references;
+	
+	PooledBuffer(BufferPool pool, ByteBuffer root) {
+		this(pool, root, root, new AtomicInteger(1));
+	}
+	
+	private PooledBuffer(BufferPool pool, ByteBuffer root, ByteBuffer buffer, AtomicInteger references) {
+		this.pool = pool;
+		this.root = root;
+		this.buffer = buffer;
+		this.references = references;
+	}
+	
+	/**
+	 * Gets the {@code ByteBuffer}
+	 * 
+	 * @return The {@code ByteBuffer}
+	 */
+	public ByteBuffer buffer() {
+		return this.buffer;
+	}
+	
+	/**
+	 * Gets the capacity of the {@code ByteBuffer}, which may be larger than what was asked for
+	 * 
+	 * @return The capacity
+	 */
+	public int capacity() {
+		return this.buffer.capacity();
+	}
+	
+	/**
+	 * Creates another holder of the same bytes, with a position and limit of its own, starting out the same
+	 * as this one
+	 * 
+	 * @return The duplicate, which must be released on its own
+	 */
+	public PooledBuffer retainedDuplicate() {
+		this.references.incrementAndGet();
+		return new PooledBuffer(this.pool, this.root, this.buffer.duplicate(), this.references);
+	}
+	
+	/**
+	 * Gives up this holder's reference to the buffer. Once every holder has done so, the buffer goes back to
+	 * the {@code BufferPool}.
+	 * 
+	 * @return Whether the buffer went back to the {@code BufferPool}
+	 */
+	public boolean release() {
+		int left = this.references.decrementAndGet();
+		if (left < 0) {
+			throw new IllegalStateException("PooledBuffer was released more often than it was retained");
+		}
+		if (left == 0) {
+			this.pool.recycle(this.root);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Moves the remaining bytes of the buffer into a larger one from the same {@code BufferPool}, and releases
+	 * this one
+	 * 
+	 * @param capacity
+	 *            The least capacity of the new buffer
+	 * @return The new {@code PooledBuffer}, ready to be written to after the moved bytes
+	 */
+	public PooledBuffer grow(int capacity) {
+		PooledBuffer grown = this.pool.acquire(capacity);
+		grown.buffer.put(this.buffer);
+		this.release();
+		return grown;
+	}
+	
+}
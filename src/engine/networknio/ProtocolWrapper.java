@@ -1,45 +1,82 @@
 package engine.networknio;
 
 import java.io.IOException;
+import java.net.PortUnreachableException;
 import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import engine.networknio.packet.PacketNIO;
 
 /**
  * A wrapper around a given communication protocol Channel and Buffers, be it {@code SocketChannel} or
  * {@code DatagramChannel}, that simplifies sending/receiving data
+ * <p>
+ * Once {@linkplain #register(NIOReactor) registered} with an {@code NIOReactor}, everything that arrives on
+ * the Channel is read as soon as it is ready, and handed to the {@code ConnectionNIO}.
+ * <p>
+ * Every UDP datagram holds whole {@code PacketNIO}s, each an ID followed by its data, and ends with an ID of
+ * {@code Integer.MIN_VALUE}. Once a datagram is full, the next {@code PacketNIO} starts a new one. TCP is a
+ * stream, though, which splits and joins writes however it likes, so every {@code PacketNIO} sent over it is
+ * a frame of its own, prefixed by its length. See {@link TCPChannelWrapper}.
+ * <p>
+ * Neither buffer is held on to while it isn't needed. The output buffer is borrowed from
+ * {@link BufferPool#NETWORK} by the first {@code PacketNIO} written in a tick, and given back once it has
+ * been sent. The input buffer is borrowed when there is something to read, and given back once there is
+ * nothing left over, so an idle connection holds no buffers at all. Once the connection shuts down, every
+ * buffer that is still borrowed is {@linkplain #release() given back}. The output side is only used while
+ * holding {@link #outputLock}, and the input side while holding {@link #inputLock}, so that no buffer is
+ * given back while another thread is still using it.
  * 
  * @author Kevin
  */
-public abstract class ProtocolWrapper {
+public abstract class ProtocolWrapper implements NIOReactor.Handler {
 	
 	
 	/**
-	 * The {@code ByteBuffer} that data will be read into
+	 * The buffer that data will be read into, while one is borrowed
 	 */
-	protected ByteBuffer inputBuffer;
+	protected PooledBuffer input;
 	
 	/**
-	 * The {@code ByteBuffer} that data will be sent from
+	 * The buffer that data will be sent from, while one is borrowed
 	 */
-	protected ByteBuffer outputBuffer;
+	protected PooledBuffer output;
+	
+	/**
+	 * The sizes of the input and output buffers
+	 */
+	protected final int inputSize, outputSize;
 	
 	protected ConnectionNIO connect;
 	
 	/**
-	 * Creates a new {@code ProtocolWrapper} with the given Input and Output {@code ByteBuffer}s
+	 * Held while writing to or sending from the output side
+	 */
+	final Object outputLock = new Object();
+	
+	/**
+	 * Held while reading into the input buffer
+	 */
+	final ReentrantLock inputLock = new ReentrantLock();
+	
+	/**
+	 * Creates a new {@code ProtocolWrapper} with the given Input and Output buffer sizes
 	 * 
-	 * @param input
-	 * @param output
+	 * @param inputSize
+	 * @param outputSize
 	 */
-	public ProtocolWrapper(ByteBuffer input, ByteBuffer output, ConnectionNIO connect) {
-		this.inputBuffer = input;
-		this.outputBuffer = output;
+	public ProtocolWrapper(int inputSize, int outputSize, ConnectionNIO connect) {
+		this.inputSize = inputSize;
+		this.outputSize = outputSize;
 		this.connect = connect;
 	}
 	
@@ -60,19 +97,145 @@ public abstract class ProtocolWrapper {
 	 */
 	public abstract boolean readData() throws IOException;
 	
+	/**
+	 * Whether anything has been written to the output buffer since it was last sent
+	 * 
+	 * @return Whether there is data to send
+	 */
+	public boolean hasData() {
+		return this.output != null && this.output.buffer().position() > 0;
+	}
+	
+	/**
+	 * Gets the output buffer, borrowing one if there isn't one yet
+	 * 
+	 * @return The output {@code ByteBuffer}
+	 */
+	protected ByteBuffer output() {
+		if (this.output == null) {
+			this.output = BufferPool.NETWORK.acquire(this.outputSize);
+			// The pool may hand out more than was asked for
+			this.output.buffer().limit(this.outputSize);
+		}
+		return this.output.buffer();
+	}
+	
+	/**
+	 * Registers the Channel with the given {@code NIOReactor} for reading
+	 * 
+	 * @param reactor
+	 *            The {@code NIOReactor}
+	 */
+	public abstract void register(NIOReactor reactor);
+	
+	@Override
+	public void ready(SelectionKey key) throws IOException {
+		this.inputLock.lock();
+		try {
+			while (this.readData()) {
+				this.connect.received(this.readFully());
+			}
+		} finally {
+			this.endRead();
+		}
+	}
+	
+	/**
+	 * Lets go of {@link #inputLock} after reading, and gives back the input buffer if the
+	 * {@code ConnectionNIO} has shut down in the meantime
+	 */
+	void endRead() {
+		this.inputLock.unlock();
+		if (!this.connect.isRunning()) {
+			this.releaseInput();
+		}
+	}
+	
+	/**
+	 * Gives back every buffer that is still borrowed, once the {@code ConnectionNIO} has shut down
+	 * <p>
+	 * If another thread is in the middle of reading, the input buffer is given back by that thread once it is
+	 * done, instead of waiting for it here.
+	 */
+	public void release() {
+		synchronized (this.outputLock) {
+			if (this.output != null) {
+				this.output.release();
+				this.output = null;
+			}
+		}
+		this.releaseInput();
+	}
+	
+	/**
+	 * Gives back the input buffer, unless some thread, this one included, is reading into it
+	 */
+	private void releaseInput() {
+		if (this.inputLock.isHeldByCurrentThread() || !this.inputLock.tryLock()) {
+			return;
+		}
+		try {
+			if (this.input != null) {
+				this.input.release();
+				this.input = null;
+			}
+		} finally {
+			this.inputLock.unlock();
+		}
+	}
+	
+	/**
+	 * Shuts down the {@code ConnectionNIO}, since one of its channels has been closed
+	 */
+	@Override
+	public void failed(Exception e) {
+		this.connect.networkShutdown();
+	}
+	
 	/**
 	 * Writes a {@code PacketNIO} to the output buffer
+	 * <p>
+	 * If it doesn't fit, nothing is written at all, so that the output buffer never holds half a
+	 * {@code PacketNIO}.
 	 * 
 	 * @param p
 	 * @throws IOException
+	 *             If the {@code PacketNIO} doesn't fit
 	 */
 	public void writePacket(PacketNIO p) throws IOException {
-		this.outputBuffer.putInt(p.getID());
-//		System.out.println("Writing packet with id " + p.getID());
-		p.writePacketData(this.outputBuffer);
-		
-//		System.out.println("Write packet " + p.getClass().getSimpleName());
-//		PacketNIO.getPacketDataToLimit(buffer);
+		ByteBuffer out = this.output();
+		int start = out.position();
+		try {
+			out.putInt(p.getID());
+			p.writePacketData(out);
+			// Leave room for the end delimiter
+			if (out.remaining() < 4) {
+				throw new BufferOverflowException();
+			}
+		} catch (BufferOverflowException e) {
+			out.position(start);
+			throw new IOException(p.getClass().getSimpleName() + " does not fit in the " + out.limit()
+					+ " byte output buffer");
+		}
+	}
+	
+	/**
+	 * Copies an {@code EncodedPacket} into the output buffer
+	 * 
+	 * @param p
+	 *            The {@code EncodedPacket}
+	 * @throws IOException
+	 *             If the {@code EncodedPacket} doesn't fit
+	 */
+	public void writeEncoded(EncodedPacket p) throws IOException {
+		ByteBuffer out = this.output();
+		byte[] packet = p.packet();
+		// Leave room for the end delimiter
+		if (out.remaining() - 4 < packet.length) {
+			throw new IOException("EncodedPacket of " + packet.length + " bytes does not fit in the "
+					+ out.limit() + " byte output buffer");
+		}
+		out.put(packet);
 	}
 	
 	/**
@@ -82,13 +245,14 @@ public abstract class ProtocolWrapper {
 	 * @return A read PacketNIO
 	 */
 	public PacketNIO readPacket() throws IOException {
-		int id = this.inputBuffer.getInt();
+		ByteBuffer in = this.input.buffer();
+		int id = in.getInt();
 //		System.out.println("Reading packet with id " + id);
 		if (id == Integer.MIN_VALUE) {// This signifies the end of the stream
 			return null;
 		}
 		PacketNIO p = PacketNIO.getNewPacket(id);
-		p.readPacketData(this.inputBuffer);
+		p.readPacketData(in);
 		
 //		System.out.println("Read packet " + p.getClass().getSimpleName());
 //		getPacketDataFromBuffer(idAndSize, data);
@@ -99,6 +263,7 @@ public abstract class ProtocolWrapper {
 	 * Creates a List of {@code PacketNIO}s from the data in the input buffer
 	 * 
 	 * @throws IOException
+	 *             If the data is malformed
 	 * @return
 	 */
 	public List<PacketNIO> readFully() throws IOException {
@@ -112,37 +277,394 @@ public abstract class ProtocolWrapper {
 	
 	/**
 	 * The TCP Channel Wrapper
+	 * <p>
+	 * Every {@code PacketNIO} is sent as a frame of its own: the length of the rest of the frame, then the ID,
+	 * then the data. Whatever has arrived of the last, incomplete frame is kept in the input buffer until the
+	 * rest of it arrives, no matter how the stream was split up along the way.
+	 * <p>
+	 * Both buffers start out at the size that they were given, and grow as needed to fit a single frame of up
+	 * to {@link ConnectionNIO#MAX_FRAME_SIZE}, by moving to a larger buffer from the pool.
+	 * <p>
+	 * Whatever the socket won't take right away, because the other side is slow to read, goes into a queue
+	 * and the channel is registered for {@code OP_WRITE}. The {@code NIOReactor} then writes the queue out
+	 * with gathering writes as soon as the socket has room again. Until the queue is empty, everything that is
+	 * sent goes to the end of it, so the stream always stays in order, and sending never blocks the tick.
+	 * <p>
+	 * An {@code EncodedPacket} isn't copied into the output buffer at all. Instead, the output buffer is
+	 * sealed as it is, and a duplicate of the frame follows it, so that the same bytes are shared by every
+	 * connection that they are sent to. Everything sealed in a tick is sent with a single gathering write.
 	 * 
 	 * @author Kevin
 	 */
 	public static class TCPChannelWrapper extends ProtocolWrapper {
 		
 		
+		/**
+		 * The size of the frame length prefix
+		 */
+		public static final int HEADER_SIZE = 4;
+		
+		/**
+		 * The most buffers from the queue that are written at once
+		 */
+		public static final int GATHER_BUFFERS = 64;
+		
+		/**
+		 * The number of bytes from the queue after which no more buffers are added to a single write
+		 */
+		public static final int GATHER_BYTES = 256 * 1024;
+		
 		/**
 		 * The {@code SocketChannel}
 		 */
 		private SocketChannel tcp;
 		
-		public TCPChannelWrapper(SocketChannel channel, ByteBuffer in, ByteBuffer out, ConnectionNIO c) {
-			super(in, out, c);
+		/**
+		 * The data that has been sent, but not yet written to the socket, oldest first. Only touched while
+		 * holding its lock.
+		 */
+		private final ArrayDeque<PooledBuffer> queue = new ArrayDeque<PooledBuffer>();
+		
+		/**
+		 * The number of bytes in the queue
+		 */
+		private volatile long queued;
+		
+		/**
+		 * The {@code NIOReactor} that the channel is registered with, if any
+		 */
+		private NIOReactor reactor;
+		
+		/**
+		 * The buffers sealed since data was last sent, ready to be read from, in the order that they are sent
+		 */
+		private final List<PooledBuffer> sealed = new ArrayList<PooledBuffer>();
+		
+		public TCPChannelWrapper(SocketChannel channel, int inputSize, int outputSize, ConnectionNIO c) {
+			super(inputSize, outputSize, c);
 			this.tcp = channel;
 		}
 		
+		/**
+		 * Writes everything sealed since the last call to the socket, or queues it behind what is still
+		 * waiting
+		 * <p>
+		 * If the socket fails, such as when the other side has reset the connection, the
+		 * {@code ConnectionNIO} is shut down, and every buffer that was sealed or queued is given back.
+		 */
 		@Override
 		public void sendData(SocketAddress remote) throws IOException {
-			this.outputBuffer.flip();
-			this.tcp.write(this.outputBuffer);
-			this.outputBuffer.clear();
+			this.seal();
+			boolean sent = false;
+			try {
+				this.sendSealed();
+				sent = true;
+			} catch (IOException e) {
+				this.connect.networkShutdown();
+				throw e;
+			} finally {
+				if (!sent) {
+					this.discard();
+				}
+			}
+		}
+		
+		/**
+		 * Carries out {@link #sendData(SocketAddress)}
+		 */
+		private void sendSealed() throws IOException {
+			synchronized (this.queue) {
+				// With a reactor, the queue is written out as soon as the socket has room, so there is no point
+				// trying again here
+				if (!this.queue.isEmpty() && this.reactor == null) {
+					this.flush();
+				}
+				if (this.sealed.isEmpty()) {
+					return;
+				}
+				boolean wasEmpty = this.queue.isEmpty();
+				if (wasEmpty) {
+					ByteBuffer[] gather = new ByteBuffer[this.sealed.size()];
+					for (int i = 0; i < gather.length; i++) {
+						gather[i] = this.sealed.get(i).buffer();
+					}
+					this.tcp.write(gather);
+				}
+				for (PooledBuffer b : this.sealed) {
+					if (b.buffer().hasRemaining()) {
+						// The queue takes over the buffer, and gives it back once it has been written
+						this.queue.add(b);
+						this.queued += b.buffer().remaining();
+					} else {
+						b.release();
+					}
+				}
+				this.sealed.clear();
+				if (wasEmpty && !this.queue.isEmpty() && this.reactor != null) {
+					this.reactor.setInterest(this.tcp, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				}
+			}
+		}
+		
+		/**
+		 * Gives back every sealed and queued buffer without sending them, once the socket has failed
+		 */
+		private void discard() {
+			synchronized (this.queue) {
+				for (PooledBuffer b : this.sealed) {
+					b.release();
+				}
+				this.sealed.clear();
+				while (!this.queue.isEmpty()) {
+					this.queue.poll().release();
+				}
+				this.queued = 0;
+			}
+		}
+		
+		/**
+		 * Gives back every sealed and queued buffer, along with the input and output buffers
+		 */
+		@Override
+		public void release() {
+			synchronized (this.outputLock) {
+				this.discard();
+			}
+			super.release();
+		}
+		
+		/**
+		 * Moves the output buffer, if anything has been written to it, to the end of the sealed buffers
+		 */
+		private void seal() {
+			if (super.hasData()) {
+				this.output.buffer().flip();
+				this.sealed.add(this.output);
+				this.output = null;
+			}
+		}
+		
+		/**
+		 * Adds a duplicate of the frame of an {@code EncodedPacket} to the sealed buffers, right after
+		 * everything written before it
+		 * 
+		 * @param p
+		 *            The {@code EncodedPacket}
+		 */
+		@Override
+		public void writeEncoded(EncodedPacket p) {
+			this.seal();
+			this.sealed.add(p.frame().retainedDuplicate());
+		}
+		
+		/**
+		 * Writes as much of the queue as the socket will take, and gives back every buffer that has been
+		 * written in full. Must be called while holding the lock on the queue.
+		 * <p>
+		 * Only the start of the queue, up to {@link #GATHER_BYTES}, is written at once, since the socket
+		 * won't take much more than that anyways.
+		 */
+		private void flush() throws IOException {
+			ByteBuffer[] gather = new ByteBuffer[Math.min(this.queue.size(), GATHER_BUFFERS)];
+			int count = 0;
+			long bytes = 0;
+			for (PooledBuffer b : this.queue) {
+				if (count == gather.length || bytes >= GATHER_BYTES) {
+					break;
+				}
+				gather[count++] = b.buffer();
+				bytes += b.buffer().remaining();
+			}
+			long written = this.tcp.write(gather, 0, count);
+			this.queued -= written;
+			while (!this.queue.isEmpty() && !this.queue.peek().buffer().hasRemaining()) {
+				this.queue.poll().release();
+			}
+		}
+		
+		/**
+		 * Gets the number of bytes that have been sent, but are still waiting for the socket to take them
+		 * 
+		 * @return The number of bytes
+		 */
+		public long getQueuedBytes() {
+			return this.queued;
+		}
+		
+		@Override
+		public boolean hasData() {
+			return super.hasData() || !this.sealed.isEmpty() || this.queued > 0;
+		}
+		
+		@Override
+		public void ready(SelectionKey key) throws IOException {
+			if (key.isWritable()) {
+				synchronized (this.queue) {
+					this.flush();
+					if (this.queue.isEmpty()) {
+						key.interestOps(SelectionKey.OP_READ);
+					}
+				}
+			}
+			if (key.isValid() && key.isReadable()) {
+				super.ready(key);
+			}
+		}
+		
+		/**
+		 * Writes a {@code PacketNIO} to the output buffer as a single frame, growing the output buffer if it
+		 * doesn't fit
+		 * 
+		 * @param p
+		 * @throws IOException
+		 *             If the frame is larger than {@link ConnectionNIO#MAX_FRAME_SIZE}, in which case nothing
+		 *             is written
+		 */
+		@Override
+		public void writePacket(PacketNIO p) throws IOException {
+			this.output();
+			this.output = writeFrame(this.output, p);
+		}
+		
+		/**
+		 * Writes a {@code PacketNIO} to the given buffer as a single frame, moving to a larger buffer from
+		 * {@link BufferPool#NETWORK} if it doesn't fit
+		 * 
+		 * @param buffer
+		 *            The buffer, ready to be written to
+		 * @param p
+		 *            The {@code PacketNIO}
+		 * @return The buffer that now holds the frame, after everything that was in the given one. If it isn't
+		 *         the given buffer, the given buffer has been released.
+		 * @throws IOException
+		 *             If the frame is larger than {@link ConnectionNIO#MAX_FRAME_SIZE}, in which case the given
+		 *             buffer is left as it was
+		 */
+		static PooledBuffer writeFrame(PooledBuffer buffer, PacketNIO p) throws IOException {
+			int start = buffer.buffer().position();
+			PooledBuffer current = buffer;
+			while (true) {
+				ByteBuffer out = current.buffer();
+				try {
+					if (out.remaining() < HEADER_SIZE) {
+						throw new BufferOverflowException();
+					}
+					out.position(start + HEADER_SIZE);
+					out.putInt(p.getID());
+					p.writePacketData(out);
+					int length = out.position() - start - HEADER_SIZE;
+					if (length > ConnectionNIO.MAX_FRAME_SIZE) {
+						out.position(start);
+						break;
+					}
+					out.putInt(start, length);
+					if (current != buffer) {
+						buffer.release();
+					}
+					return current;
+				} catch (BufferOverflowException e) {
+					out.position(start);
+					if (out.capacity() - start >= HEADER_SIZE + ConnectionNIO.MAX_FRAME_SIZE) {
+						break;
+					}
+					long max = start + HEADER_SIZE + ConnectionNIO.MAX_FRAME_SIZE;
+					PooledBuffer grown = BufferPool.NETWORK.acquire((int) Math.min(out.capacity() * 2L, max));
+					// Only what came before the frame is copied, since the frame is written again anyways
+					ByteBuffer before = buffer.buffer().duplicate();
+					before.position(0).limit(start);
+					grown.buffer().put(before);
+					if (current != buffer) {
+						current.release();
+					}
+					current = grown;
+				}
+			}
+			if (current != buffer) {
+				current.release();
+			}
+			buffer.buffer().position(start);
+			throw new IOException(p.getClass().getSimpleName() + " is larger than the maximum frame size of "
+					+ ConnectionNIO.MAX_FRAME_SIZE + " bytes");
 		}
 		
+		/**
+		 * Reads whatever has arrived into the input buffer, after any incomplete frame left over from before
+		 */
 		@Override
 		public boolean readData() throws IOException {
-			this.inputBuffer.clear();
-			int tcpCount = this.tcp.read(this.inputBuffer);
-			boolean flag = tcpCount > 0;
-			this.inputBuffer.flip();
-			return flag;
+			if (this.input == null) {
+				this.input = BufferPool.NETWORK.acquire(this.inputSize);
+			}
+			int tcpCount = this.tcp.read(this.input.buffer());
+			if (tcpCount < 0) {
+				// The other side has closed the connection
+				this.connect.networkShutdown();
+			}
+			if (tcpCount <= 0) {
+				if (this.input.buffer().position() == 0) {
+					// Nothing left over, so there is no need to hold on to the buffer while idle
+					this.input.release();
+					this.input = null;
+				}
+				return false;
+			}
+			this.input.buffer().flip();
+			return true;
 		}
+		
+		/**
+		 * Creates a List of {@code PacketNIO}s from every complete frame in the input buffer, and keeps the
+		 * incomplete frame at the end, if there is one, for the next read
+		 * 
+		 * @throws IOException
+		 *             If a frame is larger than {@link ConnectionNIO#MAX_FRAME_SIZE}, or otherwise malformed
+		 */
+		@Override
+		public List<PacketNIO> readFully() throws IOException {
+			List<PacketNIO> packs = new LinkedList<PacketNIO>();
+			ByteBuffer in = this.input.buffer();
+			int needed = 0;
+			while (in.remaining() >= HEADER_SIZE) {
+				int start = in.position();
+				int length = in.getInt(start);
+				if (length < 4 || length > ConnectionNIO.MAX_FRAME_SIZE) {
+					// There is no telling where the next frame starts, so the stream is lost
+					this.connect.networkShutdown();
+					throw new IOException("Received a frame of " + length + " bytes from "
+							+ this.connect.sourceName);
+				}
+				int end = start + HEADER_SIZE + length;
+				if (end > in.limit()) {
+					// Wait for the rest of the frame
+					needed = HEADER_SIZE + length;
+					break;
+				}
+				int limit = in.limit();
+				in.position(start + HEADER_SIZE).limit(end);
+				PacketNIO p = PacketNIO.getNewPacket(in.getInt());
+				if (p != null) {
+					p.readPacketData(in);
+					packs.add(p);
+				}
+				// The frame says where the next one starts, even if this one wasn't read to the end
+				in.limit(limit).position(end);
+			}
+			if (needed > in.capacity() && in.position() == 0 && in.limit() == in.capacity()) {
+				// Only grown once the frame fills the buffer, and no further than its length, so that a length
+				// that was sent without the bytes to go with it can't make the connection hold a large buffer
+				this.input = this.input.grow((int) Math.min(in.capacity() * 2L, needed));
+			} else {
+				in.compact();
+			}
+			return packs;
+		}
+		
+		@Override
+		public void register(NIOReactor reactor) {
+			this.reactor = reactor;
+			reactor.register(this.tcp, SelectionKey.OP_READ, this);
+		}
+		
 	}
 	
 	/**
@@ -158,24 +680,136 @@ public abstract class ProtocolWrapper {
 		 */
 		private DatagramChannel udp;
 		
-		public UDPChannelWrapper(DatagramChannel channel, ByteBuffer in, ByteBuffer out, ConnectionNIO c) {
-			super(in, out, c);
+		/**
+		 * The datagrams that filled up since data was last sent, ready to be read from, in the order that they
+		 * are sent
+		 */
+		private final List<PooledBuffer> sealed = new ArrayList<PooledBuffer>();
+		
+		public UDPChannelWrapper(DatagramChannel channel, int inputSize, int outputSize, ConnectionNIO c) {
+			super(inputSize, outputSize, c);
 			this.udp = channel;
 		}
 		
 		@Override
 		public void sendData(SocketAddress remote) throws IOException {
-			this.outputBuffer.flip();
-			this.udp.send(this.outputBuffer, remote);
-			this.outputBuffer.clear();
+			this.seal();
+			try {
+				for (PooledBuffer out : this.sealed) {
+					this.udp.send(out.buffer(), remote);
+				}
+			} finally {
+				for (PooledBuffer out : this.sealed) {
+					out.release();
+				}
+				this.sealed.clear();
+			}
+		}
+		
+		/**
+		 * Gives back every sealed datagram, along with the input and output buffers
+		 */
+		@Override
+		public void release() {
+			synchronized (this.outputLock) {
+				for (PooledBuffer out : this.sealed) {
+					out.release();
+				}
+				this.sealed.clear();
+			}
+			super.release();
+		}
+		
+		/**
+		 * Ends the datagram in the output buffer, if anything has been written to it, and moves it to the end
+		 * of the sealed datagrams
+		 */
+		private void seal() {
+			if (super.hasData()) {
+				// End delimiter, which writePacket always leaves room for
+				this.output.buffer().putInt(Integer.MIN_VALUE);
+				this.output.buffer().flip();
+				this.sealed.add(this.output);
+				this.output = null;
+			}
+		}
+		
+		/**
+		 * Writes a {@code PacketNIO} to the output buffer, starting a new datagram if it doesn't fit in the
+		 * current one
+		 * 
+		 * @param p
+		 *            The {@code PacketNIO}
+		 * @throws IOException
+		 *             If the {@code PacketNIO} doesn't fit in a datagram of its own
+		 */
+		@Override
+		public void writePacket(PacketNIO p) throws IOException {
+			try {
+				super.writePacket(p);
+			} catch (IOException e) {
+				if (!super.hasData()) {
+					throw e;
+				}
+				this.seal();
+				super.writePacket(p);
+			}
+		}
+		
+		/**
+		 * Copies an {@code EncodedPacket} into the output buffer, starting a new datagram if it doesn't fit in
+		 * the current one
+		 * 
+		 * @param p
+		 *            The {@code EncodedPacket}
+		 * @throws IOException
+		 *             If the {@code EncodedPacket} doesn't fit in a datagram of its own
+		 */
+		@Override
+		public void writeEncoded(EncodedPacket p) throws IOException {
+			try {
+				super.writeEncoded(p);
+			} catch (IOException e) {
+				if (!super.hasData()) {
+					throw e;
+				}
+				this.seal();
+				super.writeEncoded(p);
+			}
+		}
+		
+		@Override
+		public boolean hasData() {
+			return super.hasData() || !this.sealed.isEmpty();
 		}
 		
 		@Override
 		public boolean readData() throws IOException {
-			this.inputBuffer.clear();
-			boolean flag = this.udp.receive(this.inputBuffer) != null;
-			this.inputBuffer.flip();
-			return flag;
+			if (this.input == null) {
+				this.input = BufferPool.NETWORK.acquire(this.inputSize);
+			}
+			ByteBuffer in = this.input.buffer();
+			in.clear().limit(this.inputSize);
+			SocketAddress source;
+			try {
+				source = this.udp.receive(in);
+			} catch (PortUnreachableException e) {
+				// ICMP for an earlier datagram, which doesn't mean that the channel is broken
+				ConnectionNIO.logger.fine(this.connect.sourceName + " got an ICMP port unreachable over UDP");
+				source = null;
+			}
+			if (source == null) {
+				this.input.release();
+				this.input = null;
+				return false;
+			}
+			in.flip();
+			return true;
+		}
+		
+		@Override
+		public void register(NIOReactor reactor) {
+			reactor.register(this.udp, SelectionKey.OP_READ, this);
 		}
 		
 	}
@@ -21,8 +21,8 @@ public class PacketEntityPosition extends PacketNIO {
 	
 	public PacketEntityPosition(EntityPhysics e) {
 		this.id = e.id;
-		this.x = e.pos.getX();
-		this.y = e.pos.getY();
+		this.x = e.getPosX();
+		this.y = e.getPosY();
 	}
 	
 	@Override
@@ -0,0 +1,186 @@
+package engine.networknio.packet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import engine.client.Client;
+import engine.networknio.ConnectionNIO;
+import engine.physics.Physics;
+import engine.physics.entity.EventEntityPosition;
+import engine.server.Server;
+
+/**
+ * The positions of many {@code EntityPhysics} at once, as many as fit in a single UDP datagram
+ * <p>
+ * Rather than two {@code double}s, every coordinate is sent as a fixed-point {@code int} with
+ * {@link #PRECISION} fractional bits, that is rounded to the nearest 1/2^{@code PRECISION} of a pixel. Along
+ * with its ID, every position takes 12 bytes instead of the 24 of a {@link PacketEntityPosition}. The
+ * precision is sent along with the positions, so clients don't need to be configured the same way.
+ * 
+ * @author Kevin
+ */
+public class PacketEntityPositions extends PacketNIO {
+	
+	
+	/**
+	 * The default number of fractional bits, for 1/16 of a pixel
+	 */
+	public static final int DEFAULT_PRECISION = 4;
+	
+	/**
+	 * The number of fractional bits that positions are sent with, as defined in the config file. Anything from
+	 * 0 to 16 works, though positions are clamped to +/-2^(31 - {@code PRECISION}) pixels.
+	 */
+	public static int PRECISION = DEFAULT_PRECISION;
+	
+	/**
+	 * The number of bytes taken up by the precision and the number of positions
+	 */
+	public static final int HEADER_SIZE = 3;
+	
+	/**
+	 * The number of bytes taken up by every position, including the ID
+	 */
+	public static final int ENTRY_SIZE = 12;
+	
+	/**
+	 * The number of fractional bits of the positions
+	 */
+	public int precision;
+	
+	/**
+	 * The number of positions
+	 */
+	public int count;
+	
+	/**
+	 * The IDs of the {@code EntityPhysics}, and their positions in fixed-point
+	 */
+	public int[] ids, x, y;
+	
+	public PacketEntityPositions() {
+	
+	}
+	
+	/**
+	 * Creates a new, empty {@code PacketEntityPositions}
+	 * 
+	 * @param precision
+	 *            The number of fractional bits of the positions
+	 * @param capacity
+	 *            The most positions that it can hold
+	 */
+	public PacketEntityPositions(int precision, int capacity) {
+		this.precision = precision;
+		this.ids = new int[capacity];
+		this.x = new int[capacity];
+		this.y = new int[capacity];
+	}
+	
+	/**
+	 * Gets the most positions that fit in a single UDP datagram of {@link ConnectionNIO#UDP_BUFFER_SIZE}, along
+	 * with the ID of the {@code PacketNIO} and the end delimiter of the datagram
+	 * 
+	 * @return The number of positions, at least 1
+	 */
+	public static int getDatagramCapacity() {
+		int capacity = (ConnectionNIO.UDP_BUFFER_SIZE - 8 - HEADER_SIZE) / ENTRY_SIZE;
+		return Math.max(1, Math.min(capacity, 0xFFFF));
+	}
+	
+	/**
+	 * Adds a position
+	 * 
+	 * @param id
+	 *            The ID of the {@code EntityPhysics}
+	 * @param x
+	 *            The X, already {@linkplain #quantize(double, int) quantized} with the precision of this packet
+	 * @param y
+	 *            The Y, already quantized with the precision of this packet
+	 */
+	public void add(int id, int x, int y) {
+		this.ids[this.count] = id;
+		this.x[this.count] = x;
+		this.y[this.count] = y;
+		this.count++;
+	}
+	
+	/**
+	 * Checks whether there is no room for another position
+	 * 
+	 * @return Whether the packet is full
+	 */
+	public boolean isFull() {
+		return this.count == this.ids.length;
+	}
+	
+	/**
+	 * Rounds a coordinate to fixed-point
+	 * 
+	 * @param value
+	 *            The coordinate, in pixels
+	 * @param precision
+	 *            The number of fractional bits
+	 * @return The coordinate in fixed-point, clamped to the range of an {@code int}
+	 */
+	public static int quantize(double value, int precision) {
+		long fixed = Math.round(value * (1 << precision));
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(fixed, Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Turns a fixed-point coordinate back into pixels
+	 * 
+	 * @param fixed
+	 *            The coordinate in fixed-point
+	 * @param precision
+	 *            The number of fractional bits
+	 * @return The coordinate, in pixels
+	 */
+	public static double toDouble(int fixed, int precision) {
+		return fixed / (double) (1 << precision);
+	}
+	
+	@Override
+	public void writePacketData(ByteBuffer buff) throws IOException {
+		buff.put((byte) this.precision);
+		buff.putShort((short) this.count);
+		for (int i = 0; i < this.count; i++) {
+			buff.putInt(this.ids[i]);
+			buff.putInt(this.x[i]);
+			buff.putInt(this.y[i]);
+		}
+	}
+	
+	@Override
+	public void readPacketData(ByteBuffer buff) throws IOException {
+		this.precision = buff.get();
+		this.count = buff.getShort() & 0xFFFF;
+		if (this.precision < 0 || this.precision > 30 || this.count * ENTRY_SIZE > buff.remaining()) {
+			throw new IOException("Malformed PacketEntityPositions of " + this.count
+					+ " positions with precision " + this.precision);
+		}
+		this.ids = new int[this.count];
+		this.x = new int[this.count];
+		this.y = new int[this.count];
+		for (int i = 0; i < this.count; i++) {
+			this.ids[i] = buff.getInt();
+			this.x[i] = buff.getInt();
+			this.y[i] = buff.getInt();
+		}
+	}
+	
+	@Override
+	public void processClient(Client c) {
+		for (int i = 0; i < this.count; i++) {
+			Physics.PHYSICS_BUS.post(new EventEntityPosition(this.ids[i], toDouble(this.x[i], this.precision),
+					toDouble(this.y[i], this.precision)));
+		}
+	}
+	
+	@Override
+	public void processServer(int player, Server s) {
+		// Only ever sent to clients
+	}
+	
+}
@@ -81,6 +81,8 @@ public abstract class PacketNIO {
 		registerPacket(PacketGame.class);
 		registerPacket(PacketObject.class);
 		registerPacket(PacketActionQueue.class);
+		registerPacket(PacketEntityPositions.class);
+		registerPacket(PacketPlayer.class);
 	}
 	
 	/**
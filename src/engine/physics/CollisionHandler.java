@@ -16,7 +16,7 @@ public abstract class CollisionHandler implements Serializable {
 	 * 
 	 */
 	private static final long serialVersionUID = 6706793176495044539L;
-
+	
 	/**
 	 * Handles the collision between the two given {@code EntityPhysics}
 	 * 
@@ -27,6 +27,24 @@ public abstract class CollisionHandler implements Serializable {
 	 */
 	public abstract void handleCollision(EntityPhysics ent1, EntityPhysics ent2);
 	
+	/**
+	 * Handles the collision between the two given {@code EntityPhysics}, with the {@code Contact} found by
+	 * the {@code NarrowPhase}
+	 * <p>
+	 * This is what {@code Physics} calls. By default it ignores the {@code Contact} and calls
+	 * {@link #handleCollision(EntityPhysics, EntityPhysics)}.
+	 * 
+	 * @param ent1
+	 *            The first {@code EntityPhysics}
+	 * @param ent2
+	 *            The second {@code EntityPhysics}
+	 * @param contact
+	 *            The normal, pointing from {@code ent1} towards {@code ent2}, and the penetration depth
+	 */
+	public void handleCollision(EntityPhysics ent1, EntityPhysics ent2, Contact contact) {
+		this.handleCollision(ent1, ent2);
+	}
+	
 	/**
 	 * Retrieves the priority of this {@code CollisionHandler} for handling collisions between the two given
 	 * {@code EntityPhysics}
@@ -59,6 +77,22 @@ public abstract class CollisionHandler implements Serializable {
 		return this.handlePriority(ent1, ent2) != 0;
 	}
 	
+	/**
+	 * Whether the results of {@link #shouldHandle(EntityPhysics, EntityPhysics) shouldHandle} and
+	 * {@link #handlePriority(EntityPhysics, EntityPhysics) handlePriority} only depend on the classes of the
+	 * two {@code EntityPhysics}
+	 * <p>
+	 * If so, {@code Physics} only asks once for every pair of classes, and remembers the answer. Since a
+	 * wrongly cached answer would silently pick the wrong {@code CollisionHandler}, this is {@code false} by
+	 * default. Override this to return {@code true} if the priority never depends on anything else, such as
+	 * the state of the {@code EntityPhysics}.
+	 * 
+	 * @return Whether the choice of this {@code CollisionHandler} can be cached
+	 */
+	public boolean isCacheable() {
+		return false;
+	}
+	
 	/**
 	 * Creates a new {@code StandardCollisionHandler} that handles collisions based on a coefficient of
 	 * restitution and a given priority
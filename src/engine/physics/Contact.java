@@ -0,0 +1,81 @@
+package engine.physics;
+
+import java.io.Serializable;
+
+import engine.geom2d.MutableVector2;
+
+/**
+ * The result of a {@code NarrowPhase} test between two {@code EntityPhysics}
+ * <p>
+ * The normal is a unit vector pointing from the first {@code EntityPhysics} towards the second, along which
+ * they should be pushed apart. The depth is how far they overlap along the normal.
+ * <p>
+ * A {@code Contact} is mutable, so the same one can be reused for every test. Every thread that runs tests
+ * has its own, so it also carries the scratch space of the tests.
+ * 
+ * @see NarrowPhase
+ * @author Kevin
+ */
+public class Contact implements Serializable {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The X component of the contact normal
+	 */
+	public double normalX;
+	
+	/**
+	 * The Y component of the contact normal
+	 */
+	public double normalY;
+	
+	/**
+	 * The penetration depth along the contact normal
+	 */
+	public double depth;
+	
+	/**
+	 * Scratch space for the fallback test of the {@code NarrowPhase}, created the first time it is needed
+	 */
+	transient MutableVector2 scratch1, scratch2;
+	
+	/**
+	 * Sets the values of this {@code Contact}
+	 * 
+	 * @param normalX
+	 *            The X component of the contact normal
+	 * @param normalY
+	 *            The Y component of the contact normal
+	 * @param depth
+	 *            The penetration depth
+	 * @return {@code this}
+	 */
+	public Contact set(double normalX, double normalY, double depth) {
+		this.normalX = normalX;
+		this.normalY = normalY;
+		this.depth = depth;
+		return this;
+	}
+	
+	/**
+	 * Reverses the normal of this {@code Contact}, for when the two {@code EntityPhysics} are swapped
+	 * 
+	 * @return {@code this}
+	 */
+	public Contact flip() {
+		this.normalX = -this.normalX;
+		this.normalY = -this.normalY;
+		return this;
+	}
+	
+	@Override
+	public String toString() {
+		return "Contact[(" + this.normalX + ", " + this.normalY + "), " + this.depth + "]";
+	}
+	
+}
@@ -0,0 +1,318 @@
+package engine.physics;
+
+import engine.physics.entity.EntityPhysics;
+import engine.physics.entity.Hitbox;
+
+/**
+ * Continuous collision detection, which finds the time of impact between two moving {@code EntityPhysics}
+ * <p>
+ * The regular {@code Hitbox} checks only look at where {@code EntityPhysics} end up at the end of a tick, so
+ * anything that moves further than its own size in a single tick can pass right through thin objects. For
+ * those, {@code Physics} instead sweeps both {@code Hitbox}es from {@code pos} to {@code newp} and finds the
+ * first moment they touch.
+ * <p>
+ * Circles and boxes are swept exactly, in any combination, and the sweep also gives the normal at the time of
+ * impact. Anything else is swept as the axis-aligned box around its {@code Hitbox}, which can find an impact
+ * where there is none, so those have to be confirmed by the {@code NarrowPhase} at the time of impact.
+ * 
+ * @author Kevin
+ */
+public class ContinuousCollision {
+	
+	
+	/**
+	 * Returned when there is no impact within the tick
+	 */
+	public static final double NO_IMPACT = -1;
+	
+	/**
+	 * Checks whether the given {@code EntityPhysics} moves far enough this tick that it needs continuous
+	 * collision detection, which is whenever it moves further than its
+	 * {@link engine.physics.entity.Hitbox#circleRadius circleRadius}
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 * @return Whether it is a fast {@code EntityPhysics}
+	 */
+	public static boolean isFast(EntityPhysics e) {
+		double dx = e.getNewX() - e.getPosX();
+		double dy = e.getNewY() - e.getPosY();
+		return dx * dx + dy * dy > e.hitbox.circleRadius * e.hitbox.circleRadius;
+	}
+	
+	/**
+	 * Checks whether the sweep of the two {@code EntityPhysics} is exact, which is when both of them have a
+	 * {@code HitboxCircle} or a {@code HitboxRectangle}. Otherwise the sweep only uses their bounding boxes.
+	 * 
+	 * @param e1
+	 *            The first {@code EntityPhysics}
+	 * @param e2
+	 *            The second {@code EntityPhysics}
+	 * @return Whether the time of impact and normal are exact
+	 */
+	public static boolean isExact(EntityPhysics e1, EntityPhysics e2) {
+		return isExact(e1.hitbox.getShapeType()) && isExact(e2.hitbox.getShapeType());
+	}
+	
+	/**
+	 * Checks whether the given shape type is swept exactly
+	 */
+	private static boolean isExact(int shapeType) {
+		return shapeType == Hitbox.SHAPE_CIRCLE || shapeType == Hitbox.SHAPE_RECTANGLE;
+	}
+	
+	/**
+	 * Finds the time of impact between the two {@code EntityPhysics}, as they move from {@code pos} to
+	 * {@code newp}
+	 * 
+	 * @param e1
+	 *            The first {@code EntityPhysics}
+	 * @param e2
+	 *            The second {@code EntityPhysics}
+	 * @param contact
+	 *            The {@code Contact} to store the normal at the time of impact in, if there is one
+	 * @return The fraction of the tick, in [0, 1], at which they first touch, or {@link #NO_IMPACT}
+	 */
+	public static double timeOfImpact(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+		double c1x = e1.getPosX() + e1.hitbox.getCenterX(), c1y = e1.getPosY() + e1.hitbox.getCenterY();
+		double c2x = e2.getPosX() + e2.hitbox.getCenterX(), c2y = e2.getPosY() + e2.hitbox.getCenterY();
+		double d1x = e1.getNewX() - e1.getPosX(), d1y = e1.getNewY() - e1.getPosY();
+		double d2x = e2.getNewX() - e2.getPosX(), d2y = e2.getNewY() - e2.getPosY();
+		int type1 = e1.hitbox.getShapeType(), type2 = e2.hitbox.getShapeType();
+		if (type1 == Hitbox.SHAPE_CIRCLE && type2 == Hitbox.SHAPE_CIRCLE) {
+			return sweptCircles(c1x, c1y, e1.hitbox.circleRadius, d1x, d1y, c2x, c2y, e2.hitbox.circleRadius, d2x,
+					d2y, contact);
+		}
+		if (type1 == Hitbox.SHAPE_RECTANGLE && type2 == Hitbox.SHAPE_CIRCLE) {
+			return sweptBoxCircle(c1x, c1y, e1.hitbox.getHalfWidth(), e1.hitbox.getHalfHeight(), d1x, d1y, c2x,
+					c2y, e2.hitbox.circleRadius, d2x, d2y, contact);
+		}
+		if (type1 == Hitbox.SHAPE_CIRCLE && type2 == Hitbox.SHAPE_RECTANGLE) {
+			double toi = sweptBoxCircle(c2x, c2y, e2.hitbox.getHalfWidth(), e2.hitbox.getHalfHeight(), d2x, d2y,
+					c1x, c1y, e1.hitbox.circleRadius, d1x, d1y, contact);
+			if (toi != NO_IMPACT) {
+				contact.flip();
+			}
+			return toi;
+		}
+		return sweptBoxes(c1x, c1y, e1.hitbox.getHalfWidth(), e1.hitbox.getHalfHeight(), d1x, d1y, c2x, c2y,
+				e2.hitbox.getHalfWidth(), e2.hitbox.getHalfHeight(), d2x, d2y, contact);
+	}
+	
+	/**
+	 * Finds the time of impact between two moving circles
+	 * 
+	 * @param x1
+	 *            The X of the center of the first circle at the start of the tick
+	 * @param y1
+	 *            The Y of the center of the first circle at the start of the tick
+	 * @param r1
+	 *            The radius of the first circle
+	 * @param dx1
+	 *            The X displacement of the first circle over the tick
+	 * @param dy1
+	 *            The Y displacement of the first circle over the tick
+	 * @param x2
+	 *            The X of the center of the second circle at the start of the tick
+	 * @param y2
+	 *            The Y of the center of the second circle at the start of the tick
+	 * @param r2
+	 *            The radius of the second circle
+	 * @param dx2
+	 *            The X displacement of the second circle over the tick
+	 * @param dy2
+	 *            The Y displacement of the second circle over the tick
+	 * @param contact
+	 *            The {@code Contact} to store the normal at the time of impact in, if there is one
+	 * @return The fraction of the tick, in [0, 1], at which they first touch, or {@link #NO_IMPACT}
+	 */
+	public static double sweptCircles(double x1, double y1, double r1, double dx1, double dy1, double x2,
+			double y2, double r2, double dx2, double dy2, Contact contact) {
+		// Solve |p + v * t| = r for the relative position p and velocity v
+		double px = x2 - x1, py = y2 - y1;
+		double vx = dx2 - dx1, vy = dy2 - dy1;
+		double r = r1 + r2;
+		double c = px * px + py * py - r * r;
+		if (c <= 0) {
+			// Already touching
+			circleNormal(px, py, r - Math.sqrt(px * px + py * py), contact);
+			return 0;
+		}
+		double a = vx * vx + vy * vy;
+		if (a == 0) {
+			return NO_IMPACT;
+		}
+		double b = 2 * (px * vx + py * vy);
+		double disc = b * b - 4 * a * c;
+		if (b >= 0 || disc < 0) {
+			// Moving apart, or missing each other entirely
+			return NO_IMPACT;
+		}
+		double t = (-b - Math.sqrt(disc)) / (2 * a);
+		if (t > 1) {
+			return NO_IMPACT;
+		}
+		circleNormal(px + vx * t, py + vy * t, 0, contact);
+		return t;
+	}
+	
+	/**
+	 * Stores the normal along the given line between the centers of two circles
+	 */
+	private static void circleNormal(double dx, double dy, double depth, Contact contact) {
+		double length = Math.sqrt(dx * dx + dy * dy);
+		if (length == 0) {
+			contact.set(1, 0, depth);
+		} else {
+			contact.set(dx / length, dy / length, depth);
+		}
+	}
+	
+	/**
+	 * Finds the time of impact between a moving axis-aligned box and a moving circle
+	 * <p>
+	 * The center of the circle is swept against the box grown by the radius of the circle, with rounded
+	 * corners. That is the two boxes grown by the radius along only one axis, and a circle of the same radius
+	 * around every corner. The earliest of those is the impact.
+	 * 
+	 * @param bx
+	 *            The X of the center of the box at the start of the tick
+	 * @param by
+	 *            The Y of the center of the box at the start of the tick
+	 * @param hw
+	 *            Half the width of the box
+	 * @param hh
+	 *            Half the height of the box
+	 * @param dbx
+	 *            The X displacement of the box over the tick
+	 * @param dby
+	 *            The Y displacement of the box over the tick
+	 * @param cx
+	 *            The X of the center of the circle at the start of the tick
+	 * @param cy
+	 *            The Y of the center of the circle at the start of the tick
+	 * @param r
+	 *            The radius of the circle
+	 * @param dcx
+	 *            The X displacement of the circle over the tick
+	 * @param dcy
+	 *            The Y displacement of the circle over the tick
+	 * @param contact
+	 *            The {@code Contact} to store the normal at the time of impact in, pointing from the box
+	 *            towards the circle, if there is one
+	 * @return The fraction of the tick, in [0, 1], at which they first touch, or {@link #NO_IMPACT}
+	 */
+	public static double sweptBoxCircle(double bx, double by, double hw, double hh, double dbx, double dby,
+			double cx, double cy, double r, double dcx, double dcy, Contact contact) {
+		// Sweep the center of the circle against the box, which is standing still at the origin
+		double px = cx - bx, py = cy - by;
+		double vx = dcx - dbx, vy = dcy - dby;
+		double earliest = sweptBoxes(0, 0, hw + r, hh, 0, 0, px, py, 0, 0, vx, vy, contact);
+		double nx = contact.normalX, ny = contact.normalY;
+		double t = sweptBoxes(0, 0, hw, hh + r, 0, 0, px, py, 0, 0, vx, vy, contact);
+		if (t != NO_IMPACT && (earliest == NO_IMPACT || t < earliest)) {
+			earliest = t;
+			nx = contact.normalX;
+			ny = contact.normalY;
+		}
+		for (int corner = 0; corner < 4; corner++) {
+			double x = (corner & 1) == 0 ? -hw : hw, y = (corner & 2) == 0 ? -hh : hh;
+			t = sweptCircles(x, y, 0, 0, 0, px, py, r, vx, vy, contact);
+			if (t != NO_IMPACT && (earliest == NO_IMPACT || t < earliest)) {
+				earliest = t;
+				nx = contact.normalX;
+				ny = contact.normalY;
+			}
+		}
+		if (earliest == NO_IMPACT) {
+			return NO_IMPACT;
+		}
+		if (earliest == 0 && NarrowPhase.circleBox(px, py, r, 0, 0, hw, hh, contact)) {
+			// Already overlapping, so push out the way the NarrowPhase would
+			contact.flip();
+		} else {
+			contact.set(nx, ny, 0);
+		}
+		return earliest;
+	}
+	
+	/**
+	 * Finds the time of impact between two moving axis-aligned boxes
+	 * 
+	 * @param x1
+	 *            The X of the center of the first box at the start of the tick
+	 * @param y1
+	 *            The Y of the center of the first box at the start of the tick
+	 * @param hw1
+	 *            Half the width of the first box
+	 * @param hh1
+	 *            Half the height of the first box
+	 * @param dx1
+	 *            The X displacement of the first box over the tick
+	 * @param dy1
+	 *            The Y displacement of the first box over the tick
+	 * @param x2
+	 *            The X of the center of the second box at the start of the tick
+	 * @param y2
+	 *            The Y of the center of the second box at the start of the tick
+	 * @param hw2
+	 *            Half the width of the second box
+	 * @param hh2
+	 *            Half the height of the second box
+	 * @param dx2
+	 *            The X displacement of the second box over the tick
+	 * @param dy2
+	 *            The Y displacement of the second box over the tick
+	 * @param contact
+	 *            The {@code Contact} to store the normal at the time of impact in, if there is one
+	 * @return The fraction of the tick, in [0, 1], at which they first touch, or {@link #NO_IMPACT}
+	 */
+	public static double sweptBoxes(double x1, double y1, double hw1, double hh1, double dx1, double dy1,
+			double x2, double y2, double hw2, double hh2, double dx2, double dy2, Contact contact) {
+		// Sweep the second box against the first one, which is standing still
+		double px = x2 - x1, py = y2 - y1;
+		double vx = dx2 - dx1, vy = dy2 - dy1;
+		double w = hw1 + hw2, h = hh1 + hh2;
+		double enterX, exitX, enterY, exitY;
+		if (vx == 0) {
+			if (Math.abs(px) > w) {
+				return NO_IMPACT;
+			}
+			enterX = Double.NEGATIVE_INFINITY;
+			exitX = Double.POSITIVE_INFINITY;
+		} else {
+			double t1 = (-w - px) / vx, t2 = (w - px) / vx;
+			enterX = Math.min(t1, t2);
+			exitX = Math.max(t1, t2);
+		}
+		if (vy == 0) {
+			if (Math.abs(py) > h) {
+				return NO_IMPACT;
+			}
+			enterY = Double.NEGATIVE_INFINITY;
+			exitY = Double.POSITIVE_INFINITY;
+		} else {
+			double t1 = (-h - py) / vy, t2 = (h - py) / vy;
+			enterY = Math.min(t1, t2);
+			exitY = Math.max(t1, t2);
+		}
+		double enter = Math.max(enterX, enterY);
+		double exit = Math.min(exitX, exitY);
+		if (enter > exit || enter > 1 || exit < 0) {
+			return NO_IMPACT;
+		}
+		double t = Math.max(enter, 0);
+		// The normal is along the axis that was entered last, or the one with the least overlap if they were
+		// already overlapping without moving
+		double qx = px + vx * t, qy = py + vy * t;
+		double overlapX = w - Math.abs(qx), overlapY = h - Math.abs(qy);
+		boolean alongX = enterX != enterY ? enterX > enterY : overlapX <= overlapY;
+		if (alongX) {
+			contact.set(qx < 0 ? -1 : 1, 0, Math.max(overlapX, 0));
+		} else {
+			contact.set(0, qy < 0 ? -1 : 1, Math.max(overlapY, 0));
+		}
+		return t;
+	}
+	
+}
@@ -0,0 +1,466 @@
+package engine.physics;
+
+import engine.client.graphics.sprite.CollisionMask;
+import engine.geom2d.MutableVector2;
+import engine.physics.entity.EntityPhysics;
+import engine.physics.entity.Hitbox;
+import engine.physics.entity.Hitbox.HitboxPolygon;
+import engine.physics.entity.Hitbox.HitboxSprite;
+
+/**
+ * Exact collision tests between pairs of {@code Hitbox}es
+ * <p>
+ * Every pair of {@linkplain Hitbox#getShapeType() shape types} has its own closed-form test, picked from a
+ * matrix indexed by the two types:
+ * <ul>
+ * <li>Circle against circle compares the distance between the centers to the sum of the radii</li>
+ * <li>Circle against rectangle finds the point on the rectangle closest to the center of the circle</li>
+ * <li>Rectangle against rectangle compares the overlap of the boxes along both axes</li>
+ * <li>Anything against a polygon uses the separating axis theorem, with the edge normals of the polygon</li>
+ * <li>Sprite against sprite compares the {@code CollisionMask}s of the two {@code Sprite}s, 64 pixels at a
+ * time</li>
+ * </ul>
+ * Every test fills in a {@code Contact} with the normal and penetration depth. Shapes without an exact test
+ * fall back to {@link Hitbox#collides(EntityPhysics, EntityPhysics, MutableVector2, MutableVector2)}, with
+ * the line between the centers as the normal, using scratch space kept in the {@code Contact} so that it
+ * doesn't allocate.
+ * <p>
+ * All of the tests use the new positions of the {@code EntityPhysics}.
+ * 
+ * @author Kevin
+ */
+public class NarrowPhase {
+	
+	
+	/**
+	 * The tests for every pair of shape types, indexed by the shape type of the first and second
+	 * {@code Hitbox}
+	 */
+	private static final ShapeTest[][] TESTS = new ShapeTest[Hitbox.SHAPE_COUNT][Hitbox.SHAPE_COUNT];
+	
+	static {
+		ShapeTest fallback = new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				if (contact.scratch1 == null) {
+					contact.scratch1 = new MutableVector2();
+					contact.scratch2 = new MutableVector2();
+				}
+				if (!Hitbox.collides(e1, e2, contact.scratch1, contact.scratch2)) {
+					return false;
+				}
+				centerContact(e1, e2, contact);
+				return true;
+			}
+		};
+		for (int i = 0; i < Hitbox.SHAPE_COUNT; i++) {
+			for (int j = 0; j < Hitbox.SHAPE_COUNT; j++) {
+				TESTS[i][j] = fallback;
+			}
+		}
+		register(Hitbox.SHAPE_CIRCLE, Hitbox.SHAPE_CIRCLE, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				return circleCircle(centerX(e1), centerY(e1), e1.hitbox.circleRadius, centerX(e2), centerY(e2),
+						e2.hitbox.circleRadius, contact);
+			}
+		});
+		register(Hitbox.SHAPE_CIRCLE, Hitbox.SHAPE_RECTANGLE, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				return circleBox(centerX(e1), centerY(e1), e1.hitbox.circleRadius, centerX(e2), centerY(e2),
+						e2.hitbox.getHalfWidth(), e2.hitbox.getHalfHeight(), contact);
+			}
+		});
+		register(Hitbox.SHAPE_RECTANGLE, Hitbox.SHAPE_RECTANGLE, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				return boxBox(centerX(e1), centerY(e1), e1.hitbox.getHalfWidth(), e1.hitbox.getHalfHeight(),
+						centerX(e2), centerY(e2), e2.hitbox.getHalfWidth(), e2.hitbox.getHalfHeight(), contact);
+			}
+		});
+		register(Hitbox.SHAPE_POLYGON, Hitbox.SHAPE_POLYGON, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				return polygonPolygon((HitboxPolygon) e1.hitbox, e1.getNewX(), e1.getNewY(),
+						(HitboxPolygon) e2.hitbox, e2.getNewX(), e2.getNewY(), contact);
+			}
+		});
+		register(Hitbox.SHAPE_POLYGON, Hitbox.SHAPE_RECTANGLE, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				return polygonBox((HitboxPolygon) e1.hitbox, e1.getNewX(), e1.getNewY(), centerX(e2),
+						centerY(e2), e2.hitbox.getHalfWidth(), e2.hitbox.getHalfHeight(), contact);
+			}
+		});
+		register(Hitbox.SHAPE_POLYGON, Hitbox.SHAPE_CIRCLE, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				return polygonCircle((HitboxPolygon) e1.hitbox, e1.getNewX(), e1.getNewY(), centerX(e2),
+						centerY(e2), e2.hitbox.circleRadius, contact);
+			}
+		});
+		register(Hitbox.SHAPE_SPRITE, Hitbox.SHAPE_SPRITE, new ShapeTest() {
+			
+			@Override
+			public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+				CollisionMask mask1 = ((HitboxSprite) e1.hitbox).getMask();
+				CollisionMask mask2 = ((HitboxSprite) e2.hitbox).getMask();
+				int dx = (int) Math.round(e2.getNewX() - e1.getNewX());
+				int dy = (int) Math.round(e2.getNewY() - e1.getNewY());
+				if (!mask1.overlaps(mask2, dx, dy)) {
+					return false;
+				}
+				centerContact(e1, e2, contact);
+				return true;
+			}
+		});
+	}
+	
+	/**
+	 * Sets the test for the given pair of shape types, as well as the reversed test for the shape types the
+	 * other way around
+	 * 
+	 * @param type1
+	 *            The shape type of the first {@code Hitbox}
+	 * @param type2
+	 *            The shape type of the second {@code Hitbox}
+	 * @param test
+	 *            The test
+	 */
+	private static void register(int type1, int type2, final ShapeTest test) {
+		TESTS[type1][type2] = test;
+		if (type1 != type2) {
+			TESTS[type2][type1] = new ShapeTest() {
+				
+				@Override
+				public boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+					if (!test.test(e2, e1, contact)) {
+						return false;
+					}
+					contact.flip();
+					return true;
+				}
+			};
+		}
+	}
+	
+	/**
+	 * Checks whether the two {@code EntityPhysics} collide, with the test for their shape types
+	 * 
+	 * @param e1
+	 *            The first {@code EntityPhysics}
+	 * @param e2
+	 *            The second {@code EntityPhysics}
+	 * @param contact
+	 *            The {@code Contact} to store the normal and depth in, if they collide
+	 * @return Whether they collide
+	 */
+	public static boolean collides(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+		return TESTS[e1.hitbox.getShapeType()][e2.hitbox.getShapeType()].test(e1, e2, contact);
+	}
+	
+	/**
+	 * Fills in a {@code Contact} along the line between the centers of the two {@code EntityPhysics}, with no
+	 * depth. Used when there is no better normal to be had.
+	 * 
+	 * @param e1
+	 *            The first {@code EntityPhysics}
+	 * @param e2
+	 *            The second {@code EntityPhysics}
+	 * @param contact
+	 *            The {@code Contact} to fill in
+	 * @return {@code contact}
+	 */
+	public static Contact centerContact(EntityPhysics e1, EntityPhysics e2, Contact contact) {
+		double dx = centerX(e2) - centerX(e1), dy = centerY(e2) - centerY(e1);
+		double length = Math.sqrt(dx * dx + dy * dy);
+		if (length == 0) {
+			return contact.set(1, 0, 0);
+		}
+		return contact.set(dx / length, dy / length, 0);
+	}
+	
+	/**
+	 * Tests two circles
+	 * 
+	 * @return Whether they overlap
+	 */
+	public static boolean circleCircle(double x1, double y1, double r1, double x2, double y2, double r2,
+			Contact contact) {
+		double dx = x2 - x1, dy = y2 - y1;
+		double r = r1 + r2;
+		double distance2 = dx * dx + dy * dy;
+		if (distance2 > r * r) {
+			return false;
+		}
+		double distance = Math.sqrt(distance2);
+		if (distance == 0) {
+			contact.set(1, 0, r);
+		} else {
+			contact.set(dx / distance, dy / distance, r - distance);
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests a circle against an axis-aligned box, given by its center and half size
+	 * 
+	 * @return Whether they overlap
+	 */
+	public static boolean circleBox(double cx, double cy, double r, double bx, double by, double hw, double hh,
+			Contact contact) {
+		double minX = bx - hw, maxX = bx + hw, minY = by - hh, maxY = by + hh;
+		// The closest point on the box to the center of the circle
+		double qx = Math.max(minX, Math.min(cx, maxX));
+		double qy = Math.max(minY, Math.min(cy, maxY));
+		double dx = qx - cx, dy = qy - cy;
+		double distance2 = dx * dx + dy * dy;
+		if (distance2 > r * r) {
+			return false;
+		}
+		if (distance2 > 0) {
+			double distance = Math.sqrt(distance2);
+			contact.set(dx / distance, dy / distance, r - distance);
+			return true;
+		}
+		// The center is inside the box, so push out through the nearest side
+		double left = cx - minX, right = maxX - cx, top = cy - minY, bottom = maxY - cy;
+		double nearest = Math.min(Math.min(left, right), Math.min(top, bottom));
+		if (nearest == left) {
+			contact.set(1, 0, r + left);
+		} else if (nearest == right) {
+			contact.set(-1, 0, r + right);
+		} else if (nearest == top) {
+			contact.set(0, 1, r + top);
+		} else {
+			contact.set(0, -1, r + bottom);
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests two axis-aligned boxes, given by their centers and half sizes
+	 * 
+	 * @return Whether they overlap
+	 */
+	public static boolean boxBox(double x1, double y1, double hw1, double hh1, double x2, double y2, double hw2,
+			double hh2, Contact contact) {
+		double dx = x2 - x1, dy = y2 - y1;
+		double overlapX = hw1 + hw2 - Math.abs(dx);
+		double overlapY = hh1 + hh2 - Math.abs(dy);
+		if (overlapX < 0 || overlapY < 0) {
+			return false;
+		}
+		if (overlapX < overlapY) {
+			contact.set(dx < 0 ? -1 : 1, 0, overlapX);
+		} else {
+			contact.set(0, dy < 0 ? -1 : 1, overlapY);
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests two convex polygons with the separating axis theorem, given by the positions of their upper-left
+	 * corners
+	 * 
+	 * @return Whether they overlap
+	 */
+	public static boolean polygonPolygon(HitboxPolygon p1, double x1, double y1, HitboxPolygon p2, double x2,
+			double y2, Contact contact) {
+		contact.depth = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < p1.vertX.length; i++) {
+			if (!separatingAxis(p1, x1, y1, p2, x2, y2, p1.normalX[i], p1.normalY[i], contact)) {
+				return false;
+			}
+		}
+		for (int i = 0; i < p2.vertX.length; i++) {
+			if (!separatingAxis(p1, x1, y1, p2, x2, y2, p2.normalX[i], p2.normalY[i], contact)) {
+				return false;
+			}
+		}
+		orient(x2 + p2.centerX - x1 - p1.centerX, y2 + p2.centerY - y1 - p1.centerY, contact);
+		return true;
+	}
+	
+	/**
+	 * Checks one axis for two convex polygons, keeping track of the axis with the least overlap
+	 * 
+	 * @return Whether they overlap along the axis
+	 */
+	private static boolean separatingAxis(HitboxPolygon p1, double x1, double y1, HitboxPolygon p2, double x2,
+			double y2, double nx, double ny, Contact contact) {
+		return overlapAxis(nx, ny, min(p1, x1, y1, nx, ny), max(p1, x1, y1, nx, ny), min(p2, x2, y2, nx, ny),
+				max(p2, x2, y2, nx, ny), contact);
+	}
+	
+	/**
+	 * Tests a convex polygon, given by the position of its upper-left corner, against an axis-aligned box,
+	 * given by its center and half size, with the separating axis theorem
+	 * 
+	 * @return Whether they overlap
+	 */
+	public static boolean polygonBox(HitboxPolygon p, double x, double y, double bx, double by, double hw,
+			double hh, Contact contact) {
+		contact.depth = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < p.vertX.length; i++) {
+			double nx = p.normalX[i], ny = p.normalY[i];
+			double center = bx * nx + by * ny, extent = hw * Math.abs(nx) + hh * Math.abs(ny);
+			if (!overlapAxis(nx, ny, min(p, x, y, nx, ny), max(p, x, y, nx, ny), center - extent,
+					center + extent, contact)) {
+				return false;
+			}
+		}
+		if (!overlapAxis(1, 0, min(p, x, y, 1, 0), max(p, x, y, 1, 0), bx - hw, bx + hw, contact)
+				|| !overlapAxis(0, 1, min(p, x, y, 0, 1), max(p, x, y, 0, 1), by - hh, by + hh, contact)) {
+			return false;
+		}
+		orient(bx - x - p.centerX, by - y - p.centerY, contact);
+		return true;
+	}
+	
+	/**
+	 * Tests a convex polygon, given by the position of its upper-left corner, against a circle with the
+	 * separating axis theorem
+	 * 
+	 * @return Whether they overlap
+	 */
+	public static boolean polygonCircle(HitboxPolygon p, double x, double y, double cx, double cy, double r,
+			Contact contact) {
+		contact.depth = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < p.vertX.length; i++) {
+			double nx = p.normalX[i], ny = p.normalY[i];
+			double center = cx * nx + cy * ny;
+			if (!overlapAxis(nx, ny, min(p, x, y, nx, ny), max(p, x, y, nx, ny), center - r, center + r,
+					contact)) {
+				return false;
+			}
+		}
+		// The only other axis that can separate them goes through the vertex nearest to the circle
+		double nearest = Double.POSITIVE_INFINITY, ax = 0, ay = 0;
+		for (int i = 0; i < p.vertX.length; i++) {
+			double dx = cx - x - p.vertX[i], dy = cy - y - p.vertY[i];
+			double distance2 = dx * dx + dy * dy;
+			if (distance2 < nearest) {
+				nearest = distance2;
+				ax = dx;
+				ay = dy;
+			}
+		}
+		if (nearest > 0) {
+			double length = Math.sqrt(nearest);
+			double nx = ax / length, ny = ay / length;
+			double center = cx * nx + cy * ny;
+			if (!overlapAxis(nx, ny, min(p, x, y, nx, ny), max(p, x, y, nx, ny), center - r, center + r,
+					contact)) {
+				return false;
+			}
+		}
+		orient(cx - x - p.centerX, cy - y - p.centerY, contact);
+		return true;
+	}
+	
+	/**
+	 * Checks whether two projections onto an axis overlap, and stores the axis in the {@code Contact} if they
+	 * overlap by less than any axis so far
+	 * 
+	 * @return Whether the projections overlap
+	 */
+	private static boolean overlapAxis(double nx, double ny, double min1, double max1, double min2, double max2,
+			Contact contact) {
+		double overlap = Math.min(max1, max2) - Math.max(min1, min2);
+		if (overlap < 0) {
+			return false;
+		}
+		if (overlap < contact.depth) {
+			contact.set(nx, ny, overlap);
+		}
+		return true;
+	}
+	
+	/**
+	 * Makes the normal of the {@code Contact} point from the first {@code Hitbox} towards the second
+	 * 
+	 * @param dx
+	 *            The X displacement from the center of the first {@code Hitbox} to the second
+	 * @param dy
+	 *            The Y displacement from the center of the first {@code Hitbox} to the second
+	 * @param contact
+	 *            The {@code Contact}
+	 */
+	private static void orient(double dx, double dy, Contact contact) {
+		if (contact.normalX * dx + contact.normalY * dy < 0) {
+			contact.flip();
+		}
+	}
+	
+	/**
+	 * Projects a polygon onto an axis
+	 * 
+	 * @return The smallest projection of any vertex
+	 */
+	private static double min(HitboxPolygon p, double x, double y, double nx, double ny) {
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < p.vertX.length; i++) {
+			min = Math.min(min, (x + p.vertX[i]) * nx + (y + p.vertY[i]) * ny);
+		}
+		return min;
+	}
+	
+	/**
+	 * Projects a polygon onto an axis
+	 * 
+	 * @return The largest projection of any vertex
+	 */
+	private static double max(HitboxPolygon p, double x, double y, double nx, double ny) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < p.vertX.length; i++) {
+			max = Math.max(max, (x + p.vertX[i]) * nx + (y + p.vertY[i]) * ny);
+		}
+		return max;
+	}
+	
+	/**
+	 * The X of the center of the {@code Hitbox} of the {@code EntityPhysics}, at its new position
+	 */
+	private static double centerX(EntityPhysics e) {
+		return e.getNewX() + e.hitbox.getCenterX();
+	}
+	
+	/**
+	 * The Y of the center of the {@code Hitbox} of the {@code EntityPhysics}, at its new position
+	 */
+	private static double centerY(EntityPhysics e) {
+		return e.getNewY() + e.hitbox.getCenterY();
+	}
+	
+	/**
+	 * A test for one pair of shape types
+	 * 
+	 * @author Kevin
+	 */
+	public static abstract class ShapeTest {
+		
+		
+		/**
+		 * Tests the two {@code EntityPhysics}
+		 * 
+		 * @param e1
+		 *            The first {@code EntityPhysics}
+		 * @param e2
+		 *            The second {@code EntityPhysics}
+		 * @param contact
+		 *            The {@code Contact} to store the normal and depth in, if they collide
+		 * @return Whether they collide
+		 */
+		public abstract boolean test(EntityPhysics e1, EntityPhysics e2, Contact contact);
+	}
+	
+}
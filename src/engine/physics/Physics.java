@@ -1,16 +1,25 @@
 package engine.physics;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import engine.Engine;
 import engine.Game;
 import engine.event.EventBus;
 import engine.event.SubscribeEvent;
+import engine.geom2d.Fixed;
 import engine.geom2d.Vector2;
 import engine.networknio.Rebuildable;
+import engine.physics.broadphase.BroadPhase;
+import engine.physics.broadphase.SpatialHash;
 import engine.physics.entity.EntityPhysics;
+import engine.physics.entity.ForceAccumulator;
 import engine.physics.entity.Hitbox;
 
 /**
@@ -18,6 +27,28 @@ import engine.physics.entity.Hitbox;
  * <p>
  * Contains a debug mode though {@link #debug}.
  * <p>
+ * The state of every {@code EntityPhysics} is stored here, in flat {@code double[]} arrays indexed by its
+ * {@link EntityPhysics#slot slot}, rather than in the {@code EntityPhysics} itself. The slot of an
+ * {@code EntityPhysics} is always its index in {@link #entities}, so the arrays stay dense, and a tick does
+ * not have to allocate anything to move every {@code EntityPhysics}.
+ * <p>
+ * If {@link #threads} is greater than 1, the movement over the state arrays and the narrow phase of
+ * {@link #check()} are split into chunks and run on a shared {@code ForkJoinPool}. The results are exactly
+ * the same as when running on a single thread, since collisions are still handled one by one, in the same
+ * order. {@code tickEntity1()} and {@code tickEntity2()} are always called on the ticking thread, one
+ * {@code EntityPhysics} at a time and in slot order, once every {@code EntityPhysics} has moved, so they are
+ * free to change other {@code EntityPhysics} as well.
+ * <p>
+ * If {@link #sleepTicks} is set, {@code EntityPhysics} that have barely moved for that many ticks are put to
+ * sleep, along with everything they are touching (their island). Sleeping {@code EntityPhysics} are not
+ * moved, the {@link #broadPhase} keeps them apart from the {@code EntityPhysics} that are awake so that it
+ * doesn't do any work for them every check, and pairs of sleeping {@code EntityPhysics} are not checked.
+ * They wake up when something awake touches them, or when their position, velocity or forces are changed.
+ * <p>
+ * In {@linkplain #fixedPoint fixed-point mode}, the state arrays only ever hold values that fit in
+ * {@code Fixed}, and movement and the standard collision response are worked out with integer math, so that
+ * the same inputs give exactly the same results on any machine, for replays and lockstep play.
+ * <p>
  * Physics is really really hard
  * 
  * @author Kevin
@@ -62,20 +93,213 @@ public class Physics implements Rebuildable {
 	public static final int DEFAULT_SUBTICKS = 1;
 	
 	/**
-	 * The amount of "subticks", or physics evaluations within a single tick, to perform.
+	 * The amount of "subticks", or physics evaluations within a single tick, to perform. Can be overridden for
+	 * a single level through {@link #levelSubticks}.
+	 */
+	public static int subticks = DEFAULT_SUBTICKS;
+	
+	/**
+	 * The amount of subticks to perform in this {@code Physics} instance. If this is not positive,
+	 * {@link #subticks} is used instead.
+	 */
+	public int levelSubticks;
+	
+	/**
+	 * When subticking, only {@code EntityPhysics} that move further than this fraction of their
+	 * {@link engine.physics.entity.Hitbox#circleRadius circleRadius} in a single tick, or that collided in the
+	 * last tick, are actually split into several passes. Everything else moves in one go.
+	 */
+	public double subtickThreshold = 0.5;
+	
+	/**
+	 * The default amount of ticks an {@code EntityPhysics} has to stay still before it can fall asleep, which
+	 * is 0 for never, so that games have to opt in
+	 * 
+	 * @see sleepTicks
+	 */
+	public static final int DEFAULT_SLEEP_TICKS = 0;
+	
+	/**
+	 * The amount of ticks that an {@code EntityPhysics}, and everything it is touching, has to stay still
+	 * before it falls asleep. Sleeping is turned off if this is not positive, which is the default. A value
+	 * of around 60 works well for games with many resting {@code EntityPhysics}.
+	 */
+	public int sleepTicks = DEFAULT_SLEEP_TICKS;
+	
+	/**
+	 * The speed, in pixels/tick, below which an {@code EntityPhysics} counts as still. Only the velocity after
+	 * collisions counts, so an {@code EntityPhysics} that rests on something while a steady force pushes it
+	 * into it, such as gravity, can still fall asleep.
+	 */
+	public double sleepVelocity = 0.01;
+	
+	/**
+	 * The default side length, in pixels, of a single cell in a {@code SpatialHash}
+	 * 
+	 * @see cellSize
+	 */
+	public static final double DEFAULT_CELL_SIZE = 64;
+	
+	/**
+	 * The side length, in pixels, of a single cell in a {@code SpatialHash}. Should be a bit
+	 * larger than the typical {@code Hitbox} in the level.
+	 */
+	public static double cellSize = DEFAULT_CELL_SIZE;
+	
+	/**
+	 * The default amount of threads to run the Physics engine on
+	 * 
+	 * @see threads
+	 */
+	public static final int DEFAULT_THREADS = 1;
+	
+	/**
+	 * The amount of threads to run the Physics engine on. 1 runs everything on the calling thread.
+	 */
+	public static int threads = DEFAULT_THREADS;
+	
+	/**
+	 * Whether to run the Physics engine in fixed-point mode by default
+	 * 
+	 * @see fixedPoint
+	 */
+	public static final boolean DEFAULT_FIXED_POINT = false;
+	
+	/**
+	 * Whether to run the Physics engine in fixed-point mode, where positions, velocities, accelerations and
+	 * masses are rounded to {@code Fixed} values, movement and the standard collision response use
+	 * {@code Fixed} math, and the built-in {@code Hitbox}es use the {@code Fixed} trigonometry tables. Slower,
+	 * but bit-exact on any JVM.
+	 * <p>
+	 * Should be set before any {@code EntityPhysics} are created, and must be the same on every machine that
+	 * has to agree on the simulation.
+	 */
+	public static boolean fixedPoint = DEFAULT_FIXED_POINT;
+	
+	/**
+	 * The smallest amount of {@code EntityPhysics} or pairs that are worth handing to another thread
+	 */
+	private static final int PARALLEL_GRAIN = 128;
+	
+	private static final int STAGE_TICK1 = 0, STAGE_NARROW = 1, STAGE_TICK2 = 2, STAGE_FIRST_PASS = 3,
+			STAGE_PASS = 4;
+			
+	/**
+	 * The {@code ForkJoinPool} shared by every {@code Physics} instance, created the first time it's needed
 	 */
-	public static int subticks;
+	private static ForkJoinPool pool;
 	
 	/**
 	 * The list of {@code EntityPhysics} that currently exist in this {@code Physics} instance
 	 */
 	public List<EntityPhysics> entities = new ArrayList<EntityPhysics>();
 	
+	/**
+	 * Every {@code EntityPhysics} in {@link #entities}, by ID, since their slots change as others are removed
+	 */
+	private Map<Integer, EntityPhysics> entitiesById = new HashMap<Integer, EntityPhysics>();
+	
+	/**
+	 * The position (upper-left corner) of every {@code EntityPhysics}, indexed by slot
+	 */
+	public double[] posX, posY;
+	
+	/**
+	 * The new position of every {@code EntityPhysics}, indexed by slot
+	 */
+	public double[] newX, newY;
+	
+	/**
+	 * The velocity of every {@code EntityPhysics}, indexed by slot
+	 */
+	public double[] velX, velY;
+	
+	/**
+	 * The acceleration of every {@code EntityPhysics}, indexed by slot
+	 */
+	public double[] accX, accY;
+	
+	/**
+	 * The net force being exerted on every {@code EntityPhysics}, indexed by slot
+	 */
+	public double[] forceX, forceY;
+	
+	/**
+	 * The mass of every {@code EntityPhysics}, indexed by slot
+	 */
+	public double[] mass;
+	
+	/**
+	 * Whether every {@code EntityPhysics} had a collision handled in the last tick, indexed by slot
+	 */
+	public boolean[] collided;
+	
+	/**
+	 * Whether every {@code EntityPhysics} is asleep, indexed by slot
+	 */
+	public boolean[] asleep;
+	
+	/**
+	 * The amount of ticks in a row that every {@code EntityPhysics} has been still, indexed by slot
+	 */
+	public int[] stillTicks;
+	
+	/**
+	 * Whether every {@code EntityPhysics} fell asleep in the last tick, indexed by slot
+	 */
+	private boolean[] fellAsleep;
+	
+	/**
+	 * The islands of touching {@code EntityPhysics} found in the current tick, as a union-find forest over
+	 * slots
+	 */
+	private transient int[] island;
+	
+	/**
+	 * Scratch space for the stillness of every island, indexed by the slot of its root
+	 */
+	private transient int[] islandStill;
+	
+	/**
+	 * Whether every {@code EntityPhysics} is being moved in several passes this tick, indexed by slot
+	 */
+	private transient boolean[] subticking;
+	
+	/**
+	 * Whether the current {@link #check()} should only look at pairs with a subticking {@code EntityPhysics}
+	 */
+	private transient boolean subtickingOnly;
+	
+	/**
+	 * The fraction of a tick that subticking {@code EntityPhysics} move in each pass
+	 */
+	private transient double subtickFraction;
+	
 	/**
 	 * List of {@code CollisionHandler}s that this instance of {@code Physics} should use when evaluating
 	 * collisions
+	 * <p>
+	 * Only changed through {@link #addCollisionHandler(CollisionHandler)} and
+	 * {@link #removeCollisionHandler(CollisionHandler)}, which clear {@link #handlerCache}.
 	 */
-	public List<CollisionHandler> collisionHandlers = new ArrayList<CollisionHandler>();
+	private List<CollisionHandler> collisionHandlers = new ArrayList<CollisionHandler>();
+	
+	/**
+	 * The {@code CollisionHandler} to use for every pair of {@code EntityPhysics} classes, built up as the
+	 * pairs are encountered, or {@code null} if it has to be built again
+	 */
+	private transient Map<Class<?>, Map<Class<?>, CollisionHandler>> handlerCache;
+	
+	/**
+	 * Whether every {@code CollisionHandler} was {@linkplain CollisionHandler#isCacheable() cacheable} when
+	 * {@link #handlerCache} was built
+	 */
+	private transient boolean handlersCacheable;
+	
+	/**
+	 * The {@code BroadPhase} used to cut down on the number of pairs that {@link #check()} has to look at
+	 */
+	public BroadPhase broadPhase;
 	
 	/**
 	 * The {@code EventBus} necessary for dispatching {@code EventEntityPosition}s and other Physics related
@@ -83,21 +307,113 @@ public class Physics implements Rebuildable {
 	 */
 	public static EventBus PHYSICS_BUS = new EventBus("Physics Bus");
 	
+	/**
+	 * Scratch space for the narrow phase of {@link #check()}
+	 */
+	private transient Contact scratchContact;
+	
+	/**
+	 * The {@code Contact} handed to the {@code CollisionHandler}s
+	 */
+	private transient Contact contact;
+	
+	/**
+	 * The result of the narrow phase for every candidate pair of the current {@link #check()}
+	 */
+	private transient boolean[] contacts;
+	
+	/**
+	 * The contact normal and penetration depth for every candidate pair of the current {@link #check()} that
+	 * collides, at the time of impact for pairs that were swept
+	 */
+	private transient double[] contactNormalX, contactNormalY, contactDepth;
+	
+	/**
+	 * The time of impact for every candidate pair of the current {@link #check()} that was checked with
+	 * {@code ContinuousCollision}, or {@link ContinuousCollision#NO_IMPACT} for every other pair
+	 */
+	private transient double[] impactTimes;
+	
+	/**
+	 * The pair with the earliest time of impact for every fast {@code EntityPhysics}, indexed by slot, or -1
+	 */
+	private transient int[] earliestImpact;
+	
+	/**
+	 * Whether every {@code EntityPhysics} needs continuous collision detection, indexed by slot. Only valid
+	 * for {@code EntityPhysics} in a pair with a time of impact.
+	 */
+	private transient boolean[] fast;
+	
 	/**
 	 * The previous stage in debug ticking
 	 */
 	private int prevStage = 0;
 	
+	/**
+	 * How many stages of a tick are currently running, nested in one another. {@code EntityPhysics} that are
+	 * removed while this is positive are only removed once the outermost stage is over, so that no
+	 * {@code EntityPhysics} is skipped by the loops over {@link #entities}.
+	 */
+	private transient int stageDepth;
+	
+	/**
+	 * The {@code EntityPhysics} removed in the middle of a tick, waiting for it to be over
+	 */
+	private transient List<EntityPhysics> pendingRemovals;
+	
 	public Physics() {
 		this(false);
 	}
 	
 	public Physics(boolean debug) {
+		this(new SpatialHash(), debug);
+	}
+	
+	public Physics(BroadPhase broadPhase) {
+		this(broadPhase, false);
+	}
+	
+	public Physics(BroadPhase broadPhase, boolean debug) {
+		this.broadPhase = broadPhase;
 		this.debug = debug;
+		this.ensureCapacity(16);
 		if (debug) {
 			PHYSICS_BUS.register(this);
 		}
-		this.collisionHandlers.add(CollisionHandler.getStandard(1, Integer.MIN_VALUE));
+		this.addCollisionHandler(CollisionHandler.getStandard(1, Integer.MIN_VALUE));
+	}
+	
+	/**
+	 * Adds a {@code CollisionHandler} to this {@code Physics} instance
+	 * 
+	 * @param handler
+	 *            The {@code CollisionHandler} to add
+	 */
+	public void addCollisionHandler(CollisionHandler handler) {
+		this.collisionHandlers.add(handler);
+		this.handlerCache = null;
+	}
+	
+	/**
+	 * Removes a {@code CollisionHandler} from this {@code Physics} instance
+	 * 
+	 * @param handler
+	 *            The {@code CollisionHandler} to remove
+	 */
+	public void removeCollisionHandler(CollisionHandler handler) {
+		this.collisionHandlers.remove(handler);
+		this.handlerCache = null;
+	}
+	
+	/**
+	 * Gets the {@code CollisionHandler}s that this {@code Physics} instance uses, which can't be changed
+	 * through the returned list
+	 * 
+	 * @return The {@code CollisionHandler}s, in the order they were added
+	 */
+	public List<CollisionHandler> getCollisionHandlers() {
+		return Collections.unmodifiableList(this.collisionHandlers);
 	}
 	
 	@Override
@@ -107,64 +423,897 @@ public class Physics implements Rebuildable {
 		}
 	}
 	
+	/**
+	 * Adds an {@code EntityPhysics} to this {@code Physics} instance
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics} to add
+	 */
+	public void addEntity(EntityPhysics e) {
+		int slot = this.entities.size();
+		this.ensureCapacity(slot + 1);
+		this.clearSlot(slot);
+		e.slot = slot;
+		this.entities.add(e);
+		this.entitiesById.put(e.id, e);
+		this.broadPhase.add(e);
+	}
+	
+	/**
+	 * Retrieves the {@code EntityPhysics} with the given ID
+	 * 
+	 * @param id
+	 *            The ID of the {@code EntityPhysics}
+	 * @return The {@code EntityPhysics}, or {@code null} if none in this {@code Physics} instance has that ID
+	 */
+	public EntityPhysics getEntity(int id) {
+		return this.entitiesById.get(id);
+	}
+	
+	/**
+	 * Removes an {@code EntityPhysics} from this {@code Physics} instance
+	 * <p>
+	 * The last {@code EntityPhysics} is moved into the slot that is freed up, so the order of
+	 * {@link #entities} is not preserved. The slot of the removed {@code EntityPhysics} becomes -1, so it can't
+	 * touch the state of whichever {@code EntityPhysics} took its place.
+	 * <p>
+	 * If this is called in the middle of a tick, for example from {@code tickEntity1()} or a
+	 * {@code CollisionHandler}, the {@code EntityPhysics} is only removed once the tick is over.
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics} to remove
+	 */
+	public void removeEntity(EntityPhysics e) {
+		if (this.stageDepth > 0) {
+			synchronized (this) {
+				if (this.pendingRemovals == null) {
+					this.pendingRemovals = new ArrayList<EntityPhysics>();
+				}
+				this.pendingRemovals.add(e);
+			}
+			return;
+		}
+		int slot = e.slot;
+		int last = this.entities.size() - 1;
+		if (slot < 0 || slot > last || this.entities.get(slot) != e) {
+			return;
+		}
+		if (slot != last) {
+			EntityPhysics moved = this.entities.get(last);
+			this.copySlot(last, slot);
+			moved.slot = slot;
+			this.entities.set(slot, moved);
+		}
+		this.entities.remove(last);
+		if (this.entitiesById.get(e.id) == e) {
+			this.entitiesById.remove(e.id);
+		}
+		this.broadPhase.remove(e);
+		e.slot = -1;
+		PHYSICS_BUS.unregister(e);
+	}
+	
+	/**
+	 * Unregisters every {@code EntityPhysics}, and this {@code Physics} itself, from {@link #PHYSICS_BUS}, so
+	 * that they can be garbage collected once this {@code Physics} is no longer used, such as when a room is
+	 * closed. The {@code EntityPhysics} stay where they are otherwise.
+	 */
+	public void shutdown() {
+		for (int i = 0; i < this.entities.size(); i++) {
+			PHYSICS_BUS.unregister(this.entities.get(i));
+		}
+		if (this.debug) {
+			PHYSICS_BUS.unregister(this);
+		}
+	}
+	
+	/**
+	 * Starts a stage of a tick, during which {@code EntityPhysics} are not removed right away
+	 */
+	private void beginStage() {
+		this.stageDepth++;
+	}
+	
+	/**
+	 * Ends a stage of a tick, removing the {@code EntityPhysics} that were removed during it once the outermost
+	 * stage is over
+	 */
+	private void endStage() {
+		if (--this.stageDepth > 0 || this.pendingRemovals == null) {
+			return;
+		}
+		for (int i = 0; i < this.pendingRemovals.size(); i++) {
+			this.removeEntity(this.pendingRemovals.get(i));
+		}
+		this.pendingRemovals.clear();
+	}
+	
+	/**
+	 * Makes sure that the state arrays can hold the given number of {@code EntityPhysics}
+	 * 
+	 * @param n
+	 *            The number of {@code EntityPhysics}
+	 */
+	private void ensureCapacity(int n) {
+		if (this.mass != null && this.mass.length >= n) {
+			return;
+		}
+		int size = Math.max(16, Integer.highestOneBit(Math.max(n, 1)) << 1);
+		this.posX = grow(this.posX, size);
+		this.posY = grow(this.posY, size);
+		this.newX = grow(this.newX, size);
+		this.newY = grow(this.newY, size);
+		this.velX = grow(this.velX, size);
+		this.velY = grow(this.velY, size);
+		this.accX = grow(this.accX, size);
+		this.accY = grow(this.accY, size);
+		this.forceX = grow(this.forceX, size);
+		this.forceY = grow(this.forceY, size);
+		this.mass = grow(this.mass, size);
+		this.collided = this.collided == null ? new boolean[size] : Arrays.copyOf(this.collided, size);
+		this.asleep = this.asleep == null ? new boolean[size] : Arrays.copyOf(this.asleep, size);
+		this.stillTicks = this.stillTicks == null ? new int[size] : Arrays.copyOf(this.stillTicks, size);
+		this.fellAsleep = this.fellAsleep == null ? new boolean[size] : Arrays.copyOf(this.fellAsleep, size);
+	}
+	
+	private static double[] grow(double[] array, int size) {
+		return array == null ? new double[size] : Arrays.copyOf(array, size);
+	}
+	
+	private void clearSlot(int slot) {
+		this.posX[slot] = this.posY[slot] = 0;
+		this.newX[slot] = this.newY[slot] = 0;
+		this.velX[slot] = this.velY[slot] = 0;
+		this.accX[slot] = this.accY[slot] = 0;
+		this.forceX[slot] = this.forceY[slot] = 0;
+		this.mass[slot] = 0;
+		this.collided[slot] = false;
+		this.asleep[slot] = false;
+		this.stillTicks[slot] = 0;
+		this.fellAsleep[slot] = false;
+	}
+	
+	private void copySlot(int from, int to) {
+		this.posX[to] = this.posX[from];
+		this.posY[to] = this.posY[from];
+		this.newX[to] = this.newX[from];
+		this.newY[to] = this.newY[from];
+		this.velX[to] = this.velX[from];
+		this.velY[to] = this.velY[from];
+		this.accX[to] = this.accX[from];
+		this.accY[to] = this.accY[from];
+		this.forceX[to] = this.forceX[from];
+		this.forceY[to] = this.forceY[from];
+		this.mass[to] = this.mass[from];
+		this.collided[to] = this.collided[from];
+		this.asleep[to] = this.asleep[from];
+		this.stillTicks[to] = this.stillTicks[from];
+		this.fellAsleep[to] = this.fellAsleep[from];
+	}
+	
+	/**
+	 * Rounds a value to be stored in the state arrays, if running in {@linkplain #fixedPoint fixed-point
+	 * mode}
+	 * 
+	 * @param value
+	 *            The value
+	 * @return The value, rounded to the nearest {@code Fixed} value in fixed-point mode
+	 */
+	public static double quantize(double value) {
+		return fixedPoint ? Fixed.quantize(value) : value;
+	}
+	
 	/**
 	 * Ticks the Physics engine
 	 * <p>
 	 * Movement of {@code EntityPhysics} happens in two phases, and collisions are checked between the two
+	 * <p>
+	 * With more than one {@linkplain #getSubticks() subtick}, fast and colliding {@code EntityPhysics} move in
+	 * several fractional passes instead, with collisions checked after each one. See {@link #subtick(int)}.
 	 */
 	public void tick() {
-		this.tick1();
+		this.beginStage();
+		try {
+			this.beginIslands();
+			int n = this.getSubticks();
+			if (n > 1) {
+				this.subtick(n);
+			} else {
+				Arrays.fill(this.collided, 0, this.entities.size(), false);
+				this.tick1();
+				this.check();
+				this.tick2();
+			}
+			this.updateSleep();
+		} finally {
+			this.endStage();
+		}
+	}
+	
+	/**
+	 * Wakes up the {@code EntityPhysics} in the given slot. Everything it touches will wake up as well, the
+	 * next time they are checked.
+	 * <p>
+	 * An {@code EntityPhysics} that is already awake keeps counting how long it has been still, since
+	 * {@code CollisionHandler}s set the velocity of resting {@code EntityPhysics} every tick. Whether it is
+	 * still is decided by its velocity after the tick.
+	 * 
+	 * @param slot
+	 *            The slot of the {@code EntityPhysics}
+	 */
+	public void wake(int slot) {
+		if (this.asleep[slot]) {
+			this.asleep[slot] = false;
+			this.stillTicks[slot] = 0;
+		}
+	}
+	
+	/**
+	 * Checks whether the {@code EntityPhysics} was awake for at least part of the last tick, so its position
+	 * may have changed
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 * @return Whether it was awake
+	 */
+	public boolean wasAwake(EntityPhysics e) {
+		return !this.asleep[e.slot] || this.fellAsleep[e.slot];
+	}
+	
+	/**
+	 * Makes every {@code EntityPhysics} its own island, before the islands are joined up by the contacts
+	 * found in {@link #check()}
+	 */
+	private void beginIslands() {
+		if (this.island == null || this.island.length < this.mass.length) {
+			this.island = new int[this.mass.length];
+			this.islandStill = new int[this.mass.length];
+		}
+		for (int i = 0; i < this.entities.size(); i++) {
+			this.island[i] = i;
+		}
+	}
+	
+	/**
+	 * Finds the root of the island of the given slot
+	 */
+	private int findIsland(int slot) {
+		while (this.island[slot] != slot) {
+			// Path halving
+			this.island[slot] = this.island[this.island[slot]];
+			slot = this.island[slot];
+		}
+		return slot;
+	}
+	
+	/**
+	 * Joins the islands of the two given slots
+	 */
+	private void joinIslands(int s1, int s2) {
+		int r1 = this.findIsland(s1), r2 = this.findIsland(s2);
+		if (r1 != r2) {
+			this.island[Math.max(r1, r2)] = Math.min(r1, r2);
+		}
+	}
+	
+	/**
+	 * Counts how long every {@code EntityPhysics} has been still, then puts every island whose
+	 * {@code EntityPhysics} have all been still for long enough to sleep, and wakes up every island with a
+	 * sleeping {@code EntityPhysics} that is touching something that isn't still
+	 */
+	private void updateSleep() {
+		int count = this.entities.size();
+		if (this.sleepTicks <= 0) {
+			for (int i = 0; i < count; i++) {
+				this.asleep[i] = false;
+				this.fellAsleep[i] = false;
+			}
+			return;
+		}
+		for (int i = 0; i < count; i++) {
+			this.fellAsleep[i] = false;
+			if (this.asleep[i]) {
+				continue;
+			}
+			double speed2 = this.velX[i] * this.velX[i] + this.velY[i] * this.velY[i];
+			if (speed2 <= this.sleepVelocity * this.sleepVelocity) {
+				this.stillTicks[i] = Math.min(this.stillTicks[i] + 1, this.sleepTicks);
+			} else {
+				this.stillTicks[i] = 0;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			this.islandStill[this.findIsland(i)] = this.sleepTicks;
+		}
+		for (int i = 0; i < count; i++) {
+			int root = this.findIsland(i);
+			if (!this.asleep[i]) {
+				this.islandStill[root] = Math.min(this.islandStill[root], this.stillTicks[i]);
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			boolean still = this.islandStill[this.findIsland(i)] >= this.sleepTicks;
+			if (still && !this.asleep[i]) {
+				this.asleep[i] = true;
+				this.fellAsleep[i] = true;
+				this.velX[i] = this.velY[i] = 0;
+			} else if (!still && this.asleep[i]) {
+				this.wake(i);
+			}
+		}
+	}
+	
+	/**
+	 * Ticks the Physics engine in the given amount of passes
+	 * <p>
+	 * Slow {@code EntityPhysics} (see {@link #subtickThreshold}) move a full tick in the first pass, just like
+	 * they would without subticks. The others move {@code 1 / n} of a tick per pass. After the first pass,
+	 * every pair is checked as usual, but after the later passes, only the pairs that involve a subticking
+	 * {@code EntityPhysics} are checked, so the extra cost is confined to those.
+	 * <p>
+	 * {@code tickEntity1()} is only called once, after the first pass, and {@code tickEntity2()} is only
+	 * called at the very end.
+	 * 
+	 * @param n
+	 *            The amount of passes
+	 */
+	private void subtick(int n) {
+		int count = this.entities.size();
+		if (this.subticking == null || this.subticking.length < this.mass.length) {
+			this.subticking = new boolean[this.mass.length];
+		}
+		for (int i = 0; i < count; i++) {
+			EntityPhysics e = this.entities.get(i);
+			double reach = this.subtickThreshold * e.hitbox.circleRadius;
+			double speed2 = this.velX[i] * this.velX[i] + this.velY[i] * this.velY[i];
+			this.subticking[i] = this.collided[i] || speed2 > reach * reach;
+			this.collided[i] = false;
+		}
+		this.subtickFraction = 1.0 / n;
+		this.runStage(STAGE_FIRST_PASS, count);
+		this.tickEntities1();
+		this.notifyMoved(false);
 		this.check();
+		this.subtickingOnly = true;
+		try {
+			for (int pass = 1; pass < n; pass++) {
+				this.runStage(STAGE_PASS, count);
+				this.notifyMoved(true);
+				this.check();
+			}
+		} finally {
+			this.subtickingOnly = false;
+		}
 		this.tick2();
 	}
 	
+	/**
+	 * Tells the {@link #broadPhase} that {@code EntityPhysics} have moved. Sleeping {@code EntityPhysics} are
+	 * skipped, unless something has given them a new position anyway.
+	 * 
+	 * @param subtickingOnly
+	 *            Whether only subticking {@code EntityPhysics} have moved
+	 */
+	private void notifyMoved(boolean subtickingOnly) {
+		for (int i = 0; i < this.entities.size(); i++) {
+			if (this.asleep[i] && this.newX[i] == this.posX[i] && this.newY[i] == this.posY[i]) {
+				continue;
+			}
+			if (!subtickingOnly || this.subticking[i]) {
+				this.broadPhase.moved(this.entities.get(i));
+			}
+		}
+	}
+	
+	/**
+	 * Retrieves the amount of subticks that this {@code Physics} instance performs every tick
+	 * 
+	 * @return The amount of subticks
+	 */
+	public int getSubticks() {
+		return this.levelSubticks > 0 ? this.levelSubticks : subticks;
+	}
+	
 	/**
 	 * Ticks the first stage of Physics movement
+	 * <p>
+	 * Every {@code EntityPhysics} is moved straight in the state arrays, without going through
+	 * {@link EntityPhysics#tick1()}, and then has {@code tickEntity1()} called.
 	 */
 	public void tick1() {
-		for (EntityPhysics e : this.entities) {
-			e.tick1();
+		this.beginStage();
+		try {
+			this.runStage(STAGE_TICK1, this.entities.size());
+			this.tickEntities1();
+			this.notifyMoved(false);
+		} finally {
+			this.endStage();
+		}
+	}
+	
+	/**
+	 * Calls {@code tickEntity1()} on every {@code EntityPhysics}, on this thread
+	 */
+	private void tickEntities1() {
+		for (int i = 0; i < this.entities.size(); i++) {
+			this.entities.get(i).tickEntity1();
+		}
+	}
+	
+	/**
+	 * Takes the net force on the {@code EntityPhysics} in the given slot, and moves it forward by a fraction of
+	 * a tick
+	 * <p>
+	 * Sleeping {@code EntityPhysics} stay where they are. {@code EntityPhysics} with a mass of zero or infinity
+	 * are immovable, so forces don't accelerate them, but they keep moving with their velocity.
+	 * 
+	 * @param slot
+	 *            The slot of the {@code EntityPhysics}
+	 * @param forces
+	 *            The forces being exerted on it
+	 * @param fraction
+	 *            The fraction of a tick
+	 */
+	public void integrate(int slot, ForceAccumulator forces, double fraction) {
+		if (this.asleep[slot]) {
+			this.newX[slot] = this.posX[slot];
+			this.newY[slot] = this.posY[slot];
+			return;
+		}
+		double fx = quantize(forces.getX()), fy = quantize(forces.getY());
+		this.forceX[slot] = fx;
+		this.forceY[slot] = fy;
+		double mass = this.mass[slot];
+		if (mass == 0 || Double.isInfinite(mass) || fixedPoint && Fixed.of(mass) == 0) {
+			this.accX[slot] = 0;
+			this.accY[slot] = 0;
+		} else if (fixedPoint) {
+			long m = Fixed.of(mass);
+			this.accX[slot] = Fixed.toDouble(Fixed.div(Fixed.of(fx), m));
+			this.accY[slot] = Fixed.toDouble(Fixed.div(Fixed.of(fy), m));
+		} else {
+			this.accX[slot] = fx / this.mass[slot];
+			this.accY[slot] = fy / this.mass[slot];
+		}
+		this.integrate(slot, fraction);
+	}
+	
+	/**
+	 * Moves the {@code EntityPhysics} in the given slot forward by a fraction of a tick, using its current
+	 * acceleration
+	 * 
+	 * @param slot
+	 *            The slot of the {@code EntityPhysics}
+	 * @param fraction
+	 *            The fraction of a tick
+	 */
+	public void integrate(int slot, double fraction) {
+		if (fixedPoint) {
+			this.integrateFixed(slot, Fixed.of(fraction));
+			return;
 		}
+		this.newX[slot] = this.posX[slot] + this.velX[slot] * fraction + this.accX[slot] * .5 * fraction * fraction;
+		this.newY[slot] = this.posY[slot] + this.velY[slot] * fraction + this.accY[slot] * .5 * fraction * fraction;
+		this.velX[slot] += this.accX[slot] * fraction;
+		this.velY[slot] += this.accY[slot] * fraction;
+	}
+	
+	/**
+	 * {@link #integrate(int, double)} in fixed-point
+	 */
+	private void integrateFixed(int slot, long fraction) {
+		long halfSquare = Fixed.mul(fraction, fraction) >> 1;
+		long ax = Fixed.of(this.accX[slot]), ay = Fixed.of(this.accY[slot]);
+		long vx = Fixed.of(this.velX[slot]), vy = Fixed.of(this.velY[slot]);
+		this.newX[slot] = Fixed.toDouble(
+				Fixed.of(this.posX[slot]) + Fixed.mul(vx, fraction) + Fixed.mul(ax, halfSquare));
+		this.newY[slot] = Fixed.toDouble(
+				Fixed.of(this.posY[slot]) + Fixed.mul(vy, fraction) + Fixed.mul(ay, halfSquare));
+		this.velX[slot] = Fixed.toDouble(vx + Fixed.mul(ax, fraction));
+		this.velY[slot] = Fixed.toDouble(vy + Fixed.mul(ay, fraction));
 	}
 	
 	/**
 	 * Does any collision checking necessary
 	 * <p>
-	 * Unfortunately, this method is O(n^2). <strike>I'm not quite sure how to cut down on that,</strike>
-	 * Every {@code Hitbox} now has the field {@link engine.physics.entity.Hitbox#circleRadius circleRadius}
-	 * which specifies a radius outside which it would be impossible to collide with it. A simple check is all
-	 * it takes to drastically reduce the number of comparisons required each tick.
+	 * Every {@code Hitbox} has the field {@link engine.physics.entity.Hitbox#circleRadius circleRadius} which
+	 * specifies a radius outside which it would be impossible to collide with it. The {@link #broadPhase}
+	 * bounds the {@code EntityPhysics} by these circles, so only those whose bounds overlap are checked
+	 * against each other, rather than every possible pair.
 	 * <p>
-	 * but I highly doubt there will be enough active entities in order cause enough lag...
+	 * The {@code Hitbox} checks for every pair are done first by the {@code NarrowPhase}, based on the new
+	 * positions. Only then are the collisions handled, in pair order, so that the checks can be spread over
+	 * several threads.
+	 * <p>
+	 * Pairs with an {@code EntityPhysics} that {@linkplain ContinuousCollision#isFast(EntityPhysics) moves
+	 * further than its own size} are instead swept by {@code ContinuousCollision}. Impacts from sweeps that
+	 * aren't exact are only kept if the {@code NarrowPhase} agrees at the time of impact. A fast
+	 * {@code EntityPhysics} only has its earliest impact handled. Both {@code EntityPhysics} are moved back to
+	 * where they were at the time of impact, the collision is handled, and they move on with their new
+	 * velocities for the rest of the tick.
 	 */
 	public void check() {
-		for (int e1 = 0; e1 < this.entities.size() - 1; e1++) {
-			for (int e2 = e1 + 1; e2 < this.entities.size(); e2++) {
-				EntityPhysics ent1 = this.entities.get(e1);
-				EntityPhysics ent2 = this.entities.get(e2);
-				if (!ent1.dead && !ent2.dead) {
-					if (Vector2.displacement(ent1.newp.plus(ent1.hitbox.getCenterDisplacement()),
-							ent2.newp.plus(ent2.hitbox.getCenterDisplacement())) <= (ent1.hitbox.circleRadius
-									+ ent2.hitbox.circleRadius)) {
-						if (suspectedCollision(ent1, ent2) && EntityPhysics.approaching(ent1, ent2)) {
-							this.handleCollision(ent1, ent2);
-						}
-					}
+		this.beginStage();
+		try {
+			this.checkPairs();
+		} finally {
+			this.endStage();
+		}
+	}
+	
+	/**
+	 * Carries out {@link #check()}
+	 */
+	private void checkPairs() {
+		int pairCount = this.broadPhase.findPairs(this.entities);
+		if (this.contacts == null || this.contacts.length < pairCount) {
+			int size = Math.max(64, Integer.highestOneBit(pairCount) << 1);
+			this.contacts = new boolean[size];
+			this.impactTimes = new double[size];
+			this.contactNormalX = new double[size];
+			this.contactNormalY = new double[size];
+			this.contactDepth = new double[size];
+		}
+		if (this.contact == null) {
+			this.contact = new Contact();
+		}
+		if (this.island == null || this.island.length < this.mass.length) {
+			this.beginIslands();
+		}
+		if (this.earliestImpact == null || this.earliestImpact.length < this.mass.length) {
+			this.earliestImpact = new int[this.mass.length];
+			this.fast = new boolean[this.mass.length];
+			Arrays.fill(this.earliestImpact, -1);
+		}
+		this.runStage(STAGE_NARROW, pairCount);
+		int[] pairs = this.broadPhase.getPairs();
+		for (int p = 0; p < pairCount; p++) {
+			if (this.contacts[p] && this.impactTimes[p] != ContinuousCollision.NO_IMPACT) {
+				EntityPhysics ent1 = this.entities.get(pairs[2 * p]);
+				EntityPhysics ent2 = this.entities.get(pairs[2 * p + 1]);
+				if (!ContinuousCollision.isExact(ent1, ent2)) {
+					this.contacts[p] = this.confirmImpact(ent1, ent2, p);
+				}
+			}
+		}
+		for (int p = 0; p < pairCount; p++) {
+			if (this.contacts[p] && this.impactTimes[p] != ContinuousCollision.NO_IMPACT) {
+				this.recordImpact(this.entities.get(pairs[2 * p]), p);
+				this.recordImpact(this.entities.get(pairs[2 * p + 1]), p);
+			}
+		}
+		for (int p = 0; p < pairCount; p++) {
+			if (!this.contacts[p]) {
+				continue;
+			}
+			EntityPhysics ent1 = this.entities.get(pairs[2 * p]);
+			EntityPhysics ent2 = this.entities.get(pairs[2 * p + 1]);
+			this.joinIslands(ent1.slot, ent2.slot);
+			if (ent1.dead || ent2.dead || !this.approaching(ent1, ent2)) {
+				continue;
+			}
+			double toi = this.impactTimes[p];
+			if (toi == ContinuousCollision.NO_IMPACT) {
+				this.contact.set(this.contactNormalX[p], this.contactNormalY[p], this.contactDepth[p]);
+				this.handleCollision(ent1, ent2, this.contact);
+			} else if (this.isEarliestImpact(ent1, p) && this.isEarliestImpact(ent2, p)) {
+				this.moveToImpact(ent1.slot, toi);
+				this.moveToImpact(ent2.slot, toi);
+				this.contact.set(this.contactNormalX[p], this.contactNormalY[p], this.contactDepth[p]);
+				this.handleCollision(ent1, ent2, this.contact);
+				this.moveAfterImpact(ent1.slot, toi);
+				this.moveAfterImpact(ent2.slot, toi);
+			} else {
+				continue;
+			}
+			this.collided[ent1.slot] = true;
+			this.collided[ent2.slot] = true;
+		}
+		for (int p = 0; p < pairCount; p++) {
+			if (this.contacts[p] && this.impactTimes[p] != ContinuousCollision.NO_IMPACT) {
+				this.earliestImpact[this.entities.get(pairs[2 * p]).slot] = -1;
+				this.earliestImpact[this.entities.get(pairs[2 * p + 1]).slot] = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Checks that the given pair, whose sweep is {@linkplain ContinuousCollision#isExact(EntityPhysics,
+	 * EntityPhysics) not exact}, really collides at its time of impact, with the {@code NarrowPhase}. If it
+	 * does, its contact is stored for when the impact is handled.
+	 * 
+	 * @param ent1
+	 *            The first {@code EntityPhysics}
+	 * @param ent2
+	 *            The second {@code EntityPhysics}
+	 * @param p
+	 *            The pair with a time of impact
+	 * @return Whether there is an impact
+	 */
+	private boolean confirmImpact(EntityPhysics ent1, EntityPhysics ent2, int p) {
+		int s1 = ent1.slot, s2 = ent2.slot;
+		double x1 = this.newX[s1], y1 = this.newY[s1], x2 = this.newX[s2], y2 = this.newY[s2];
+		this.moveToImpact(s1, this.impactTimes[p]);
+		this.moveToImpact(s2, this.impactTimes[p]);
+		boolean impact = NarrowPhase.collides(ent1, ent2, this.contact);
+		this.newX[s1] = x1;
+		this.newY[s1] = y1;
+		this.newX[s2] = x2;
+		this.newY[s2] = y2;
+		if (impact) {
+			this.contactNormalX[p] = this.contact.normalX;
+			this.contactNormalY[p] = this.contact.normalY;
+			this.contactDepth[p] = this.contact.depth;
+		}
+		return impact;
+	}
+	
+	/**
+	 * Keeps track of the earliest impact of the given {@code EntityPhysics}, if it is fast
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 * @param p
+	 *            The pair with a time of impact
+	 */
+	private void recordImpact(EntityPhysics e, int p) {
+		int earliest = this.earliestImpact[e.slot];
+		if (earliest == -1) {
+			this.fast[e.slot] = ContinuousCollision.isFast(e);
+		}
+		if (this.fast[e.slot] && (earliest == -1 || this.impactTimes[p] < this.impactTimes[earliest])) {
+			this.earliestImpact[e.slot] = p;
+		}
+	}
+	
+	/**
+	 * Checks whether the given pair is the earliest impact of the given {@code EntityPhysics}. Always true
+	 * for an {@code EntityPhysics} that isn't fast.
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 * @param p
+	 *            The pair with a time of impact
+	 * @return Whether the pair should be handled, as far as this {@code EntityPhysics} is concerned
+	 */
+	private boolean isEarliestImpact(EntityPhysics e, int p) {
+		return !this.fast[e.slot] || this.earliestImpact[e.slot] == p;
+	}
+	
+	/**
+	 * Moves the new position of the {@code EntityPhysics} in the given slot back to where it is at the given
+	 * time of impact
+	 */
+	private void moveToImpact(int slot, double toi) {
+		if (fixedPoint) {
+			long t = Fixed.of(toi);
+			long x = Fixed.of(this.posX[slot]), y = Fixed.of(this.posY[slot]);
+			this.newX[slot] = Fixed.toDouble(x + Fixed.mul(Fixed.of(this.newX[slot]) - x, t));
+			this.newY[slot] = Fixed.toDouble(y + Fixed.mul(Fixed.of(this.newY[slot]) - y, t));
+			return;
+		}
+		this.newX[slot] = this.posX[slot] + (this.newX[slot] - this.posX[slot]) * toi;
+		this.newY[slot] = this.posY[slot] + (this.newY[slot] - this.posY[slot]) * toi;
+	}
+	
+	/**
+	 * Moves the {@code EntityPhysics} in the given slot for the rest of the tick after the given time of
+	 * impact, with its new velocity and its acceleration
+	 */
+	private void moveAfterImpact(int slot, double toi) {
+		if (fixedPoint) {
+			long rest = Fixed.ONE - Fixed.of(toi);
+			long halfSquare = Fixed.mul(rest, rest) >> 1;
+			this.newX[slot] += Fixed.toDouble(Fixed.mul(Fixed.of(this.velX[slot]), rest)
+					+ Fixed.mul(Fixed.of(this.accX[slot]), halfSquare));
+			this.newY[slot] += Fixed.toDouble(Fixed.mul(Fixed.of(this.velY[slot]), rest)
+					+ Fixed.mul(Fixed.of(this.accY[slot]), halfSquare));
+			return;
+		}
+		double rest = 1 - toi;
+		this.newX[slot] += this.velX[slot] * rest + this.accX[slot] * .5 * rest * rest;
+		this.newY[slot] += this.velY[slot] * rest + this.accY[slot] * .5 * rest * rest;
+	}
+	
+	/**
+	 * Runs the narrow phase for the given range of candidate pairs, storing the results in {@link #contacts}
+	 * 
+	 * @param lo
+	 *            The first pair, inclusive
+	 * @param hi
+	 *            The last pair, exclusive
+	 * @param scratch
+	 *            Scratch space
+	 */
+	private void narrowPhase(int lo, int hi, Contact scratch) {
+		int[] pairs = this.broadPhase.getPairs();
+		for (int p = lo; p < hi; p++) {
+			EntityPhysics ent1 = this.entities.get(pairs[2 * p]);
+			EntityPhysics ent2 = this.entities.get(pairs[2 * p + 1]);
+			boolean contact = false;
+			double toi = ContinuousCollision.NO_IMPACT;
+			if (this.subtickingOnly && !this.subticking[ent1.slot] && !this.subticking[ent2.slot]) {
+				// Neither of them has moved since the last check
+			} else if (!ent1.dead && !ent2.dead
+					&& (ContinuousCollision.isFast(ent1) || ContinuousCollision.isFast(ent2))) {
+				toi = ContinuousCollision.timeOfImpact(ent1, ent2, scratch);
+				contact = toi != ContinuousCollision.NO_IMPACT;
+				if (contact) {
+					this.contactNormalX[p] = scratch.normalX;
+					this.contactNormalY[p] = scratch.normalY;
+					this.contactDepth[p] = scratch.depth;
+				}
+			} else if (!ent1.dead && !ent2.dead) {
+				int s1 = ent1.slot, s2 = ent2.slot;
+				double dx = this.newX[s2] + ent2.hitbox.getCenterX() - this.newX[s1] - ent1.hitbox.getCenterX();
+				double dy = this.newY[s2] + ent2.hitbox.getCenterY() - this.newY[s1] - ent1.hitbox.getCenterY();
+				double reach = ent1.hitbox.circleRadius + ent2.hitbox.circleRadius;
+				contact = dx * dx + dy * dy <= reach * reach && NarrowPhase.collides(ent1, ent2, scratch);
+				if (contact) {
+					this.contactNormalX[p] = scratch.normalX;
+					this.contactNormalY[p] = scratch.normalY;
+					this.contactDepth[p] = scratch.depth;
 				}
-				
 			}
+			this.contacts[p] = contact;
+			this.impactTimes[p] = toi;
 		}
 	}
 	
 	/**
 	 * Ticks the second stage of Physics movement
+	 * <p>
+	 * Every {@code EntityPhysics} is moved to its new position straight in the state arrays, without going
+	 * through {@link EntityPhysics#tick2()}, and then has its impulses cleared and {@code tickEntity2()}
+	 * called.
 	 */
 	public void tick2() {
-		for (EntityPhysics e : this.entities) {
-			e.tick2();
+		this.beginStage();
+		try {
+			this.runStage(STAGE_TICK2, this.entities.size());
+			for (int i = 0; i < this.entities.size(); i++) {
+				EntityPhysics e = this.entities.get(i);
+				e.forces.clearImpulses();
+				e.tickEntity2();
+			}
+		} finally {
+			this.endStage();
+		}
+	}
+	
+	/**
+	 * Runs a stage over all of the given items, on the {@code ForkJoinPool} if there are enough of them and
+	 * more than one thread is configured
+	 * 
+	 * @param stage
+	 *            The stage to run
+	 * @param count
+	 *            The number of {@code EntityPhysics} or pairs
+	 */
+	private void runStage(int stage, int count) {
+		if (threads > 1 && count > PARALLEL_GRAIN) {
+			int grain = Math.max(PARALLEL_GRAIN, count / (threads * 4));
+			getPool().invoke(new StageTask(stage, 0, count, grain));
+		} else {
+			if (this.scratchContact == null) {
+				this.scratchContact = new Contact();
+			}
+			this.runRange(stage, 0, count, this.scratchContact);
 		}
 	}
 	
+	/**
+	 * Runs a stage over the given range of {@code EntityPhysics} or pairs
+	 * 
+	 * @param stage
+	 *            The stage to run
+	 * @param lo
+	 *            The start of the range, inclusive
+	 * @param hi
+	 *            The end of the range, exclusive
+	 * @param scratch
+	 *            Scratch space for the narrow phase
+	 */
+	private void runRange(int stage, int lo, int hi, Contact scratch) {
+		switch (stage) {
+			case STAGE_TICK1:
+				for (int i = lo; i < hi; i++) {
+					this.integrate(i, this.entities.get(i).forces, 1);
+				}
+				break;
+			case STAGE_NARROW:
+				this.narrowPhase(lo, hi, scratch);
+				break;
+			case STAGE_TICK2:
+				for (int i = lo; i < hi; i++) {
+					this.posX[i] = this.newX[i];
+					this.posY[i] = this.newY[i];
+				}
+				break;
+			case STAGE_FIRST_PASS:
+				for (int i = lo; i < hi; i++) {
+					double fraction = this.subticking[i] ? this.subtickFraction : 1;
+					this.integrate(i, this.entities.get(i).forces, fraction);
+				}
+				break;
+			case STAGE_PASS:
+				for (int i = lo; i < hi; i++) {
+					if (this.subticking[i]) {
+						this.posX[i] = this.newX[i];
+						this.posY[i] = this.newY[i];
+						this.integrate(i, this.entities.get(i).forces, this.subtickFraction);
+					}
+				}
+				break;
+		}
+	}
+	
+	/**
+	 * Retrieves the {@code ForkJoinPool} used by the Physics engine, creating it if necessary
+	 * 
+	 * @return The {@code ForkJoinPool}
+	 */
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Math.max(1, threads));
+		}
+		return pool;
+	}
+	
+	/**
+	 * Splits a stage into chunks until they are small enough to run directly
+	 * 
+	 * @author Kevin
+	 */
+	private class StageTask extends RecursiveAction {
+		
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		private final int stage, lo, hi, grain;
+		
+		public StageTask(int stage, int lo, int hi, int grain) {
+			this.stage = stage;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+		
+		@Override
+		protected void compute() {
+			if (this.hi - this.lo <= this.grain) {
+				Physics.this.runRange(this.stage, this.lo, this.hi, new Contact());
+			} else {
+				int mid = (this.lo + this.hi) >>> 1;
+				invokeAll(new StageTask(this.stage, this.lo, mid, this.grain),
+						new StageTask(this.stage, mid, this.hi, this.grain));
+			}
+		}
+	}
+	
+	/**
+	 * Determines whether the two {@code EntityPhysics} are approaching each other, in the center of mass
+	 * frame
+	 * 
+	 * @param ent1
+	 *            The first {@code EntityPhysics}
+	 * @param ent2
+	 *            The second {@code EntityPhysics}
+	 * @return Whether they are approaching each other
+	 */
+	public boolean approaching(EntityPhysics ent1, EntityPhysics ent2) {
+		int s1 = ent1.slot, s2 = ent2.slot;
+		double dx = this.posX[s2] + ent2.hitbox.getCenterX() - this.posX[s1] - ent1.hitbox.getCenterX();
+		double dy = this.posY[s2] + ent2.hitbox.getCenterY() - this.posY[s1] - ent1.hitbox.getCenterY();
+		double totalMass = this.mass[s1] + this.mass[s2];
+		double vcmX = (this.mass[s1] * this.velX[s1] + this.mass[s2] * this.velX[s2]) / totalMass;
+		double vcmY = (this.mass[s1] * this.velY[s1] + this.mass[s2] * this.velY[s2]) / totalMass;
+		return (this.velX[s1] - vcmX) * dx + (this.velY[s1] - vcmY) * dy > 0;
+	}
+	
 	/**
 	 * Check to see if the {@code EntityPhysics}s pass by each other
 	 * 
@@ -186,31 +1335,81 @@ public class Physics implements Rebuildable {
 	 * 
 	 * @param ent1
 	 * @param ent2
+	 * @param contact
 	 */
-	private void handleCollision(EntityPhysics ent1, EntityPhysics ent2) {
-		this.collisionHandlers.sort(new Comparator<CollisionHandler>() {
-			
-			
-			@Override
-			public int compare(CollisionHandler o1, CollisionHandler o2) {
-				if (!o1.shouldHandle(ent1, ent2) && !o2.shouldHandle(ent1, ent2)) {
-					return 0;
-				}
-				if (!o2.shouldHandle(ent1, ent2)
-						|| o1.handlePriority(ent1, ent2) > o2.handlePriority(ent1, ent2)) {
-					return -1;
-				} else if (!o1.shouldHandle(ent1, ent2)
-						|| o2.handlePriority(ent1, ent2) > o1.handlePriority(ent1, ent2)) {
-					return 1;
+	private void handleCollision(EntityPhysics ent1, EntityPhysics ent2, Contact contact) {
+		this.getCollisionHandler(ent1, ent2).handleCollision(ent1, ent2, contact);
+	}
+	
+	/**
+	 * Finds the {@code CollisionHandler} that should handle the collision between the two
+	 * {@code EntityPhysics}
+	 * <p>
+	 * The result is cached for the classes of the two {@code EntityPhysics}, as long as every
+	 * {@code CollisionHandler} is {@linkplain CollisionHandler#isCacheable() cacheable}.
+	 * 
+	 * @param ent1
+	 *            The first {@code EntityPhysics}
+	 * @param ent2
+	 *            The second {@code EntityPhysics}
+	 * @return The {@code CollisionHandler} with the highest priority
+	 */
+	public CollisionHandler getCollisionHandler(EntityPhysics ent1, EntityPhysics ent2) {
+		if (this.handlerCache == null) {
+			this.handlerCache = new HashMap<Class<?>, Map<Class<?>, CollisionHandler>>();
+			this.handlersCacheable = true;
+			for (CollisionHandler handler : this.collisionHandlers) {
+				if (!handler.isCacheable()) {
+					this.handlersCacheable = false;
 				}
-				return 0;
 			}
-		});
-		if (this.collisionHandlers.get(0).handlePriority(ent1, ent2) == 0) {
+		}
+		if (!this.handlersCacheable) {
+			// Some handler depends on more than the classes, so there's no point in caching
+			return this.findCollisionHandler(ent1, ent2);
+		}
+		Map<Class<?>, CollisionHandler> byClass = this.handlerCache.get(ent1.getClass());
+		if (byClass == null) {
+			byClass = new HashMap<Class<?>, CollisionHandler>();
+			this.handlerCache.put(ent1.getClass(), byClass);
+		}
+		CollisionHandler handler = byClass.get(ent2.getClass());
+		if (handler == null) {
+			handler = this.findCollisionHandler(ent1, ent2);
+			byClass.put(ent2.getClass(), handler);
+		}
+		return handler;
+	}
+	
+	/**
+	 * Goes through every {@code CollisionHandler} to find the one with the highest priority. If several
+	 * share the highest priority, the one that was added first wins.
+	 * 
+	 * @param ent1
+	 *            The first {@code EntityPhysics}
+	 * @param ent2
+	 *            The second {@code EntityPhysics}
+	 * @return The {@code CollisionHandler} with the highest priority
+	 */
+	private CollisionHandler findCollisionHandler(EntityPhysics ent1, EntityPhysics ent2) {
+		CollisionHandler best = null;
+		int bestPriority = 0;
+		for (int i = 0; i < this.collisionHandlers.size(); i++) {
+			CollisionHandler handler = this.collisionHandlers.get(i);
+			if (!handler.shouldHandle(ent1, ent2)) {
+				continue;
+			}
+			int priority = handler.handlePriority(ent1, ent2);
+			if (best == null || priority > bestPriority) {
+				best = handler;
+				bestPriority = priority;
+			}
+		}
+		if (best == null || bestPriority == 0) {
 			throw new RuntimeException(
 					"Expected collision handler to handle this collision, but none available!");
 		}
-		this.collisionHandlers.get(0).handleCollision(ent1, ent2);
+		return best;
 	}
 	
 	@SubscribeEvent
@@ -239,7 +1438,7 @@ public class Physics implements Rebuildable {
 	 * @return
 	 */
 	public int physicsTicks() {
-		return subticks * Engine.getTickRate();
+		return this.getSubticks() * Engine.getTickRate();
 	}
 	
 	/**
@@ -270,7 +1469,7 @@ public class Physics implements Rebuildable {
 	 * @return The {@code Vector2} of the gravitational force
 	 */
 	public static Vector2 gravitationalForce(EntityPhysics ent) {
-		return Vector2.of(0, GRAVITY * ent.mass);
+		return Vector2.of(0, GRAVITY * ent.getMass());
 	}
 	
 }
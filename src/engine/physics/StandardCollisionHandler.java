@@ -1,6 +1,7 @@
 package engine.physics;
 
-import engine.geom2d.Vector2;
+import engine.geom2d.Fixed;
+import engine.geom2d.MutableVector2;
 import engine.physics.entity.EntityPhysics;
 
 /**
@@ -37,26 +38,77 @@ public class StandardCollisionHandler extends CollisionHandler {
 	
 	@Override
 	public void handleCollision(EntityPhysics ent1, EntityPhysics ent2) {
-		// Initial vectors. Wow that's a lot.
-		Vector2 vcm = ent1.getMomentum().plus(ent2.getMomentum()).scale(1.0 / (ent1.mass + ent2.mass));
-		Vector2 v1cm = ent1.vel.minus(vcm);
-		Vector2 v2cm = ent2.vel.minus(vcm);
 		// The line of action
-		Vector2 loa = Vector2.vectorBetween(ent1.newp.plus(ent1.hitbox.getCenterDisplacement()),
-				ent2.newp.plus(ent2.hitbox.getCenterDisplacement())).unit();
-		Vector2 v1par = loa.scale(ent1.vel.dot(loa));
-		Vector2 v2par = loa.scale(ent2.vel.dot(loa));
-		Vector2 v1perp = v1cm.minus(v1par);
-		Vector2 v2perp = v2cm.minus(v2par);
-		// Now apply the coefficient of restitution
-		v1par = v1par.scale(-restCoeff);
-		v2par = v2par.scale(-restCoeff);
-		// New vectors wow
-		v1cm = v1par.plus(v1perp);
-		v2cm = v2par.plus(v2perp);
+		double loaX = ent2.getNewX() + ent2.hitbox.getCenterX() - (ent1.getNewX() + ent1.hitbox.getCenterX());
+		double loaY = ent2.getNewY() + ent2.hitbox.getCenterY() - (ent1.getNewY() + ent1.hitbox.getCenterY());
+		double loaLength = Math.sqrt(loaX * loaX + loaY * loaY);
+		if (loaLength == 0) {
+			this.resolve(ent1, ent2, 1, 0);
+		} else {
+			this.resolve(ent1, ent2, loaX / loaLength, loaY / loaLength);
+		}
+	}
+	
+	@Override
+	public void handleCollision(EntityPhysics ent1, EntityPhysics ent2, Contact contact) {
+		// The contact normal is the line of action
+		this.resolve(ent1, ent2, contact.normalX, contact.normalY);
+	}
+	
+	/**
+	 * Resolves the collision along the given line of action
+	 * 
+	 * @param ent1
+	 *            The first {@code EntityPhysics}
+	 * @param ent2
+	 *            The second {@code EntityPhysics}
+	 * @param loaX
+	 *            The X component of the unit line of action
+	 * @param loaY
+	 *            The Y component of the unit line of action
+	 */
+	private void resolve(EntityPhysics ent1, EntityPhysics ent2, double loaX, double loaY) {
+		if (Physics.fixedPoint) {
+			this.resolveFixed(ent1, ent2, Fixed.of(loaX), Fixed.of(loaY));
+			return;
+		}
+		// Initial vectors. Wow that's a lot.
+		double m1 = ent1.getMass(), m2 = ent2.getMass();
+		double vel1X = ent1.getVelX(), vel1Y = ent1.getVelY();
+		double vel2X = ent2.getVelX(), vel2Y = ent2.getVelY();
+		double vcmX = (m1 * vel1X + m2 * vel2X) / (m1 + m2);
+		double vcmY = (m1 * vel1Y + m2 * vel2Y) / (m1 + m2);
+		double v1par = MutableVector2.dotXY(vel1X, vel1Y, loaX, loaY);
+		double v2par = MutableVector2.dotXY(vel2X, vel2Y, loaX, loaY);
+		// The perpendicular parts stay, and the parallel parts get reversed by the coefficient of restitution
+		double v1cmX = vel1X - vcmX - loaX * v1par - loaX * v1par * restCoeff;
+		double v1cmY = vel1Y - vcmY - loaY * v1par - loaY * v1par * restCoeff;
+		double v2cmX = vel2X - vcmX - loaX * v2par - loaX * v2par * restCoeff;
+		double v2cmY = vel2Y - vcmY - loaY * v2par - loaY * v2par * restCoeff;
 		// Finally the new Entity Velocities
-		ent1.vel = v1cm.plus(vcm);
-		ent2.vel = v2cm.plus(vcm);
+		ent1.setVel(v1cmX + vcmX, v1cmY + vcmY);
+		ent2.setVel(v2cmX + vcmX, v2cmY + vcmY);
+	}
+	
+	/**
+	 * {@link #resolve(EntityPhysics, EntityPhysics, double, double)} in fixed-point, for
+	 * {@linkplain Physics#fixedPoint fixed-point mode}
+	 */
+	private void resolveFixed(EntityPhysics ent1, EntityPhysics ent2, long loaX, long loaY) {
+		long m1 = Fixed.of(ent1.getMass()), m2 = Fixed.of(ent2.getMass());
+		long vel1X = Fixed.of(ent1.getVelX()), vel1Y = Fixed.of(ent1.getVelY());
+		long vel2X = Fixed.of(ent2.getVelX()), vel2Y = Fixed.of(ent2.getVelY());
+		long restCoeff = Fixed.of(this.restCoeff);
+		long vcmX = Fixed.div(Fixed.mul(m1, vel1X) + Fixed.mul(m2, vel2X), m1 + m2);
+		long vcmY = Fixed.div(Fixed.mul(m1, vel1Y) + Fixed.mul(m2, vel2Y), m1 + m2);
+		long v1par = Fixed.mul(vel1X, loaX) + Fixed.mul(vel1Y, loaY);
+		long v2par = Fixed.mul(vel2X, loaX) + Fixed.mul(vel2Y, loaY);
+		long v1cmX = vel1X - vcmX - Fixed.mul(loaX, v1par) - Fixed.mul(Fixed.mul(loaX, v1par), restCoeff);
+		long v1cmY = vel1Y - vcmY - Fixed.mul(loaY, v1par) - Fixed.mul(Fixed.mul(loaY, v1par), restCoeff);
+		long v2cmX = vel2X - vcmX - Fixed.mul(loaX, v2par) - Fixed.mul(Fixed.mul(loaX, v2par), restCoeff);
+		long v2cmY = vel2Y - vcmY - Fixed.mul(loaY, v2par) - Fixed.mul(Fixed.mul(loaY, v2par), restCoeff);
+		ent1.setVel(Fixed.toDouble(v1cmX + vcmX), Fixed.toDouble(v1cmY + vcmY));
+		ent2.setVel(Fixed.toDouble(v2cmX + vcmX), Fixed.toDouble(v2cmY + vcmY));
 	}
 	
 	@Override
@@ -64,4 +116,10 @@ public class StandardCollisionHandler extends CollisionHandler {
 		return priority;
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		// The priority is the same for every pair
+		return true;
+	}
+	
 }
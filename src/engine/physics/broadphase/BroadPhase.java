@@ -0,0 +1,326 @@
+package engine.physics.broadphase;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import engine.physics.entity.EntityPhysics;
+
+/**
+ * The broadphase of collision detection, which cuts the list of {@code EntityPhysics} down into a list of
+ * pairs that could possibly be colliding
+ * <p>
+ * {@link engine.physics.Physics#check() Physics.check()} asks its {@code BroadPhase} for these pairs every
+ * check, and only runs the (much more expensive) {@code Hitbox} checks on them. Different levels are better
+ * served by different strategies, so each {@code Physics} instance can be given its own.
+ * <p>
+ * Every {@code EntityPhysics} is bounded by the box around its
+ * {@link engine.physics.entity.Hitbox#circleRadius circleRadius}, swept from {@code pos} to {@code newp} so
+ * that fast {@code EntityPhysics} can't skip past anything. Pairs are stored as
+ * consecutive entity indices into the list given to {@link #findPairs(List)}.
+ * <p>
+ * {@code BroadPhase}s that keep their own structure between checks are told about {@code EntityPhysics}
+ * being added, removed and moved through {@link #add(EntityPhysics)}, {@link #remove(EntityPhysics)} and
+ * {@link #moved(EntityPhysics)}.
+ * <p>
+ * Pairs of two sleeping {@code EntityPhysics} are never reported, since neither of them can have moved.
+ * Since sleeping {@code EntityPhysics} don't move either, {@code BroadPhase}s can keep them in a structure of
+ * their own which only needs to be rebuilt when {@link #sleepersChanged()}.
+ * 
+ * @see SpatialHash
+ * @see SweepAndPrune
+ * @see DynamicAABBTree
+ * @author Kevin
+ */
+public abstract class BroadPhase implements Serializable {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The bounding box of every entity, indexed by entity index
+	 */
+	protected transient double[] minX, minY, maxX, maxY;
+	
+	/**
+	 * Whether the entity at each index should be considered at all
+	 */
+	protected transient boolean[] active;
+	
+	/**
+	 * Whether the entity at each index is asleep
+	 */
+	protected transient boolean[] asleep;
+	
+	/**
+	 * The {@code EntityPhysics} that were asleep at each index in the last check, or {@code null} for those
+	 * that weren't
+	 */
+	private transient EntityPhysics[] sleepers;
+	
+	/**
+	 * The number of entities in the last check
+	 */
+	private transient int lastCount;
+	
+	/**
+	 * Whether the sleeping {@code EntityPhysics}, or their indices, have changed since the last check
+	 */
+	private transient boolean sleepersChanged;
+	
+	/**
+	 * The candidate pairs found by the last {@link #findPairs(List)}, stored as consecutive entity indices
+	 */
+	private transient int[] pairs;
+	
+	/**
+	 * The number of pairs stored in {@link #pairs}
+	 */
+	private transient int pairCount;
+	
+	/**
+	 * Finds every pair of {@code EntityPhysics} in the given list whose bounds overlap
+	 * 
+	 * @param entities
+	 *            The {@code EntityPhysics} to check
+	 * @return The number of candidate pairs found
+	 */
+	public int findPairs(List<EntityPhysics> entities) {
+		this.pairCount = 0;
+		if (this.pairs == null) {
+			this.pairs = new int[64];
+		}
+		this.computeBounds(entities);
+		this.collectPairs(entities);
+		return this.pairCount;
+	}
+	
+	/**
+	 * Called when an {@code EntityPhysics} is added to the {@code Physics}. Note that this happens from
+	 * within the constructor of the {@code Entity}, so its {@code Hitbox} may not be assigned yet.
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 */
+	public void add(EntityPhysics e) {
+	}
+	
+	/**
+	 * Called when an {@code EntityPhysics} is removed from the {@code Physics}
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 */
+	public void remove(EntityPhysics e) {
+	}
+	
+	/**
+	 * Called after an {@code EntityPhysics} has calculated its {@code newp} in the first stage of movement
+	 * 
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 */
+	public void moved(EntityPhysics e) {
+	}
+	
+	/**
+	 * Does the actual work of finding pairs, reporting each of them exactly once through
+	 * {@link #addPair(int, int)}. The bounds of every entity have already been computed.
+	 * 
+	 * @param entities
+	 *            The {@code EntityPhysics} to check
+	 */
+	protected abstract void collectPairs(List<EntityPhysics> entities);
+	
+	/**
+	 * Retrieves the candidate pairs found by the last call to {@link #findPairs(List)}
+	 * <p>
+	 * Pair {@code p} is made up of the entity indices at {@code 2 * p} and {@code 2 * p + 1}
+	 * 
+	 * @return The pair array. Only the first {@code 2 * pairCount} values are valid.
+	 */
+	public int[] getPairs() {
+		return this.pairs;
+	}
+	
+	/**
+	 * Reports a candidate pair, unless both entities are asleep. The lower index is always stored first.
+	 * 
+	 * @param i
+	 *            The index of one entity
+	 * @param j
+	 *            The index of the other entity
+	 */
+	protected void addPair(int i, int j) {
+		if (this.asleep[i] && this.asleep[j]) {
+			return;
+		}
+		if (2 * this.pairCount + 2 > this.pairs.length) {
+			this.pairs = Arrays.copyOf(this.pairs, this.pairs.length * 2);
+		}
+		this.pairs[2 * this.pairCount] = Math.min(i, j);
+		this.pairs[2 * this.pairCount + 1] = Math.max(i, j);
+		this.pairCount++;
+	}
+	
+	/**
+	 * Checks whether the entity at the given index is asleep, and should be considered
+	 * 
+	 * @param i
+	 *            The index of the entity
+	 * @return Whether it is a sleeper
+	 */
+	protected boolean isSleeper(int i) {
+		return this.active[i] && this.asleep[i];
+	}
+	
+	/**
+	 * Checks whether any {@code EntityPhysics} has fallen asleep, woken up, or been moved to another index
+	 * while asleep since the last check, or if the number of entities has changed. If not, the sleeping
+	 * {@code EntityPhysics} are still at the same indices, with the same bounds.
+	 * 
+	 * @return Whether the sleepers have changed
+	 */
+	protected boolean sleepersChanged() {
+		return this.sleepersChanged;
+	}
+	
+	/**
+	 * Checks whether the bounds of the two entities overlap in the Y
+	 * 
+	 * @param i
+	 *            The index of one entity
+	 * @param j
+	 *            The index of the other entity
+	 * @return Whether they overlap
+	 */
+	protected boolean overlapsY(int i, int j) {
+		return this.minY[i] <= this.maxY[j] && this.minY[j] <= this.maxY[i];
+	}
+	
+	/**
+	 * Checks whether the bounds of the two entities overlap in the X
+	 * 
+	 * @param i
+	 *            The index of one entity
+	 * @param j
+	 *            The index of the other entity
+	 * @return Whether they overlap
+	 */
+	protected boolean overlapsX(int i, int j) {
+		return this.minX[i] <= this.maxX[j] && this.minX[j] <= this.maxX[i];
+	}
+	
+	/**
+	 * Fills in the bounds of every entity in the list
+	 * 
+	 * @param entities
+	 *            The {@code EntityPhysics}
+	 */
+	private void computeBounds(List<EntityPhysics> entities) {
+		int n = entities.size();
+		if (this.active == null || this.active.length < n) {
+			int size = Math.max(16, Integer.highestOneBit(Math.max(n, 1)) << 1);
+			this.minX = new double[size];
+			this.minY = new double[size];
+			this.maxX = new double[size];
+			this.maxY = new double[size];
+			this.active = new boolean[size];
+			this.asleep = new boolean[size];
+			this.sleepers = new EntityPhysics[size];
+		}
+		this.sleepersChanged = n != this.lastCount;
+		this.lastCount = n;
+		for (int i = 0; i < n; i++) {
+			EntityPhysics e = entities.get(i);
+			this.active[i] = !e.dead;
+			this.asleep[i] = e.isAsleep();
+			EntityPhysics sleeper = this.isSleeper(i) ? e : null;
+			if (this.sleepers[i] != sleeper) {
+				this.sleepers[i] = sleeper;
+				this.sleepersChanged = true;
+			}
+			if (e.dead) {
+				continue;
+			}
+			double r = e.hitbox.circleRadius;
+			double x0 = e.getPosX(), x1 = e.getNewX();
+			double y0 = e.getPosY(), y1 = e.getNewY();
+			this.minX[i] = Math.min(x0, x1) + e.hitbox.getCenterX() - r;
+			this.minY[i] = Math.min(y0, y1) + e.hitbox.getCenterY() - r;
+			this.maxX[i] = Math.max(x0, x1) + e.hitbox.getCenterX() + r;
+			this.maxY[i] = Math.max(y0, y1) + e.hitbox.getCenterY() + r;
+		}
+	}
+	
+	/**
+	 * Sorts the given range of entity indices in place by their keys, with a quicksort that falls back to an
+	 * insertion sort for small ranges. Unlike {@code Arrays.sort}, which can only sort the keys themselves,
+	 * it sorts the indices by their keys without boxing them.
+	 * 
+	 * @param a
+	 *            The entity indices
+	 * @param key
+	 *            The key of every entity, indexed by entity index
+	 * @param lo
+	 *            The lowest index, inclusive
+	 * @param hi
+	 *            The highest index, inclusive
+	 */
+	protected static void sort(int[] a, double[] key, int lo, int hi) {
+		while (hi - lo > 16) {
+			int mid = (lo + hi) >>> 1;
+			// Median of three, which leaves the pivot in the middle
+			if (key[a[mid]] < key[a[lo]]) {
+				swap(a, mid, lo);
+			}
+			if (key[a[hi]] < key[a[lo]]) {
+				swap(a, hi, lo);
+			}
+			if (key[a[hi]] < key[a[mid]]) {
+				swap(a, hi, mid);
+			}
+			double pivot = key[a[mid]];
+			int i = lo, j = hi;
+			while (i <= j) {
+				while (key[a[i]] < pivot) {
+					i++;
+				}
+				while (key[a[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(a, i++, j--);
+				}
+			}
+			// Recurse into the smaller half, and loop on the larger one
+			if (j - lo < hi - i) {
+				sort(a, key, lo, j);
+				lo = i;
+			} else {
+				sort(a, key, i, hi);
+				hi = j;
+			}
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			int index = a[i];
+			double k = key[index];
+			int j = i - 1;
+			while (j >= lo && key[a[j]] > k) {
+				a[j + 1] = a[j];
+				j--;
+			}
+			a[j + 1] = index;
+		}
+	}
+	
+	private static void swap(int[] a, int i, int j) {
+		int t = a[i];
+		a[i] = a[j];
+		a[j] = t;
+	}
+	
+}
@@ -0,0 +1,495 @@
+package engine.physics.broadphase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import engine.physics.entity.EntityPhysics;
+
+/**
+ * A dynamic bounding volume hierarchy {@code BroadPhase}, built out of axis-aligned bounding boxes
+ * <p>
+ * Unlike the grid-based {@code SpatialHash}, the tree does not care how large a {@code Hitbox} is, which
+ * makes it the best fit for levels that mix tiny projectiles with huge walls.
+ * <p>
+ * Every {@code EntityPhysics} gets a leaf whose box is "fattened" by a small margin and by its velocity.
+ * The leaf only has to be moved when the {@code EntityPhysics} leaves its fat box, which doesn't happen
+ * most ticks. Leaves are inserted and removed as the {@code EntityPhysics} are added to and removed from
+ * the {@code Physics}, and moved through {@link #moved(EntityPhysics)}.
+ * <p>
+ * The tree is kept balanced with the same rotations an AVL tree uses. Nodes are stored in flat arrays and
+ * recycled through a free list, so there is no per-tick garbage once the tree has grown.
+ * 
+ * @author Kevin
+ */
+public class DynamicAABBTree extends BroadPhase {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Marks the absence of a node
+	 */
+	private static final int NULL_NODE = -1;
+	
+	/**
+	 * The constant margin, in pixels, that every fat box is extended by
+	 */
+	public double margin = 2;
+	
+	/**
+	 * How many ticks of velocity every fat box is extended by, in the direction of movement
+	 */
+	public double velocityMultiplier = 2;
+	
+	/**
+	 * The leaf node of every {@code EntityPhysics} in the tree
+	 */
+	private transient Map<EntityPhysics, Integer> proxies;
+	
+	/**
+	 * {@code EntityPhysics} that have been added, but not inserted yet, since they are added before their
+	 * {@code Hitbox} is assigned
+	 */
+	private transient List<EntityPhysics> pending;
+	
+	// Node storage
+	private transient double[] nMinX, nMinY, nMaxX, nMaxY;
+	
+	private transient int[] parent, child1, child2, height, entityIndex;
+	
+	private transient EntityPhysics[] nodeEntity;
+	
+	private transient int nodeCapacity;
+	
+	private transient int nodeCount;
+	
+	private transient int freeList = NULL_NODE;
+	
+	private transient int root = NULL_NODE;
+	
+	/**
+	 * The stack used when querying the tree
+	 */
+	private transient int[] stack;
+	
+	/**
+	 * Queues the {@code EntityPhysics} to be inserted at the next check. Does nothing before the tree has been
+	 * built, such as right after being deserialized, since the tree is then built from every
+	 * {@code EntityPhysics} in the {@code Physics}, this one included.
+	 */
+	@Override
+	public void add(EntityPhysics e) {
+		if (this.proxies == null) {
+			return;
+		}
+		this.pending.add(e);
+	}
+	
+	@Override
+	public void remove(EntityPhysics e) {
+		if (this.proxies == null) {
+			return;
+		}
+		this.pending.remove(e);
+		Integer leaf = this.proxies.remove(e);
+		if (leaf != null) {
+			this.removeLeaf(leaf);
+			this.freeNode(leaf);
+		}
+	}
+	
+	@Override
+	public void moved(EntityPhysics e) {
+		if (this.proxies == null) {
+			return;
+		}
+		Integer boxed = this.proxies.get(e);
+		if (boxed == null) {
+			return;
+		}
+		int leaf = boxed;
+		double r = e.hitbox.circleRadius;
+		double cx = e.hitbox.getCenterX(), cy = e.hitbox.getCenterY();
+		double x0 = e.getPosX(), x1 = e.getNewX();
+		double y0 = e.getPosY(), y1 = e.getNewY();
+		if (this.nMinX[leaf] <= Math.min(x0, x1) + cx - r && this.nMinY[leaf] <= Math.min(y0, y1) + cy - r
+				&& this.nMaxX[leaf] >= Math.max(x0, x1) + cx + r && this.nMaxY[leaf] >= Math.max(y0, y1) + cy + r) {
+			// Still inside of the fat box
+			return;
+		}
+		this.removeLeaf(leaf);
+		this.fatten(leaf, e);
+		this.insertLeaf(leaf);
+	}
+	
+	@Override
+	protected void collectPairs(List<EntityPhysics> entities) {
+		this.ensureInit(entities);
+		this.flushPending();
+		int n = entities.size();
+		for (int i = 0; i < n; i++) {
+			Integer leaf = this.proxies.get(entities.get(i));
+			if (leaf != null) {
+				this.entityIndex[leaf] = i;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			// Sleeping entities don't query, their pairs are found by their awake neighbors
+			if (!this.active[i] || this.asleep[i] || !this.proxies.containsKey(entities.get(i))) {
+				continue;
+			}
+			this.query(i);
+		}
+	}
+	
+	/**
+	 * Reports every entity whose fat box overlaps the bounds of the given entity, and whose actual bounds do
+	 * as well
+	 * 
+	 * @param i
+	 *            The index of the entity to query with
+	 */
+	private void query(int i) {
+		if (this.root == NULL_NODE) {
+			return;
+		}
+		int top = 0;
+		this.stack[top++] = this.root;
+		while (top > 0) {
+			int node = this.stack[--top];
+			if (this.nMinX[node] > this.maxX[i] || this.nMaxX[node] < this.minX[i] || this.nMinY[node] > this.maxY[i]
+					|| this.nMaxY[node] < this.minY[i]) {
+				continue;
+			}
+			if (this.child1[node] == NULL_NODE) {
+				int j = this.entityIndex[node];
+				// Pairs of awake entities are found from both sides, so only keep them once
+				boolean once = j > i || this.asleep[j];
+				if (once && this.active[j] && this.overlapsX(i, j) && this.overlapsY(i, j)) {
+					this.addPair(i, j);
+				}
+			} else {
+				if (top + 2 > this.stack.length) {
+					this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+				}
+				this.stack[top++] = this.child1[node];
+				this.stack[top++] = this.child2[node];
+			}
+		}
+	}
+	
+	/**
+	 * Makes sure that the tree exists. The first time, including after being deserialized, the tree is built
+	 * from the given list of {@code EntityPhysics}.
+	 * 
+	 * @param entities
+	 *            The {@code EntityPhysics} that should be in the tree
+	 */
+	private void ensureInit(List<EntityPhysics> entities) {
+		if (this.proxies != null) {
+			return;
+		}
+		this.proxies = new IdentityHashMap<EntityPhysics, Integer>();
+		this.pending = new ArrayList<EntityPhysics>();
+		this.nodeCapacity = 16;
+		this.allocateNodes(this.nodeCapacity);
+		this.nodeCount = 0;
+		this.freeList = NULL_NODE;
+		this.root = NULL_NODE;
+		this.stack = new int[64];
+		this.pending.addAll(entities);
+	}
+	
+	/**
+	 * Inserts every pending {@code EntityPhysics} that is ready to be inserted
+	 */
+	private void flushPending() {
+		for (int i = this.pending.size() - 1; i >= 0; i--) {
+			EntityPhysics e = this.pending.get(i);
+			if (e.dead) {
+				this.pending.remove(i);
+			} else if (e.hitbox != null) {
+				this.pending.remove(i);
+				int leaf = this.allocateNode();
+				this.nodeEntity[leaf] = e;
+				this.fatten(leaf, e);
+				this.insertLeaf(leaf);
+				this.proxies.put(e, leaf);
+			}
+		}
+	}
+	
+	/**
+	 * Sets the box of the given leaf to the fat box of the given {@code EntityPhysics}
+	 * 
+	 * @param leaf
+	 *            The leaf node
+	 * @param e
+	 *            The {@code EntityPhysics}
+	 */
+	private void fatten(int leaf, EntityPhysics e) {
+		double r = e.hitbox.circleRadius + this.margin;
+		double cx = e.hitbox.getCenterX(), cy = e.hitbox.getCenterY();
+		double x0 = e.getPosX(), x1 = e.getNewX();
+		double y0 = e.getPosY(), y1 = e.getNewY();
+		double dx = e.getVelX() * this.velocityMultiplier;
+		double dy = e.getVelY() * this.velocityMultiplier;
+		// Covers the whole sweep from pos to newp, and then some in the direction of movement
+		this.nMinX[leaf] = Math.min(x0, x1) + cx - r + Math.min(dx, 0);
+		this.nMinY[leaf] = Math.min(y0, y1) + cy - r + Math.min(dy, 0);
+		this.nMaxX[leaf] = Math.max(x0, x1) + cx + r + Math.max(dx, 0);
+		this.nMaxY[leaf] = Math.max(y0, y1) + cy + r + Math.max(dy, 0);
+	}
+	
+	private void insertLeaf(int leaf) {
+		if (this.root == NULL_NODE) {
+			this.root = leaf;
+			this.parent[leaf] = NULL_NODE;
+			return;
+		}
+		// Find the best sibling, going down the side whose perimeter grows the least
+		int index = this.root;
+		while (this.child1[index] != NULL_NODE) {
+			int c1 = this.child1[index];
+			int c2 = this.child2[index];
+			double area = this.perimeter(index);
+			double combined = this.combinedPerimeter(index, leaf);
+			double cost = 2 * combined;
+			double inheritance = 2 * (combined - area);
+			double cost1 = this.descendCost(c1, leaf) + inheritance;
+			double cost2 = this.descendCost(c2, leaf) + inheritance;
+			if (cost < cost1 && cost < cost2) {
+				break;
+			}
+			index = cost1 < cost2 ? c1 : c2;
+		}
+		int sibling = index;
+		int oldParent = this.parent[sibling];
+		int newParent = this.allocateNode();
+		this.parent[newParent] = oldParent;
+		this.nodeEntity[newParent] = null;
+		this.union(newParent, leaf, sibling);
+		this.height[newParent] = this.height[sibling] + 1;
+		if (oldParent != NULL_NODE) {
+			if (this.child1[oldParent] == sibling) {
+				this.child1[oldParent] = newParent;
+			} else {
+				this.child2[oldParent] = newParent;
+			}
+		} else {
+			this.root = newParent;
+		}
+		this.child1[newParent] = sibling;
+		this.child2[newParent] = leaf;
+		this.parent[sibling] = newParent;
+		this.parent[leaf] = newParent;
+		this.refit(this.parent[leaf]);
+	}
+	
+	private void removeLeaf(int leaf) {
+		if (leaf == this.root) {
+			this.root = NULL_NODE;
+			return;
+		}
+		int par = this.parent[leaf];
+		int grandParent = this.parent[par];
+		int sibling = this.child1[par] == leaf ? this.child2[par] : this.child1[par];
+		if (grandParent != NULL_NODE) {
+			if (this.child1[grandParent] == par) {
+				this.child1[grandParent] = sibling;
+			} else {
+				this.child2[grandParent] = sibling;
+			}
+			this.parent[sibling] = grandParent;
+			this.freeNode(par);
+			this.refit(grandParent);
+		} else {
+			this.root = sibling;
+			this.parent[sibling] = NULL_NODE;
+			this.freeNode(par);
+		}
+	}
+	
+	/**
+	 * Walks back up the tree from the given node, fixing the boxes and heights and balancing as it goes
+	 * 
+	 * @param index
+	 *            The node to start from
+	 */
+	private void refit(int index) {
+		while (index != NULL_NODE) {
+			index = this.balance(index);
+			int c1 = this.child1[index];
+			int c2 = this.child2[index];
+			this.height[index] = 1 + Math.max(this.height[c1], this.height[c2]);
+			this.union(index, c1, c2);
+			index = this.parent[index];
+		}
+	}
+	
+	/**
+	 * Performs a left or right rotation if the given node is imbalanced
+	 * 
+	 * @param a
+	 *            The node to balance
+	 * @return The node that is now in the place of {@code a}
+	 */
+	private int balance(int a) {
+		if (this.child1[a] == NULL_NODE || this.height[a] < 2) {
+			return a;
+		}
+		int b = this.child1[a];
+		int c = this.child2[a];
+		int diff = this.height[c] - this.height[b];
+		if (diff > 1) {
+			return this.rotate(a, c, b, true);
+		}
+		if (diff < -1) {
+			return this.rotate(a, b, c, false);
+		}
+		return a;
+	}
+	
+	/**
+	 * Rotates the taller child {@code up} of {@code a} into the place of {@code a}
+	 * 
+	 * @param a
+	 *            The imbalanced node
+	 * @param up
+	 *            The taller child of {@code a}
+	 * @param other
+	 *            The other child of {@code a}
+	 * @param upIsChild2
+	 *            Whether {@code up} is the second child of {@code a}
+	 * @return The node that is now in the place of {@code a}
+	 */
+	private int rotate(int a, int up, int other, boolean upIsChild2) {
+		int f = this.child1[up];
+		int g = this.child2[up];
+		this.child1[up] = a;
+		this.parent[up] = this.parent[a];
+		this.parent[a] = up;
+		if (this.parent[up] != NULL_NODE) {
+			if (this.child1[this.parent[up]] == a) {
+				this.child1[this.parent[up]] = up;
+			} else {
+				this.child2[this.parent[up]] = up;
+			}
+		} else {
+			this.root = up;
+		}
+		// Keep the taller grandchild up, and move the shorter one down into a
+		int keep = this.height[f] > this.height[g] ? f : g;
+		int move = keep == f ? g : f;
+		this.child2[up] = keep;
+		if (upIsChild2) {
+			this.child2[a] = move;
+		} else {
+			this.child1[a] = move;
+		}
+		this.parent[move] = a;
+		this.union(a, other, move);
+		this.union(up, a, keep);
+		this.height[a] = 1 + Math.max(this.height[other], this.height[move]);
+		this.height[up] = 1 + Math.max(this.height[a], this.height[keep]);
+		return up;
+	}
+	
+	private void union(int target, int a, int b) {
+		this.nMinX[target] = Math.min(this.nMinX[a], this.nMinX[b]);
+		this.nMinY[target] = Math.min(this.nMinY[a], this.nMinY[b]);
+		this.nMaxX[target] = Math.max(this.nMaxX[a], this.nMaxX[b]);
+		this.nMaxY[target] = Math.max(this.nMaxY[a], this.nMaxY[b]);
+	}
+	
+	private double perimeter(int node) {
+		return 2 * ((this.nMaxX[node] - this.nMinX[node]) + (this.nMaxY[node] - this.nMinY[node]));
+	}
+	
+	private double combinedPerimeter(int a, int b) {
+		double w = Math.max(this.nMaxX[a], this.nMaxX[b]) - Math.min(this.nMinX[a], this.nMinX[b]);
+		double h = Math.max(this.nMaxY[a], this.nMaxY[b]) - Math.min(this.nMinY[a], this.nMinY[b]);
+		return 2 * (w + h);
+	}
+	
+	/**
+	 * The cost of descending into the given child when inserting the given leaf
+	 */
+	private double descendCost(int child, int leaf) {
+		if (this.child1[child] == NULL_NODE) {
+			return this.combinedPerimeter(child, leaf);
+		}
+		return this.combinedPerimeter(child, leaf) - this.perimeter(child);
+	}
+	
+	private int allocateNode() {
+		if (this.freeList == NULL_NODE) {
+			if (this.nodeCount == this.nodeCapacity) {
+				this.nodeCapacity *= 2;
+				this.allocateNodes(this.nodeCapacity);
+			}
+			int node = this.nodeCount++;
+			this.resetNode(node);
+			return node;
+		}
+		int node = this.freeList;
+		this.freeList = this.parent[node];
+		this.resetNode(node);
+		return node;
+	}
+	
+	private void freeNode(int node) {
+		this.nodeEntity[node] = null;
+		this.parent[node] = this.freeList;
+		this.height[node] = -1;
+		this.freeList = node;
+	}
+	
+	private void resetNode(int node) {
+		this.parent[node] = NULL_NODE;
+		this.child1[node] = NULL_NODE;
+		this.child2[node] = NULL_NODE;
+		this.height[node] = 0;
+		this.nodeEntity[node] = null;
+		this.entityIndex[node] = -1;
+	}
+	
+	/**
+	 * Grows the node arrays to the given capacity
+	 * 
+	 * @param capacity
+	 *            The new capacity
+	 */
+	private void allocateNodes(int capacity) {
+		if (this.parent == null) {
+			this.nMinX = new double[capacity];
+			this.nMinY = new double[capacity];
+			this.nMaxX = new double[capacity];
+			this.nMaxY = new double[capacity];
+			this.parent = new int[capacity];
+			this.child1 = new int[capacity];
+			this.child2 = new int[capacity];
+			this.height = new int[capacity];
+			this.entityIndex = new int[capacity];
+			this.nodeEntity = new EntityPhysics[capacity];
+			return;
+		}
+		this.nMinX = Arrays.copyOf(this.nMinX, capacity);
+		this.nMinY = Arrays.copyOf(this.nMinY, capacity);
+		this.nMaxX = Arrays.copyOf(this.nMaxX, capacity);
+		this.nMaxY = Arrays.copyOf(this.nMaxY, capacity);
+		this.parent = Arrays.copyOf(this.parent, capacity);
+		this.child1 = Arrays.copyOf(this.child1, capacity);
+		this.child2 = Arrays.copyOf(this.child2, capacity);
+		this.height = Arrays.copyOf(this.height, capacity);
+		this.entityIndex = Arrays.copyOf(this.entityIndex, capacity);
+		this.nodeEntity = Arrays.copyOf(this.nodeEntity, capacity);
+	}
+	
+}
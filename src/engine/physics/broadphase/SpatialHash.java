@@ -0,0 +1,372 @@
+package engine.physics.broadphase;
+
+import java.util.Arrays;
+import java.util.List;
+
+import engine.physics.Physics;
+import engine.physics.entity.EntityPhysics;
+
+/**
+ * A uniform spatial hash {@code BroadPhase}
+ * <p>
+ * Every {@code EntityPhysics} is placed in every cell that its bounding circle (based on {@code newp} and
+ * {@link engine.physics.entity.Hitbox#circleRadius circleRadius}) touches. Only {@code EntityPhysics} that
+ * share a cell are reported as candidate pairs, so the cost of a check grows with the number of nearby
+ * {@code EntityPhysics} instead of the square of all of them.
+ * <p>
+ * Cell entries are packed into a single {@code long[]} and sorted in place, which means that once the
+ * internal arrays have grown to fit the level, rebuilding the hash every check does not create any garbage.
+ * <p>
+ * Sleeping {@code EntityPhysics} are hashed into a separate set of entries, which is only rebuilt when the
+ * sleepers change. Each check then only hashes and sorts the {@code EntityPhysics} that are awake, and looks
+ * up the sleepers in the cells that they cover.
+ * <p>
+ * {@code EntityPhysics} that cover more than {@value #LARGE_CELLS} cells, such as a floor spanning the whole
+ * level, are kept out of the cells entirely. They are instead paired against every other
+ * {@code EntityPhysics} directly, so that they don't add thousands of entries every check. Cell coordinates
+ * are clamped to the range that fits in a packed entry, so far away cells share the cells at the edge.
+ * <p>
+ * Works best when every {@code Hitbox} in the level is roughly the same size as a cell.
+ * 
+ * @author Kevin
+ */
+public class SpatialHash extends BroadPhase {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The number of bits used to store the entity index in a packed cell entry
+	 */
+	private static final int INDEX_BITS = 22;
+	
+	/**
+	 * The number of bits used to store each cell coordinate in a packed cell entry
+	 */
+	private static final int CELL_BITS = 21;
+	
+	private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+	
+	private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+	
+	/**
+	 * The lowest and highest cell coordinates that fit in a packed cell entry
+	 */
+	private static final int MIN_CELL = -(1 << (CELL_BITS - 1)), MAX_CELL = (1 << (CELL_BITS - 1)) - 1;
+	
+	/**
+	 * The most cells that an entity can cover before it is kept in {@link #large} instead
+	 */
+	private static final int LARGE_CELLS = 64;
+	
+	/**
+	 * The side length of a single cell, in pixels. If this is not positive, {@link Physics#cellSize} is used
+	 * instead.
+	 */
+	public double cellSize;
+	
+	/**
+	 * The packed (cell, entity index) entries
+	 */
+	private transient long[] entries;
+	
+	/**
+	 * The number of valid entries in {@link #entries}
+	 */
+	private transient int entryCount;
+	
+	/**
+	 * The sorted, packed (cell, entity index) entries of the sleeping entities
+	 */
+	private transient long[] sleeperEntries;
+	
+	/**
+	 * The number of valid entries in {@link #sleeperEntries}
+	 */
+	private transient int sleeperEntryCount;
+	
+	/**
+	 * The inverse cell size that {@link #sleeperEntries} were hashed with
+	 */
+	private transient double sleeperInv;
+	
+	/**
+	 * The lowest and highest cell that each entity covers, indexed by entity index
+	 */
+	private transient int[] minCellX, minCellY, maxCellX, maxCellY;
+	
+	/**
+	 * Whether each entity covers too many cells to be hashed, indexed by entity index
+	 */
+	private transient boolean[] isLarge;
+	
+	/**
+	 * The indices of the entities that cover too many cells to be hashed
+	 */
+	private transient int[] large;
+	
+	/**
+	 * The number of valid indices in {@link #large}
+	 */
+	private transient int largeCount;
+	
+	/**
+	 * Creates a new {@code SpatialHash} that uses the configured {@link Physics#cellSize}
+	 */
+	public SpatialHash() {
+		this(0);
+	}
+	
+	/**
+	 * Creates a new {@code SpatialHash} with the given cell size
+	 * 
+	 * @param cellSize
+	 *            The side length of a single cell, in pixels
+	 */
+	public SpatialHash(double cellSize) {
+		this.cellSize = cellSize;
+	}
+	
+	@Override
+	protected void collectPairs(List<EntityPhysics> entities) {
+		int n = entities.size();
+		this.ensureCapacity(n);
+		double inv = 1.0 / (this.cellSize > 0 ? this.cellSize : Physics.cellSize);
+		if (this.sleepersChanged() || inv != this.sleeperInv) {
+			this.hashSleepers(n, inv);
+		}
+		this.entryCount = 0;
+		this.largeCount = 0;
+		for (int i = 0; i < n; i++) {
+			this.isLarge[i] = false;
+			if (!this.active[i]) {
+				continue;
+			}
+			if (!this.computeCells(i, inv)) {
+				this.isLarge[i] = true;
+				this.large[this.largeCount++] = i;
+			} else if (!this.asleep[i]) {
+				this.addEntries(i);
+			}
+		}
+		Arrays.sort(this.entries, 0, this.entryCount);
+		int start = 0;
+		while (start < this.entryCount) {
+			long cell = this.entries[start] >>> INDEX_BITS;
+			int end = start + 1;
+			while (end < this.entryCount && (this.entries[end] >>> INDEX_BITS) == cell) {
+				end++;
+			}
+			if (end - start > 1) {
+				this.pairCell(start, end);
+			}
+			if (this.sleeperEntryCount > 0) {
+				this.pairSleepers(start, end);
+			}
+			start = end;
+		}
+		for (int a = 0; a < this.largeCount; a++) {
+			this.pairLarge(this.large[a], n);
+		}
+	}
+	
+	/**
+	 * Hashes every sleeping entity into {@link #sleeperEntries}, and sorts them
+	 * 
+	 * @param n
+	 *            The number of entities
+	 * @param inv
+	 *            The inverse cell size
+	 */
+	private void hashSleepers(int n, double inv) {
+		this.entryCount = 0;
+		for (int i = 0; i < n; i++) {
+			if (this.isSleeper(i) && this.computeCells(i, inv)) {
+				this.addEntries(i);
+			}
+		}
+		Arrays.sort(this.entries, 0, this.entryCount);
+		// Swap the arrays, rather than copying the entries
+		long[] sleeperEntries = this.entries;
+		this.entries = this.sleeperEntries != null ? this.sleeperEntries : new long[64];
+		this.sleeperEntries = sleeperEntries;
+		this.sleeperEntryCount = this.entryCount;
+		this.sleeperInv = inv;
+	}
+	
+	/**
+	 * Finds the range of cells that the given entity covers
+	 * 
+	 * @param i
+	 *            The index of the entity
+	 * @param inv
+	 *            The inverse cell size
+	 * @return Whether the entity can be hashed, which is when its bounds are finite and it covers at most
+	 *         {@value #LARGE_CELLS} cells
+	 */
+	private boolean computeCells(int i, double inv) {
+		if (Double.isInfinite(this.minX[i]) || Double.isInfinite(this.minY[i])
+				|| Double.isInfinite(this.maxX[i]) || Double.isInfinite(this.maxY[i])) {
+			return false;
+		}
+		int x0 = toCell(this.minX[i] * inv), y0 = toCell(this.minY[i] * inv);
+		int x1 = toCell(this.maxX[i] * inv), y1 = toCell(this.maxY[i] * inv);
+		this.minCellX[i] = x0;
+		this.minCellY[i] = y0;
+		this.maxCellX[i] = x1;
+		this.maxCellY[i] = y1;
+		return (long) (x1 - x0 + 1) * (y1 - y0 + 1) <= LARGE_CELLS;
+	}
+	
+	/**
+	 * Adds an entry for every cell that the given entity covers, as found by {@link #computeCells(int, double)}
+	 * 
+	 * @param i
+	 *            The index of the entity
+	 */
+	private void addEntries(int i) {
+		for (int x = this.minCellX[i]; x <= this.maxCellX[i]; x++) {
+			for (int y = this.minCellY[i]; y <= this.maxCellY[i]; y++) {
+				this.addEntry(x, y, i);
+			}
+		}
+	}
+	
+	/**
+	 * Reports every pair of the given large entity with any other entity whose bounds overlap. Pairs of two
+	 * large entities are only reported by the one with the lower index.
+	 * 
+	 * @param i
+	 *            The index of the large entity
+	 * @param n
+	 *            The number of entities
+	 */
+	private void pairLarge(int i, int n) {
+		for (int j = 0; j < n; j++) {
+			if (j != i && this.active[j] && (!this.isLarge[j] || j > i) && this.overlapsX(i, j)
+					&& this.overlapsY(i, j)) {
+				this.addPair(i, j);
+			}
+		}
+	}
+	
+	/**
+	 * Reports every pair within the given run of entries that belong to the same cell
+	 * 
+	 * @param start
+	 *            The first entry of the cell, inclusive
+	 * @param end
+	 *            The last entry of the cell, exclusive
+	 */
+	private void pairCell(int start, int end) {
+		long packed = this.entries[start];
+		int cellX = unpackCell(packed >>> (INDEX_BITS + CELL_BITS));
+		int cellY = unpackCell(packed >>> INDEX_BITS);
+		for (int a = start; a < end - 1; a++) {
+			int i = (int) (this.entries[a] & INDEX_MASK);
+			for (int b = a + 1; b < end; b++) {
+				this.pairInCell(cellX, cellY, i, (int) (this.entries[b] & INDEX_MASK));
+			}
+		}
+	}
+	
+	/**
+	 * Reports every pair of an awake entity in the given run of entries with a sleeping entity in the same
+	 * cell
+	 * 
+	 * @param start
+	 *            The first entry of the cell, inclusive
+	 * @param end
+	 *            The last entry of the cell, exclusive
+	 */
+	private void pairSleepers(int start, int end) {
+		long packed = this.entries[start];
+		// The first sleeper entry of the cell, or the one after where it would be
+		long key = packed & ~INDEX_MASK;
+		int lo = 0, hi = this.sleeperEntryCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (this.sleeperEntries[mid] < key) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		int cellX = unpackCell(packed >>> (INDEX_BITS + CELL_BITS));
+		int cellY = unpackCell(packed >>> INDEX_BITS);
+		long cell = packed >>> INDEX_BITS;
+		for (int b = lo; b < this.sleeperEntryCount && (this.sleeperEntries[b] >>> INDEX_BITS) == cell; b++) {
+			int j = (int) (this.sleeperEntries[b] & INDEX_MASK);
+			for (int a = start; a < end; a++) {
+				this.pairInCell(cellX, cellY, (int) (this.entries[a] & INDEX_MASK), j);
+			}
+		}
+	}
+	
+	/**
+	 * Reports the given pair if their bounds overlap, and the given cell is the first that they share, so
+	 * that pairs that share more than one cell are only reported once
+	 */
+	private void pairInCell(int cellX, int cellY, int i, int j) {
+		if (cellX == Math.max(this.minCellX[i], this.minCellX[j])
+				&& cellY == Math.max(this.minCellY[i], this.minCellY[j]) && this.overlapsX(i, j)
+				&& this.overlapsY(i, j)) {
+			this.addPair(i, j);
+		}
+	}
+	
+	private void addEntry(int x, int y, int index) {
+		if (this.entryCount == this.entries.length) {
+			this.entries = Arrays.copyOf(this.entries, this.entries.length * 2);
+		}
+		this.entries[this.entryCount++] = ((x & CELL_MASK) << (INDEX_BITS + CELL_BITS))
+				| ((y & CELL_MASK) << INDEX_BITS) | index;
+	}
+	
+	/**
+	 * Makes sure that the internal arrays can hold the given number of entities
+	 * 
+	 * @param n
+	 *            The number of entities
+	 */
+	private void ensureCapacity(int n) {
+		if (this.minCellX == null || this.minCellX.length < n) {
+			int size = Math.max(16, Integer.highestOneBit(Math.max(n, 1)) << 1);
+			this.minCellX = new int[size];
+			this.minCellY = new int[size];
+			this.maxCellX = new int[size];
+			this.maxCellY = new int[size];
+			this.isLarge = new boolean[size];
+			this.large = new int[size];
+		}
+		if (this.entries == null) {
+			this.entries = new long[64];
+		}
+	}
+	
+	/**
+	 * Turns a position in cells into a cell coordinate, clamped to the range that fits in a packed entry
+	 * 
+	 * @param cells
+	 *            The position, in cells
+	 * @return The cell coordinate
+	 */
+	private static int toCell(double cells) {
+		return (int) Math.max(MIN_CELL, Math.min(MAX_CELL, Math.floor(cells)));
+	}
+	
+	/**
+	 * Sign-extends a packed cell coordinate back into an int
+	 * 
+	 * @param bits
+	 *            The packed coordinate in its lowest {@value #CELL_BITS} bits
+	 * @return The cell coordinate
+	 */
+	private static int unpackCell(long bits) {
+		return (int) ((bits & CELL_MASK) << (64 - CELL_BITS) >> (64 - CELL_BITS));
+	}
+	
+}
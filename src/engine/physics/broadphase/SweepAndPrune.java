@@ -0,0 +1,202 @@
+package engine.physics.broadphase;
+
+import java.util.List;
+
+import engine.physics.entity.EntityPhysics;
+
+/**
+ * An incremental sweep-and-prune {@code BroadPhase}
+ * <p>
+ * The entities are kept sorted by the minimum of their bounds along a single axis. A sweep along that axis
+ * then only has to look at the entities whose intervals actually overlap, and check the other axis for
+ * those.
+ * <p>
+ * The sorted order is kept between checks. Since {@code EntityPhysics} barely move from one tick to the
+ * next, the order is almost sorted already, so it is fixed up with an insertion sort which runs in close to
+ * linear time. This makes {@code SweepAndPrune} a good fit for long corridor-shaped levels, as long as it
+ * sweeps along the long side of the level.
+ * <p>
+ * Sleeping {@code EntityPhysics} are kept in a sorted order of their own, which is only rebuilt when the
+ * sleepers change. Only the {@code EntityPhysics} that are awake are sorted and swept every check, and each
+ * of them looks up the sleepers that it overlaps with a binary search.
+ * 
+ * @author Kevin
+ */
+public class SweepAndPrune extends BroadPhase {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Whether to sweep along the X axis ({@code true}) or the Y axis ({@code false})
+	 */
+	public boolean sweepX;
+	
+	/**
+	 * The indices of the entities that aren't asleep, sorted by the minimum of their bounds along the sweep
+	 * axis
+	 */
+	private transient int[] order;
+	
+	/**
+	 * The number of entities in {@link #order}
+	 */
+	private transient int orderCount;
+	
+	/**
+	 * The indices of the sleeping entities, sorted by the minimum of their bounds along the sweep axis
+	 */
+	private transient int[] sleeperOrder;
+	
+	/**
+	 * The number of entities in {@link #sleeperOrder}
+	 */
+	private transient int sleeperCount;
+	
+	/**
+	 * The largest extent of a sleeping entity along the sweep axis
+	 */
+	private transient double sleeperExtent;
+	
+	/**
+	 * The axis that {@link #sleeperOrder} was sorted along
+	 */
+	private transient boolean sleeperSweepX;
+	
+	/**
+	 * Creates a new {@code SweepAndPrune} that sweeps along the X axis
+	 */
+	public SweepAndPrune() {
+		this(true);
+	}
+	
+	/**
+	 * Creates a new {@code SweepAndPrune}
+	 * 
+	 * @param sweepX
+	 *            Whether to sweep along the X axis ({@code true}) or the Y axis ({@code false})
+	 */
+	public SweepAndPrune(boolean sweepX) {
+		this.sweepX = sweepX;
+	}
+	
+	@Override
+	protected void collectPairs(List<EntityPhysics> entities) {
+		int n = entities.size();
+		double[] min = this.sweepX ? this.minX : this.minY;
+		double[] max = this.sweepX ? this.maxX : this.maxY;
+		if (this.order == null || this.sleepersChanged() || this.sweepX != this.sleeperSweepX) {
+			this.rebuildOrder(n, min, max);
+		} else {
+			this.insertionSort(min);
+		}
+		for (int a = 0; a < this.orderCount; a++) {
+			int i = this.order[a];
+			if (!this.active[i]) {
+				continue;
+			}
+			double end = max[i];
+			for (int b = a + 1; b < this.orderCount; b++) {
+				int j = this.order[b];
+				if (min[j] > end) {
+					break;
+				}
+				if (this.active[j] && (this.sweepX ? this.overlapsY(i, j) : this.overlapsX(i, j))) {
+					this.addPair(i, j);
+				}
+			}
+			if (this.sleeperCount > 0) {
+				this.pairSleepers(i, min, max);
+			}
+		}
+	}
+	
+	/**
+	 * Reports every sleeping entity that overlaps the given entity
+	 * 
+	 * @param i
+	 *            The index of the entity, which is awake
+	 * @param min
+	 *            The minimum bounds along the sweep axis
+	 * @param max
+	 *            The maximum bounds along the sweep axis
+	 */
+	private void pairSleepers(int i, double[] min, double[] max) {
+		// No sleeper that starts further back than its extent can reach the entity
+		double from = min[i] - this.sleeperExtent;
+		int lo = 0, hi = this.sleeperCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (min[this.sleeperOrder[mid]] < from) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		for (int b = lo; b < this.sleeperCount; b++) {
+			int j = this.sleeperOrder[b];
+			if (min[j] > max[i]) {
+				break;
+			}
+			if (this.overlapsX(i, j) && this.overlapsY(i, j)) {
+				this.addPair(i, j);
+			}
+		}
+	}
+	
+	/**
+	 * Fixes up the sort order from the last check
+	 * 
+	 * @param min
+	 *            The minimum bounds along the sweep axis
+	 */
+	private void insertionSort(double[] min) {
+		for (int a = 1; a < this.orderCount; a++) {
+			int i = this.order[a];
+			double key = min[i];
+			int b = a - 1;
+			while (b >= 0 && min[this.order[b]] > key) {
+				this.order[b + 1] = this.order[b];
+				b--;
+			}
+			this.order[b + 1] = i;
+		}
+	}
+	
+	/**
+	 * Sorts every entity from scratch, splitting off the sleeping entities. Only needed when entities have
+	 * been added or removed, since their indices will have shifted, or when the sleepers have changed.
+	 * 
+	 * @param n
+	 *            The number of entities
+	 * @param min
+	 *            The minimum bounds along the sweep axis
+	 * @param max
+	 *            The maximum bounds along the sweep axis
+	 */
+	private void rebuildOrder(int n, double[] min, double[] max) {
+		if (this.order == null || this.order.length < n) {
+			int size = Math.max(16, Integer.highestOneBit(Math.max(n, 1)) << 1);
+			this.order = new int[size];
+			this.sleeperOrder = new int[size];
+		}
+		this.orderCount = 0;
+		this.sleeperCount = 0;
+		this.sleeperExtent = 0;
+		for (int i = 0; i < n; i++) {
+			if (this.isSleeper(i)) {
+				this.sleeperOrder[this.sleeperCount++] = i;
+				this.sleeperExtent = Math.max(this.sleeperExtent, max[i] - min[i]);
+			} else {
+				this.order[this.orderCount++] = i;
+			}
+		}
+		sort(this.order, min, 0, this.orderCount - 1);
+		sort(this.sleeperOrder, min, 0, this.sleeperCount - 1);
+		this.sleeperSweepX = this.sweepX;
+	}
+	
+}
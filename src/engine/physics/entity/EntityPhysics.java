@@ -1,8 +1,5 @@
 package engine.physics.entity;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import engine.Game;
 import engine.client.graphics.sprite.Sprite;
 import engine.event.SubscribeEvent;
@@ -23,6 +20,11 @@ import engine.physics.level.LevelPhysics;
  * The Physics Engine then checks for any collisions between {@code EntityPhysics}
  * <p>
  * <b>Stage 2</b> sees the outcome of the movement
+ * <p>
+ * The position, velocity, acceleration and mass are stored in the state arrays of the {@code Physics}, so
+ * the accessors of this class only create views of them. Code that runs every tick should prefer the
+ * accessors that return a single component, such as {@link #getVelX()}, since those don't allocate. In
+ * {@linkplain Physics#fixedPoint fixed-point mode}, the setters round everything to {@code Fixed} values.
  * 
  * @author Kevin
  */
@@ -35,29 +37,12 @@ public abstract class EntityPhysics extends Entity {
 	private static final long serialVersionUID = 1L;
 	
 	/**
-	 * The new position of the entity
-	 */
-	public Vector2 newp;
-	
-	/**
-	 * Velocity
-	 */
-	public Vector2 vel;
-	
-	/**
-	 * Acceleration
-	 */
-	public Vector2 acc;
-	
-	/**
-	 * The Net Force being exerted on the {@code EntityPhysics} at the moment
-	 */
-	public Vector2 netForce;
-	
-	/**
-	 * Mass of the object
+	 * The slot of this {@code EntityPhysics} in the state arrays of its {@code Physics}. Assigned by
+	 * {@link Physics#addEntity(EntityPhysics)}, and may change when other {@code EntityPhysics} are removed.
+	 * Becomes -1 once this {@code EntityPhysics} is removed itself, after which its state can no longer be
+	 * accessed.
 	 */
-	public double mass;
+	public int slot;
 	
 	/**
 	 * The Hitbox used for collision checks
@@ -65,16 +50,16 @@ public abstract class EntityPhysics extends Entity {
 	public Hitbox hitbox;
 	
 	/**
-	 * The list of forces being exerted on the {@code EntityPhysics} at the moment
+	 * The forces being exerted on the {@code EntityPhysics} at the moment
 	 */
-	public List<Vector2> forces = new LinkedList<Vector2>();
+	public ForceAccumulator forces = new ForceAccumulator(this);
 	
 	public EntityPhysics(LevelPhysics l, double x, double y, Hitbox hb, double m, Sprite sprite) {
 		super(l, x, y, sprite);
-		this.newp = Vector2.of(x, y);
-		this.vel = Vector2.ZERO;
-		this.acc = Vector2.ZERO;
-		this.mass = m;
+		this.pos = null;
+		this.setPos(x, y);
+		this.setNewp(x, y);
+		this.setMass(m);
 		this.hitbox = hb;
 		Physics.PHYSICS_BUS.register(this);
 	}
@@ -87,42 +72,238 @@ public abstract class EntityPhysics extends Entity {
 	
 	@SubscribeEvent
 	public void entPos(EventEntityPosition e) {
-		if (e.id == this.id) {
-			this.pos = Vector2.of(e.x, e.y);
+		// Positions may still arrive after the EntityPhysics has been removed
+		if (e.id == this.id && this.slot >= 0) {
+			// Not a teleport, so that it is still interpolated
+			this.movePos(e.x, e.y);
 		}
 	}
 	
+	/**
+	 * Gets the {@code Physics} instance that holds the state of this {@code EntityPhysics}
+	 * 
+	 * @return The {@code Physics}
+	 */
+	public Physics getPhysics() {
+		return ((LevelPhysics) this.level).physics;
+	}
+	
+	/**
+	 * Gets the slot of this {@code EntityPhysics}, making sure that it hasn't been removed
+	 * 
+	 * @return The slot
+	 * @throws IllegalStateException
+	 *             If this {@code EntityPhysics} has been removed from its {@code Physics}
+	 */
+	private int slot() {
+		if (this.slot < 0) {
+			throw new IllegalStateException(this.getClass().getSimpleName() + " " + this.id
+					+ " has been removed from its Physics");
+		}
+		return this.slot;
+	}
+	
+	@Override
+	public Vector2 getPos() {
+		return Vector2.of(this.getPosX(), this.getPosY());
+	}
+	
+	@Override
+	public void setPos(Vector2 pos) {
+		this.setPos(pos.getX(), pos.getY());
+	}
+	
+	/**
+	 * Sets the position of the {@code EntityPhysics}, waking it up so that it is checked at its new position.
+	 * This counts as a teleport, so rendering doesn't interpolate to the new position.
+	 * 
+	 * @param x
+	 *            The X
+	 * @param y
+	 *            The Y
+	 */
+	public void setPos(double x, double y) {
+		this.movePos(x, y);
+		this.teleported = true;
+	}
+	
+	/**
+	 * Sets the position of the {@code EntityPhysics} without counting as a teleport
+	 * 
+	 * @param x
+	 *            The X
+	 * @param y
+	 *            The Y
+	 */
+	private void movePos(double x, double y) {
+		Physics p = this.getPhysics();
+		int slot = this.slot();
+		p.posX[slot] = Physics.quantize(x);
+		p.posY[slot] = Physics.quantize(y);
+		p.wake(slot);
+	}
+	
+	public double getPosX() {
+		return this.getPhysics().posX[this.slot()];
+	}
+	
+	public double getPosY() {
+		return this.getPhysics().posY[this.slot()];
+	}
+	
+	/**
+	 * Gets the new position of the entity, which it will move to at the end of this tick
+	 * 
+	 * @return The new position
+	 */
+	public Vector2 getNewp() {
+		return Vector2.of(this.getNewX(), this.getNewY());
+	}
+	
+	public void setNewp(Vector2 newp) {
+		this.setNewp(newp.getX(), newp.getY());
+	}
+	
+	public void setNewp(double x, double y) {
+		Physics p = this.getPhysics();
+		int slot = this.slot();
+		p.newX[slot] = Physics.quantize(x);
+		p.newY[slot] = Physics.quantize(y);
+	}
+	
+	public double getNewX() {
+		return this.getPhysics().newX[this.slot()];
+	}
+	
+	public double getNewY() {
+		return this.getPhysics().newY[this.slot()];
+	}
+	
+	public Vector2 getVel() {
+		return Vector2.of(this.getVelX(), this.getVelY());
+	}
+	
+	public void setVel(Vector2 vel) {
+		this.setVel(vel.getX(), vel.getY());
+	}
+	
+	/**
+	 * Sets the velocity of the {@code EntityPhysics}, waking it up
+	 * 
+	 * @param x
+	 *            The X velocity
+	 * @param y
+	 *            The Y velocity
+	 */
+	public void setVel(double x, double y) {
+		Physics p = this.getPhysics();
+		int slot = this.slot();
+		p.velX[slot] = Physics.quantize(x);
+		p.velY[slot] = Physics.quantize(y);
+		p.wake(slot);
+	}
+	
+	public double getVelX() {
+		return this.getPhysics().velX[this.slot()];
+	}
+	
+	public double getVelY() {
+		return this.getPhysics().velY[this.slot()];
+	}
+	
+	public Vector2 getAcc() {
+		Physics p = this.getPhysics();
+		int slot = this.slot();
+		return Vector2.of(p.accX[slot], p.accY[slot]);
+	}
+	
+	/**
+	 * Gets the net force that was exerted on the {@code EntityPhysics} in the last tick
+	 * 
+	 * @return The net force
+	 */
+	public Vector2 getNetForce() {
+		Physics p = this.getPhysics();
+		int slot = this.slot();
+		return Vector2.of(p.forceX[slot], p.forceY[slot]);
+	}
+	
+	public double getMass() {
+		return this.getPhysics().mass[this.slot()];
+	}
+	
+	/**
+	 * Sets the mass of the {@code EntityPhysics}. A mass of zero or infinity makes it immovable by forces.
+	 * 
+	 * @param mass
+	 *            The mass
+	 */
+	public void setMass(double mass) {
+		// Infinity is kept as it is, since it has no fixed-point value
+		this.getPhysics().mass[this.slot()] = Double.isInfinite(mass) ? mass : Physics.quantize(mass);
+	}
+	
 	public Vector2 getMomentum() {
-		return Vector2.of(this.mass * this.vel.getX(), this.mass * this.vel.getY());
+		double m = this.getMass();
+		return Vector2.of(m * this.getVelX(), m * this.getVelY());
 	}
 	
 	public Vector2 getKineticEnergy() {
-		return Vector2.of(.5 * this.mass * Math.pow(this.vel.getX(), 2),
-				.5 * this.mass * Math.pow(this.vel.getY(), 2));
+		double m = this.getMass();
+		return Vector2.of(.5 * m * Math.pow(this.getVelX(), 2), .5 * m * Math.pow(this.getVelY(), 2));
 	}
 	
 	/**
-	 * Exerts a force on the {@code EntityPhysics}
+	 * Exerts a force on the {@code EntityPhysics}, waking it up
 	 * 
 	 * @param force
 	 *            The force to exert
+	 * @return The {@code Handle} to change the force with, or stop exerting it
 	 */
-	public void exertForce(Vector2 force) {
-		if (!this.forces.contains(force)) {
-			this.forces.add(force);
-		}
+	public ForceAccumulator.Handle exertForce(Vector2 force) {
+		return this.forces.exert(force.getX(), force.getY());
 	}
 	
 	/**
-	 * Stops exerting a force on the {@code EntityPhysics}
+	 * Exerts a force on the {@code EntityPhysics}, waking it up
 	 * 
-	 * @param force
-	 *            The force to stop exerting
+	 * @param x
+	 *            The X of the force
+	 * @param y
+	 *            The Y of the force
+	 * @return The {@code Handle} to change the force with, or stop exerting it
 	 */
-	public void stopExertingForce(Vector2 force) {
-		if (this.forces.contains(force)) {
-			this.forces.remove(force);
-		}
+	public ForceAccumulator.Handle exertForce(double x, double y) {
+		return this.forces.exert(x, y);
+	}
+	
+	/**
+	 * Exerts a force on the {@code EntityPhysics} for the next tick only, waking it up
+	 * 
+	 * @param x
+	 *            The X of the force
+	 * @param y
+	 *            The Y of the force
+	 */
+	public void exertImpulse(double x, double y) {
+		this.forces.impulse(x, y);
+	}
+	
+	/**
+	 * Checks whether the {@code EntityPhysics} is asleep
+	 * 
+	 * @return Whether it is asleep
+	 * @see Physics#sleepTicks
+	 */
+	public boolean isAsleep() {
+		return this.getPhysics().asleep[this.slot()];
+	}
+	
+	/**
+	 * Wakes up the {@code EntityPhysics}, if it is asleep
+	 */
+	public void wake() {
+		this.getPhysics().wake(this.slot());
 	}
 	
 	/**
@@ -135,29 +316,28 @@ public abstract class EntityPhysics extends Entity {
 	}
 	
 	/**
-	 * Called in phase 1 of movement
+	 * Carries out phase 1 of movement for this {@code EntityPhysics} alone
+	 * <p>
+	 * The {@code Physics} engine doesn't call this, since it moves every {@code EntityPhysics} at once in its
+	 * state arrays, and splits the movement into passes when subticking. It is final so that nothing can
+	 * depend on it being called. Override {@link #tickEntity1()} instead.
 	 */
-	public void tick1() {
-		Vector2 forceSum = Vector2.ZERO;
-		for (Vector2 force : this.forces) {
-			forceSum = forceSum.plus(force);
-		}
-		this.netForce = forceSum;
-		this.acc = this.netForce.scale(1 / this.mass);
-		this.newp = this.pos.plus(this.vel).plus(this.acc.scale(.5));
-		this.vel = this.vel.plus(this.acc);
+	public final void tick1() {
+		this.tick1(1);
 		this.tickEntity1();
 	}
 	
 	/**
-	 * Ticks a fraction of ticks
+	 * Ticks a fraction of ticks, without calling {@link #tickEntity1()}
+	 * <p>
+	 * The new position is always based on the current position. Just like {@link #tick1()}, this isn't called
+	 * by the {@code Physics} engine.
 	 * 
 	 * @param tickFractions
+	 *            The fraction of a tick to move forward by
 	 */
-	public void tick1(double tickFractions) {
-		this.newp = this.pos.plus(this.vel.scale(tickFractions))
-				.plus(this.acc.scale(.5 * tickFractions * tickFractions));
-		this.vel = this.vel.plus(this.acc.scale(tickFractions));
+	public final void tick1(double tickFractions) {
+		this.getPhysics().integrate(this.slot(), this.forces, tickFractions);
 	}
 	
 	/**
@@ -166,10 +346,17 @@ public abstract class EntityPhysics extends Entity {
 	public abstract void tickEntity1();
 	
 	/**
-	 * Called in phase 2 of movement
+	 * Carries out phase 2 of movement for this {@code EntityPhysics} alone
+	 * <p>
+	 * Just like {@link #tick1()}, this isn't called by the {@code Physics} engine. Override
+	 * {@link #tickEntity2()} instead.
 	 */
-	public void tick2() {
-		this.pos = this.newp.clone();
+	public final void tick2() {
+		Physics p = this.getPhysics();
+		int slot = this.slot();
+		p.posX[slot] = p.newX[slot];
+		p.posY[slot] = p.newY[slot];
+		this.forces.clearImpulses();
 		this.tickEntity2();
 	}
 	
@@ -193,15 +380,11 @@ public abstract class EntityPhysics extends Entity {
 	 * @return
 	 */
 	public static boolean approaching(EntityPhysics ent1, EntityPhysics ent2) {
-		Vector2 posDiff = ent2.pos.plus(ent2.hitbox.getCenterDisplacement())
-				.minus(ent1.pos.plus(ent1.hitbox.getCenterDisplacement()));
-		Vector2 vcm = ent1.getMomentum().plus(ent2.getMomentum()).scale(1.0 / (ent1.mass + ent2.mass));
-		Vector2 v1cm = ent1.vel.minus(vcm);
-		return v1cm.dot(posDiff) > 0;
+		return ent1.getPhysics().approaching(ent1, ent2);
 	}
 	
 	public String getPhysicsInformation() {
-		String info = "Pos:\t" + this.pos + "\nVel:\t" + this.vel + "\nAcc:\t" + this.acc;
+		String info = "Pos:\t" + this.getPos() + "\nVel:\t" + this.getVel() + "\nAcc:\t" + this.getAcc();
 		
 		return info;
 	}
@@ -0,0 +1,224 @@
+package engine.physics.entity;
+
+import java.io.Serializable;
+
+import engine.geom2d.Vector2;
+
+/**
+ * Keeps track of the forces being exerted on an {@code EntityPhysics}
+ * <p>
+ * Rather than summing up a list of forces every tick, the net force is kept as a running sum. Every force
+ * that is exerted gets a {@link Handle}, which can later be changed or removed without having to look
+ * through the other forces, so an {@code EntityPhysics} with any number of steady forces costs nothing extra
+ * to tick.
+ * <p>
+ * Impulses are forces that only act for the next tick, such as a kick or a jump. They don't get a
+ * {@code Handle}, and are cleared at the end of the tick.
+ * 
+ * @author Kevin
+ */
+public class ForceAccumulator implements Serializable {
+	
+	
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The {@code EntityPhysics} that the forces are exerted on, which is woken up when they change
+	 */
+	private final EntityPhysics owner;
+	
+	/**
+	 * The sum of every active {@code Handle}
+	 */
+	private double sumX, sumY;
+	
+	/**
+	 * The sum of the impulses for the next tick
+	 */
+	private double impulseX, impulseY;
+	
+	/**
+	 * The number of active {@code Handle}s
+	 */
+	private int active;
+	
+	/**
+	 * Creates a new {@code ForceAccumulator} with no forces
+	 * 
+	 * @param owner
+	 *            The {@code EntityPhysics} that the forces are exerted on
+	 */
+	public ForceAccumulator(EntityPhysics owner) {
+		this.owner = owner;
+	}
+	
+	/**
+	 * Starts exerting a force
+	 * 
+	 * @param x
+	 *            The X of the force
+	 * @param y
+	 *            The Y of the force
+	 * @return The {@code Handle} to change or remove the force with
+	 */
+	public Handle exert(double x, double y) {
+		Handle h = new Handle();
+		h.x = x;
+		h.y = y;
+		h.active = true;
+		this.sumX += x;
+		this.sumY += y;
+		this.active++;
+		this.owner.wake();
+		return h;
+	}
+	
+	/**
+	 * Exerts a force for the next tick only
+	 * 
+	 * @param x
+	 *            The X of the force
+	 * @param y
+	 *            The Y of the force
+	 */
+	public void impulse(double x, double y) {
+		this.impulseX += x;
+		this.impulseY += y;
+		this.owner.wake();
+	}
+	
+	/**
+	 * Forgets the impulses, once the tick they act for is over
+	 */
+	public void clearImpulses() {
+		this.impulseX = 0;
+		this.impulseY = 0;
+	}
+	
+	/**
+	 * Gets the X of the net force, including impulses
+	 * 
+	 * @return The X of the net force
+	 */
+	public double getX() {
+		return this.sumX + this.impulseX;
+	}
+	
+	/**
+	 * Gets the Y of the net force, including impulses
+	 * 
+	 * @return The Y of the net force
+	 */
+	public double getY() {
+		return this.sumY + this.impulseY;
+	}
+	
+	/**
+	 * Gets the number of forces currently being exerted, not counting impulses
+	 * 
+	 * @return The number of forces
+	 */
+	public int size() {
+		return this.active;
+	}
+	
+	/**
+	 * Gets the net force as a {@code Vector2}
+	 * 
+	 * @return The net force, including impulses
+	 */
+	public Vector2 getNet() {
+		return Vector2.of(this.getX(), this.getY());
+	}
+	
+	/**
+	 * A single force being exerted through a {@code ForceAccumulator}
+	 * 
+	 * @author Kevin
+	 */
+	public class Handle implements Serializable {
+		
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		private double x, y;
+		
+		private boolean active;
+		
+		/**
+		 * Changes the force. Does nothing if it has been removed.
+		 * 
+		 * @param x
+		 *            The new X of the force
+		 * @param y
+		 *            The new Y of the force
+		 * @return {@code this}
+		 */
+		public Handle set(double x, double y) {
+			if (this.active && (x != this.x || y != this.y)) {
+				ForceAccumulator.this.sumX += x - this.x;
+				ForceAccumulator.this.sumY += y - this.y;
+				ForceAccumulator.this.owner.wake();
+			}
+			this.x = x;
+			this.y = y;
+			return this;
+		}
+		
+		/**
+		 * Changes the force. Does nothing if it has been removed.
+		 * 
+		 * @param force
+		 *            The new force
+		 * @return {@code this}
+		 */
+		public Handle set(Vector2 force) {
+			return this.set(force.getX(), force.getY());
+		}
+		
+		/**
+		 * Stops exerting the force
+		 */
+		public void remove() {
+			if (!this.active) {
+				return;
+			}
+			this.active = false;
+			ForceAccumulator accumulator = ForceAccumulator.this;
+			if (--accumulator.active == 0) {
+				// Don't let rounding errors build up
+				accumulator.sumX = 0;
+				accumulator.sumY = 0;
+			} else {
+				accumulator.sumX -= this.x;
+				accumulator.sumY -= this.y;
+			}
+			accumulator.owner.wake();
+		}
+		
+		/**
+		 * Checks whether the force is still being exerted
+		 * 
+		 * @return Whether it hasn't been removed
+		 */
+		public boolean isActive() {
+			return this.active;
+		}
+		
+		public double getX() {
+			return this.x;
+		}
+		
+		public double getY() {
+			return this.y;
+		}
+		
+	}
+	
+}
@@ -2,11 +2,20 @@ package engine.physics.entity;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
 import java.io.Serializable;
 
+import engine.Engine;
+import engine.client.graphics.sprite.CollisionMask;
 import engine.client.graphics.sprite.ISpriteProvider;
+import engine.client.graphics.sprite.Sprite;
+import engine.geom2d.Fixed;
+import engine.geom2d.MutableVector2;
 import engine.geom2d.Vector2;
+import engine.level.Entity;
+import engine.level.Level;
+import engine.physics.Contact;
+import engine.physics.NarrowPhase;
+import engine.physics.Physics;
 
 /**
  * The Hitbox of an {@code EntityPhysics} used in collision detection and determination
@@ -21,6 +30,37 @@ public abstract class Hitbox implements Serializable {
 	 */
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * The {@link #getShapeType() shape type} of a {@code HitboxCircle}
+	 */
+	public static final int SHAPE_CIRCLE = 0;
+	
+	/**
+	 * The {@link #getShapeType() shape type} of a {@code HitboxRectangle}
+	 */
+	public static final int SHAPE_RECTANGLE = 1;
+	
+	/**
+	 * The {@link #getShapeType() shape type} of a {@code HitboxPolygon}
+	 */
+	public static final int SHAPE_POLYGON = 2;
+	
+	/**
+	 * The {@link #getShapeType() shape type} of a {@code HitboxSprite}
+	 */
+	public static final int SHAPE_SPRITE = 3;
+	
+	/**
+	 * The {@link #getShapeType() shape type} of any other {@code Hitbox}, which can only be tested with the
+	 * general {@link #collides(EntityPhysics, EntityPhysics, MutableVector2, MutableVector2) collides}
+	 */
+	public static final int SHAPE_OTHER = 4;
+	
+	/**
+	 * The number of shape types
+	 */
+	public static final int SHAPE_COUNT = 5;
+	
 	/**
 	 * The radius of a circle that surrounds this {@code Hitbox}. If the distance between two {@code Hitbox}es
 	 * are less than the sum of these circles, then we should evaluate the two {@code EntityPhysics} for
@@ -38,6 +78,16 @@ public abstract class Hitbox implements Serializable {
 		this.circleRadius = circleRadius;
 	}
 	
+	/**
+	 * Gets the shape type of this {@code Hitbox}, which {@code NarrowPhase} uses to pick an exact test for a
+	 * pair of {@code Hitbox}es
+	 * 
+	 * @return One of the {@code SHAPE} constants, {@link #SHAPE_OTHER} by default
+	 */
+	public int getShapeType() {
+		return SHAPE_OTHER;
+	}
+	
 	/**
 	 * Clamps the given angle into the range of [0, 2pi)
 	 * 
@@ -68,6 +118,29 @@ public abstract class Hitbox implements Serializable {
 		return angle;
 	}
 	
+	// The trigonometry used by the Hitboxes, which goes through the Fixed tables in fixed-point mode so that
+	// it doesn't depend on the Math intrinsics of the JVM
+	
+	protected static double sin(double angle) {
+		return Physics.fixedPoint ? Fixed.sin(angle) : Math.sin(angle);
+	}
+	
+	protected static double cos(double angle) {
+		return Physics.fixedPoint ? Fixed.cos(angle) : Math.cos(angle);
+	}
+	
+	protected static double tan(double angle) {
+		return Physics.fixedPoint ? Fixed.tan(angle) : Math.tan(angle);
+	}
+	
+	protected static double atan(double a) {
+		return Physics.fixedPoint ? Fixed.atan(a) : Math.atan(a);
+	}
+	
+	protected static double atan2(double y, double x) {
+		return Physics.fixedPoint ? Fixed.atan2(y, x) : Math.atan2(y, x);
+	}
+	
 	/**
 	 * Gets the {@code Vector2} of the furthest point of this hitbox based on the angle
 	 * 
@@ -79,6 +152,20 @@ public abstract class Hitbox implements Serializable {
 		return this.getHitboxVectorAtAngle(clampAngle(angle)).plus(this.getCenterDisplacement());
 	}
 	
+	/**
+	 * Gets the furthest point of this hitbox based on the angle, without creating a new {@code Vector2}
+	 * 
+	 * @param angle
+	 *            The angle in Radians. Values will automatically get clamped into the range [0, 2pi)
+	 * @param dest
+	 *            The {@code MutableVector2} to store the point in
+	 * @return {@code dest}
+	 */
+	public MutableVector2 getFurthestAtAngle(double angle, MutableVector2 dest) {
+		this.getHitboxVectorAtAngle(clampAngle(angle), dest);
+		return dest.set(dest.x + this.getCenterX(), dest.y + this.getCenterY());
+	}
+	
 	/**
 	 * Gets the angle of the surface of the {@code Hitbox} at the given angle
 	 * 
@@ -113,6 +200,23 @@ public abstract class Hitbox implements Serializable {
 	 */
 	public abstract Vector2 getHitboxVectorAtAngle(double angle);
 	
+	/**
+	 * Gets the furthest reach of the {@code Hitbox} at a given angle, relative to its center, without creating
+	 * a new {@code Vector2}
+	 * <p>
+	 * Subclasses that are used a lot should override this, since by default it simply copies the result of
+	 * {@link #getHitboxVectorAtAngle(double)}.
+	 * 
+	 * @param angle
+	 *            The angle in Radians. The angle will be in the range of [0, 2pi)
+	 * @param dest
+	 *            The {@code MutableVector2} to store the point in
+	 * @return {@code dest}
+	 */
+	public MutableVector2 getHitboxVectorAtAngle(double angle, MutableVector2 dest) {
+		return dest.set(this.getHitboxVectorAtAngle(angle));
+	}
+	
 	/**
 	 * Should get the angle of the Gradient vector to the surface of the {@code Hitbox} at the given angle
 	 * <p>
@@ -134,6 +238,46 @@ public abstract class Hitbox implements Serializable {
 	 */
 	public abstract Vector2 getCenterDisplacement();
 	
+	/**
+	 * Gets the X component of the {@link #getCenterDisplacement() center displacement}, without creating a
+	 * new {@code Vector2}
+	 * 
+	 * @return The X displacement between the center and upper-left corner
+	 */
+	public double getCenterX() {
+		return this.getCenterDisplacement().getX();
+	}
+	
+	/**
+	 * Gets the Y component of the {@link #getCenterDisplacement() center displacement}, without creating a
+	 * new {@code Vector2}
+	 * 
+	 * @return The Y displacement between the center and upper-left corner
+	 */
+	public double getCenterY() {
+		return this.getCenterDisplacement().getY();
+	}
+	
+	/**
+	 * Gets half the width of the axis-aligned box around this {@code Hitbox}, used for continuous collision
+	 * detection. Defaults to the {@link #circleRadius}.
+	 * 
+	 * @return Half the width
+	 */
+	public double getHalfWidth() {
+		return this.circleRadius;
+	}
+	
+	/**
+	 * Gets half the height of the axis-aligned box around this {@code Hitbox}, used for continuous collision
+	 * detection. Defaults to the {@link #circleRadius}.
+	 * 
+	 * @return Half the height
+	 */
+	public double getHalfHeight() {
+		return this.circleRadius;
+	}
+	
 	/**
 	 * Retrieves the angle of the surface (tangent to the angle) at the given angle
 	 * <p>
@@ -156,8 +300,25 @@ public abstract class Hitbox implements Serializable {
 	 */
 	public abstract boolean pointLiesInsideHitbox(Vector2 va2);
 	
+	/**
+	 * Checks whether the point with the given coordinates lies within the confines of this {@code Hitbox},
+	 * without creating a new {@code Vector2}
+	 * 
+	 * @param x
+	 *            The X of the point, relative to the position of this {@code EntityPhysics}
+	 * @param y
+	 *            The Y of the point, relative to the position of this {@code EntityPhysics}
+	 * @return Whether or not the given point lies within the {@code Hitbox}
+	 * @see #pointLiesInsideHitbox(Vector2)
+	 */
+	public boolean pointLiesInsideHitbox(double x, double y) {
+		return this.pointLiesInsideHitbox(Vector2.of(x, y));
+	}
+	
 	/**
 	 * Checks whether the two {@code EntityPhysics} collide at all
+	 * <p>
+	 * This uses the exact test from {@code NarrowPhase} for the two shapes, if there is one.
 	 * 
 	 * @param e1
 	 *            An {@code EntityPhysics}
@@ -166,18 +327,43 @@ public abstract class Hitbox implements Serializable {
 	 * @return Whether the two hitboxes of the {@code EntityPhysics}s collide
 	 */
 	public static boolean collides(EntityPhysics e1, EntityPhysics e2) {
-		Vector2 vda = e1.newp.plus(e1.hitbox.getCenterDisplacement())
-				.minus(e2.newp.plus(e2.hitbox.getCenterDisplacement()));
-		double aa1 = Math.atan2(vda.getY(), vda.getX());
+		return NarrowPhase.collides(e1, e2, new Contact());
+	}
+	
+	/**
+	 * Checks whether the two {@code EntityPhysics} collide at all, using the given {@code MutableVector2}s as
+	 * scratch space instead of creating new {@code Vector2}s
+	 * <p>
+	 * This is the general test, which works for any pair of {@code Hitbox}es by checking whether the furthest
+	 * point of each {@code Hitbox} towards the other lies inside the other. It is only approximate, so
+	 * {@code NarrowPhase} only falls back to it for shapes it has no exact test for.
+	 * 
+	 * @param e1
+	 *            An {@code EntityPhysics}
+	 * @param e2
+	 *            An {@code EntityPhysics}
+	 * @param va1
+	 *            Scratch space
+	 * @param va2
+	 *            More scratch space
+	 * @return Whether the two hitboxes of the {@code EntityPhysics}s collide
+	 */
+	public static boolean collides(EntityPhysics e1, EntityPhysics e2, MutableVector2 va1, MutableVector2 va2) {
+		double newX1 = e1.getNewX(), newY1 = e1.getNewY();
+		double newX2 = e2.getNewX(), newY2 = e2.getNewY();
+		double vdaX = newX1 + e1.hitbox.getCenterX() - (newX2 + e2.hitbox.getCenterX());
+		double vdaY = newY1 + e1.hitbox.getCenterY() - (newY2 + e2.hitbox.getCenterY());
+		double aa1 = atan2(vdaY, vdaX);
 		double aa2 = aa1 + Math.PI;
-		Vector2 va1 = e1.hitbox.getFurthestAtAngle(aa2).plus(e1.newp).minus(e2.newp);
-		Vector2 va2 = e2.hitbox.getFurthestAtAngle(aa1).plus(e2.newp).minus(e1.newp);
+		e1.hitbox.getFurthestAtAngle(aa2, va1);
+		e2.hitbox.getFurthestAtAngle(aa1, va2);
 		
 //		System.out.println(e1 + "\t" + e2);
 //		System.out.println(aa1);
 
 //		boolean collides = overlaps(vb1.minus(vb2), va1.minus(va2));
-		boolean collides = e1.hitbox.pointLiesInsideHitbox(va2) && e2.hitbox.pointLiesInsideHitbox(va1);
+		boolean collides = e1.hitbox.pointLiesInsideHitbox(va2.x + newX2 - newX1, va2.y + newY2 - newY1)
+				&& e2.hitbox.pointLiesInsideHitbox(va1.x + newX1 - newX2, va1.y + newY1 - newY2);
 		return collides;
 	}
 	
@@ -254,30 +440,40 @@ public abstract class Hitbox implements Serializable {
 			this.radY = sizeY / 2;
 		}
 		
+		@Override
+		public int getShapeType() {
+			return SHAPE_RECTANGLE;
+		}
+		
 		@Override
 		public Vector2 getHitboxVectorAtAngle(double angle) {
-			double critical = Math.atan(this.radY / this.radX);
-			double tan = Math.tan(angle);
+			return this.getHitboxVectorAtAngle(angle, new MutableVector2()).toVector2();
+		}
+		
+		@Override
+		public MutableVector2 getHitboxVectorAtAngle(double angle, MutableVector2 dest) {
+			double critical = atan(this.radY / this.radX);
+			double tan = tan(angle);
 			// Be dumb and check chase by case
 			if (angle == critical) {
-				return Vector2.of(this.radX, this.radY);
+				return dest.set(this.radX, this.radY);
 			} else if (angle == Math.PI - critical) {
-				return Vector2.of(-this.radX, this.radY);
+				return dest.set(-this.radX, this.radY);
 			} else if (angle == Math.PI + critical) {
-				return Vector2.of(-this.radX, -this.radY);
+				return dest.set(-this.radX, -this.radY);
 			} else if (angle == 2 * Math.PI - critical) {
-				return Vector2.of(this.radX, -this.radY);
+				return dest.set(this.radX, -this.radY);
 			}
 			if (angle > critical && angle < Math.PI - critical) {
-				return Vector2.of(this.radY / tan, this.radY);
+				return dest.set(this.radY / tan, this.radY);
 			} else if (angle > Math.PI - critical && angle < Math.PI + critical) {
-				return Vector2.of(-this.radX, -this.radX * tan);
+				return dest.set(-this.radX, -this.radX * tan);
 			} else if (angle > Math.PI + critical && angle < 2 * Math.PI - critical) {
-				return Vector2.of(-this.radY / tan, -this.radY);
+				return dest.set(-this.radY / tan, -this.radY);
 			} else if (angle > 2 * Math.PI - critical || angle < critical) {
-				return Vector2.of(this.radX, this.radX * tan);
+				return dest.set(this.radX, this.radX * tan);
 			}
-			return Vector2.of(0, 0);
+			return dest.set(0, 0);
 		}
 		
 		@Override
@@ -285,15 +481,39 @@ public abstract class Hitbox implements Serializable {
 			return Vector2.of(this.radX, this.radY);
 		}
 		
+		@Override
+		public double getCenterX() {
+			return this.radX;
+		}
+		
+		@Override
+		public double getCenterY() {
+			return this.radY;
+		}
+		
+		@Override
+		public double getHalfWidth() {
+			return this.radX;
+		}
+		
+		@Override
+		public double getHalfHeight() {
+			return this.radY;
+		}
+		
 		@Override
 		public boolean pointLiesInsideHitbox(Vector2 point) {
-			return (point.getX() <= this.sizeX && point.getX() >= 0)
-					&& (point.getY() <= this.sizeY && point.getY() >= 0);
+			return this.pointLiesInsideHitbox(point.getX(), point.getY());
+		}
+		
+		@Override
+		public boolean pointLiesInsideHitbox(double x, double y) {
+			return (x <= this.sizeX && x >= 0) && (y <= this.sizeY && y >= 0);
 		}
 		
 		@Override
 		public double getHitboxTangentAtAngle(double angle) {
-			double critical = Math.atan(this.radY / this.radX);
+			double critical = atan(this.radY / this.radX);
 			// Be dumb and check chase by case
 			if (angle >= critical && angle < Math.PI - critical) {
 				return 0;
@@ -309,7 +529,7 @@ public abstract class Hitbox implements Serializable {
 		
 		@Override
 		public double getHitboxGradientAtAngle(double angle) {
-			double critical = Math.atan(this.radY / this.radX);
+			double critical = atan(this.radY / this.radX);
 			// Be dumb and check chase by case
 			if (angle >= critical && angle < Math.PI - critical) {
 				return Math.PI / 2;
@@ -342,9 +562,19 @@ public abstract class Hitbox implements Serializable {
 			this.circleRadius = rad;
 		}
 		
+		@Override
+		public int getShapeType() {
+			return SHAPE_CIRCLE;
+		}
+		
 		@Override
 		public Vector2 getHitboxVectorAtAngle(double angle) {
-			return Vector2.ofPolar(angle, this.circleRadius);
+			return this.getHitboxVectorAtAngle(angle, new MutableVector2()).toVector2();
+		}
+		
+		@Override
+		public MutableVector2 getHitboxVectorAtAngle(double angle, MutableVector2 dest) {
+			return dest.set(cos(angle) * this.circleRadius, sin(angle) * this.circleRadius);
 		}
 		
 		@Override
@@ -352,10 +582,26 @@ public abstract class Hitbox implements Serializable {
 			return Vector2.of(this.circleRadius, this.circleRadius);
 		}
 		
+		@Override
+		public double getCenterX() {
+			return this.circleRadius;
+		}
+		
+		@Override
+		public double getCenterY() {
+			return this.circleRadius;
+		}
+		
 		@Override
 		public boolean pointLiesInsideHitbox(Vector2 point) {
-			double dist = point.displacement(this.getCenterDisplacement());
-			return dist <= this.circleRadius && dist >= 0;
+			return this.pointLiesInsideHitbox(point.getX(), point.getY());
+		}
+		
+		@Override
+		public boolean pointLiesInsideHitbox(double x, double y) {
+			double dx = x - this.circleRadius;
+			double dy = y - this.circleRadius;
+			return dx * dx + dy * dy <= this.circleRadius * this.circleRadius;
 		}
 		
 		@Override
@@ -369,8 +615,209 @@ public abstract class Hitbox implements Serializable {
 		}
 	}
 	
+	/**
+	 * A convex polygonal Hitbox
+	 * <p>
+	 * The vertices are relative to the upper-left corner, like every other {@code Hitbox}, and may be given in
+	 * either winding order. The outward normal of every edge is worked out once, in the constructor, so that
+	 * {@code NarrowPhase} can use them directly as separating axes.
+	 * 
+	 * @author Kevin
+	 */
+	public static class HitboxPolygon extends Hitbox {
+		
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The vertices of the polygon, relative to the upper-left corner
+		 */
+		public final double[] vertX, vertY;
+		
+		/**
+		 * The outward unit normal of every edge. Edge {@code i} goes from vertex {@code i} to vertex
+		 * {@code i + 1}.
+		 */
+		public final double[] normalX, normalY;
+		
+		/**
+		 * The center of the box around the polygon
+		 */
+		public final double centerX, centerY;
+		
+		/**
+		 * Half the size of the box around the polygon
+		 */
+		public final double radX, radY;
+		
+		/**
+		 * Constructs a convex polygon hitbox
+		 * 
+		 * @param coords
+		 *            The X and Y of every vertex in turn, i.e. {@code x0, y0, x1, y1, ...}
+		 */
+		public HitboxPolygon(double... coords) {
+			super(0);
+			if (coords.length < 6 || coords.length % 2 != 0) {
+				throw new IllegalArgumentException("A polygon needs at least three pairs of coordinates");
+			}
+			int n = coords.length / 2;
+			this.vertX = new double[n];
+			this.vertY = new double[n];
+			this.normalX = new double[n];
+			this.normalY = new double[n];
+			double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			double avgX = 0, avgY = 0;
+			for (int i = 0; i < n; i++) {
+				this.vertX[i] = coords[2 * i];
+				this.vertY[i] = coords[2 * i + 1];
+				minX = Math.min(minX, this.vertX[i]);
+				minY = Math.min(minY, this.vertY[i]);
+				maxX = Math.max(maxX, this.vertX[i]);
+				maxY = Math.max(maxY, this.vertY[i]);
+				avgX += this.vertX[i] / n;
+				avgY += this.vertY[i] / n;
+			}
+			this.centerX = (minX + maxX) / 2;
+			this.centerY = (minY + maxY) / 2;
+			this.radX = (maxX - minX) / 2;
+			this.radY = (maxY - minY) / 2;
+			double turn = 0;
+			for (int i = 0; i < n; i++) {
+				int j = (i + 1) % n, k = (i + 2) % n;
+				double ex = this.vertX[j] - this.vertX[i], ey = this.vertY[j] - this.vertY[i];
+				double length = Math.sqrt(ex * ex + ey * ey);
+				if (length == 0) {
+					throw new IllegalArgumentException("A polygon can't have two vertices in the same place");
+				}
+				// Perpendicular to the edge, facing away from the average of the vertices
+				double nx = ey / length, ny = -ex / length;
+				if (nx * (avgX - this.vertX[i]) + ny * (avgY - this.vertY[i]) > 0) {
+					nx = -nx;
+					ny = -ny;
+				}
+				this.normalX[i] = nx;
+				this.normalY[i] = ny;
+				// Every corner has to turn the same way
+				double cross = ex * (this.vertY[k] - this.vertY[j]) - ey * (this.vertX[k] - this.vertX[j]);
+				if (cross * turn < 0) {
+					throw new IllegalArgumentException("A polygon hitbox has to be convex");
+				}
+				if (cross != 0) {
+					turn = cross;
+				}
+				double dx = this.vertX[i] - this.centerX, dy = this.vertY[i] - this.centerY;
+				this.circleRadius = Math.max(this.circleRadius, Math.sqrt(dx * dx + dy * dy));
+			}
+		}
+		
+		@Override
+		public int getShapeType() {
+			return SHAPE_POLYGON;
+		}
+		
+		/**
+		 * Finds the edge that a ray from the center at the given angle goes through
+		 * 
+		 * @param cos
+		 *            The cosine of the angle
+		 * @param sin
+		 *            The sine of the angle
+		 * @return The index of the edge
+		 */
+		private int edgeAtAngle(double cos, double sin) {
+			int edge = 0;
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < this.vertX.length; i++) {
+				double facing = this.normalX[i] * cos + this.normalY[i] * sin;
+				if (facing > 0) {
+					double distance = (this.normalX[i] * (this.vertX[i] - this.centerX)
+							+ this.normalY[i] * (this.vertY[i] - this.centerY)) / facing;
+					if (distance < nearest) {
+						nearest = distance;
+						edge = i;
+					}
+				}
+			}
+			return edge;
+		}
+		
+		@Override
+		public Vector2 getHitboxVectorAtAngle(double angle) {
+			return this.getHitboxVectorAtAngle(angle, new MutableVector2()).toVector2();
+		}
+		
+		@Override
+		public MutableVector2 getHitboxVectorAtAngle(double angle, MutableVector2 dest) {
+			double cos = cos(angle), sin = sin(angle);
+			int i = this.edgeAtAngle(cos, sin);
+			double distance = (this.normalX[i] * (this.vertX[i] - this.centerX)
+					+ this.normalY[i] * (this.vertY[i] - this.centerY))
+					/ (this.normalX[i] * cos + this.normalY[i] * sin);
+			return dest.set(cos * distance, sin * distance);
+		}
+		
+		@Override
+		public Vector2 getCenterDisplacement() {
+			return Vector2.of(this.centerX, this.centerY);
+		}
+		
+		@Override
+		public double getCenterX() {
+			return this.centerX;
+		}
+		
+		@Override
+		public double getCenterY() {
+			return this.centerY;
+		}
+		
+		@Override
+		public double getHalfWidth() {
+			return this.radX;
+		}
+		
+		@Override
+		public double getHalfHeight() {
+			return this.radY;
+		}
+		
+		@Override
+		public boolean pointLiesInsideHitbox(Vector2 point) {
+			return this.pointLiesInsideHitbox(point.getX(), point.getY());
+		}
+		
+		@Override
+		public boolean pointLiesInsideHitbox(double x, double y) {
+			for (int i = 0; i < this.vertX.length; i++) {
+				if (this.normalX[i] * (x - this.vertX[i]) + this.normalY[i] * (y - this.vertY[i]) > 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		@Override
+		public double getHitboxTangentAtAngle(double angle) {
+			return clampAngle2(this.getHitboxGradientAtAngle(angle) + Math.PI / 2);
+		}
+		
+		@Override
+		public double getHitboxGradientAtAngle(double angle) {
+			int i = this.edgeAtAngle(cos(angle), sin(angle));
+			return clampAngle(atan2(this.normalY[i], this.normalX[i]));
+		}
+	}
+	
 	/**
 	 * A {@code Hitbox} based on an {@code ISpriteProvider}
+	 * <p>
+	 * The shape comes from the pixels of the {@code Sprite}, which a {@linkplain Engine#headless headless}
+	 * server never decodes, so a {@code HitboxSprite} can't be made there.
 	 * 
 	 * @author Kevin
 	 */
@@ -384,50 +831,112 @@ public abstract class Hitbox implements Serializable {
 		
 		public ISpriteProvider sprite;
 		
+		/**
+		 * Creates a new {@code HitboxSprite} from the given {@code ISpriteProvider}
+		 * 
+		 * @param sprite
+		 *            The {@code ISpriteProvider}
+		 * @throws IllegalStateException
+		 *             If the {@code ISpriteProvider} has no {@code Sprite}, such as on a
+		 *             {@linkplain Engine#headless headless} server
+		 */
 		public HitboxSprite(ISpriteProvider sprite) {
-			super(Math.sqrt(sprite.getSprite().height * sprite.getSprite().height
-					+ sprite.getSprite().width * sprite.getSprite().width) / 2);
+			super(radius(checkSprite(sprite)));
 			this.sprite = sprite;
+			sprite.getSprite().buildCollisionMasks();
 		}
 		
-		@Override
-		public Vector2 getHitboxVectorAtAngle(double angle) {
-			BufferedImage img = this.sprite.getSprite().getImage();
-			Vector2 base = new HitboxRectangle(img.getWidth(), img.getHeight()).getFurthestAtAngle(angle);
-			Vector2 check = base;
-			double maxDisp = check.displacement(Vector2.ZERO);
-			for (double d = maxDisp; d >= -maxDisp; d--) {
-				check = Vector2.ofPolar(angle, d);
-				if (this.pointLiesInsideHitbox(check)) {
-					return check;
+		/**
+		 * Gets the {@code Sprite} of the given {@code ISpriteProvider}, making sure that there is one
+		 * 
+		 * @throws IllegalStateException
+		 *             If there is no {@code Sprite}
+		 */
+		private static Sprite checkSprite(ISpriteProvider sprite) {
+			Sprite current = sprite.getSprite();
+			if (current == null) {
+				if (Engine.headless) {
+					throw new IllegalStateException("HitboxSprite can't be used on a headless server, which "
+							+ "doesn't load Sprites. Use a HitboxPolygon or another Hitbox shape instead.");
 				}
+				throw new IllegalStateException("HitboxSprite needs a Sprite, but "
+						+ sprite.getClass().getSimpleName() + " has none. Was its image file found?");
 			}
-			return check;
+			return current;
+		}
+		
+		private static double radius(Sprite sprite) {
+			return Math.sqrt(sprite.height * sprite.height + sprite.width * sprite.width) / 2;
+		}
+		
+		/**
+		 * Gets the {@code CollisionMask} of the current {@code Sprite}, which the {@code Sprite} caches. For
+		 * an animated {@code Sprite}, it is the one shown at the game time of the {@code Level} of the
+		 * {@code Entity}, if the {@code ISpriteProvider} is one.
+		 * 
+		 * @return The {@code CollisionMask}
+		 */
+		public CollisionMask getMask() {
+			Sprite current = this.sprite.getSprite();
+			if (this.sprite instanceof Entity) {
+				Level level = ((Entity) this.sprite).level;
+				if (level != null && level.game != null) {
+					return current.getCollisionMask(level.game.gameTime);
+				}
+			}
+			return current.getCollisionMask();
+		}
+		
+		@Override
+		public int getShapeType() {
+			return SHAPE_SPRITE;
+		}
+		
+		@Override
+		public Vector2 getHitboxVectorAtAngle(double angle) {
+			return this.getHitboxVectorAtAngle(angle, new MutableVector2()).toVector2();
+		}
+		
+		@Override
+		public MutableVector2 getHitboxVectorAtAngle(double angle, MutableVector2 dest) {
+			double extent = this.getMask().getExtent(angle);
+			return dest.set(cos(angle) * extent, sin(angle) * extent);
 		}
 		
 		@Override
 		public Vector2 getCenterDisplacement() {
-			BufferedImage img = this.sprite.getSprite().getImage();
-			return Vector2.of(img.getWidth() / 2, img.getHeight() / 2);
+			CollisionMask mask = this.getMask();
+			return Vector2.of(mask.centerX, mask.centerY);
+		}
+		
+		@Override
+		public double getCenterX() {
+			return this.getMask().centerX;
+		}
+		
+		@Override
+		public double getCenterY() {
+			return this.getMask().centerY;
 		}
 		
 		@Override
 		public boolean pointLiesInsideHitbox(Vector2 point) {
-			BufferedImage img = this.sprite.getSprite().getImage();
-			if (!new HitboxRectangle(img.getWidth(), img.getHeight()).pointLiesInsideHitbox(point)) {
-				return false;
-			}
-			return img.getRGB((int) point.getX(), (int) point.getY()) != 0;
+			return this.pointLiesInsideHitbox(point.getX(), point.getY());
+		}
+		
+		@Override
+		public boolean pointLiesInsideHitbox(double x, double y) {
+			return this.getMask().contains(x, y);
 		}
 		
 		@Override
 		public double getHitboxTangentAtAngle(double angle) {
-			return 0;
+			return clampAngle2(this.getMask().getGradient(angle) + Math.PI / 2);
 		}
 		
 		@Override
 		public double getHitboxGradientAtAngle(double angle) {
-			return 0;
+			return this.getMask().getGradient(angle);
 		}
 		
 	}
@@ -1,11 +1,15 @@
 package engine.physics.level;
 
-import engine.Engine;
+import java.util.Arrays;
+
 import engine.Game;
 import engine.level.Entity;
 import engine.level.Level;
-import engine.networknio.packet.PacketEntityPosition;
+import engine.networknio.ConnectionList;
+import engine.networknio.packet.PacketEntityPositions;
 import engine.physics.Physics;
+import engine.physics.broadphase.BroadPhase;
+import engine.physics.broadphase.SpatialHash;
 import engine.physics.entity.EntityPhysics;
 
 /**
@@ -26,14 +30,74 @@ public abstract class LevelPhysics extends Level {
 	 */
 	public Physics physics;
 	
+	/**
+	 * The default amount of ticks that it takes for every {@code EntityPhysics} to be sent again
+	 * 
+	 * @see positionRefreshTicks
+	 */
+	public static final int DEFAULT_POSITION_REFRESH_TICKS = 60;
+	
+	/**
+	 * The amount of ticks that it takes for every {@code EntityPhysics} to be sent to clients again, whether it
+	 * moved or not, in case the UDP datagram with its last position was lost. A few of them are sent every
+	 * tick, rather than all at once. Turned off if this is not positive.
+	 */
+	public int positionRefreshTicks = DEFAULT_POSITION_REFRESH_TICKS;
+	
+	/**
+	 * Which of the {@code EntityPhysics} are sent again this tick, counting up to
+	 * {@link #positionRefreshTicks}
+	 */
+	private int refreshPhase;
+	
+	/**
+	 * The ID of the {@code EntityPhysics} whose position was last sent from each slot, or -1 if none was.
+	 * Since slots change when {@code EntityPhysics} are removed, a position is only compared to the last one
+	 * sent if the IDs match.
+	 */
+	private transient int[] sentIds;
+	
+	/**
+	 * The positions last sent from each slot, in the fixed-point of {@code PacketEntityPositions}
+	 */
+	private transient int[] sentX, sentY;
+	
 	public LevelPhysics(Game game) {
-		super(game);
-		this.physics = new Physics();
+		this(game, new SpatialHash());
 	}
 	
 	public LevelPhysics(Game game, int w, int h) {
+		this(game, w, h, new SpatialHash());
+	}
+	
+	/**
+	 * Creates a new {@code LevelPhysics} whose {@code Physics} uses the given {@code BroadPhase}
+	 * 
+	 * @param game
+	 *            The {@code Game} instance
+	 * @param broadPhase
+	 *            The {@code BroadPhase} strategy that suits this level best
+	 */
+	public LevelPhysics(Game game, BroadPhase broadPhase) {
+		super(game);
+		this.physics = new Physics(broadPhase);
+	}
+	
+	/**
+	 * Creates a new {@code LevelPhysics} whose {@code Physics} uses the given {@code BroadPhase}
+	 * 
+	 * @param game
+	 *            The {@code Game} instance
+	 * @param w
+	 *            The width of the level
+	 * @param h
+	 *            The height of the level
+	 * @param broadPhase
+	 *            The {@code BroadPhase} strategy that suits this level best
+	 */
+	public LevelPhysics(Game game, int w, int h, BroadPhase broadPhase) {
 		super(game, w, h);
-		this.physics = new Physics();
+		this.physics = new Physics(broadPhase);
 	}
 	
 	@Override
@@ -46,25 +110,93 @@ public abstract class LevelPhysics extends Level {
 	public void tick() {
 		this.physics.tick();
 		this.tickLevel();
-		for (EntityPhysics e : this.physics.entities) {
-			Engine.getServer().connections.sendUDPPacketAll(new PacketEntityPosition(e));
+		this.sendPositions();
+	}
+	
+	/**
+	 * Sends the positions of the {@code EntityPhysics} that moved to every client, packed into as few
+	 * {@code PacketEntityPositions} as fit in UDP datagrams
+	 * <p>
+	 * Positions are compared to the last ones sent after being rounded to
+	 * {@link PacketEntityPositions#PRECISION}, so an {@code EntityPhysics} that didn't move, or moved less than
+	 * that, is skipped. Every {@link #positionRefreshTicks} ticks, each one is sent anyways.
+	 */
+	protected void sendPositions() {
+		ConnectionList connections = this.game.server.connections;
+		int precision = PacketEntityPositions.PRECISION;
+		int capacity = PacketEntityPositions.getDatagramCapacity();
+		int period = this.positionRefreshTicks;
+		if (period > 0 && ++this.refreshPhase >= period) {
+			this.refreshPhase = 0;
+		}
+		int count = this.physics.entities.size();
+		if (this.sentIds == null || this.sentIds.length < count) {
+			int size = Math.max(16, Integer.highestOneBit(count) << 1);
+			int old = this.sentIds == null ? 0 : this.sentIds.length;
+			this.sentIds = this.sentIds == null ? new int[size] : Arrays.copyOf(this.sentIds, size);
+			this.sentX = this.sentX == null ? new int[size] : Arrays.copyOf(this.sentX, size);
+			this.sentY = this.sentY == null ? new int[size] : Arrays.copyOf(this.sentY, size);
+			Arrays.fill(this.sentIds, old, size, -1);
+		}
+		PacketEntityPositions batch = null;
+		for (int slot = 0; slot < count; slot++) {
+			EntityPhysics e = this.physics.entities.get(slot);
+			boolean refresh = period > 0 && slot % period == this.refreshPhase;
+			int x = PacketEntityPositions.quantize(this.physics.posX[slot], precision);
+			int y = PacketEntityPositions.quantize(this.physics.posY[slot], precision);
+			if (!refresh && this.sentIds[slot] == e.id && x == this.sentX[slot] && y == this.sentY[slot]) {
+				continue;
+			}
+			this.sentIds[slot] = e.id;
+			this.sentX[slot] = x;
+			this.sentY[slot] = y;
+			if (batch == null) {
+				batch = new PacketEntityPositions(precision, capacity);
+			}
+			batch.add(e.id, x, y);
+			if (batch.isFull()) {
+				connections.sendUDPPacketAll(batch);
+				batch = null;
+			}
+		}
+		if (batch != null) {
+			connections.sendUDPPacketAll(batch);
 		}
 	}
 	
 	@Override
 	public int addEntity(Entity e) {
-		this.physics.entities.add((EntityPhysics) e);
+		this.physics.addEntity((EntityPhysics) e);
 		return e.id;
 	}
 	
 	@Override
 	public void removeEntity(Entity e) {
-		this.physics.entities.remove(e);
+		this.physics.removeEntity((EntityPhysics) e);
+	}
+	
+	@Override
+	public void shutdown() {
+		this.physics.shutdown();
 	}
 	
 	@Override
-	public Entity getEntity(int i) {
-		return this.physics.entities.get(i);
+	public void snapshotPositions() {
+		for (int i = 0; i < this.physics.entities.size(); i++) {
+			this.physics.entities.get(i).snapshotPosition();
+		}
+	}
+	
+	/**
+	 * Retrieves the given {@code EntityPhysics} based on its ID
+	 * 
+	 * @param id
+	 *            The {@code EntityPhysics}'s ID
+	 * @return The {@code EntityPhysics}, or {@code null} if there is none with that ID
+	 */
+	@Override
+	public Entity getEntity(int id) {
+		return this.physics.getEntity(id);
 	}
 	
 }
@@ -5,6 +5,7 @@ import engine.client.graphics.sprite.Sprite;
 import engine.geom2d.Vector2;
 import engine.physics.Physics;
 import engine.physics.entity.EntityPhysics;
+import engine.physics.entity.ForceAccumulator;
 import engine.physics.entity.Hitbox;
 import engine.physics.level.LevelPhysics;
 
@@ -14,6 +15,11 @@ public class EntityPhysicsPlatformer extends EntityPhysics {
 	
 	public Vector2 forceNormal;
 	
+	/**
+	 * The {@code Handle} of the normal force, which is set to zero while not on the ground
+	 */
+	public ForceAccumulator.Handle normal;
+	
 	/**
 	 * 
 	 */
@@ -23,14 +29,15 @@ public class EntityPhysicsPlatformer extends EntityPhysics {
 		super(l, x, y, hb, m, sprite);
 		this.forceGravity = Physics.gravitationalForce(this);
 		this.forceNormal = Physics.gravitationalForce(this).scale(-1);
+		this.normal = this.exertForce(0, 0);
 	}
 	
 	@Override
 	public void tickEntity1() {
 		if (this.onGround()) {
-			this.exertForce(this.forceNormal);
+			this.normal.set(this.forceNormal);
 		} else {
-			this.stopExertingForce(this.forceNormal);
+			this.normal.set(0, 0);
 		}
 	}
 	
@@ -44,7 +51,7 @@ public class EntityPhysicsPlatformer extends EntityPhysics {
 		for (EntityPhysics e : ((LevelPhysics) this.level).physics.entities) {
 			if (e instanceof Platform) {
 				if (e.hitbox.pointLiesInsideHitbox(
-						this.hitbox.getFurthestAtAngle(3 * Math.PI / 2).plus(this.pos))) {
+						this.hitbox.getFurthestAtAngle(3 * Math.PI / 2).plus(this.getPos()))) {
 					return true;
 				}
 			}
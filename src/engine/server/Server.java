@@ -1,10 +1,14 @@
 package engine.server;
 
 import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
-import engine.Engine;
 import engine.Game;
+import engine.Player;
+import engine.RoomManager;
 import engine.event.EventBus;
 import engine.event.SubscribeEvent;
 import engine.event.game.ConnectionEstablishedEvent;
@@ -12,6 +16,7 @@ import engine.event.game.TickEvent;
 import engine.input.Action;
 import engine.networknio.ConnectionList;
 import engine.networknio.ConnectionNIO;
+import engine.networknio.packet.PacketConnection;
 import engine.networknio.packet.PacketNIO;
 import engine.networknio.packet.PacketPlayer;
 
@@ -20,6 +25,9 @@ import engine.networknio.packet.PacketPlayer;
  * <p>
  * All {@code Game}s are based on the {@code Client} and {@code Server} communication implementation. We
  * learned from Notch's mistakes.
+ * <p>
+ * A {@code Server} either listens on its own port, or is one of many rooms of a {@code RoomManager}, which
+ * shares a single port, {@code NIOReactor} and set of worker threads between all of its rooms.
  * 
  * @author Kevin
  */
@@ -33,13 +41,16 @@ public abstract class Server {
 	
 	/**
 	 * The {@code EventBus} used by the {@code Server} to process {@code GameEvent}s
+	 * <p>
+	 * The rooms of a {@code RoomManager} aren't registered to it, so that an {@code Event} of one room isn't
+	 * handed to every other room. They handle their own {@code ConnectionEstablishedEvent}s directly.
 	 */
 	public static EventBus SERVER_BUS = new EventBus("Server Bus");
 	
 	/**
-	 * The connection listener thread
+	 * The connection listener
 	 */
-	private ServerNIOListenThread listener;
+	private ServerNIOListener listener;
 	
 	/**
 	 * The Game instance
@@ -56,6 +67,22 @@ public abstract class Server {
 	 */
 	public int minConnects;
 	
+	/**
+	 * The {@code RoomManager} that this {@code Server} is a room of, or {@code null} if it runs on its own
+	 */
+	public RoomManager rooms;
+	
+	/**
+	 * The game time, in ticks, that this {@code Server} has been ticked for
+	 */
+	public long gameTime;
+	
+	/**
+	 * The connections that have been handed to this {@code Server} by another thread, and are accepted at the
+	 * start of the next tick
+	 */
+	private Queue<SocketChannel> pendingConnections = new ConcurrentLinkedQueue<SocketChannel>();
+	
 	/**
 	 * Creates a new Server that starts automatically
 	 * 
@@ -80,25 +107,45 @@ public abstract class Server {
 	 */
 	public Server(Game g, int port, int minConnects) {
 		this.game = g;
+		this.game.server = this;
 		this.minConnects = minConnects;
 		this.connections = new ConnectionList();
 		Server.SERVER_BUS.register(this);
-		this.startListenThread(port);
+		this.startListener(port);
+	}
+	
+	/**
+	 * Creates a new Server as a room of the given {@code RoomManager}, which accepts its connections and
+	 * reads from them
+	 * 
+	 * @param g
+	 *            A {@code Game} instance
+	 * @param minConnects
+	 *            The minimum number of connections before the game starts
+	 * @param rooms
+	 *            The {@code RoomManager}
+	 */
+	public Server(Game g, int minConnects, RoomManager rooms) {
+		this.game = g;
+		this.game.server = this;
+		this.minConnects = minConnects;
+		this.rooms = rooms;
+		this.connections = new ConnectionList(rooms.getReactor());
 	}
 	
 	/**
-	 * Starts the server's listener thread on the given port
+	 * Starts listening for connections on the given port, on the {@code NIOReactor} of the
+	 * {@code ConnectionList}
 	 * 
 	 * @param port
 	 *            The port
 	 */
-	public void startListenThread(int port) {
+	public void startListener(int port) {
 		try {
-			this.listener = new ServerNIOListenThread(this, port);
+			this.listener = new ServerNIOListener(this, port, this.connections.getReactor());
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		this.listener.start();
 	}
 	
 	/**
@@ -107,7 +154,9 @@ public abstract class Server {
 	 * Automatically calls {@code Game}'s tick method, so there is no need to call it again.
 	 */
 	public void tick() {
-		this.game.gameTime = Engine.getGameTimeServer();
+		this.acceptPendingConnections();
+		this.disconnectClosedConnections();
+		this.game.gameTime = ++this.gameTime;
 		this.game.temporaryEvents.post(new TickEvent(this.game.gameTime));
 		this.game.tick(this);
 		for (int i = 0; i < this.connections.getList().size(); i++) {
@@ -137,14 +186,120 @@ public abstract class Server {
 	 */
 	protected abstract void tickServer();
 	
+	/**
+	 * Hands a {@code Client} that has just connected to this {@code Server}, to be
+	 * {@linkplain #acceptConnection(SocketChannel) accepted} at the start of the next tick. Used by the
+	 * {@code RoomManager}, so that the state of a room is only ever changed by the thread ticking it.
+	 * 
+	 * @param s
+	 *            The {@code SocketChannel} of the {@code Client}
+	 */
+	public void queueConnection(SocketChannel s) {
+		this.pendingConnections.add(s);
+	}
+	
+	/**
+	 * Accepts every connection that has been {@linkplain #queueConnection(SocketChannel) queued}
+	 */
+	private void acceptPendingConnections() {
+		SocketChannel s;
+		while ((s = this.pendingConnections.peek()) != null) {
+			try {
+				this.acceptConnection(s);
+			} catch (IOException e) {
+				// Only this connection failed
+				e.printStackTrace();
+				closeQuietly(s);
+			} finally {
+				// Only removed afterwards, so that it is always counted by getConnectionCount()
+				this.pendingConnections.poll();
+			}
+		}
+	}
+	
+	/**
+	 * Disconnects every {@code Player} whose connection has shut down since the last tick, such as after its
+	 * channel failed on the {@code NIOReactor}
+	 */
+	private void disconnectClosedConnections() {
+		for (int i = this.connections.getList().size() - 1; i >= 0; i--) {
+			if (!this.connections.getList().get(i).isRunning()) {
+				Server.logger.info("Connection of player " + i + " has closed, disconnecting them");
+				this.disconnect(i);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of {@code Client}s that are connected, including those that are still
+	 * {@linkplain #queueConnection(SocketChannel) queued}
+	 * 
+	 * @return The number of connections
+	 */
+	public int getConnectionCount() {
+		return this.connections.getList().size() + this.pendingConnections.size();
+	}
+	
 	/**
 	 * Shuts down the server
+	 * <p>
+	 * Connections that were still queued are closed, and the {@code Level} of the {@code Game} is
+	 * {@linkplain engine.level.Level#shutdown() shut down}, so that nothing of it stays registered anywhere.
 	 */
 	public void shutdown() {
 		for (ConnectionNIO conn : this.connections.getList()) {
 			conn.networkShutdown();
 		}
-		this.listener.shutdown();
+		if (this.listener != null) {
+			this.listener.shutdown();
+		}
+		SocketChannel s;
+		while ((s = this.pendingConnections.poll()) != null) {
+			closeQuietly(s);
+		}
+		this.connections.shutdown();
+		if (this.game.level != null) {
+			this.game.level.shutdown();
+		}
+		if (this.rooms == null) {
+			Server.SERVER_BUS.unregister(this);
+		}
+	}
+	
+	/**
+	 * Closes a {@code SocketChannel} that was never accepted
+	 */
+	private static void closeQuietly(SocketChannel s) {
+		try {
+			s.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Accepts a {@code Client} that has connected, giving it a {@code Player} and synchronizing the game data
+	 * 
+	 * @param s
+	 *            The {@code SocketChannel} of the {@code Client}
+	 * @throws IOException
+	 *             If the connection cannot be set up
+	 */
+	public void acceptConnection(SocketChannel s) throws IOException {
+		ConnectionNIO c = new ConnectionNIO(s, "Server-Side");
+		Player p = this.game.getNewPlayerInstance();
+		ConnectionEstablishedEvent event = new ConnectionEstablishedEvent(this.game, c, p);
+		if (this.rooms != null) {
+			// Not registered to the SERVER_BUS
+			this.onPlayerConnect(event);
+		}
+		Server.SERVER_BUS.post(event);
+		this.connections.addToList(c);
+		this.game.players.add(p);
+		c.addToTCPSendQueue(new PacketConnection(p.number));
+		this.synchronizeClientGameData(c);
+		Server.logger.info("Server received connection from " + s.socket().getInetAddress().getHostAddress()
+				+ "! Player ID is " + p.number);
 	}
 	
 	/**
@@ -176,6 +331,10 @@ public abstract class Server {
 	
 	@SubscribeEvent
 	public void onPlayerConnect(ConnectionEstablishedEvent e) {
+		if (e.game != this.game) {
+			// Someone else's room
+			return;
+		}
 		this.connections.sentTCPPacketAllExcept(new PacketPlayer(e.player), e.player.number);
 	}
 	
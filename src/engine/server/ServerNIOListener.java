@@ -0,0 +1,151 @@
+package engine.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import engine.RoomManager;
+import engine.networknio.NIOReactor;
+
+/**
+ * Listens on the server for connection requests from {@code Client}s and enables them to connect to the
+ * server
+ * <p>
+ * The server socket is registered with an {@code NIOReactor}, which accepts connections as they come in
+ * without a thread of its own to block on. For a {@code RoomManager}, a single listener accepts the
+ * connections for every room.
+ * 
+ * @author Kevin
+ */
+public class ServerNIOListener implements NIOReactor.Handler {
+	
+	/**
+	 * The server socket of this listener
+	 */
+	private ServerSocketChannel ssChannel;
+	
+	/**
+	 * The {@code InetAddress} of the socket
+	 */
+	private InetAddress ip;
+	
+	/**
+	 * The port that is open
+	 */
+	private int port;
+	
+	/**
+	 * The {@code Server} instance
+	 */
+	private Server server;
+	
+	/**
+	 * The {@code RoomManager} that picks a room for every connection, if listening for one
+	 */
+	private RoomManager rooms;
+	
+	/**
+	 * Creates a new Listener based on the given {@code Server} and port
+	 * 
+	 * @param s
+	 *            The {@code Server} instance
+	 * @param port
+	 *            The port
+	 * @param reactor
+	 *            The {@code NIOReactor} to accept connections on
+	 * @throws IOException
+	 *             If an I/O exception occurs during socket creation
+	 */
+	public ServerNIOListener(Server s, int port, NIOReactor reactor) throws IOException {
+		this(port);
+		this.server = s;
+		reactor.register(this.ssChannel, SelectionKey.OP_ACCEPT, this);
+	}
+	
+	/**
+	 * Creates a new Listener that accepts connections for the rooms of the given {@code RoomManager}
+	 * 
+	 * @param rooms
+	 *            The {@code RoomManager}
+	 * @param port
+	 *            The port
+	 * @param reactor
+	 *            The {@code NIOReactor} to accept connections on
+	 * @throws IOException
+	 *             If an I/O exception occurs during socket creation
+	 */
+	public ServerNIOListener(RoomManager rooms, int port, NIOReactor reactor) throws IOException {
+		this(port);
+		this.rooms = rooms;
+		reactor.register(this.ssChannel, SelectionKey.OP_ACCEPT, this);
+	}
+	
+	private ServerNIOListener(int port) throws IOException {
+		this.ssChannel = ServerSocketChannel.open();
+		this.port = port;
+		this.ssChannel.socket().setPerformancePreferences(0, 2, 1);
+		this.ssChannel.bind(new InetSocketAddress(port));
+		this.ssChannel.configureBlocking(false);
+		this.ip = this.ssChannel.socket().getInetAddress();
+	}
+	
+	/**
+	 * Accepts every connection that is waiting. Called by the {@code NIOReactor}.
+	 */
+	@Override
+	public void ready(SelectionKey key) throws IOException {
+		SocketChannel s;
+		while ((s = this.ssChannel.accept()) != null) {
+			try {
+				Server.logger.info("Server Accepting Connection on " + s.getLocalAddress());
+				if (this.rooms != null) {
+					this.rooms.queueConnection(s);
+				} else {
+					this.server.acceptConnection(s);
+				}
+			} catch (Exception e) {
+				// Only this connection failed, so keep listening
+				e.printStackTrace();
+				s.close();
+			}
+		}
+	}
+	
+	@Override
+	public void failed(Exception e) {
+		Server.logger.severe("Server stopped listening on port " + this.port + " after an error");
+	}
+	
+	/**
+	 * Retrieves the local {@code InetAddress} of the {@code ServerSocket}
+	 * 
+	 * @return The {@code InetAddress}
+	 */
+	public InetAddress getInetAddress() {
+		return this.ip;
+	}
+	
+	/**
+	 * Retrieves the port that is open
+	 * 
+	 * @return The port
+	 */
+	public int getPort() {
+		return this.port;
+	}
+	
+	/**
+	 * Shuts down the listener
+	 */
+	public void shutdown() {
+		try {
+			this.ssChannel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+}